@@ -27,6 +27,7 @@ package org.asyncflows.apt;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -45,9 +46,18 @@ import java.util.stream.Collectors;
  * The processor for asynchronous annotations.
  */
 @SupportedAnnotationTypes(AsynchronousProxyProcessor.ASYNCHRONOUS_NAME)
+@SupportedOptions(AsynchronousProxyProcessor.METRICS_OPTION)
 public class AsynchronousProxyProcessor extends AbstractProcessor {
 
     public static final String ASYNCHRONOUS_NAME = "org.asyncflows.core.annotations.Asynchronous";
+    /**
+     * The annotation for default methods that are implemented by proxies.
+     */
+    public static final String PROXIED_NAME = "org.asyncflows.core.annotations.Proxied";
+    /**
+     * The option that enables generation of metrics proxies for all interfaces.
+     */
+    public static final String METRICS_OPTION = "org.asyncflows.apt.metrics";
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
@@ -24,6 +24,7 @@
 package org.asyncflows.apt;
 
 import java.io.PrintWriter;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -33,6 +34,11 @@ import java.util.Objects;
 public final class ProxyGenerator {
     private static final String OBJECT = "java.lang.Object";
     private static final String VAT = "org.asyncflows.core.vats.Vat";
+    private static final String CALL_BATCHER = "org.asyncflows.core.util.CallBatcher";
+    private static final String METRICS_SINK = "org.asyncflows.core.metrics.MetricsSink";
+    private static final String METHOD_METRICS = "org.asyncflows.core.metrics.MethodMetrics";
+    private static final String REMOTE_CALLS = "org.asyncflows.core.remote.RemoteCalls";
+    private static final String REMOTE_SKELETON = "org.asyncflows.core.remote.RemoteSkeleton";
     private static final String IDENT = "    ";
     private final PrintWriter writer;
     private final TypeAnalyser type;
@@ -87,11 +93,79 @@ public final class ProxyGenerator {
             write("public " + OBJECT + " apply(" + VAT + " vat, " + OBJECT + " service)").block(() -> {
                 line("return createProxy(vat, (" + type.getInterfaceQName() + ") service);");
             });
+            if (type.isBatching()) {
+                line();
+                createBatchingProxyJDoc();
+                write("public static " + type.getProxyTypeParametersWithBounds() + " "
+                        + type.getInterfaceType() + " createBatchingProxy(" + VAT + " vat, "
+                        + type.getInterfaceType() + " service)").block(() -> {
+                    line("return new " + type.getBatchingProxyName()
+                            + type.getProxyTypeParametersWithoutBounds() + "(vat, service);");
+                });
+            }
+            if (type.isMetrics()) {
+                line();
+                createMetricsProxyJDoc();
+                write("public static " + type.getProxyTypeParametersWithBounds() + " "
+                        + type.getInterfaceType() + " createMetricsProxy(" + METRICS_SINK + " sink, "
+                        + type.getInterfaceType() + " service)").block(() -> {
+                    line("return new " + type.getMetricsProxyName()
+                            + type.getProxyTypeParametersWithoutBounds() + "(sink, service);");
+                });
+            }
+            if (type.isRemote()) {
+                line();
+                createRemoteStubJDoc();
+                write("public static " + type.getProxyTypeParametersWithBounds() + " "
+                        + type.getInterfaceType() + " createRemoteStub(" + REMOTE_CALLS + " calls)").block(() -> {
+                    line("return new " + type.getRemoteStubName()
+                            + type.getProxyTypeParametersWithoutBounds() + "(calls);");
+                });
+                line();
+                line("/**");
+                line(" * Create a remote skeleton that dispatches calls received by transport to the service.");
+                line(" *");
+                line(" * @param service the service");
+                line(" * @return the skeleton");
+                line(" */");
+                write("public static " + REMOTE_SKELETON + " createRemoteSkeleton("
+                        + type.getInterfaceWildcardType() + " service)").block(() -> {
+                    line("return new " + type.getRemoteSkeletonName() + "(service);");
+                });
+            }
             line();
             generateProxyClass();
+            if (type.isBatching()) {
+                line();
+                generateBatchingProxyClass();
+            }
+            if (type.isMetrics()) {
+                line();
+                generateMetricsProxyClass();
+            }
+            if (type.isRemote()) {
+                line();
+                generateRemoteStubClass();
+                line();
+                generateRemoteSkeletonClass();
+            }
         });
     }
 
+    public void createBatchingProxyJDoc() {
+        line("/**");
+        line(" * Create a batching proxy. The calls made from the same caller vat are delivered to the service vat");
+        line(" * in batches (see {@link " + CALL_BATCHER + "}).");
+        line(" *");
+        line(" * @param vat     the vat");
+        line(" * @param service the service to export");
+        for (String typeParameter : type.getTypeParameters()) {
+            line(" * @param <" + typeParameter + "> a type parameter");
+        }
+        line(" * @return the exported service");
+        line(" */");
+    }
+
     public void createProxyJDoc() {
         line("/**");
         line(" * Create a proxy.");
@@ -105,6 +179,32 @@ public final class ProxyGenerator {
         line(" */");
     }
 
+    public void createMetricsProxyJDoc() {
+        line("/**");
+        line(" * Create a metrics proxy. The proxy invokes the service directly in the current vat, and reports");
+        line(" * metrics to the sink (see {@link " + METHOD_METRICS + "}).");
+        line(" *");
+        line(" * @param sink    the metrics sink");
+        line(" * @param service the service to decorate");
+        for (String typeParameter : type.getTypeParameters()) {
+            line(" * @param <" + typeParameter + "> a type parameter");
+        }
+        line(" * @return the decorated service");
+        line(" */");
+    }
+
+    public void createRemoteStubJDoc() {
+        line("/**");
+        line(" * Create a remote stub that sends calls using the transport.");
+        line(" *");
+        line(" * @param calls the transport calls");
+        for (String typeParameter : type.getTypeParameters()) {
+            line(" * @param <" + typeParameter + "> a type parameter");
+        }
+        line(" * @return the remote stub");
+        line(" */");
+    }
+
     private void generateProxyClass() {
         final String typeParametersWithBounds = type.getProxyTypeParametersWithBounds();
         line("@javax.annotation.processing.Generated(\"" + AsynchronousProxyProcessor.class.getName() + "\")");
@@ -134,9 +234,150 @@ public final class ProxyGenerator {
                 line("@Override");
                 write("public " + method.getSignature()).block(() -> {
                     if (method.isPromise()) {
-                        line("return org.asyncflows.core.CoreFlows.aLater(this.vat, () -> this.service." + method.getInvoke() + ");");
+                        line("return org.asyncflows.core.CoreFlows.aLaterOrNow(this.vat, () -> this.service." + method.getInvoke() + ");");
+                    } else if (method.isOneWay()) {
+                        line("org.asyncflows.core.CoreFlows.aOneWayOrNow(this.vat, () -> this.service." + method.getInvoke() + ");");
+                    } else {
+                        line("throw new java.lang.UnsupportedOperationException();");
+                    }
+                });
+            }
+        });
+    }
+
+    private void generateBatchingProxyClass() {
+        final String typeParametersWithBounds = type.getProxyTypeParametersWithBounds();
+        line("@javax.annotation.processing.Generated(\"" + AsynchronousProxyProcessor.class.getName() + "\")");
+        write("private static final class " + type.getBatchingProxyName() + typeParametersWithBounds + " implements " + type.getInterfaceType()).block(() -> {
+            line("private final " + CALL_BATCHER + " batcher;");
+            line("private final " + type.getInterfaceType() + " service;");
+            line();
+            write("private " + type.getBatchingProxyName() + "(final " + VAT + " vat, final "
+                    + type.getInterfaceType() + " service)").block(() -> {
+                line("java.util.Objects.requireNonNull(service);");
+                line("this.batcher = new " + CALL_BATCHER + "(vat);");
+                line("this.service = service;");
+            });
+            line();
+            line("@Override");
+            write("public int hashCode()").block(() ->
+                    line("return System.identityHashCode(service);"));
+            line();
+            line("@Override");
+            write("public boolean equals(" + OBJECT + " o2)").block(() ->
+                    line("return this == o2 "
+                            + "|| (o2 != null && o2.getClass() == getClass() && (("
+                            + type.getBatchingProxyName() + ")o2).service == this.service);"));
+            for (TypeAnalyser.MethodInfo method : type.getAllMethods()) {
+                line();
+                line("@Override");
+                write("public " + method.getSignature()).block(() -> {
+                    if (method.isPromise()) {
+                        line("return this.batcher.aCall(() -> this.service." + method.getInvoke() + ");");
+                    } else if (method.isOneWay()) {
+                        line("this.batcher.aOneWay(() -> this.service." + method.getInvoke() + ");");
+                    } else {
+                        line("throw new java.lang.UnsupportedOperationException();");
+                    }
+                });
+            }
+        });
+    }
+
+    private void generateMetricsProxyClass() {
+        final String typeParametersWithBounds = type.getProxyTypeParametersWithBounds();
+        final List<TypeAnalyser.MethodInfo> methods = type.getAllMethods();
+        line("@javax.annotation.processing.Generated(\"" + AsynchronousProxyProcessor.class.getName() + "\")");
+        write("private static final class " + type.getMetricsProxyName() + typeParametersWithBounds + " implements " + type.getInterfaceType()).block(() -> {
+            line("private final " + type.getInterfaceType() + " service;");
+            for (int i = 0; i < methods.size(); i++) {
+                line("private final " + METHOD_METRICS + " metrics" + i + ";");
+            }
+            line();
+            write("private " + type.getMetricsProxyName() + "(final " + METRICS_SINK + " sink, final "
+                    + type.getInterfaceType() + " service)").block(() -> {
+                line("java.util.Objects.requireNonNull(sink);");
+                line("java.util.Objects.requireNonNull(service);");
+                line("this.service = service;");
+                for (int i = 0; i < methods.size(); i++) {
+                    line("this.metrics" + i + " = sink.method(\"" + type.getInterfaceQName() + "\", \""
+                            + methods.get(i).getName() + "\");");
+                }
+            });
+            line();
+            line("@Override");
+            write("public int hashCode()").block(() ->
+                    line("return System.identityHashCode(service);"));
+            line();
+            line("@Override");
+            write("public boolean equals(" + OBJECT + " o2)").block(() ->
+                    line("return this == o2 "
+                            + "|| (o2 != null && o2.getClass() == getClass() && (("
+                            + type.getMetricsProxyName() + ")o2).service == this.service);"));
+            for (int i = 0; i < methods.size(); i++) {
+                final TypeAnalyser.MethodInfo method = methods.get(i);
+                final String metrics = "this.metrics" + i;
+                line();
+                line("@Override");
+                write("public " + method.getSignature()).block(() -> {
+                    if (method.isPromise()) {
+                        line("final long $start = " + metrics + ".start();");
+                        write("try").block(() ->
+                                line("return " + metrics + ".track($start, this.service." + method.getInvoke() + ");"));
+                        write("catch (final java.lang.Throwable $t)").block(() -> {
+                            line(metrics + ".finish($start, false);");
+                            line("throw $t;");
+                        });
+                    } else if (method.isOneWay()) {
+                        line("final long $start = " + metrics + ".start();");
+                        line("boolean $success = false;");
+                        write("try").block(() -> {
+                            line("this.service." + method.getInvoke() + ";");
+                            line("$success = true;");
+                        });
+                        write("finally").block(() ->
+                                line(metrics + ".finish($start, $success);"));
+                    } else {
+                        line("return this.service." + method.getInvoke() + ";");
+                    }
+                });
+            }
+        });
+    }
+
+    private void generateRemoteStubClass() {
+        final String typeParametersWithBounds = type.getProxyTypeParametersWithBounds();
+        final List<TypeAnalyser.MethodInfo> methods = type.getAllMethods();
+        line("@javax.annotation.processing.Generated(\"" + AsynchronousProxyProcessor.class.getName() + "\")");
+        write("private static final class " + type.getRemoteStubName() + typeParametersWithBounds + " implements " + type.getInterfaceType()).block(() -> {
+            line("private final " + REMOTE_CALLS + " calls;");
+            line();
+            write("private " + type.getRemoteStubName() + "(final " + REMOTE_CALLS + " calls)").block(() -> {
+                line("java.util.Objects.requireNonNull(calls);");
+                line("this.calls = calls;");
+            });
+            line();
+            line("@Override");
+            write("public int hashCode()").block(() ->
+                    line("return System.identityHashCode(calls);"));
+            line();
+            line("@Override");
+            write("public boolean equals(" + OBJECT + " o2)").block(() ->
+                    line("return this == o2 "
+                            + "|| (o2 != null && o2.getClass() == getClass() && (("
+                            + type.getRemoteStubName() + ")o2).calls == this.calls);"));
+            for (int i = 0; i < methods.size(); i++) {
+                final TypeAnalyser.MethodInfo method = methods.get(i);
+                // the explicit array prevents a single array parameter from being passed as the varargs array
+                final String args = ", new " + OBJECT + "[]{" + method.getParameterNames() + "}";
+                final int index = i;
+                line();
+                line("@Override");
+                write("public " + method.getSignature()).block(() -> {
+                    if (method.isPromise()) {
+                        line("return this.calls.call(" + index + args + ");");
                     } else if (method.isOneWay()) {
-                        line("org.asyncflows.core.CoreFlows.aOneWay(this.vat, () -> this.service." + method.getInvoke() + ");");
+                        line("this.calls.send(" + index + args + ");");
                     } else {
                         line("throw new java.lang.UnsupportedOperationException();");
                     }
@@ -145,6 +386,46 @@ public final class ProxyGenerator {
         });
     }
 
+    private void generateRemoteSkeletonClass() {
+        final List<TypeAnalyser.MethodInfo> methods = type.getAllMethods();
+        line("@javax.annotation.processing.Generated(\"" + AsynchronousProxyProcessor.class.getName() + "\")");
+        line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        write("private static final class " + type.getRemoteSkeletonName() + " implements " + REMOTE_SKELETON).block(() -> {
+            line("private final " + type.getInterfaceQName() + " service;");
+            line();
+            write("private " + type.getRemoteSkeletonName() + "(final " + type.getInterfaceQName() + " service)").block(() -> {
+                line("java.util.Objects.requireNonNull(service);");
+                line("this.service = service;");
+            });
+            line();
+            line("@Override");
+            write("public org.asyncflows.core.Promise<?> invoke(final int method, final " + OBJECT + "[] args)").block(() -> {
+                write("switch (method)").block(() -> {
+                    for (int i = 0; i < methods.size(); i++) {
+                        final TypeAnalyser.MethodInfo method = methods.get(i);
+                        if (method.isPromise()) {
+                            line("case " + i + ":");
+                            identLevel++;
+                            line("return this.service." + method.getInvokeFromArray("args") + ";");
+                            identLevel--;
+                        } else if (method.isOneWay()) {
+                            line("case " + i + ":");
+                            identLevel++;
+                            line("this.service." + method.getInvokeFromArray("args") + ";");
+                            line("return null;");
+                            identLevel--;
+                        }
+                    }
+                    line("default:");
+                    identLevel++;
+                    line("throw new java.lang.IllegalArgumentException(\"Unknown method index for "
+                            + type.getInterfaceQName() + ": \" + method);");
+                    identLevel--;
+                });
+            });
+        });
+    }
+
     private ProxyGenerator write(Object value) {
         if (!lineStarted) {
             lineStarted = true;
@@ -24,6 +24,8 @@
 package org.asyncflows.apt;
 
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
@@ -41,8 +43,10 @@ import javax.lang.model.type.TypeVariable;
 import javax.lang.model.type.UnionType;
 import javax.lang.model.type.WildcardType;
 import javax.lang.model.util.TypeKindVisitor8;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -98,6 +102,88 @@ public final class TypeAnalyser {
         return typeElement.getSimpleName() + "AsyncProxy";
     }
 
+    /**
+     * @return the batching proxy name
+     */
+    public String getBatchingProxyName() {
+        return typeElement.getSimpleName() + "BatchingProxy";
+    }
+
+    /**
+     * @return true if batching proxy is requested by the annotation
+     */
+    public boolean isBatching() {
+        return Boolean.TRUE.equals(getAnnotationValue("batching"));
+    }
+
+    /**
+     * @return the metrics proxy name
+     */
+    public String getMetricsProxyName() {
+        return typeElement.getSimpleName() + "MetricsProxy";
+    }
+
+    /**
+     * @return true if metrics proxy is requested by the annotation or by the processor option
+     */
+    public boolean isMetrics() {
+        return Boolean.TRUE.equals(getAnnotationValue("metrics"))
+                || Boolean.parseBoolean(processingEnvironment.getOptions().get(AsynchronousProxyProcessor.METRICS_OPTION));
+    }
+
+    /**
+     * @return the remote stub name
+     */
+    public String getRemoteStubName() {
+        return typeElement.getSimpleName() + "RemoteStub";
+    }
+
+    /**
+     * @return the remote skeleton name
+     */
+    public String getRemoteSkeletonName() {
+        return typeElement.getSimpleName() + "RemoteSkeleton";
+    }
+
+    /**
+     * @return true if remote stub and skeleton are requested by the annotation
+     */
+    public boolean isRemote() {
+        return Boolean.TRUE.equals(getAnnotationValue("remote"));
+    }
+
+    /**
+     * @return the interface type with wildcards instead of type parameters
+     */
+    public String getInterfaceWildcardType() {
+        final int count = typeElement.getTypeParameters().size();
+        return count == 0 ? getInterfaceQName()
+                : getInterfaceQName() + "<" + String.join(", ", Collections.nCopies(count, "?")) + ">";
+    }
+
+    /**
+     * Get value of {@code @Asynchronous} annotation attribute including default values.
+     *
+     * @param name the attribute name
+     * @return the attribute value or null if annotation or attribute is missing
+     */
+    private Object getAnnotationValue(String name) {
+        for (AnnotationMirror mirror : typeElement.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!AsynchronousProxyProcessor.ASYNCHRONOUS_NAME.equals(annotationType.getQualifiedName().toString())) {
+                continue;
+            }
+            final Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                    processingEnvironment.getElementUtils().getElementValuesWithDefaults(mirror);
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(name)) {
+                    return entry.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * @return the proxy type parameters with bounds
      */
@@ -144,18 +230,35 @@ public final class TypeAnalyser {
     }
 
     /**
-     * @return the list of all methods except for object methods.
+     * @return the list of all methods except for object methods, the default methods are included only if they
+     * are annotated with {@code @Proxied}.
      */
     public List<MethodInfo> getAllMethods() {
         return processingEnvironment.getElementUtils().getAllMembers(typeElement).stream()
                 .filter(e -> e instanceof ExecutableElement)
                 .map(e -> (ExecutableElement) e)
-                .filter(e -> !e.isDefault() && !e.getModifiers().contains(Modifier.STATIC)
+                .filter(e -> (!e.isDefault() || isProxied(e)) && !e.getModifiers().contains(Modifier.STATIC)
                         && !e.getEnclosingElement().asType().toString().equals("java.lang.Object"))
                 .map(MethodInfo::new)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Check if the default method is implemented by proxies.
+     *
+     * @param method the method
+     * @return true if the method is annotated with {@code @Proxied}
+     */
+    private static boolean isProxied(ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (AsynchronousProxyProcessor.PROXIED_NAME.equals(annotationType.getQualifiedName().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Type with bounds.
      *
@@ -324,6 +427,13 @@ public final class TypeAnalyser {
             return b.toString();
         }
 
+        /**
+         * @return the method name
+         */
+        public String getName() {
+            return element.getSimpleName().toString();
+        }
+
         /**
          * @return the method invocation with same parameter names as in signature
          */
@@ -336,6 +446,37 @@ public final class TypeAnalyser {
             return b.toString();
         }
 
+        /**
+         * Get the method invocation that takes arguments from array and casts them to erased parameter types.
+         *
+         * @param array the array expression
+         * @return the invocation
+         */
+        public String getInvokeFromArray(String array) {
+            StringBuilder b = new StringBuilder();
+            b.append(element.getSimpleName());
+            b.append('(');
+            for (int i = 0; i < type.getParameterTypes().size(); i++) {
+                if (i > 0) {
+                    b.append(", ");
+                }
+                b.append('(');
+                b.append(processingEnvironment.getTypeUtils().erasure(type.getParameterTypes().get(i)));
+                b.append(") ").append(array).append('[').append(i).append(']');
+            }
+            b.append(')');
+            return b.toString();
+        }
+
+        /**
+         * @return the comma separated parameter names
+         */
+        public String getParameterNames() {
+            return element.getParameters().stream()
+                    .map(p -> p.getSimpleName().toString())
+                    .collect(Collectors.joining(", "));
+        }
+
         /**
          * @return true if promise method
          */
@@ -8,6 +8,8 @@ module org.asyncflows.core {
     exports org.asyncflows.core.context.util;
     exports org.asyncflows.core.data;
     exports org.asyncflows.core.function;
+    exports org.asyncflows.core.metrics;
+    exports org.asyncflows.core.remote;
     exports org.asyncflows.core.streams;
     exports org.asyncflows.core.time;
     exports org.asyncflows.core.trace;
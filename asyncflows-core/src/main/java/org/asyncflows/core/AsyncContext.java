@@ -25,7 +25,7 @@ package org.asyncflows.core;
 
 import static org.asyncflows.core.CoreFlows.aResolver;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -44,6 +44,15 @@ import org.asyncflows.core.vats.Vats;
  * Asynchronous context operations.
  */
 public final class AsyncContext {
+    /**
+     * The stop key for the thread vats, they are never stopped, they are parked between the calls.
+     */
+    private static final Object THREAD_VAT_STOP_KEY = new Object();
+    /**
+     * The vat that is reused by {@link #doAsyncOutcome(ASupplier)} calls on the thread.
+     */
+    private static final ThreadLocal<SingleThreadVat> THREAD_VAT =
+            ThreadLocal.withInitial(() -> new SingleThreadVat(THREAD_VAT_STOP_KEY));
 
     /**
      * Private constructor for utility class.
@@ -53,13 +62,45 @@ public final class AsyncContext {
     }
 
     /**
-     * Execute async operation inside temporary vat and return outcome.
+     * Execute async operation inside the vat that is bound to the current thread and return outcome.
+     * The vat is created on the first call and reused by the later calls on the same thread, so bridging from
+     * synchronous code costs only execution of the operation. The method returns when the operation is resolved,
+     * and the actions that have been already scheduled on the vat are finished. The actions that arrive after
+     * the method returns are discarded like the actions sent to a stopped vat, and the vat that has received such
+     * actions is replaced by a new vat on the next call, so the operations that still reference it could not run
+     * their later actions inside unrelated calls. The operations should not outlive the call, since the action
+     * that arrives only when the next call is running is still executed by it.
      *
      * @param supplier the supplier
      * @param <T>      the result type
      * @return the outcome
      */
     public static <T> Outcome<T> doAsyncOutcome(final ASupplier<T> supplier) {
+        if (Vat.isVatAvailable()) {
+            // the thread vat is already running or some other vat is active, the call fails in the new vat
+            return doAsyncOutcomeInNewVat(supplier);
+        }
+        SingleThreadVat vat = THREAD_VAT.get();
+        if (!vat.unpark()) {
+            vat = new SingleThreadVat(THREAD_VAT_STOP_KEY);
+            vat.unpark();
+            THREAD_VAT.set(vat);
+        }
+        final AtomicReference<Outcome<T>> outcome = new AtomicReference<>();
+        vat.execute(() -> Promise.get(supplier).listen(outcome::set));
+        vat.runUntil(() -> outcome.get() != null);
+        return outcome.get();
+    }
+
+    /**
+     * Execute async operation inside new temporary vat and return outcome. It is used for the nested calls,
+     * when the thread vat could not be used.
+     *
+     * @param supplier the supplier
+     * @param <T>      the result type
+     * @return the outcome
+     */
+    static <T> Outcome<T> doAsyncOutcomeInNewVat(final ASupplier<T> supplier) {
         var outcome = new AtomicReference<Outcome<T>>();
         var stopKey = new Object();
         var vat = new SingleThreadVat(stopKey);
@@ -115,16 +156,29 @@ public final class AsyncContext {
     }
 
     /**
-     * Run action on the daemon executor and resolve promise when that action finishes.
+     * Run action on the blocking executor and resolve promise when that action finishes.
      * This method is used when otherwise asynchronous component like SSLEngine requests
      * to execute some runnable.
      *
      * @param action the action to execute (the action will not have a vat context)
      * @return promise that resolves to the result of the execution
+     * @see Vats#BLOCKING_EXECUTOR
      */
     public static Promise<Void> aDaemonRun(final Runnable action) {
+        return aExecutorRun(Vats.BLOCKING_EXECUTOR, action);
+    }
+
+    /**
+     * Run action on the executor and resolve promise when that action finishes. If the executor rejects
+     * the action, the promise fails with {@link java.util.concurrent.RejectedExecutionException}.
+     *
+     * @param executor the executor
+     * @param action   the action to execute (the action will not have a vat context)
+     * @return promise that resolves to the result of the execution
+     */
+    public static Promise<Void> aExecutorRun(final Executor executor, final Runnable action) {
         final Context context = Context.current();
-        return aResolver(resolver -> Vats.DAEMON_EXECUTOR.execute(() -> {
+        return aResolver(resolver -> executor.execute(() -> {
             try (final Subcription ignored = context.setContext()) {
                 action.run();
                 Outcome.notifySuccess(resolver, null);
@@ -135,7 +189,7 @@ public final class AsyncContext {
     }
 
     /**
-     * Run action on the daemon executor and resolve promise when that action finishes.
+     * Run action on the blocking executor and resolve promise when that action finishes.
      * This method is used when otherwise asynchronous component like SSLEngine requests
      * to execute some runnable.
      *
@@ -144,7 +198,7 @@ public final class AsyncContext {
      */
     public static Promise<Void> aDaemonOneWay(final AOneWayAction action) {
         final Context context = Context.current();
-        return aResolver(resolver -> Vats.DAEMON_EXECUTOR.execute(() -> {
+        return aResolver(resolver -> Vats.BLOCKING_EXECUTOR.execute(() -> {
             try (final Subcription ignored = context.setContext()) {
                 action.run();
                 Outcome.notifySuccess(resolver, null);
@@ -155,7 +209,7 @@ public final class AsyncContext {
     }
 
     /**
-     * Run action on the daemon executor and resolve promise when that action finishes.
+     * Run action on the blocking executor and resolve promise when that action finishes.
      * This method is used when it is required to execute a single action on other thread
      * context w/o creating explicit vat. Usually it is used when interacting with non-asynchronous
      * components.
@@ -165,18 +219,19 @@ public final class AsyncContext {
      * @return promise that resolves to the result of the execution
      */
     public static <T> Promise<T> aDaemonGet(final Supplier<T> action) {
-        return aExecutorGet(Vats.DAEMON_EXECUTOR, action);
+        return aExecutorGet(Vats.BLOCKING_EXECUTOR, action);
     }
 
     /**
-     * Get value using executor.
+     * Get value using executor. If the executor rejects the action, the promise fails with
+     * {@link java.util.concurrent.RejectedExecutionException}.
      *
      * @param <T>      the type
      * @param executor the executor
      * @param action   the action
      * @return the value
      */
-    public static <T> Promise<T> aExecutorGet(final ExecutorService executor, final Supplier<T> action) {
+    public static <T> Promise<T> aExecutorGet(final Executor executor, final Supplier<T> action) {
         return aResolver(resolver -> {
             final Context context = Context.current();
             executor.execute(() -> {
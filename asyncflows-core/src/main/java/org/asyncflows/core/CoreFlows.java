@@ -324,4 +324,49 @@ public final class CoreFlows {
     public static <T> Promise<T> aLater(final ASupplier<T> action) {
         return aLater(Vat.current(), action);
     }
+
+    /**
+     * Execute action on the specific vat. If the vat is the current vat, the action is executed immediately
+     * like with {@link #aNow(ASupplier)}, otherwise it is sent to the vat like with {@link #aLater(Vat, ASupplier)}.
+     * Note, that the action executed immediately overtakes the events that are already in the vat queue.
+     * The depth of the nested immediate executions is limited by {@link Vat#MAX_DIRECT_CALL_DEPTH}, the deeper
+     * actions are sent to the vat.
+     *
+     * @param vat    the vat
+     * @param action the action
+     * @param <T>    the result type
+     * @return the promise for result
+     */
+    public static <T> Promise<T> aLaterOrNow(final Vat vat, final ASupplier<T> action) {
+        if (vat.enterDirectCall()) {
+            try {
+                return aNow(action);
+            } finally {
+                vat.leaveDirectCall();
+            }
+        }
+        return aLater(vat, action);
+    }
+
+    /**
+     * Execute one-way action on the specific vat. If the vat is the current vat, the action is executed
+     * immediately, otherwise it is sent to the vat like with {@link #aOneWay(Vat, AOneWayAction)}.
+     * The ordering considerations are the same as for {@link #aLaterOrNow(Vat, ASupplier)}.
+     *
+     * @param vat    the vat
+     * @param action the action
+     */
+    public static void aOneWayOrNow(final Vat vat, final AOneWayAction action) {
+        if (vat.enterDirectCall()) {
+            try {
+                action.run();
+            } catch (Throwable throwable) {
+                LOGGER.error("One-way action failed", throwable);
+            } finally {
+                vat.leaveDirectCall();
+            }
+        } else {
+            aOneWay(vat, action);
+        }
+    }
 }
@@ -43,6 +43,7 @@ import org.asyncflows.core.function.ASupplier;
 import org.asyncflows.core.function.AsyncFunctionUtil;
 import org.asyncflows.core.trace.PromiseTrace;
 import org.asyncflows.core.util.ExceptionUtil;
+import org.asyncflows.core.vats.Priority;
 import org.asyncflows.core.vats.Vat;
 
 /**
@@ -204,6 +205,24 @@ public final class Promise<T> {
         }));
     }
 
+    /**
+     * Add asynchronous listener that is executed on the specified vat with the specified priority.
+     * Returns this promise.
+     *
+     * @param vat      the vat
+     * @param priority the priority
+     * @param listener the listener
+     * @return this promise
+     */
+    public Promise<T> listen(final Vat vat, final Priority priority, final AResolver<? super T> listener) {
+        final Context context = Context.current();
+        return listenSync(o -> vat.execute(() -> {
+            try (Subcription ignored = context.setContext()) {
+                Outcome.notifyResolver(listener, o);
+            }
+        }, priority));
+    }
+
     /**
      * Get resolver. The resolver should be normally got only once and distributed to downstream services.
      *
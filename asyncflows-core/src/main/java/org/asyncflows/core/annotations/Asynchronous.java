@@ -31,11 +31,38 @@ import java.lang.annotation.Target;
 
 /**
  * The annotation used by apt proxy generator to trigger generation process.
- * Note, only non-default methods are implemented by proxy.
+ * Note, only non-default methods and default methods annotated with {@link Proxied} are implemented by proxy.
  */
 @Experimental
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 @Documented
 public @interface Asynchronous {
+    /**
+     * If true, the generated factory also provides {@code createBatchingProxy} method. The batching proxy
+     * collects calls made by the caller vat until the end of the current caller batch and delivers them
+     * to the service vat as a single event (see {@link org.asyncflows.core.util.CallBatcher}).
+     *
+     * @return true if batching proxy should be generated
+     */
+    boolean batching() default false;
+
+    /**
+     * If true, the generated factory also provides {@code createMetricsProxy} method. The metrics proxy
+     * is a decorator that reports call counts, latencies, and failures to
+     * {@link org.asyncflows.core.metrics.MetricsSink}. The metrics proxies could be also enabled for all
+     * interfaces using the annotation processor option {@code -Aorg.asyncflows.apt.metrics=true}.
+     *
+     * @return true if metrics proxy should be generated
+     */
+    boolean metrics() default false;
+
+    /**
+     * If true, the generated factory also provides {@code createRemoteStub} and {@code createRemoteSkeleton}
+     * methods that allow invoking the service using some transport (see {@link org.asyncflows.core.remote}).
+     * The arguments and results should be supported by the transport.
+     *
+     * @return true if remote stub and skeleton should be generated
+     */
+    boolean remote() default false;
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The lock-free latency histogram with power of two buckets. The bucket {@code i} contains values
+ * in range {@code [2^(i-1), 2^i)} nanoseconds, the bucket zero contains zero values.
+ */
+public final class LatencyHistogram {
+    /**
+     * The bucket count.
+     */
+    public static final int BUCKETS = Long.SIZE;
+    /**
+     * The buckets.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Get bucket for the value.
+     *
+     * @param value the value
+     * @return the bucket index
+     */
+    public static int bucket(final long value) {
+        return value <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Get upper bound for the bucket (exclusive).
+     *
+     * @param bucket the bucket
+     * @return the upper bound
+     */
+    public static long upperBound(final int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * Record the value.
+     *
+     * @param value the value in nanoseconds
+     */
+    public void record(final long value) {
+        buckets.incrementAndGet(Math.min(bucket(value), BUCKETS - 1));
+    }
+
+    /**
+     * @return the snapshot of bucket counts
+     */
+    public long[] getCounts() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the total count of values
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Get percentile approximation (the upper bound of bucket that contains it).
+     *
+     * @param percentile the percentile in range {@code [0, 1]}
+     * @return the upper bound for the percentile, or zero if there were no values
+     */
+    public long percentile(final double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("The percentile should be in range [0, 1]: " + percentile);
+        }
+        final long[] counts = getCounts();
+        long total = 0;
+        for (final long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
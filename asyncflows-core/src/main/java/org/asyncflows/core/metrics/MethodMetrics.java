@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.metrics;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+
+/**
+ * The metrics for the single method of the service. The implementations must be thread-safe,
+ * as the promise could be resolved in any thread. The default methods are used by generated
+ * metrics proxies.
+ */
+public interface MethodMetrics {
+    /**
+     * The metrics that ignore everything.
+     */
+    MethodMetrics NOP = new MethodMetrics() {
+        @Override
+        public void started() {
+            // do nothing
+        }
+
+        @Override
+        public void finished(final long duration, final boolean success) {
+            // do nothing
+        }
+    };
+
+    /**
+     * Invoked when the method is called.
+     */
+    void started();
+
+    /**
+     * Invoked when the method call is finished.
+     *
+     * @param duration the duration in nanoseconds from the call to the promise resolution
+     * @param success  true if the call was successful
+     */
+    void finished(long duration, boolean success);
+
+    /**
+     * Start the call.
+     *
+     * @return the start timestamp
+     */
+    default long start() {
+        started();
+        return System.nanoTime();
+    }
+
+    /**
+     * Finish the call.
+     *
+     * @param start   the start timestamp
+     * @param success true if the call was successful
+     */
+    default void finish(final long start, final boolean success) {
+        finished(System.nanoTime() - start, success);
+    }
+
+    /**
+     * Track the result of the call. If promise is already resolved, the call is finished immediately,
+     * otherwise the listener is registered.
+     *
+     * @param start   the start timestamp
+     * @param promise the promise returned by the service
+     * @param <T>     the result type
+     * @return the same promise
+     */
+    default <T> Promise<T> track(final long start, final Promise<T> promise) {
+        if (promise == null) {
+            finish(start, false);
+            return null;
+        }
+        final Outcome<T> outcome = promise.getOutcomeOrNull();
+        if (outcome != null) {
+            finish(start, outcome.isSuccess());
+        } else {
+            promise.listenSync(o -> finish(start, o.isSuccess()));
+        }
+        return promise;
+    }
+}
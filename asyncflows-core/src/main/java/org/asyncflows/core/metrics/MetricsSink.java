@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.metrics;
+
+/**
+ * The sink for metrics of asynchronous services. The sink is asked for method metrics when the metrics
+ * proxy is created, so the lookup does not happen on each call.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+    /**
+     * The sink that ignores all metrics.
+     */
+    MetricsSink NOP = (service, method) -> MethodMetrics.NOP;
+
+    /**
+     * Get metrics for the method. The sink might return the same instance for the same service
+     * and method names, so the overloaded methods share the metrics.
+     *
+     * @param service the service interface name
+     * @param method  the method name
+     * @return the method metrics
+     */
+    MethodMetrics method(String service, String method);
+}
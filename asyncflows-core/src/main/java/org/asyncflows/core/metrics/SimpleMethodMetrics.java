@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The simple in-memory method metrics.
+ */
+public final class SimpleMethodMetrics implements MethodMetrics {
+    /**
+     * The service name.
+     */
+    private final String service;
+    /**
+     * The method name.
+     */
+    private final String method;
+    /**
+     * The started calls.
+     */
+    private final LongAdder calls = new LongAdder();
+    /**
+     * The finished calls.
+     */
+    private final LongAdder finished = new LongAdder();
+    /**
+     * The failed calls.
+     */
+    private final LongAdder failures = new LongAdder();
+    /**
+     * The latency histogram.
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * The constructor.
+     *
+     * @param service the service name
+     * @param method  the method name
+     */
+    public SimpleMethodMetrics(final String service, final String method) {
+        this.service = service;
+        this.method = method;
+    }
+
+    @Override
+    public void started() {
+        calls.increment();
+    }
+
+    @Override
+    public void finished(final long duration, final boolean success) {
+        if (!success) {
+            failures.increment();
+        }
+        latency.record(duration);
+        finished.increment();
+    }
+
+    /**
+     * @return the service name
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * @return the method name
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the amount of calls
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the amount of failed calls
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return the amount of calls that are started, but not finished yet
+     */
+    public long getInFlight() {
+        final long done = finished.sum();
+        return Math.max(0, calls.sum() - done);
+    }
+
+    /**
+     * @return the failure rate of finished calls
+     */
+    public double getFailureRate() {
+        final long done = finished.sum();
+        return done == 0 ? 0.0 : (double) failures.sum() / done;
+    }
+
+    /**
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return service + "." + method + "{calls=" + getCalls() + ", inFlight=" + getInFlight()
+                + ", failures=" + getFailures() + ", p50=" + latency.percentile(0.5)
+                + "ns, p99=" + latency.percentile(0.99) + "ns}";
+    }
+}
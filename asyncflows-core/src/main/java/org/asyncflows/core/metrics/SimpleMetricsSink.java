@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The simple metrics sink that keeps metrics in memory.
+ */
+public final class SimpleMetricsSink implements MetricsSink {
+    /**
+     * The metrics by the key "service#method".
+     */
+    private final ConcurrentHashMap<String, SimpleMethodMetrics> metrics = new ConcurrentHashMap<>();
+
+    @Override
+    public SimpleMethodMetrics method(final String service, final String method) {
+        return metrics.computeIfAbsent(service + "#" + method, k -> new SimpleMethodMetrics(service, method));
+    }
+
+    /**
+     * Get metrics if they are available.
+     *
+     * @param service the service name
+     * @param method  the method name
+     * @return the metrics or null
+     */
+    public SimpleMethodMetrics getOrNull(final String service, final String method) {
+        return metrics.get(service + "#" + method);
+    }
+
+    /**
+     * @return all metrics collected by the sink
+     */
+    public List<SimpleMethodMetrics> getAll() {
+        return new ArrayList<>(metrics.values());
+    }
+}
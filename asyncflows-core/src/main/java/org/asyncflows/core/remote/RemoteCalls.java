@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.remote;
+
+import org.asyncflows.core.Promise;
+
+/**
+ * The client side of the remote object. It is implemented by the transport and it is used by generated
+ * remote stubs. The methods are identified by the index in the list of the interface methods as it is
+ * seen by the proxy generator, so both sides should use the same version of the interface.
+ * The implementations should be safe to use from any vat.
+ */
+public interface RemoteCalls {
+    /**
+     * Call the method that returns promise.
+     *
+     * @param method the method index
+     * @param args   the arguments
+     * @param <T>    the result type
+     * @return the promise for result
+     */
+    <T> Promise<T> call(int method, Object... args);
+
+    /**
+     * Send one-way method call.
+     *
+     * @param method the method index
+     * @param args   the arguments
+     */
+    void send(int method, Object... args);
+}
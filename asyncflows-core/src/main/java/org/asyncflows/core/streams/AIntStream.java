@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.annotations.Asynchronous;
+import org.asyncflows.core.function.ACloseable;
+
+/**
+ * Asynchronous stream of {@code int} values. The values are transferred in chunks that are arrays of
+ * primitive values, so the values are not boxed. The stream generally accepts multiple close operations.
+ *
+ * @see IntStreamBuilder
+ */
+@Asynchronous
+public interface AIntStream extends ACloseable {
+    /**
+     * <p>The next chunk of the stream. The chunk contains at least one value unless EOF is reached, and at most
+     * the specified amount of values. The stream does not wait for more values if some are already
+     * available. After EOF is returned, all other reads will return EOF. The returned array is owned by the
+     * caller, and it could be modified by the caller.</p>
+     *
+     * @param max the maximum amount of values (must be positive)
+     * @return promise for non-empty array of values, or for an empty array if EOF is reached
+     */
+    Promise<int[]> nextChunk(int max);
+}
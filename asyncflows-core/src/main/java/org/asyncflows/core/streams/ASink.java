@@ -25,8 +25,13 @@ package org.asyncflows.core.streams;
 
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.annotations.Asynchronous;
+import org.asyncflows.core.annotations.Proxied;
 import org.asyncflows.core.function.ACloseable;
 
+import java.util.List;
+
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqForUnit;
+
 /**
  * <p>A sink for values. The sink is inverse stream, and it is easy to convert from one to another.
  * The stream is pull or sequential side of processing, the sink is parallel or push side.</p>
@@ -34,7 +39,7 @@ import org.asyncflows.core.function.ACloseable;
  *
  * @param <T> the stream element type
  */
-@Asynchronous
+@Asynchronous(batching = true)
 public interface ASink<T> extends ACloseable {
     /**
      * Put a value into the sink.
@@ -44,6 +49,19 @@ public interface ASink<T> extends ACloseable {
      */
     Promise<Void> put(T value);
 
+    /**
+     * Put values into the sink. The operation is equivalent to putting values one by one, but it allows
+     * amortizing the cost of the asynchronous operations and vat hops over many elements. The default
+     * implementation puts values one by one.
+     *
+     * @param values the values to put (the list must not be modified by the caller after the call)
+     * @return the promise that resolves when sink is ready for the next values
+     */
+    @Proxied
+    default Promise<Void> putAll(List<T> values) {
+        return aSeqForUnit(values, value -> put(value).thenValue(true));
+    }
+
     /**
      * Write an error to sink, the sink is closed after this method since no more data
      * is expected.
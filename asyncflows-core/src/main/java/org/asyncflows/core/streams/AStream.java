@@ -25,9 +25,15 @@ package org.asyncflows.core.streams;
 
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.annotations.Asynchronous;
+import org.asyncflows.core.annotations.Proxied;
 import org.asyncflows.core.data.Maybe;
 import org.asyncflows.core.function.ACloseable;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+
 /**
  * Asynchronous stream of values. The stream elements could be success values or failures. It is up to stream
  * how it handles the failures. The stream generally accepts multiple close operations.
@@ -43,4 +49,32 @@ public interface AStream<T> extends ACloseable {
      * @return promise for option that is either empty (meaning that EOF is reached), or contains a value
      */
     Promise<Maybe<T>> next();
+
+    /**
+     * <p>The next chunk of elements in the stream. The chunk contains at least one element unless EOF is reached,
+     * and at most the specified amount of elements. The stream does not wait for more elements if some are already
+     * available, so the chunk size depends on the stream. If a failure happens after some elements are read,
+     * these elements are returned, and the failure is reported on the next read operation.</p>
+     * <p>This operation allows amortizing the cost of the asynchronous operations and vat hops over many elements,
+     * so it is preferable for throughput-oriented processing.</p>
+     * <p>The default implementation returns chunks of a single element read with {@link #next()}, since it could not
+     * check the availability of the further elements without consuming them. The streams based on
+     * {@link StreamBase} collect the available elements.</p>
+     *
+     * @param max the maximum amount of elements (must be positive)
+     * @return promise for non-empty list of elements, or for an empty list if EOF is reached
+     */
+    @Proxied
+    default Promise<List<T>> nextChunk(int max) {
+        if (max < 1) {
+            return aFailure(new IllegalArgumentException("The chunk size must be positive: " + max));
+        }
+        return next().map(value -> {
+            final List<T> chunk = new ArrayList<>(1);
+            if (value.hasValue()) {
+                chunk.add(value.of());
+            }
+            return chunk;
+        });
+    }
 }
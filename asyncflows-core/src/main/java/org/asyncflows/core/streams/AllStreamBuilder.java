@@ -38,6 +38,8 @@ import org.asyncflows.core.data.Maybe;
 import org.asyncflows.core.function.AFunction;
 import org.asyncflows.core.util.RequestQueue;
 
+import java.util.function.Function;
+
 /**
  * Stream builder for all elements.
  *
@@ -175,6 +177,22 @@ public class AllStreamBuilder<T> extends StreamBuilder<T> {
         }));
     }
 
+    @Override
+    public <N> AllStreamBuilder<N> flatMapMaybeSync(final Function<T, Maybe<N>> mapper) {
+        return new AllStreamBuilder<>(outcomeSink.flatMapMaybeSync(value -> {
+            if (value.isFailure()) {
+                return Maybe.of(Outcome.failure(value.failure()));
+            }
+            final Maybe<N> mapped;
+            try {
+                mapped = mapper.apply(value.value());
+            } catch (Throwable t) {
+                return Maybe.of(Outcome.failure(t));
+            }
+            return mapped.isEmpty() ? Maybe.empty() : Maybe.of(Outcome.success(mapped.of()));
+        }));
+    }
+
     @Override
     public <N> AllStreamBuilder<N> flatMapStream(final AFunction<T, AStream<N>> mapper) {
         return new AllStreamBuilder<>(outcomeSink.flatMapStream(value -> {
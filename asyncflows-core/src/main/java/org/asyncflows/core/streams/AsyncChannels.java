@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.data.Tuple2;
+
+import java.util.List;
+
+/**
+ * The channels that connect producers and consumers on different vats.
+ */
+public final class AsyncChannels {
+    /**
+     * The private constructor for utility class.
+     */
+    private AsyncChannels() {
+    }
+
+    /**
+     * Create a bounded channel with the single sink. Unlike {@link RandevuQueue#exported()}, the ends of
+     * the channel are not exported. The sink could be used from one vat and the stream from another vat,
+     * the elements are passed through the lock-free buffer, and the peer is notified only if it is waiting
+     * for elements or for free space.
+     *
+     * @param capacity the capacity of the buffer
+     * @param <T>      the element type
+     * @return the pair of the sink and stream
+     */
+    public static <T> Tuple2<ASink<T>, AStream<T>> bounded(final int capacity) {
+        final BoundedChannel<T> channel = new BoundedChannel<>(capacity, 1);
+        return Tuple2.of(channel.sinks().get(0), channel.stream());
+    }
+
+    /**
+     * Create a bounded channel with several sinks. Each sink could be used from own vat. The stream reaches EOF
+     * after all sinks are closed, and it fails after any sink fails.
+     *
+     * @param capacity the capacity of the buffer
+     * @param sinks    the amount of sinks
+     * @param <T>      the element type
+     * @return the pair of the sinks and stream
+     */
+    public static <T> Tuple2<List<ASink<T>>, AStream<T>> bounded(final int capacity, final int sinks) {
+        final BoundedChannel<T> channel = new BoundedChannel<>(capacity, sinks);
+        return Tuple2.of(channel.sinks(), channel.stream());
+    }
+}
@@ -24,11 +24,16 @@
 package org.asyncflows.core.streams;
 
 import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.data.Tuple2;
 import org.asyncflows.core.function.ASupplier;
 import org.asyncflows.core.util.ProducerUtil;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
 import java.util.stream.Stream;
 
 /**
@@ -121,4 +126,149 @@ public final class AsyncStreams {
     public static <T> PullStreamBuilder<T> aForJavaStream(final Stream<T> stream) {
         return aForIterator(stream.iterator());
     }
+
+    /**
+     * Start building a stream from the publisher, see {@link FlowStreams#fromPublisher(Flow.Publisher, int, int)}.
+     *
+     * @param publisher    the publisher
+     * @param prefetch     the maximum amount of requested and buffered elements
+     * @param lowWatermark the amount of requested and buffered elements, when more elements are requested
+     * @param <T>          the stream element type
+     * @return the stream builder
+     */
+    public static <T> PullStreamBuilder<T> aForPublisher(final Flow.Publisher<T> publisher, final int prefetch,
+                                                         final int lowWatermark) {
+        return new PullStreamBuilder<>(FlowStreams.fromPublisher(publisher, prefetch, lowWatermark));
+    }
+
+    /**
+     * Start building a stream from the publisher, see {@link FlowStreams#fromPublisher(Flow.Publisher)}.
+     *
+     * @param publisher the publisher
+     * @param <T>       the stream element type
+     * @return the stream builder
+     */
+    public static <T> PullStreamBuilder<T> aForPublisher(final Flow.Publisher<T> publisher) {
+        return new PullStreamBuilder<>(FlowStreams.fromPublisher(publisher));
+    }
+
+    /**
+     * Stream of {@code int} values from the range.
+     *
+     * @param start        the start of range
+     * @param endExclusive the end of range (not included)
+     * @return the stream builder for the range
+     */
+    public static IntStreamBuilder aForIntRange(final int start, final int endExclusive) {
+        return new IntStreamBuilder(IntStreamBase.range(start, endExclusive));
+    }
+
+    /**
+     * Stream of {@code int} values from the array.
+     *
+     * @param values the values
+     * @return the stream builder for the array
+     */
+    public static IntStreamBuilder aForInts(final int... values) {
+        return new IntStreamBuilder(IntStreamBase.of(values));
+    }
+
+    /**
+     * Stream of {@code long} values from the range.
+     *
+     * @param start        the start of range
+     * @param endExclusive the end of range (not included)
+     * @return the stream builder for the range
+     */
+    public static LongStreamBuilder aForLongRange(final long start, final long endExclusive) {
+        return new LongStreamBuilder(LongStreamBase.range(start, endExclusive));
+    }
+
+    /**
+     * Stream of {@code long} values from the array.
+     *
+     * @param values the values
+     * @return the stream builder for the array
+     */
+    public static LongStreamBuilder aForLongs(final long... values) {
+        return new LongStreamBuilder(LongStreamBase.of(values));
+    }
+
+    /**
+     * Stream of {@code double} values from the array.
+     *
+     * @param values the values
+     * @return the stream builder for the array
+     */
+    public static DoubleStreamBuilder aForDoubles(final double... values) {
+        return new DoubleStreamBuilder(DoubleStreamBase.of(values));
+    }
+
+    /**
+     * Merge streams in the order elements become available. The ready sources are served in turn, so a fast
+     * source could not starve the others, and at most one chunk is buffered per source.
+     *
+     * @param prefetch the chunk size requested from each source
+     * @param streams  the streams to merge
+     * @param <T>      the element type
+     * @return the stream builder for the merged stream
+     */
+    public static <T> PullStreamBuilder<T> aMerge(final int prefetch, final List<? extends AStream<T>> streams) {
+        return new PullStreamBuilder<>(new MergeStream<>(new ArrayList<>(streams), prefetch));
+    }
+
+    /**
+     * Merge streams in the order elements become available.
+     *
+     * @param streams the streams to merge
+     * @param <T>     the element type
+     * @return the stream builder for the merged stream
+     * @see #aMerge(int, List)
+     */
+    public static <T> PullStreamBuilder<T> aMerge(final List<? extends AStream<T>> streams) {
+        return aMerge(StreamUtil.DEFAULT_CHUNK_SIZE, streams);
+    }
+
+    /**
+     * Merge streams that are sorted according to the comparator into a single sorted stream. The sources are
+     * kept in a heap, so each element costs {@code O(log n)} comparisons for {@code n} sources. The equal
+     * elements are returned in the order of sources.
+     *
+     * @param comparator the comparator
+     * @param prefetch   the chunk size requested from each source
+     * @param streams    the sorted streams
+     * @param <T>        the element type
+     * @return the stream builder for the merged stream
+     */
+    public static <T> PullStreamBuilder<T> aMergeSorted(final Comparator<? super T> comparator, final int prefetch,
+                                                        final List<? extends AStream<T>> streams) {
+        return new PullStreamBuilder<>(new MergeSortedStream<>(comparator, streams, prefetch));
+    }
+
+    /**
+     * Merge sorted streams into a single sorted stream.
+     *
+     * @param comparator the comparator
+     * @param streams    the sorted streams
+     * @param <T>        the element type
+     * @return the stream builder for the merged stream
+     * @see #aMergeSorted(Comparator, int, List)
+     */
+    public static <T> PullStreamBuilder<T> aMergeSorted(final Comparator<? super T> comparator,
+                                                        final List<? extends AStream<T>> streams) {
+        return aMergeSorted(comparator, StreamUtil.DEFAULT_CHUNK_SIZE, streams);
+    }
+
+    /**
+     * Combine elements of two streams into pairs. The stream ends when any of streams ends.
+     *
+     * @param first  the first stream
+     * @param second the second stream
+     * @param <A>    the first element type
+     * @param <B>    the second element type
+     * @return the stream builder for pairs
+     */
+    public static <A, B> PullStreamBuilder<Tuple2<A, B>> aZip(final AStream<A> first, final AStream<B> second) {
+        return new PullStreamBuilder<>(new ZipStream<>(first, second));
+    }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.AResolver;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeEmpty;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.Outcome.notifySuccess;
+
+/**
+ * The bounded channel between vats. The elements are passed through the lock-free ring buffer, where
+ * each slot has a sequence number that tells whether the slot is free for the producer with the given position
+ * or filled for the consumer with the given position. The producers reserve positions using CAS, so there
+ * could be several sinks, but there is only one stream. The peers are waken up only when they are waiting,
+ * that is when the consumer has found the buffer empty or the producer has found the buffer full.
+ *
+ * @param <T> the element type
+ */
+final class BoundedChannel<T> {
+    /**
+     * The elements.
+     */
+    private final AtomicReferenceArray<T> elements;
+    /**
+     * The slot sequences.
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * The capacity.
+     */
+    private final int capacity;
+    /**
+     * The next position for producers.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * The waiting consumer.
+     */
+    private final AtomicReference<AResolver<Void>> consumer = new AtomicReference<>();
+    /**
+     * The waiting producers.
+     */
+    private final ConcurrentLinkedQueue<AResolver<Void>> producers = new ConcurrentLinkedQueue<>();
+    /**
+     * The amount of waiting producers.
+     */
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+    /**
+     * The amount of sinks that are not closed.
+     */
+    private final AtomicInteger openSinks;
+    /**
+     * The failure passed to some sink.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /**
+     * The stream.
+     */
+    private final ChannelStream stream = new ChannelStream();
+    /**
+     * The sinks.
+     */
+    private final List<ASink<T>> sinks;
+    /**
+     * The next position for the consumer (accessed only by the consumer).
+     */
+    private long head;
+    /**
+     * True, if the stream is closed.
+     */
+    private volatile boolean streamClosed;
+
+    /**
+     * The constructor.
+     *
+     * @param capacity the capacity
+     * @param sinks    the amount of sinks
+     */
+    BoundedChannel(final int capacity, final int sinks) {
+        if (capacity <= 0 || sinks <= 0) {
+            throw new IllegalArgumentException("Invalid channel parameters: capacity = " + capacity
+                    + ", sinks = " + sinks);
+        }
+        this.capacity = capacity;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.openSinks = new AtomicInteger(sinks);
+        final List<ASink<T>> list = new ArrayList<>(sinks);
+        for (int i = 0; i < sinks; i++) {
+            list.add(new ChannelSink());
+        }
+        this.sinks = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return the sinks
+     */
+    List<ASink<T>> sinks() {
+        return sinks;
+    }
+
+    /**
+     * @return the stream
+     */
+    AStream<T> stream() {
+        return stream;
+    }
+
+    /**
+     * Get slot index.
+     *
+     * @param position the position
+     * @return the slot index
+     */
+    private int index(final long position) {
+        return (int) (position % capacity);
+    }
+
+    /**
+     * Try adding the element.
+     *
+     * @param value the value
+     * @return true if the element is added, false if the buffer is full
+     */
+    private boolean offer(final T value) {
+        long position = tail.get();
+        while (true) {
+            final int index = index(position);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, value);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return true if some producer could add an element
+     */
+    private boolean hasSpace() {
+        final long position = tail.get();
+        return sequences.get(index(position)) - position >= 0;
+    }
+
+    /**
+     * @return true if the consumer could take an element
+     */
+    private boolean hasElements() {
+        return sequences.get(index(head)) == head + 1;
+    }
+
+    /**
+     * Take available elements.
+     *
+     * @param max the maximum amount of elements
+     * @return the elements
+     */
+    private List<T> drain(final int max) {
+        List<T> chunk = null;
+        while ((chunk == null || chunk.size() < max) && hasElements()) {
+            if (chunk == null) {
+                chunk = new ArrayList<>(Math.min(max, capacity));
+            }
+            final int index = index(head);
+            chunk.add(elements.get(index));
+            elements.set(index, null);
+            sequences.set(index, head + capacity);
+            head++;
+        }
+        return chunk == null ? Collections.emptyList() : chunk;
+    }
+
+    /**
+     * Wake up the consumer if it is waiting.
+     */
+    private void wakeConsumer() {
+        if (consumer.get() != null) {
+            final AResolver<Void> resolver = consumer.getAndSet(null);
+            if (resolver != null) {
+                notifySuccess(resolver, null);
+            }
+        }
+    }
+
+    /**
+     * Wake up the producers if they are waiting.
+     */
+    private void wakeProducers() {
+        if (waitingProducers.get() > 0) {
+            AResolver<Void> resolver;
+            while ((resolver = producers.poll()) != null) {
+                waitingProducers.decrementAndGet();
+                notifySuccess(resolver, null);
+            }
+        }
+    }
+
+    /**
+     * The sink facet, it is used from a single vat.
+     */
+    private final class ChannelSink extends SinkBase<T> {
+        /**
+         * The request queue.
+         */
+        private final RequestQueue requests = new RequestQueue();
+
+        @Override
+        public Promise<Void> put(final T value) {
+            return putAll(Collections.singletonList(value));
+        }
+
+        @Override
+        public Promise<Void> putAll(final List<T> values) {
+            final int[] position = new int[1];
+            return requests.runSeqWhile(() -> {
+                if (!isValidAndOpen()) {
+                    return invalidationPromise();
+                }
+                if (streamClosed) {
+                    // just discard values
+                    return aFalse();
+                }
+                int next = position[0];
+                while (next < values.size() && offer(values.get(next))) {
+                    next++;
+                }
+                if (next != position[0]) {
+                    position[0] = next;
+                    wakeConsumer();
+                }
+                if (next >= values.size()) {
+                    return aFalse();
+                }
+                final Promise<Void> space = new Promise<>();
+                producers.add(space.resolver());
+                waitingProducers.incrementAndGet();
+                // the consumer might have taken elements before the producer was registered
+                if (hasSpace() || streamClosed) {
+                    wakeProducers();
+                }
+                return space.thenValue(true);
+            });
+        }
+
+        @Override
+        public Promise<Void> fail(final Throwable error) {
+            failure.compareAndSet(null, error);
+            wakeConsumer();
+            return super.fail(error);
+        }
+
+        @Override
+        protected Promise<Void> closeAction() {
+            openSinks.decrementAndGet();
+            wakeConsumer();
+            return super.closeAction();
+        }
+    }
+
+    /**
+     * The stream facet, it is used from a single vat.
+     */
+    private final class ChannelStream extends StreamBase<T> {
+        /**
+         * The request queue.
+         */
+        private final RequestQueue requests = new RequestQueue();
+
+        @Override
+        protected Promise<Maybe<T>> produce() {
+            return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+        }
+
+        @Override
+        protected Promise<List<T>> produceChunk(final int max) {
+            return requests.runSeqUntilValue(() -> {
+                final Throwable problem = failure.get();
+                if (problem != null) {
+                    return aFailure(problem);
+                }
+                final boolean finished = openSinks.get() == 0;
+                final List<T> chunk = drain(max);
+                if (!chunk.isEmpty()) {
+                    wakeProducers();
+                    return aMaybeValue(chunk);
+                }
+                if (finished) {
+                    return aMaybeValue(Collections.emptyList());
+                }
+                final Promise<Void> ready = new Promise<>();
+                final AResolver<Void> resolver = ready.resolver();
+                consumer.set(resolver);
+                // the producer might have added elements before the consumer was registered
+                if ((hasElements() || failure.get() != null || openSinks.get() == 0)
+                        && consumer.compareAndSet(resolver, null)) {
+                    return aMaybeEmpty();
+                }
+                return ready.thenValue(Maybe.empty());
+            });
+        }
+
+        @Override
+        protected Promise<Void> closeAction() {
+            streamClosed = true;
+            wakeProducers();
+            return super.closeAction();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+
+/**
+ * The stream that prefetches elements from the upstream into the ring buffer. The refill starts when the amount
+ * of buffered elements drops to the low watermark, and then the elements are requested in chunks until
+ * the buffer is full.
+ *
+ * @param <T> the element type
+ */
+final class BufferStream<T> extends ChainedStreamBase<T, AStream<T>> {
+    /**
+     * The prefetch process queue.
+     */
+    private final RequestQueue writes = new RequestQueue();
+    /**
+     * The read queue.
+     */
+    private final RequestQueue reads = new RequestQueue();
+    /**
+     * The ring buffer.
+     */
+    private final Object[] ring;
+    /**
+     * The low watermark.
+     */
+    private final int lowWatermark;
+    /**
+     * The index of the first element.
+     */
+    private int head;
+    /**
+     * The amount of elements in the buffer.
+     */
+    private int size;
+    /**
+     * True if the buffer is being refilled.
+     */
+    private boolean filling = true;
+    /**
+     * The end of the upstream (EOF or failure).
+     */
+    private Outcome<Void> end;
+
+    /**
+     * The constructor.
+     *
+     * @param wrapped      the upstream
+     * @param capacity     the buffer capacity
+     * @param lowWatermark the amount of buffered elements when refill starts
+     */
+    BufferStream(final AStream<T> wrapped, final int capacity, final int lowWatermark) {
+        super(wrapped);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        if (lowWatermark < 0 || lowWatermark >= capacity) {
+            throw new IllegalArgumentException("The low watermark must be in range [0, " + capacity + "): "
+                    + lowWatermark);
+        }
+        this.ring = new Object[capacity];
+        this.lowWatermark = lowWatermark;
+        // prefetch process, it never fails
+        writes.runSeqWhile(() -> {
+            if (end != null || !isOpen()) {
+                return aFalse();
+            }
+            if (!filling) {
+                return writes.suspendThenTrue();
+            }
+            final int max = Math.min(ring.length - size, StreamUtil.DEFAULT_CHUNK_SIZE);
+            return aNow(() -> this.wrapped.nextChunk(max)).flatMapOutcome(chunk -> {
+                if (chunk.isFailure()) {
+                    end = Outcome.failure(chunk.failure());
+                } else if (chunk.value().isEmpty()) {
+                    end = Outcome.success(null);
+                } else {
+                    for (final T value : chunk.value()) {
+                        ring[(head + size++) % ring.length] = value;
+                    }
+                    filling = size < ring.length;
+                }
+                reads.resume();
+                return aTrue();
+            });
+        });
+    }
+
+    @Override
+    protected Promise<Maybe<T>> produce() {
+        return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Promise<List<T>> produceChunk(final int max) {
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            if (size > 0) {
+                final List<T> chunk = new ArrayList<>(Math.min(max, size));
+                while (size > 0 && chunk.size() < max) {
+                    chunk.add((T) ring[head]);
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    size--;
+                }
+                if (!filling && size <= lowWatermark) {
+                    filling = true;
+                    writes.resume();
+                }
+                return aMaybeValue(chunk);
+            }
+            if (end != null) {
+                return end.isSuccess() ? aMaybeValue(Collections.emptyList()) : aFailure(end.failure());
+            }
+            return reads.suspendThenEmpty();
+        });
+    }
+
+    @Override
+    protected Promise<Void> beforeClose() {
+        writes.resume();
+        return super.beforeClose();
+    }
+}
@@ -31,6 +31,8 @@ import org.asyncflows.core.util.ChainedClosable;
 import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.vats.Vat;
 
+import java.util.List;
+
 import static org.asyncflows.core.CoreFlows.aFailure;
 
 /**
@@ -52,6 +54,21 @@ public abstract class ChainedStreamBase<O, I extends ACloseable>
             startClosing();
         }
     };
+    /**
+     * The observer for the chunk outcome.
+     */
+    private final AResolver<List<O>> chunkOutcomeObserver = resolution -> {
+        if (!resolution.isSuccess()) {
+            invalidate(resolution.failure());
+            startClosing();
+        } else if (resolution.value() != null && resolution.value().isEmpty()) {
+            startClosing();
+        }
+    };
+    /**
+     * The element that was produced, but not returned as a part of the chunk.
+     */
+    private Promise<Maybe<O>> lookahead;
 
     /**
      * The constructor from the underlying object.
@@ -69,18 +86,76 @@ public abstract class ChainedStreamBase<O, I extends ACloseable>
         }
         Promise<Maybe<O>> result;
         try {
-            result = produce();
+            result = produceNext();
         } catch (Throwable t) {
             result = aFailure(t);
         }
         return result.listen(streamOutcomeObserver);
     }
 
+    @Override
+    public Promise<List<O>> nextChunk(final int max) {
+        if (!isValidAndOpen()) {
+            return invalidationPromise();
+        }
+        Promise<List<O>> result;
+        try {
+            StreamChunks.checkMax(max);
+            result = lookahead != null ? produceChunkFromElements(max) : produceChunk(max);
+        } catch (Throwable t) {
+            result = aFailure(t);
+        }
+        return result.listen(chunkOutcomeObserver);
+    }
+
+    /**
+     * @return the next element taking into account the element left from the chunk
+     */
+    private Promise<Maybe<O>> produceNext() {
+        final Promise<Maybe<O>> element = lookahead;
+        if (element != null) {
+            lookahead = null;
+            return element;
+        }
+        return produce();
+    }
+
+    /**
+     * Return the element to the stream, so it will be returned by the next read operation.
+     * This is used by chunk producers when some element could not be included in the chunk.
+     *
+     * @param element the element
+     */
+    final void pushBack(final Promise<Maybe<O>> element) {
+        lookahead = element;
+    }
+
     /**
      * @return the next produced element
      */
     protected abstract Promise<Maybe<O>> produce();
 
+    /**
+     * Produce the next chunk. The default implementation collects elements returned by {@link #produce()}.
+     * Override it if the stream could produce chunks in more efficient way.
+     *
+     * @param max the maximum chunk size
+     * @return the next produced chunk
+     */
+    protected Promise<List<O>> produceChunk(final int max) {
+        return produceChunkFromElements(max);
+    }
+
+    /**
+     * Produce chunk from elements.
+     *
+     * @param max the maximum chunk size
+     * @return the chunk
+     */
+    private Promise<List<O>> produceChunkFromElements(final int max) {
+        return StreamChunks.collect(max, this::produceNext, this::pushBack);
+    }
+
     @Override
     public AStream<O> export(final Vat vat) {
         return AStreamProxyFactory.createProxy(vat, this);
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * The filters for the bounded memory distinct operations. The filters are used from a single vat.
+ */
+final class DistinctFilters {
+    /**
+     * The private constructor for utility class.
+     */
+    private DistinctFilters() {
+    }
+
+    /**
+     * The filter that passes the element only if it is not among the last seen distinct elements.
+     *
+     * @param window the amount of remembered distinct elements
+     * @param <T>    the element type
+     * @return the filter
+     */
+    static <T> Predicate<T> lastSeen(final int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The window must be positive: " + window);
+        }
+        final LinkedHashMap<T, Boolean> seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<T, Boolean> eldest) {
+                return size() > window;
+            }
+        };
+        return value -> seen.put(value, Boolean.TRUE) == null;
+    }
+
+    /**
+     * The filter that passes the element only if it has not been seen during the window. The repeated element
+     * restarts the window for it.
+     *
+     * @param windowNanos the window in nanoseconds
+     * @param clock       the clock that returns nanoseconds
+     * @param <T>         the element type
+     * @return the filter
+     */
+    static <T> Predicate<T> seenWithin(final long windowNanos, final LongSupplier clock) {
+        // the insertion order is the same as the time order, since repeated elements are reinserted
+        final LinkedHashMap<T, Long> seen = new LinkedHashMap<>();
+        return value -> {
+            final long now = clock.getAsLong();
+            final Iterator<Map.Entry<T, Long>> iterator = seen.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().getValue() < windowNanos) {
+                    break;
+                }
+                iterator.remove();
+            }
+            final boolean fresh = seen.remove(value) == null;
+            seen.put(value, now);
+            return fresh;
+        };
+    }
+
+    /**
+     * The filter that passes the element if it is not in the bloom filter. The false positives drop the elements
+     * that were never seen, and their rate grows if there are more distinct elements than expected.
+     *
+     * @param expectedItems the expected amount of distinct elements
+     * @param fpp           the false positive probability for the expected amount of elements
+     * @param <T>           the element type
+     * @return the filter
+     */
+    static <T> Predicate<T> bloom(final long expectedItems, final double fpp) {
+        final BloomFilter filter = new BloomFilter(expectedItems, fpp);
+        return value -> filter.add(value == null ? 0 : value.hashCode());
+    }
+
+    /**
+     * The compact bloom filter over the hash codes. The bit positions are derived from the two hashes
+     * as {@code h1 + i * h2}.
+     */
+    static final class BloomFilter {
+        /**
+         * The bits.
+         */
+        private final long[] bits;
+        /**
+         * The amount of bits.
+         */
+        private final long bitCount;
+        /**
+         * The amount of hash functions.
+         */
+        private final int hashCount;
+
+        /**
+         * The constructor.
+         *
+         * @param expectedItems the expected amount of items
+         * @param fpp           the false positive probability
+         */
+        BloomFilter(final long expectedItems, final double fpp) {
+            if (expectedItems <= 0) {
+                throw new IllegalArgumentException("The expected items must be positive: " + expectedItems);
+            }
+            if (!(fpp > 0 && fpp < 1)) {
+                throw new IllegalArgumentException("The false positive probability must be in (0, 1): " + fpp);
+            }
+            final double ln2 = Math.log(2);
+            final long requiredBits = Math.max(Long.SIZE, (long) Math.ceil(-expectedItems * Math.log(fpp)
+                    / (ln2 * ln2)));
+            final long words = (requiredBits + Long.SIZE - 1) / Long.SIZE;
+            if (words > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The bloom filter is too large: " + requiredBits + " bits");
+            }
+            this.bits = new long[(int) words];
+            this.bitCount = words * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedItems * ln2));
+        }
+
+        /**
+         * Mix bits of the value (the finalizer of MurmurHash3).
+         *
+         * @param value the value
+         * @return the mixed value
+         */
+        private static long mix(final long value) {
+            long h = value;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+        /**
+         * Add the hash to the filter.
+         *
+         * @param hash the hash code
+         * @return true if the hash has not been in the filter
+         */
+        boolean add(final int hash) {
+            final long h1 = mix(hash);
+            final long h2 = mix(h1) | 1;
+            boolean added = false;
+            for (int i = 0; i < hashCount; i++) {
+                final long bit = Math.floorMod(h1 + i * h2, bitCount);
+                final int word = (int) (bit >>> 6);
+                final long mask = 1L << bit;
+                if ((bits[word] & mask) == 0) {
+                    bits[word] |= mask;
+                    added = true;
+                }
+            }
+            return added;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.ACloseable;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+
+/**
+ * The builder for {@code double} streams. The operations work on chunks of primitive values, so the values are
+ * neither boxed nor wrapped into {@link Maybe}. The synchronous operations are applied to chunks in place.
+ * If an operation fails, the whole chunk fails.
+ */
+public class DoubleStreamBuilder extends PrimitiveStreamBuilder<double[], ADoubleStream, DoubleStreamBuilder> {
+    /**
+     * The constructor for the builder.
+     *
+     * @param current the current stream
+     */
+    public DoubleStreamBuilder(final ADoubleStream current) {
+        super(current);
+    }
+
+    @Override
+    Promise<double[]> readChunk(final int max) {
+        return localStream().nextChunk(max);
+    }
+
+    @Override
+    double[] empty() {
+        return DoubleStreamBase.EOF;
+    }
+
+    @Override
+    int length(final double[] chunk) {
+        return chunk.length;
+    }
+
+    @Override
+    double[] copyOfRange(final double[] chunk, final int from, final int to) {
+        return Arrays.copyOfRange(chunk, from, to);
+    }
+
+    @Override
+    DoubleStreamBuilder chained(final ACloseable upstream, final IntFunction<Promise<double[]>> producer) {
+        return new DoubleStreamBuilder(DoubleStreamBase.chained(upstream, producer));
+    }
+
+    /**
+     * Map values.
+     *
+     * @param mapper the mapper
+     * @return the builder for the next stage
+     */
+    public DoubleStreamBuilder map(final DoubleUnaryOperator mapper) {
+        return mapChunksSync(chunk -> {
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = mapper.applyAsDouble(chunk[i]);
+            }
+            return chunk;
+        });
+    }
+
+    /**
+     * Map values to {@code int} values.
+     *
+     * @param mapper the mapper
+     * @return the builder for the next stage
+     */
+    public IntStreamBuilder mapToInt(final DoubleToIntFunction mapper) {
+        return new IntStreamBuilder(IntStreamBase.chained(localStream(), max -> readChunk(max).map(chunk -> {
+            final int[] result = new int[chunk.length];
+            for (int i = 0; i < chunk.length; i++) {
+                result[i] = mapper.applyAsInt(chunk[i]);
+            }
+            return result;
+        })));
+    }
+
+    /**
+     * Map values to {@code long} values.
+     *
+     * @param mapper the mapper
+     * @return the builder for the next stage
+     */
+    public LongStreamBuilder mapToLong(final DoubleToLongFunction mapper) {
+        return new LongStreamBuilder(LongStreamBase.chained(localStream(), max -> readChunk(max).map(chunk -> {
+            final long[] result = new long[chunk.length];
+            for (int i = 0; i < chunk.length; i++) {
+                result[i] = mapper.applyAsLong(chunk[i]);
+            }
+            return result;
+        })));
+    }
+
+    /**
+     * Map values to objects.
+     *
+     * @param mapper the mapper
+     * @param <N>    the element type
+     * @return the builder for the stream of objects
+     */
+    public <N> PullStreamBuilder<N> mapToObj(final DoubleFunction<N> mapper) {
+        return mapValues((chunk, index) -> mapper.apply(chunk[index]));
+    }
+
+    /**
+     * @return the builder for the stream of boxed values
+     */
+    public PullStreamBuilder<Double> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    /**
+     * Filter values.
+     *
+     * @param filter the filter
+     * @return the builder for the next stage
+     */
+    public DoubleStreamBuilder filter(final DoublePredicate filter) {
+        return compactChunks(chunk -> {
+            int size = 0;
+            for (final double value : chunk) {
+                if (filter.test(value)) {
+                    chunk[size++] = value;
+                }
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Fold values.
+     *
+     * @param initial the initial value
+     * @param folder  the folder
+     * @return the result of folding
+     */
+    public Promise<Double> leftFold(final double initial, final DoubleBinaryOperator folder) {
+        final double[] result = {initial};
+        return consume(chunk -> {
+            double value = result[0];
+            for (final double element : chunk) {
+                value = folder.applyAsDouble(value, element);
+            }
+            result[0] = value;
+            return aTrue();
+        }).thenGet(() -> result[0]);
+    }
+
+    /**
+     * Collect values into a container.
+     *
+     * @param supplier    the container supplier
+     * @param accumulator the accumulator
+     * @param <R>         the container type
+     * @return the container
+     */
+    public <R> Promise<R> collect(final Supplier<R> supplier, final ObjDoubleConsumer<R> accumulator) {
+        return aNow(() -> {
+            final R container = supplier.get();
+            return consume(chunk -> {
+                for (final double element : chunk) {
+                    accumulator.accept(container, element);
+                }
+                return aTrue();
+            }).thenValue(container);
+        });
+    }
+}
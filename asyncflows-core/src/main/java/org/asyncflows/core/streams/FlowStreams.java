@@ -0,0 +1,799 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.util.RequestQueue;
+import org.asyncflows.core.util.ResourceClosedException;
+import org.asyncflows.core.vats.Vat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The adapters between asynchronous streams and {@link Flow} interfaces. The demand is signalled in batches:
+ * the adapters request {@code prefetch} elements, and request more elements only when the amount of
+ * buffered and requested elements drops to {@code lowWatermark}. The {@link Flow} signals are processed
+ * in the vat where the adapter is created.
+ */
+public final class FlowStreams {
+    /**
+     * The default amount of elements requested from the publisher.
+     */
+    public static final int DEFAULT_PREFETCH = StreamUtil.DEFAULT_CHUNK_SIZE;
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FlowStreams.class);
+
+    /**
+     * The private constructor for utility class.
+     */
+    private FlowStreams() {
+    }
+
+    /**
+     * Check the demand parameters.
+     *
+     * @param prefetch     the prefetch
+     * @param lowWatermark the low watermark
+     */
+    private static void checkDemand(final int prefetch, final int lowWatermark) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("The prefetch must be positive: " + prefetch);
+        }
+        if (lowWatermark < 0 || lowWatermark >= prefetch) {
+            throw new IllegalArgumentException("The low watermark must be in range [0, " + prefetch + "): "
+                    + lowWatermark);
+        }
+    }
+
+    /**
+     * Create stream that reads the elements from the publisher.
+     *
+     * @param publisher    the publisher
+     * @param prefetch     the maximum amount of requested and buffered elements
+     * @param lowWatermark the amount of requested and buffered elements, when more elements are requested
+     * @param <T>          the element type
+     * @return the stream (the subscription is started immediately)
+     */
+    public static <T> AStream<T> fromPublisher(final Flow.Publisher<T> publisher, final int prefetch,
+                                               final int lowWatermark) {
+        checkDemand(prefetch, lowWatermark);
+        final PublisherStream<T> stream = new PublisherStream<>(Vat.current(), prefetch, lowWatermark);
+        publisher.subscribe(stream.subscriber());
+        return stream;
+    }
+
+    /**
+     * Create stream that reads the elements from the publisher with default prefetch and the low watermark
+     * at the half of the prefetch.
+     *
+     * @param publisher the publisher
+     * @param <T>       the element type
+     * @return the stream
+     */
+    public static <T> AStream<T> fromPublisher(final Flow.Publisher<T> publisher) {
+        return fromPublisher(publisher, DEFAULT_PREFETCH, DEFAULT_PREFETCH / 2);
+    }
+
+    /**
+     * Create publisher that reads the stream. The publisher accepts only one subscriber, and the stream is
+     * closed when the subscription is finished or cancelled. The stream is read in chunks limited by
+     * the current demand.
+     *
+     * @param stream the stream
+     * @param <T>    the element type
+     * @return the publisher
+     */
+    public static <T> Flow.Publisher<T> toPublisher(final AStream<T> stream) {
+        return new StreamPublisher<>(Vat.current(), stream);
+    }
+
+    /**
+     * Create subscriber that writes elements to the sink. The sink is closed when the subscription completes,
+     * and it is failed if the subscription fails. The subscription is cancelled if the sink fails.
+     *
+     * @param sink         the sink
+     * @param prefetch     the maximum amount of requested and buffered elements
+     * @param lowWatermark the amount of requested and buffered elements, when more elements are requested
+     * @param <T>          the element type
+     * @return the subscriber
+     */
+    public static <T> Flow.Subscriber<T> toSubscriber(final ASink<T> sink, final int prefetch,
+                                                      final int lowWatermark) {
+        checkDemand(prefetch, lowWatermark);
+        return new SinkSubscriber<>(Vat.current(), sink, prefetch, lowWatermark);
+    }
+
+    /**
+     * Create subscriber that writes elements to the sink with default prefetch and the low watermark
+     * at the half of the prefetch.
+     *
+     * @param sink the sink
+     * @param <T>  the element type
+     * @return the subscriber
+     */
+    public static <T> Flow.Subscriber<T> toSubscriber(final ASink<T> sink) {
+        return toSubscriber(sink, DEFAULT_PREFETCH, DEFAULT_PREFETCH / 2);
+    }
+
+    /**
+     * Create sink that passes elements to the subscriber according to its demand. The subscriber is completed
+     * when the sink is closed, and it receives the error if the sink fails. If the subscriber cancels
+     * the subscription, the sink fails with {@link ResourceClosedException}.
+     *
+     * @param subscriber the subscriber
+     * @param <T>        the element type
+     * @return the sink
+     */
+    public static <T> ASink<T> fromSubscriber(final Flow.Subscriber<? super T> subscriber) {
+        return new SubscriberSink<>(Vat.current(), subscriber);
+    }
+
+    /**
+     * The stream over publisher.
+     *
+     * @param <T> the element type
+     */
+    private static final class PublisherStream<T> extends StreamBase<T> {
+        /**
+         * The read queue.
+         */
+        private final RequestQueue reads = new RequestQueue();
+        /**
+         * The received elements.
+         */
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        /**
+         * The vat.
+         */
+        private final Vat vat;
+        /**
+         * The prefetch.
+         */
+        private final int prefetch;
+        /**
+         * The low watermark.
+         */
+        private final int lowWatermark;
+        /**
+         * The subscription.
+         */
+        private Flow.Subscription subscription;
+        /**
+         * The amount of requested elements that are not received yet.
+         */
+        private long outstanding;
+        /**
+         * The end of the subscription (completion or error).
+         */
+        private Outcome<Void> end;
+
+        /**
+         * The constructor.
+         *
+         * @param vat          the vat
+         * @param prefetch     the prefetch
+         * @param lowWatermark the low watermark
+         */
+        private PublisherStream(final Vat vat, final int prefetch, final int lowWatermark) {
+            this.vat = vat;
+            this.prefetch = prefetch;
+            this.lowWatermark = lowWatermark;
+        }
+
+        /**
+         * @return the subscriber that forwards signals to the vat
+         */
+        private Flow.Subscriber<T> subscriber() {
+            return new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(final Flow.Subscription newSubscription) {
+                    Objects.requireNonNull(newSubscription, "subscription");
+                    vat.execute(() -> {
+                        if (subscription != null || !isOpen()) {
+                            newSubscription.cancel();
+                            return;
+                        }
+                        subscription = newSubscription;
+                        outstanding = prefetch;
+                        newSubscription.request(prefetch);
+                    });
+                }
+
+                @Override
+                public void onNext(final T item) {
+                    Objects.requireNonNull(item, "item");
+                    vat.execute(() -> {
+                        outstanding--;
+                        if (isOpen()) {
+                            buffer.addLast(item);
+                            reads.resume();
+                        }
+                    });
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    vat.execute(() -> finish(Outcome.failure(throwable)));
+                }
+
+                @Override
+                public void onComplete() {
+                    vat.execute(() -> finish(Outcome.success(null)));
+                }
+            };
+        }
+
+        /**
+         * Finish the subscription.
+         *
+         * @param outcome the outcome
+         */
+        private void finish(final Outcome<Void> outcome) {
+            if (end == null) {
+                end = outcome;
+                reads.resume();
+            }
+        }
+
+        /**
+         * Request more elements if the level is at the low watermark or below it.
+         */
+        private void replenish() {
+            if (subscription == null || end != null) {
+                return;
+            }
+            final long level = buffer.size() + outstanding;
+            if (level <= lowWatermark) {
+                final long count = prefetch - level;
+                outstanding += count;
+                subscription.request(count);
+            }
+        }
+
+        @Override
+        protected Promise<Maybe<T>> produce() {
+            return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+        }
+
+        @Override
+        protected Promise<List<T>> produceChunk(final int max) {
+            return reads.runSeqUntilValue(() -> {
+                if (!isValidAndOpen()) {
+                    return invalidationPromise();
+                }
+                if (!buffer.isEmpty()) {
+                    final List<T> chunk = new ArrayList<>(Math.min(max, buffer.size()));
+                    while (chunk.size() < max && !buffer.isEmpty()) {
+                        chunk.add(buffer.removeFirst());
+                    }
+                    replenish();
+                    return aMaybeValue(chunk);
+                }
+                if (end != null) {
+                    return end.isSuccess() ? aMaybeValue(Collections.emptyList()) : aFailure(end.failure());
+                }
+                return reads.suspendThenEmpty();
+            });
+        }
+
+        @Override
+        protected Promise<Void> closeAction() {
+            buffer.clear();
+            if (subscription != null && end == null) {
+                end = Outcome.success(null);
+                subscription.cancel();
+            }
+            return super.closeAction();
+        }
+    }
+
+    /**
+     * The publisher over stream.
+     *
+     * @param <T> the element type
+     */
+    private static final class StreamPublisher<T> implements Flow.Publisher<T> {
+        /**
+         * The vat.
+         */
+        private final Vat vat;
+        /**
+         * The stream.
+         */
+        private final AStream<T> stream;
+        /**
+         * True if the publisher is already subscribed.
+         */
+        private final AtomicBoolean subscribed = new AtomicBoolean();
+
+        /**
+         * The constructor.
+         *
+         * @param vat    the vat
+         * @param stream the stream
+         */
+        private StreamPublisher(final Vat vat, final AStream<T> stream) {
+            this.vat = vat;
+            this.stream = stream;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+            Objects.requireNonNull(subscriber, "subscriber");
+            if (!subscribed.compareAndSet(false, true)) {
+                vat.execute(() -> {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(final long n) {
+                            // the subscription is already finished
+                        }
+
+                        @Override
+                        public void cancel() {
+                            // the subscription is already finished
+                        }
+                    });
+                    subscriber.onError(new IllegalStateException("The publisher supports only one subscriber"));
+                });
+                return;
+            }
+            vat.execute(() -> new StreamSubscription<>(vat, stream, subscriber).start());
+        }
+    }
+
+    /**
+     * The subscription for the stream. The methods except the subscription methods are invoked in the vat.
+     *
+     * @param <T> the element type
+     */
+    private static final class StreamSubscription<T> implements Flow.Subscription {
+        /**
+         * The vat.
+         */
+        private final Vat vat;
+        /**
+         * The stream.
+         */
+        private final AStream<T> stream;
+        /**
+         * The subscriber.
+         */
+        private final Flow.Subscriber<? super T> subscriber;
+        /**
+         * The current demand.
+         */
+        private long demand;
+        /**
+         * True if the stream is being read.
+         */
+        private boolean reading;
+        /**
+         * True if the subscription is finished.
+         */
+        private boolean done;
+
+        /**
+         * The constructor.
+         *
+         * @param vat        the vat
+         * @param stream     the stream
+         * @param subscriber the subscriber
+         */
+        private StreamSubscription(final Vat vat, final AStream<T> stream,
+                                   final Flow.Subscriber<? super T> subscriber) {
+            this.vat = vat;
+            this.stream = stream;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Start the subscription.
+         */
+        private void start() {
+            try {
+                subscriber.onSubscribe(this);
+            } catch (Throwable t) {
+                LOG.error("Subscriber failed in onSubscribe", t);
+                finish(null);
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            vat.execute(() -> {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    finish(new IllegalArgumentException("The demand must be positive: " + n));
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                read();
+            });
+        }
+
+        @Override
+        public void cancel() {
+            vat.execute(() -> {
+                if (!done) {
+                    done = true;
+                    stream.close();
+                }
+            });
+        }
+
+        /**
+         * Finish the subscription and close the stream.
+         *
+         * @param failure the failure to report or null if nothing should be reported
+         */
+        private void finish(final Throwable failure) {
+            done = true;
+            try {
+                if (failure != null) {
+                    subscriber.onError(failure);
+                }
+            } catch (Throwable t) {
+                LOG.error("Subscriber failed in onError", t);
+            }
+            stream.close();
+        }
+
+        /**
+         * Read the stream while there is a demand.
+         */
+        private void read() {
+            if (reading) {
+                return;
+            }
+            reading = true;
+            aSeqWhile(() -> {
+                if (done || demand == 0) {
+                    return aFalse();
+                }
+                return aNow(() -> stream.nextChunk((int) Math.min(demand, StreamUtil.DEFAULT_CHUNK_SIZE)))
+                        .flatMapOutcome(outcome -> {
+                            if (done) {
+                                return aFalse();
+                            }
+                            if (outcome.isFailure()) {
+                                finish(outcome.failure());
+                                return aFalse();
+                            }
+                            if (outcome.value().isEmpty()) {
+                                done = true;
+                                subscriber.onComplete();
+                                stream.close();
+                                return aFalse();
+                            }
+                            for (final T value : outcome.value()) {
+                                demand--;
+                                subscriber.onNext(value);
+                            }
+                            return aTrue();
+                        });
+            }).listen(outcome -> {
+                reading = false;
+                if (outcome.isFailure() && !done) {
+                    LOG.error("Subscriber failed", outcome.failure());
+                    finish(null);
+                } else if (demand > 0 && !done) {
+                    // the demand could have been received after the loop had stopped
+                    read();
+                }
+            });
+        }
+    }
+
+    /**
+     * The subscriber that writes to the sink. The state is accessed only in the vat.
+     *
+     * @param <T> the element type
+     */
+    private static final class SinkSubscriber<T> implements Flow.Subscriber<T> {
+        /**
+         * The vat.
+         */
+        private final Vat vat;
+        /**
+         * The sink.
+         */
+        private final ASink<T> sink;
+        /**
+         * The prefetch.
+         */
+        private final int prefetch;
+        /**
+         * The low watermark.
+         */
+        private final int lowWatermark;
+        /**
+         * The received elements that are not written yet.
+         */
+        private List<T> pending = new ArrayList<>();
+        /**
+         * The subscription.
+         */
+        private Flow.Subscription subscription;
+        /**
+         * The amount of requested elements that are not received yet.
+         */
+        private long outstanding;
+        /**
+         * True if the elements are being written.
+         */
+        private boolean writing;
+        /**
+         * The end of the subscription.
+         */
+        private Outcome<Void> end;
+        /**
+         * True if the sink is closed or failed.
+         */
+        private boolean done;
+
+        /**
+         * The constructor.
+         *
+         * @param vat          the vat
+         * @param sink         the sink
+         * @param prefetch     the prefetch
+         * @param lowWatermark the low watermark
+         */
+        private SinkSubscriber(final Vat vat, final ASink<T> sink, final int prefetch, final int lowWatermark) {
+            this.vat = vat;
+            this.sink = sink;
+            this.prefetch = prefetch;
+            this.lowWatermark = lowWatermark;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription newSubscription) {
+            Objects.requireNonNull(newSubscription, "subscription");
+            vat.execute(() -> {
+                if (subscription != null || done) {
+                    newSubscription.cancel();
+                    return;
+                }
+                subscription = newSubscription;
+                sink.finished().listen(outcome -> {
+                    if (!done) {
+                        done = true;
+                        pending.clear();
+                        subscription.cancel();
+                    }
+                });
+                outstanding = prefetch;
+                newSubscription.request(prefetch);
+            });
+        }
+
+        @Override
+        public void onNext(final T item) {
+            Objects.requireNonNull(item, "item");
+            vat.execute(() -> {
+                outstanding--;
+                if (!done) {
+                    pending.add(item);
+                    write();
+                }
+            });
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            vat.execute(() -> {
+                if (end == null) {
+                    end = Outcome.failure(throwable);
+                    write();
+                }
+            });
+        }
+
+        @Override
+        public void onComplete() {
+            vat.execute(() -> {
+                if (end == null) {
+                    end = Outcome.success(null);
+                    write();
+                }
+            });
+        }
+
+        /**
+         * Write pending elements to the sink, and finish the sink if the subscription is finished.
+         */
+        private void write() {
+            if (writing || done) {
+                return;
+            }
+            writing = true;
+            aSeqWhile(() -> {
+                if (done || pending.isEmpty()) {
+                    return aFalse();
+                }
+                final List<T> values = pending;
+                pending = new ArrayList<>();
+                return sink.putAll(values).thenGet(() -> {
+                    replenish();
+                    return true;
+                });
+            }).listen(outcome -> {
+                writing = false;
+                if (done) {
+                    return;
+                }
+                if (outcome.isFailure()) {
+                    done = true;
+                    subscription.cancel();
+                    sink.fail(outcome.failure());
+                    sink.close();
+                } else if (!pending.isEmpty()) {
+                    // the elements could have been received after the loop had stopped
+                    write();
+                } else if (end != null) {
+                    done = true;
+                    if (end.isFailure()) {
+                        sink.fail(end.failure());
+                    }
+                    sink.close();
+                }
+            });
+        }
+
+        /**
+         * Request more elements if the level is at the low watermark or below it.
+         */
+        private void replenish() {
+            if (end != null || done) {
+                return;
+            }
+            final long level = pending.size() + outstanding;
+            if (level <= lowWatermark) {
+                final long count = prefetch - level;
+                outstanding += count;
+                subscription.request(count);
+            }
+        }
+    }
+
+    /**
+     * The sink that passes elements to the subscriber.
+     *
+     * @param <T> the element type
+     */
+    private static final class SubscriberSink<T> extends SinkBase<T> {
+        /**
+         * The request queue.
+         */
+        private final RequestQueue requests = new RequestQueue();
+        /**
+         * The subscriber.
+         */
+        private final Flow.Subscriber<? super T> subscriber;
+        /**
+         * The current demand.
+         */
+        private long demand;
+        /**
+         * True if the subscriber received the terminal signal or cancelled the subscription.
+         */
+        private boolean terminated;
+
+        /**
+         * The constructor.
+         *
+         * @param vat        the vat
+         * @param subscriber the subscriber
+         */
+        private SubscriberSink(final Vat vat, final Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            final Flow.Subscription subscription = new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    vat.execute(() -> {
+                        if (n <= 0) {
+                            invalidate(new IllegalArgumentException("The demand must be positive: " + n));
+                            return;
+                        }
+                        demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                        requests.resume();
+                    });
+                }
+
+                @Override
+                public void cancel() {
+                    vat.execute(() -> {
+                        if (!terminated) {
+                            terminated = true;
+                            invalidate(new ResourceClosedException("The subscription is cancelled"));
+                        }
+                    });
+                }
+            };
+            vat.execute(() -> subscriber.onSubscribe(subscription));
+        }
+
+        @Override
+        public Promise<Void> put(final T value) {
+            return putAll(Collections.singletonList(value));
+        }
+
+        @Override
+        public Promise<Void> putAll(final List<T> values) {
+            final int[] position = new int[1];
+            return requests.runSeqWhile(() -> {
+                if (!isValidAndOpen()) {
+                    return invalidationPromise();
+                }
+                while (demand > 0 && position[0] < values.size()) {
+                    demand--;
+                    subscriber.onNext(values.get(position[0]++));
+                }
+                if (position[0] == values.size()) {
+                    return aFalse();
+                }
+                return requests.suspendThenTrue();
+            }).listen(outcomeChecker());
+        }
+
+        @Override
+        protected void onInvalidation(final Throwable throwable) {
+            if (!terminated) {
+                terminated = true;
+                subscriber.onError(throwable);
+            }
+            super.onInvalidation(throwable);
+        }
+
+        @Override
+        protected Promise<Void> closeAction() {
+            if (!terminated) {
+                terminated = true;
+                subscriber.onComplete();
+            }
+            return super.closeAction();
+        }
+    }
+}
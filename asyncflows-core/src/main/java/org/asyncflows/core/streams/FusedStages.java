@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aMaybeEmpty;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+
+/**
+ * The fused synchronous stages. The consecutive synchronous stages are represented by a single stage with
+ * a composed function that returns {@link Maybe#empty()} if the element is filtered out.
+ */
+final class FusedStages {
+    /**
+     * The private constructor for utility class.
+     */
+    private FusedStages() {
+    }
+
+    /**
+     * Compose the stage functions.
+     *
+     * @param first  the first function
+     * @param second the second function
+     * @param <S>    the source type
+     * @param <T>    the intermediate type
+     * @param <N>    the result type
+     * @return the composed function
+     */
+    static <S, T, N> Function<S, Maybe<N>> compose(final Function<S, Maybe<T>> first,
+                                                   final Function<T, Maybe<N>> second) {
+        return value -> {
+            final Maybe<T> intermediate = first.apply(value);
+            return intermediate.isEmpty() ? Maybe.empty() : second.apply(intermediate.of());
+        };
+    }
+
+    /**
+     * Apply the function to the chunk. If the function fails after some elements are processed, the processed
+     * elements are returned, and the failure is passed to the consumer. If the function fails on the first
+     * element, the failure is thrown.
+     *
+     * @param chunk    the chunk
+     * @param mapper   the mapper
+     * @param deferred the consumer of the failure that happened after some elements were processed
+     * @param <S>      the source type
+     * @param <T>      the result type
+     * @return the list of result values (it could be empty if all elements are filtered out)
+     */
+    static <S, T> List<T> apply(final List<S> chunk, final Function<S, Maybe<T>> mapper,
+                                final Consumer<Throwable> deferred) {
+        final List<T> result = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            final Maybe<T> value;
+            try {
+                value = mapper.apply(chunk.get(i));
+            } catch (RuntimeException | Error t) {
+                if (i == 0) {
+                    throw t;
+                }
+                deferred.accept(t);
+                break;
+            }
+            if (value.hasValue()) {
+                result.add(value.of());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The fused stage for pull streams.
+     *
+     * @param <S> the source element type
+     * @param <T> the result element type
+     */
+    static final class FusedStream<S, T> extends ChainedStreamBase<T, AStream<S>> {
+        /**
+         * The request queue.
+         */
+        private final RequestQueue requests = new RequestQueue();
+        /**
+         * The composed function.
+         */
+        private final Function<S, Maybe<T>> mapper;
+        /**
+         * True if the stream was read (so it could not be fused anymore).
+         */
+        private boolean started;
+        /**
+         * True if the stream was fused into the next stage, so the next stage owns the source stream.
+         */
+        private boolean fused;
+
+        /**
+         * The constructor.
+         *
+         * @param wrapped the source stream
+         * @param mapper  the composed function
+         */
+        FusedStream(final AStream<S> wrapped, final Function<S, Maybe<T>> mapper) {
+            super(wrapped);
+            this.mapper = mapper;
+        }
+
+        /**
+         * Fuse the stage with the next synchronous stage. This stream is invalidated after that, since the source
+         * stream must have a single reader, and closing this stream no longer closes the source stream.
+         *
+         * @param next the next stage function
+         * @param <N>  the next element type
+         * @return the fused stream, or null if this stream is already read or fused
+         */
+        <N> FusedStream<S, N> fuse(final Function<T, Maybe<N>> next) {
+            if (started || fused) {
+                return null;
+            }
+            fused = true;
+            invalidate(new IllegalStateException("The stream is fused into the next stage"));
+            return new FusedStream<>(wrapped, compose(mapper, next));
+        }
+
+        @Override
+        protected Promise<Void> closeAction() {
+            return fused ? aVoid() : super.closeAction();
+        }
+
+        @Override
+        protected Promise<Maybe<T>> produce() {
+            started = true;
+            return requests.runSeqUntilValue(() -> wrapped.next().map(value -> {
+                if (value.isEmpty()) {
+                    return Maybe.of(Maybe.<T>empty());
+                }
+                final Maybe<T> mapped = mapper.apply(value.of());
+                return mapped.isEmpty() ? Maybe.<Maybe<T>>empty() : Maybe.of(mapped);
+            }));
+        }
+
+        @Override
+        protected Promise<List<T>> produceChunk(final int max) {
+            started = true;
+            return requests.runSeqUntilValue(() -> wrapped.nextChunk(max).flatMap(chunk -> {
+                if (chunk.isEmpty()) {
+                    return aMaybeValue(Collections.emptyList());
+                }
+                final List<T> values = apply(chunk, mapper, failure -> pushBack(aFailure(failure)));
+                return values.isEmpty() ? aMaybeEmpty() : aMaybeValue(values);
+            }));
+        }
+    }
+
+    /**
+     * The fused stage for push streams.
+     *
+     * @param <S> the source element type
+     * @param <T> the result element type
+     */
+    static final class FusedConnector<S, T> implements PushStreamBuilder.SinkConnector<T> {
+        /**
+         * The source connector.
+         */
+        private final PushStreamBuilder.SinkConnector<S> source;
+        /**
+         * The composed function.
+         */
+        private final Function<S, Maybe<T>> mapper;
+
+        /**
+         * The constructor.
+         *
+         * @param source the source connector
+         * @param mapper the composed function
+         */
+        FusedConnector(final PushStreamBuilder.SinkConnector<S> source, final Function<S, Maybe<T>> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        /**
+         * Fuse the stage with the next synchronous stage.
+         *
+         * @param next the next stage function
+         * @param <N>  the next element type
+         * @return the fused connector
+         */
+        <N> FusedConnector<S, N> fuse(final Function<T, Maybe<N>> next) {
+            return new FusedConnector<>(source, compose(mapper, next));
+        }
+
+        @Override
+        public void connect(final ASink<T> nextSink) {
+            source.connect(new TransformSinkBase<T, S>(nextSink) {
+                @Override
+                public Promise<Void> put(final S value) {
+                    Maybe<T> mapped;
+                    Throwable failure;
+                    try {
+                        mapped = mapper.apply(value);
+                        failure = null;
+                    } catch (Throwable t) {
+                        mapped = null;
+                        failure = t;
+                    }
+                    final Maybe<T> next = mapped;
+                    final Throwable problem = failure;
+                    return requestQueue().run(() -> {
+                        if (!isValidAndOpen()) {
+                            return invalidationPromise();
+                        }
+                        if (problem != null) {
+                            return failNext(problem);
+                        }
+                        return next.isEmpty() ? aVoid() : wrapped.put(next.of());
+                    }).listen(outcomeChecker());
+                }
+
+                @Override
+                public Promise<Void> putAll(final List<S> values) {
+                    final Throwable[] deferred = new Throwable[1];
+                    List<T> mapped;
+                    try {
+                        mapped = apply(values, mapper, failure -> deferred[0] = failure);
+                    } catch (Throwable t) {
+                        mapped = Collections.emptyList();
+                        deferred[0] = t;
+                    }
+                    final List<T> next = mapped;
+                    return requestQueue().run(() -> {
+                        if (!isValidAndOpen()) {
+                            return invalidationPromise();
+                        }
+                        return putAllThenFail(next, deferred[0]);
+                    }).listen(outcomeChecker());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.time.ATimer;
+import org.asyncflows.core.util.Cancellation;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.util.CancellableFlows.aWithCancellation;
+
+/**
+ * The stream that groups elements by time and count. The group is started by the first element, and it is
+ * emitted when it reaches the maximum size, or when the deadline computed for the group is reached.
+ * The deadlines are checked using {@link ATimer}, and the wait is cancelled when the group is emitted before
+ * the deadline or the stream is closed, so the pending timer tasks do not accumulate. The upstream is not read
+ * while there is an emitted group that is not read by the downstream, so the amount of buffered groups is bounded.
+ *
+ * @param <T> the element type
+ */
+final class GroupingStream<T> extends ChainedStreamBase<List<T>, AStream<T>> {
+    /**
+     * The upstream reading process queue.
+     */
+    private final RequestQueue writes = new RequestQueue();
+    /**
+     * The read queue.
+     */
+    private final RequestQueue reads = new RequestQueue();
+    /**
+     * The emitted groups.
+     */
+    private final ArrayDeque<List<T>> ready = new ArrayDeque<>();
+    /**
+     * The timer.
+     */
+    private final ATimer timer;
+    /**
+     * The maximum group size.
+     */
+    private final int maxCount;
+    /**
+     * The function that computes the deadline for the group by the time of its first element.
+     */
+    private final Function<Instant, Instant> deadline;
+    /**
+     * The current group.
+     */
+    private List<T> group = new ArrayList<>();
+    /**
+     * The cancellation of the timer wait for the current group, or null if there is no wait.
+     */
+    private Cancellation groupTimer;
+    /**
+     * The end of the upstream (EOF or failure).
+     */
+    private Outcome<Void> end;
+
+    /**
+     * The constructor.
+     *
+     * @param wrapped  the upstream
+     * @param timer    the timer
+     * @param maxCount the maximum group size
+     * @param deadline the function that computes the deadline for the group by the time of its first element
+     */
+    GroupingStream(final AStream<T> wrapped, final ATimer timer, final int maxCount,
+                   final Function<Instant, Instant> deadline) {
+        super(wrapped);
+        if (maxCount < 1) {
+            throw new IllegalArgumentException("The maximum count must be positive: " + maxCount);
+        }
+        this.timer = timer;
+        this.maxCount = maxCount;
+        this.deadline = deadline;
+        // reading process, it never fails
+        writes.runSeqWhile(() -> {
+            if (end != null || !isOpen()) {
+                return aFalse();
+            }
+            if (!ready.isEmpty()) {
+                return writes.suspendThenTrue();
+            }
+            return aNow(() -> this.wrapped.nextChunk(StreamUtil.DEFAULT_CHUNK_SIZE)).flatMapOutcome(chunk -> {
+                if (chunk.isFailure()) {
+                    emit();
+                    end = Outcome.failure(chunk.failure());
+                } else if (chunk.value().isEmpty()) {
+                    emit();
+                    end = Outcome.success(null);
+                } else {
+                    for (final T value : chunk.value()) {
+                        add(value);
+                    }
+                }
+                reads.resume();
+                return aTrue();
+            });
+        });
+    }
+
+    /**
+     * Add value to the current group.
+     *
+     * @param value the value
+     */
+    private void add(final T value) {
+        if (group.isEmpty()) {
+            final Cancellation wait = new Cancellation();
+            groupTimer = wait;
+            aWithCancellation(wait, () -> timer.waitFor(deadline.apply(Instant.now()))).listen(outcome -> {
+                if (groupTimer == wait) {
+                    emit();
+                }
+            });
+        }
+        group.add(value);
+        if (group.size() >= maxCount) {
+            emit();
+        }
+    }
+
+    /**
+     * Emit the current group if it is not empty.
+     */
+    private void emit() {
+        cancelTimer();
+        if (!group.isEmpty()) {
+            ready.addLast(group);
+            group = new ArrayList<>();
+            reads.resume();
+        }
+    }
+
+    /**
+     * Cancel the timer wait for the current group.
+     */
+    private void cancelTimer() {
+        final Cancellation wait = groupTimer;
+        if (wait != null) {
+            groupTimer = null;
+            wait.cancel();
+        }
+    }
+
+    @Override
+    protected Promise<Maybe<List<T>>> produce() {
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            if (!ready.isEmpty()) {
+                final List<T> value = ready.removeFirst();
+                writes.resume();
+                return aMaybeValue(Maybe.of(value));
+            }
+            if (end != null) {
+                return end.isSuccess() ? aMaybeValue(Maybe.empty()) : aFailure(end.failure());
+            }
+            return reads.suspendThenEmpty();
+        });
+    }
+
+    @Override
+    protected Promise<Void> beforeClose() {
+        cancelTimer();
+        ready.clear();
+        group = new ArrayList<>();
+        writes.resume();
+        return super.beforeClose();
+    }
+}
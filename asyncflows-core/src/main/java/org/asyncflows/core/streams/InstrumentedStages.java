@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+
+import java.util.List;
+
+/**
+ * The stages that record {@link StageMetrics}.
+ */
+final class InstrumentedStages {
+    /**
+     * The stack walker used to name automatically instrumented stages.
+     */
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /**
+     * The private constructor for utility class.
+     */
+    private InstrumentedStages() {
+    }
+
+    /**
+     * Get the name of the builder operation that creates the stage. This is the first method outside of builder
+     * constructors. The stack is walked lazily and only few top frames are inspected, and the method is called
+     * only when {@link StreamMetrics#isInstrumentAll()} is enabled.
+     *
+     * @param prefix the prefix
+     * @return the operation name
+     */
+    static String operationName(final String prefix) {
+        final String method = WALKER.walk(frames -> frames
+                .filter(frame -> !"<init>".equals(frame.getMethodName())
+                        && !frame.getClassName().equals(InstrumentedStages.class.getName()))
+                .findFirst()
+                .map(StackWalker.StackFrame::getMethodName)
+                .orElse("stage"));
+        // lambda$map$3 -> map
+        final String[] parts = method.split("\\$");
+        return prefix + "." + (parts.length > 1 ? parts[1] : method);
+    }
+
+    /**
+     * Wrap the stream if instrumentation of all stages is enabled.
+     *
+     * @param stream the stream
+     * @param <T>    the element type
+     * @return the stream
+     */
+    static <T> AStream<T> autoInstrument(final AStream<T> stream) {
+        if (!StreamMetrics.isInstrumentAll() || stream instanceof InstrumentedStream) {
+            return stream;
+        }
+        return new InstrumentedStream<>(stream, StreamMetrics.stage(operationName("pull")), true);
+    }
+
+    /**
+     * Wrap the connector if instrumentation of all stages is enabled.
+     *
+     * @param connector the connector
+     * @param <T>       the element type
+     * @return the connector
+     */
+    static <T> PushStreamBuilder.SinkConnector<T> autoInstrument(final PushStreamBuilder.SinkConnector<T> connector) {
+        if (!StreamMetrics.isInstrumentAll() || connector instanceof InstrumentedConnector) {
+            return connector;
+        }
+        return new InstrumentedConnector<>(connector, StreamMetrics.stage(operationName("push")), true);
+    }
+
+    /**
+     * Get the stream under the automatic instrumentation, so the builders could still fuse the synchronous stages
+     * when all stages are instrumented. The explicitly instrumented stages are not unwrapped.
+     *
+     * @param stream the stream
+     * @param <T>    the element type
+     * @return the automatically instrumented stream, or the stream itself
+     */
+    static <T> AStream<T> uninstrumented(final AStream<T> stream) {
+        if (stream instanceof InstrumentedStream && ((InstrumentedStream<T>) stream).automatic) {
+            return ((InstrumentedStream<T>) stream).source();
+        }
+        return stream;
+    }
+
+    /**
+     * Get the connector under the automatic instrumentation, so the builders could still fuse the synchronous
+     * stages when all stages are instrumented. The explicitly instrumented stages are not unwrapped.
+     *
+     * @param connector the connector
+     * @param <T>       the element type
+     * @return the automatically instrumented connector, or the connector itself
+     */
+    static <T> PushStreamBuilder.SinkConnector<T> uninstrumented(final PushStreamBuilder.SinkConnector<T> connector) {
+        if (connector instanceof InstrumentedConnector && ((InstrumentedConnector<T>) connector).automatic) {
+            return ((InstrumentedConnector<T>) connector).connector;
+        }
+        return connector;
+    }
+
+    /**
+     * The stream that records metrics of reads from the wrapped stream.
+     *
+     * @param <T> the element type
+     */
+    static final class InstrumentedStream<T> extends ChainedStreamBase<T, AStream<T>> {
+        /**
+         * The metrics.
+         */
+        private final StageMetrics metrics;
+        /**
+         * True if the stage is instrumented because all stages are instrumented.
+         */
+        private final boolean automatic;
+        /**
+         * The time when the last read has finished.
+         */
+        private long lastFinished;
+
+        /**
+         * The constructor.
+         *
+         * @param wrapped   the wrapped stream
+         * @param metrics   the metrics
+         * @param automatic true if the stage is instrumented because all stages are instrumented
+         */
+        InstrumentedStream(final AStream<T> wrapped, final StageMetrics metrics, final boolean automatic) {
+            super(wrapped);
+            this.metrics = metrics;
+            this.automatic = automatic;
+        }
+
+        /**
+         * @return the wrapped stream
+         */
+        private AStream<T> source() {
+            return wrapped;
+        }
+
+        /**
+         * Start the read.
+         *
+         * @return the start time
+         */
+        private long start() {
+            final long start = metrics.started();
+            if (lastFinished != 0) {
+                // the downstream was processing the previous elements
+                metrics.waitedDownstream(start - lastFinished);
+            }
+            return start;
+        }
+
+        /**
+         * Finish the read.
+         *
+         * @param start   the start time
+         * @param count   the amount of elements
+         * @param success true if the read was successful
+         */
+        private void finish(final long start, final int count, final boolean success) {
+            lastFinished = System.nanoTime();
+            metrics.waitedUpstream(lastFinished - start);
+            metrics.finished(count, success);
+        }
+
+        @Override
+        protected Promise<Maybe<T>> produce() {
+            final long start = start();
+            return wrapped.next().listenSync(outcome -> finish(start,
+                    outcome.isSuccess() && outcome.value().hasValue() ? 1 : 0, outcome.isSuccess()));
+        }
+
+        @Override
+        protected Promise<List<T>> produceChunk(final int max) {
+            final long start = start();
+            return wrapped.nextChunk(max).listenSync(outcome -> finish(start,
+                    outcome.isSuccess() ? outcome.value().size() : 0, outcome.isSuccess()));
+        }
+    }
+
+    /**
+     * The connector that inserts the sink that records metrics of writes to the next sink.
+     *
+     * @param <T> the element type
+     */
+    static final class InstrumentedConnector<T> implements PushStreamBuilder.SinkConnector<T> {
+        /**
+         * The wrapped connector.
+         */
+        private final PushStreamBuilder.SinkConnector<T> connector;
+        /**
+         * The metrics.
+         */
+        private final StageMetrics metrics;
+        /**
+         * True if the stage is instrumented because all stages are instrumented.
+         */
+        private final boolean automatic;
+
+        /**
+         * The constructor.
+         *
+         * @param connector the wrapped connector
+         * @param metrics   the metrics
+         * @param automatic true if the stage is instrumented because all stages are instrumented
+         */
+        InstrumentedConnector(final PushStreamBuilder.SinkConnector<T> connector, final StageMetrics metrics,
+                              final boolean automatic) {
+            this.connector = connector;
+            this.metrics = metrics;
+            this.automatic = automatic;
+        }
+
+        @Override
+        public void connect(final ASink<T> nextSink) {
+            connector.connect(new InstrumentedSink<>(nextSink, metrics));
+        }
+    }
+
+    /**
+     * The sink that records metrics of writes to the next sink.
+     *
+     * @param <T> the element type
+     */
+    private static final class InstrumentedSink<T> extends TransformSinkBase<T, T> {
+        /**
+         * The metrics.
+         */
+        private final StageMetrics metrics;
+        /**
+         * The time when the last write has finished.
+         */
+        private long lastFinished;
+
+        /**
+         * The constructor.
+         *
+         * @param wrapped the next sink
+         * @param metrics the metrics
+         */
+        private InstrumentedSink(final ASink<T> wrapped, final StageMetrics metrics) {
+            super(wrapped);
+            this.metrics = metrics;
+        }
+
+        /**
+         * Start the write.
+         *
+         * @return the start time
+         */
+        private long start() {
+            final long start = metrics.started();
+            if (lastFinished != 0) {
+                // the upstream was producing the next elements
+                metrics.waitedUpstream(start - lastFinished);
+            }
+            return start;
+        }
+
+        /**
+         * Track the write to the next sink.
+         *
+         * @param start the start time
+         * @param count the amount of values
+         * @param write the write result
+         * @return the write result
+         */
+        private Promise<Void> track(final long start, final int count, final Promise<Void> write) {
+            return write.listenSync(outcome -> {
+                lastFinished = System.nanoTime();
+                metrics.waitedDownstream(lastFinished - start);
+                metrics.finished(count, outcome.isSuccess());
+            }).listen(outcomeChecker());
+        }
+
+        @Override
+        public Promise<Void> put(final T value) {
+            final long start = start();
+            return track(start, 1, wrapped.put(value));
+        }
+
+        @Override
+        public Promise<Void> putAll(final List<T> values) {
+            final long start = start();
+            return track(start, values.size(), wrapped.putAll(values));
+        }
+    }
+}
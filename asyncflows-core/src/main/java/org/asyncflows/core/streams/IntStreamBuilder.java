@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.ACloseable;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+
+/**
+ * The builder for {@code int} streams. The operations work on chunks of primitive values, so the values are
+ * neither boxed nor wrapped into {@link Maybe}. The synchronous operations are applied to chunks in place.
+ * If an operation fails, the whole chunk fails.
+ */
+public class IntStreamBuilder extends PrimitiveStreamBuilder<int[], AIntStream, IntStreamBuilder> {
+    /**
+     * The constructor for the builder.
+     *
+     * @param current the current stream
+     */
+    public IntStreamBuilder(final AIntStream current) {
+        super(current);
+    }
+
+    @Override
+    Promise<int[]> readChunk(final int max) {
+        return localStream().nextChunk(max);
+    }
+
+    @Override
+    int[] empty() {
+        return IntStreamBase.EOF;
+    }
+
+    @Override
+    int length(final int[] chunk) {
+        return chunk.length;
+    }
+
+    @Override
+    int[] copyOfRange(final int[] chunk, final int from, final int to) {
+        return Arrays.copyOfRange(chunk, from, to);
+    }
+
+    @Override
+    IntStreamBuilder chained(final ACloseable upstream, final IntFunction<Promise<int[]>> producer) {
+        return new IntStreamBuilder(IntStreamBase.chained(upstream, producer));
+    }
+
+    /**
+     * Map values.
+     *
+     * @param mapper the mapper
+     * @return the builder for the next stage
+     */
+    public IntStreamBuilder map(final IntUnaryOperator mapper) {
+        return mapChunksSync(chunk -> {
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = mapper.applyAsInt(chunk[i]);
+            }
+            return chunk;
+        });
+    }
+
+    /**
+     * Map values to {@code long} values.
+     *
+     * @param mapper the mapper
+     * @return the builder for the next stage
+     */
+    public LongStreamBuilder mapToLong(final IntToLongFunction mapper) {
+        return new LongStreamBuilder(LongStreamBase.chained(localStream(), max -> readChunk(max).map(chunk -> {
+            final long[] result = new long[chunk.length];
+            for (int i = 0; i < chunk.length; i++) {
+                result[i] = mapper.applyAsLong(chunk[i]);
+            }
+            return result;
+        })));
+    }
+
+    /**
+     * Map values to {@code double} values.
+     *
+     * @param mapper the mapper
+     * @return the builder for the next stage
+     */
+    public DoubleStreamBuilder mapToDouble(final IntToDoubleFunction mapper) {
+        return new DoubleStreamBuilder(DoubleStreamBase.chained(localStream(), max -> readChunk(max).map(chunk -> {
+            final double[] result = new double[chunk.length];
+            for (int i = 0; i < chunk.length; i++) {
+                result[i] = mapper.applyAsDouble(chunk[i]);
+            }
+            return result;
+        })));
+    }
+
+    /**
+     * Map values to objects.
+     *
+     * @param mapper the mapper
+     * @param <N>    the element type
+     * @return the builder for the stream of objects
+     */
+    public <N> PullStreamBuilder<N> mapToObj(final IntFunction<N> mapper) {
+        return mapValues((chunk, index) -> mapper.apply(chunk[index]));
+    }
+
+    /**
+     * @return the builder for the stream of boxed values
+     */
+    public PullStreamBuilder<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    /**
+     * Filter values.
+     *
+     * @param filter the filter
+     * @return the builder for the next stage
+     */
+    public IntStreamBuilder filter(final IntPredicate filter) {
+        return compactChunks(chunk -> {
+            int size = 0;
+            for (final int value : chunk) {
+                if (filter.test(value)) {
+                    chunk[size++] = value;
+                }
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Fold values.
+     *
+     * @param initial the initial value
+     * @param folder  the folder
+     * @return the result of folding
+     */
+    public Promise<Integer> leftFold(final int initial, final IntBinaryOperator folder) {
+        final int[] result = {initial};
+        return consume(chunk -> {
+            int value = result[0];
+            for (final int element : chunk) {
+                value = folder.applyAsInt(value, element);
+            }
+            result[0] = value;
+            return aTrue();
+        }).thenGet(() -> result[0]);
+    }
+
+    /**
+     * Collect values into a container.
+     *
+     * @param supplier    the container supplier
+     * @param accumulator the accumulator
+     * @param <R>         the container type
+     * @return the container
+     */
+    public <R> Promise<R> collect(final Supplier<R> supplier, final ObjIntConsumer<R> accumulator) {
+        return aNow(() -> {
+            final R container = supplier.get();
+            return consume(chunk -> {
+                for (final int element : chunk) {
+                    accumulator.accept(container, element);
+                }
+                return aTrue();
+            }).thenValue(container);
+        });
+    }
+}
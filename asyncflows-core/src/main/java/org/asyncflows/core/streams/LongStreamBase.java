@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.function.ACloseable;
+import org.asyncflows.core.function.AResolver;
+import org.asyncflows.core.util.CloseableInvalidatingBase;
+import org.asyncflows.core.util.ExportableComponent;
+import org.asyncflows.core.vats.Vat;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+
+/**
+ * The base for the {@code long} streams.
+ */
+public abstract class LongStreamBase extends CloseableInvalidatingBase
+        implements ALongStream, ExportableComponent<ALongStream> {
+    /**
+     * The empty chunk that indicates EOF.
+     */
+    static final long[] EOF = new long[0];
+    /**
+     * The observer for the chunk outcome.
+     */
+    private final AResolver<long[]> chunkOutcomeObserver = resolution -> {
+        if (!resolution.isSuccess()) {
+            invalidate(resolution.failure());
+            startClosing();
+        } else if (resolution.value() != null && resolution.value().length == 0) {
+            startClosing();
+        }
+    };
+
+    @Override
+    public final Promise<long[]> nextChunk(final int max) {
+        Promise<long[]> result;
+        try {
+            ensureValidAndOpen();
+            StreamChunks.checkMax(max);
+            result = produce(max);
+        } catch (Throwable t) {
+            result = aFailure(t);
+        }
+        return result.listen(chunkOutcomeObserver);
+    }
+
+    /**
+     * Produce the next chunk.
+     *
+     * @param max the maximum chunk size
+     * @return the next chunk (non-empty, or empty for EOF)
+     * @throws Throwable in case if the next chunk could not be produced.
+     */
+    @SuppressWarnings("squid:S00112")
+    protected abstract Promise<long[]> produce(int max) throws Throwable;
+
+    @Override
+    public ALongStream export(final Vat vat) {
+        return ALongStreamProxyFactory.createProxy(vat, this);
+    }
+
+    /**
+     * Create the stream that produces chunks using the function, and that closes the upstream when closed.
+     *
+     * @param upstream the upstream
+     * @param producer the chunk producer (the argument is the maximum chunk size)
+     * @return the stream
+     */
+    static LongStreamBase chained(final ACloseable upstream, final IntFunction<Promise<long[]>> producer) {
+        return new LongStreamBase() {
+            @Override
+            protected Promise<long[]> produce(final int max) {
+                return producer.apply(max);
+            }
+
+            @Override
+            protected Promise<Void> closeAction() {
+                return aNow(closeResourceAction(upstream));
+            }
+        };
+    }
+
+    /**
+     * The stream over the values in the array.
+     *
+     * @param values the values
+     * @return the stream
+     */
+    static LongStreamBase of(final long... values) {
+        return new LongStreamBase() {
+            private int position;
+
+            @Override
+            protected Promise<long[]> produce(final int max) {
+                final int end = position + Math.min(max, values.length - position);
+                final long[] chunk = position == end ? EOF : Arrays.copyOfRange(values, position, end);
+                position = end;
+                return aValue(chunk);
+            }
+        };
+    }
+
+    /**
+     * The stream over range of values.
+     *
+     * @param start        the start of range
+     * @param endExclusive the end of range (not included)
+     * @return the stream
+     */
+    static LongStreamBase range(final long start, final long endExclusive) {
+        return new LongStreamBase() {
+            private long next = start;
+
+            @Override
+            protected Promise<long[]> produce(final int max) {
+                if (next >= endExclusive) {
+                    return aValue(EOF);
+                }
+                final long remaining = (long) endExclusive - next;
+                final int size = remaining < 0 || remaining > max ? max : (int) remaining;
+                final long[] chunk = new long[size];
+                for (int i = 0; i < size; i++) {
+                    chunk[i] = next++;
+                }
+                return aValue(chunk);
+            }
+        };
+    }
+}
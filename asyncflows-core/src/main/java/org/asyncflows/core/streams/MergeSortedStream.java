@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForUnit;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+
+/**
+ * The k-way merge of sorted streams. The sources are kept in the heap ordered by their current elements,
+ * and each source has at most one chunk buffered. When the chunk of some source is exhausted, the source
+ * is read before the next element is selected. The elements that are equal according to the comparator are
+ * returned in the order of sources.
+ *
+ * @param <T> the element type
+ */
+final class MergeSortedStream<T> extends StreamBase<T> {
+    /**
+     * The read queue.
+     */
+    private final RequestQueue requests = new RequestQueue();
+    /**
+     * The all sources.
+     */
+    private final List<Source<T>> sources;
+    /**
+     * The sources with elements ordered by the current element.
+     */
+    private final PriorityQueue<Source<T>> heap;
+    /**
+     * The sources that should be read before selecting the next element.
+     */
+    private List<Source<T>> exhausted;
+    /**
+     * The chunk size requested from the sources.
+     */
+    private final int prefetch;
+
+    /**
+     * The constructor.
+     *
+     * @param comparator the comparator
+     * @param streams    the sorted streams
+     * @param prefetch   the chunk size requested from the sources
+     */
+    MergeSortedStream(final Comparator<? super T> comparator, final List<? extends AStream<T>> streams,
+                      final int prefetch) {
+        StreamChunks.checkMax(prefetch);
+        this.prefetch = prefetch;
+        this.sources = new ArrayList<>(streams.size());
+        for (int i = 0; i < streams.size(); i++) {
+            sources.add(new Source<>(i, streams.get(i)));
+        }
+        final Comparator<Source<T>> byElement = (a, b) -> comparator.compare(a.current(), b.current());
+        this.heap = new PriorityQueue<>(Math.max(1, streams.size()),
+                byElement.thenComparingInt(source -> source.index));
+        this.exhausted = new ArrayList<>(sources);
+    }
+
+    /**
+     * Read the exhausted sources.
+     *
+     * @return when the sources are read
+     */
+    private Promise<Void> refill() {
+        if (exhausted.isEmpty()) {
+            return aVoid();
+        }
+        final List<Source<T>> toRead = exhausted;
+        exhausted = new ArrayList<>();
+        return aAllForUnit(toRead.iterator(), source -> source.stream.nextChunk(prefetch).map(chunk -> {
+            if (!chunk.isEmpty()) {
+                source.chunk = chunk;
+                source.position = 0;
+                heap.add(source);
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    protected Promise<Maybe<T>> produce() {
+        return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+    }
+
+    @Override
+    protected Promise<List<T>> produceChunk(final int max) {
+        return requests.run(() -> refill().thenGet(() -> {
+            final List<T> chunk = new ArrayList<>(Math.min(max, prefetch));
+            while (chunk.size() < max && !heap.isEmpty()) {
+                final Source<T> source = heap.poll();
+                chunk.add(source.current());
+                source.position++;
+                if (source.position < source.chunk.size()) {
+                    heap.add(source);
+                } else {
+                    source.chunk = Collections.emptyList();
+                    exhausted.add(source);
+                    // the next element could not be selected until the source is read
+                    break;
+                }
+            }
+            return chunk;
+        }));
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        heap.clear();
+        return aAllForUnit(sources.iterator(), source -> aNow(closeResourceAction(source.stream)).flatMapOutcome(
+                outcome -> aVoid()));
+    }
+
+    /**
+     * The source state.
+     *
+     * @param <T> the element type
+     */
+    private static final class Source<T> {
+        /**
+         * The source index.
+         */
+        private final int index;
+        /**
+         * The stream.
+         */
+        private final AStream<T> stream;
+        /**
+         * The current chunk.
+         */
+        private List<T> chunk = Collections.emptyList();
+        /**
+         * The position of the current element in the chunk.
+         */
+        private int position;
+
+        /**
+         * The constructor.
+         *
+         * @param index  the source index
+         * @param stream the stream
+         */
+        private Source(final int index, final AStream<T> stream) {
+            this.index = index;
+            this.stream = stream;
+        }
+
+        /**
+         * @return the current element
+         */
+        private T current() {
+            return chunk.get(position);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForUnit;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+
+/**
+ * The stream that merges elements from several streams in the order they become available. Each source
+ * has at most one chunk requested or buffered, so the amount of buffered elements is bounded by the amount
+ * of sources multiplied by the chunk size. The order of elements from the same source is preserved.
+ * The first failure of any source fails the merged stream.
+ *
+ * @param <T> the element type
+ */
+final class MergeStream<T> extends StreamBase<T> {
+    /**
+     * The read queue.
+     */
+    private final RequestQueue reads = new RequestQueue();
+    /**
+     * The source streams.
+     */
+    private final List<AStream<T>> sources;
+    /**
+     * The chunk size requested from the sources.
+     */
+    private final int chunkSize;
+    /**
+     * The received chunks with source indexes.
+     */
+    private final ArrayDeque<Received<T>> received = new ArrayDeque<>();
+    /**
+     * The amount of sources that did not reach EOF.
+     */
+    private int active;
+
+    /**
+     * The constructor.
+     *
+     * @param sources   the sources
+     * @param chunkSize the chunk size requested from the sources
+     */
+    MergeStream(final List<AStream<T>> sources, final int chunkSize) {
+        StreamChunks.checkMax(chunkSize);
+        this.sources = new ArrayList<>(sources);
+        this.chunkSize = chunkSize;
+        this.active = sources.size();
+        for (int i = 0; i < this.sources.size(); i++) {
+            request(i);
+        }
+    }
+
+    /**
+     * Request the next chunk from the source.
+     *
+     * @param index the source index
+     */
+    private void request(final int index) {
+        aNow(() -> sources.get(index).nextChunk(chunkSize)).listen(outcome -> {
+            if (outcome.isSuccess() && outcome.value().isEmpty()) {
+                active--;
+            } else {
+                received.addLast(new Received<>(index, outcome));
+            }
+            reads.resume();
+        });
+    }
+
+    @Override
+    protected Promise<Maybe<T>> produce() {
+        return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+    }
+
+    @Override
+    protected Promise<List<T>> produceChunk(final int max) {
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            final Received<T> head = received.peekFirst();
+            if (head == null) {
+                return active == 0 ? aMaybeValue(Collections.emptyList()) : reads.suspendThenEmpty();
+            }
+            if (head.outcome.isFailure()) {
+                return aFailure(head.outcome.failure());
+            }
+            final List<T> values = head.outcome.value();
+            if (values.size() - head.position > max) {
+                final List<T> chunk = new ArrayList<>(values.subList(head.position, head.position + max));
+                head.position += max;
+                return aMaybeValue(chunk);
+            }
+            received.removeFirst();
+            request(head.index);
+            return aMaybeValue(head.position == 0 ? values : new ArrayList<>(values.subList(head.position,
+                    values.size())));
+        });
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        received.clear();
+        return aAllForUnit(sources.iterator(), source -> aNow(closeResourceAction(source)).flatMapOutcome(
+                outcome -> aVoid()));
+    }
+
+    /**
+     * The received chunk.
+     *
+     * @param <T> the element type
+     */
+    private static final class Received<T> {
+        /**
+         * The source index.
+         */
+        private final int index;
+        /**
+         * The chunk outcome.
+         */
+        private final Outcome<List<T>> outcome;
+        /**
+         * The position of the first element that is not returned yet.
+         */
+        private int position;
+
+        /**
+         * The constructor.
+         *
+         * @param index   the source index
+         * @param outcome the chunk outcome
+         */
+        private Received(final int index, final Outcome<List<T>> outcome) {
+            this.index = index;
+            this.outcome = outcome;
+        }
+    }
+}
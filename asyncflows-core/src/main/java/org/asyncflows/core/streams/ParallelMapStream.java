@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.AFunction;
+import org.asyncflows.core.util.RequestQueue;
+import org.asyncflows.core.vats.Vat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+
+/**
+ * The stream that maps elements on the worker vats. At most {@code parallelism} elements are dispatched and
+ * not yet read by the downstream. If the order should be preserved, the mapped elements are kept in the reorder
+ * buffer until the preceding elements are mapped, otherwise elements are returned in the order of completion.
+ *
+ * @param <T> the source element type
+ * @param <N> the result element type
+ */
+final class ParallelMapStream<T, N> extends ChainedStreamBase<N, AStream<T>> {
+    /**
+     * The prefetch process queue.
+     */
+    private final RequestQueue writes = new RequestQueue();
+    /**
+     * The read queue.
+     */
+    private final RequestQueue reads = new RequestQueue();
+    /**
+     * The maximum amount of dispatched elements that are not read yet.
+     */
+    private final int parallelism;
+    /**
+     * The worker vats.
+     */
+    private final List<? extends Vat> workers;
+    /**
+     * The mapper.
+     */
+    private final AFunction<T, N> mapper;
+    /**
+     * The reorder buffer (indexed by sequence number modulo parallelism), or null if the stream is unordered.
+     */
+    private final Outcome<N>[] reorderBuffer;
+    /**
+     * The completed elements for the unordered stream.
+     */
+    private final ArrayDeque<Outcome<N>> completed;
+    /**
+     * The sequence number of the next dispatched element.
+     */
+    private long dispatched;
+    /**
+     * The sequence number of the next element to return.
+     */
+    private long returned;
+    /**
+     * The end of upstream (EOF or failure), it is returned after all dispatched elements.
+     */
+    private Outcome<Maybe<N>> end;
+
+    /**
+     * The constructor.
+     *
+     * @param wrapped     the upstream
+     * @param parallelism the maximum amount of elements in progress
+     * @param workers     the worker vats
+     * @param mapper      the mapper
+     * @param ordered     true if the order of elements should be preserved
+     */
+    @SuppressWarnings("unchecked")
+    ParallelMapStream(final AStream<T> wrapped, final int parallelism, final List<? extends Vat> workers,
+                      final AFunction<T, N> mapper, final boolean ordered) {
+        super(wrapped);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive: " + parallelism);
+        }
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("At least one worker vat is required");
+        }
+        this.parallelism = parallelism;
+        this.workers = workers;
+        this.mapper = mapper;
+        this.reorderBuffer = ordered ? (Outcome<N>[]) new Outcome[parallelism] : null;
+        this.completed = ordered ? null : new ArrayDeque<>();
+        // prefetch process, it never fails
+        writes.runSeqWhile(() -> {
+            if (end != null || !isOpen()) {
+                return aFalse();
+            }
+            final long free = parallelism - (dispatched - returned);
+            if (free <= 0) {
+                return writes.suspendThenTrue();
+            }
+            final int max = (int) Math.min(free, StreamUtil.DEFAULT_CHUNK_SIZE);
+            return aNow(() -> this.wrapped.nextChunk(max)).flatMapOutcome(chunk -> {
+                if (chunk.isFailure()) {
+                    end = Outcome.failure(chunk.failure());
+                } else if (chunk.value().isEmpty()) {
+                    end = Outcome.success(Maybe.empty());
+                } else {
+                    for (final T value : chunk.value()) {
+                        dispatch(value);
+                    }
+                    return aTrue();
+                }
+                reads.resume();
+                return aFalse();
+            });
+        });
+    }
+
+    /**
+     * Dispatch element to the worker vat.
+     *
+     * @param value the value
+     */
+    private void dispatch(final T value) {
+        final long sequence = dispatched++;
+        final Vat worker = workers.get((int) (sequence % workers.size()));
+        aLater(worker, () -> mapper.apply(value)).listen(outcome -> {
+            if (reorderBuffer != null) {
+                reorderBuffer[(int) (sequence % parallelism)] = outcome;
+            } else {
+                completed.addLast(outcome);
+            }
+            reads.resume();
+        });
+    }
+
+    /**
+     * @return the next available outcome or null
+     */
+    private Outcome<N> takeAvailable() {
+        final Outcome<N> outcome;
+        if (reorderBuffer != null) {
+            final int index = (int) (returned % parallelism);
+            outcome = reorderBuffer[index];
+            reorderBuffer[index] = null;
+        } else {
+            outcome = completed.pollFirst();
+        }
+        if (outcome != null) {
+            returned++;
+            writes.resume();
+        }
+        return outcome;
+    }
+
+    /**
+     * @return true if all dispatched elements are returned, and no more elements will be dispatched
+     */
+    private boolean isFinished() {
+        return end != null && returned == dispatched;
+    }
+
+    @Override
+    protected Promise<Maybe<N>> produce() {
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            final Outcome<N> outcome = takeAvailable();
+            if (outcome != null) {
+                return outcome.isSuccess() ? aMaybeValue(Maybe.of(outcome.value())) : aFailure(outcome.failure());
+            }
+            if (isFinished()) {
+                return end.isSuccess() ? aMaybeValue(Maybe.empty()) : aFailure(end.failure());
+            }
+            return reads.suspendThenEmpty();
+        });
+    }
+
+    @Override
+    protected Promise<List<N>> produceChunk(final int max) {
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            final List<N> chunk = new ArrayList<>();
+            while (chunk.size() < max) {
+                final Outcome<N> outcome = takeAvailable();
+                if (outcome == null) {
+                    break;
+                }
+                if (outcome.isFailure()) {
+                    if (chunk.isEmpty()) {
+                        return aFailure(outcome.failure());
+                    }
+                    pushBack(aFailure(outcome.failure()));
+                    break;
+                }
+                chunk.add(outcome.value());
+            }
+            if (!chunk.isEmpty()) {
+                return aMaybeValue(chunk);
+            }
+            if (isFinished()) {
+                return end.isSuccess() ? aMaybeValue(Collections.emptyList()) : aFailure(end.failure());
+            }
+            return reads.suspendThenEmpty();
+        });
+    }
+
+    @Override
+    protected Promise<Void> beforeClose() {
+        writes.resume();
+        return super.beforeClose();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Cell;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.core.vats.Vat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForCollect;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForUnit;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The stream that partitions elements by key onto shard vats. Each shard runs its own pipeline over
+ * the elements with the keys that are hashed to the shard, and the results of the shards are merged
+ * using {@link MergeStream}. The elements are sent to a shard in chunks through {@link AsyncChannels#bounded(int)},
+ * and the next chunk is sent to a shard only after the previous one is accepted by it, so the buffering is bounded.
+ *
+ * @param <T> the source element type
+ * @param <N> the result element type
+ */
+final class PartitionStream<T, N> extends StreamBase<N> {
+    /**
+     * The upstream.
+     */
+    private final AStream<T> upstream;
+    /**
+     * The key function.
+     */
+    private final Function<T, ?> keyFunction;
+    /**
+     * The merged results of the shards.
+     */
+    private final Promise<MergeStream<N>> merged;
+
+    /**
+     * The constructor.
+     *
+     * @param upstream      the upstream
+     * @param keyFunction   the key function
+     * @param shards        the shard vats
+     * @param shardPipeline the pipeline executed on the shard vat
+     */
+    PartitionStream(final AStream<T> upstream, final Function<T, ?> keyFunction, final List<? extends Vat> shards,
+                    final Function<StreamBuilder<T>, StreamBuilder<N>> shardPipeline) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard vat is required");
+        }
+        this.upstream = upstream;
+        this.keyFunction = keyFunction;
+        final Promise<List<Tuple2<ASink<T>, AStream<N>>>> started = aAllForCollect(shards.iterator(),
+                vat -> aLater(vat, () -> {
+                    final Tuple2<ASink<T>, AStream<T>> queue = AsyncChannels.bounded(StreamUtil.DEFAULT_CHUNK_SIZE);
+                    final AStream<N> output = shardPipeline.apply(new PullStreamBuilder<>(queue.getValue2()))
+                            .stream();
+                    return aValue(Tuple2.of(queue.getValue1(), output));
+                }), Collectors.toList());
+        this.merged = started.map(pairs -> {
+            final List<ASink<T>> inputs = new ArrayList<>(pairs.size());
+            final List<AStream<N>> outputs = new ArrayList<>(pairs.size());
+            for (final Tuple2<ASink<T>, AStream<N>> pair : pairs) {
+                inputs.add(pair.getValue1());
+                outputs.add(pair.getValue2());
+            }
+            distribute(inputs);
+            return new MergeStream<>(outputs, StreamUtil.DEFAULT_CHUNK_SIZE);
+        });
+    }
+
+    /**
+     * Get the shard for the value.
+     *
+     * @param value  the value
+     * @param shards the amount of shards
+     * @return the shard index
+     */
+    private int shard(final T value, final int shards) {
+        final int hash = Objects.hashCode(keyFunction.apply(value));
+        return Math.floorMod(hash ^ (hash >>> 16), shards);
+    }
+
+    /**
+     * Distribute elements to the shards. The process never fails, the failures are passed to the shards.
+     *
+     * @param inputs the shard inputs
+     */
+    private void distribute(final List<ASink<T>> inputs) {
+        final int shards = inputs.size();
+        final Cell<Promise<Void>> previous = new Cell<>(aVoid());
+        aSeqWhile(() -> upstream.nextChunk(StreamUtil.DEFAULT_CHUNK_SIZE).flatMap(chunk -> {
+            if (chunk.isEmpty()) {
+                return aFalse();
+            }
+            final List<List<T>> groups = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                groups.add(null);
+            }
+            for (final T value : chunk) {
+                final int shard = shard(value, shards);
+                List<T> group = groups.get(shard);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.set(shard, group);
+                }
+                group.add(value);
+            }
+            // the chunk is sent only after the previous chunk is accepted, this keeps per-key order
+            return previous.getValue().thenFlatGet(() -> {
+                final List<Integer> targets = new ArrayList<>();
+                for (int i = 0; i < shards; i++) {
+                    if (groups.get(i) != null) {
+                        targets.add(i);
+                    }
+                }
+                previous.setValue(aAllForUnit(targets.iterator(), i -> inputs.get(i).putAll(groups.get(i))));
+                return aTrue();
+            });
+        })).thenFlatGet(() -> previous.getValue()).flatMapOutcome(outcome -> {
+            if (outcome.isSuccess()) {
+                return aVoid();
+            }
+            return aAllForUnit(inputs.iterator(), input -> aNow(() -> input.fail(outcome.failure()))
+                    .flatMapOutcome(ignored -> aVoid()));
+        }).finallyDo(() -> aAllForUnit(inputs.iterator(), input -> aNow(closeResourceAction(input))
+                .flatMapOutcome(ignored -> aVoid())).thenFlatGet(closeResourceAction(upstream)));
+    }
+
+    @Override
+    protected Promise<Maybe<N>> produce() {
+        return merged.flatMap(AStream::next);
+    }
+
+    @Override
+    protected Promise<List<N>> produceChunk(final int max) {
+        return merged.flatMap(stream -> stream.nextChunk(max));
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        return merged.flatMapOutcome(outcome -> {
+            if (outcome.isSuccess()) {
+                return outcome.value().close();
+            }
+            return aNow(closeResourceAction(upstream));
+        });
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Cell;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.ACloseable;
+import org.asyncflows.core.function.AFunction;
+import org.asyncflows.core.util.CoreFlowsResource;
+import org.asyncflows.core.util.RequestQueue;
+import org.asyncflows.core.util.ResourceClosedException;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import static org.asyncflows.core.CoreFlows.aBoolean;
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeq;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqUntilValue;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+import static org.asyncflows.core.util.ExportableComponent.exportIfNeeded;
+
+/**
+ * The base for the builders of primitive streams. The operations that work on whole chunks are implemented here,
+ * and the subclasses implement the loops over values of the specific primitive type.
+ *
+ * @param <A> the chunk type (the array of primitive values)
+ * @param <S> the stream type
+ * @param <B> the builder type
+ */
+public abstract class PrimitiveStreamBuilder<A, S extends ACloseable, B extends PrimitiveStreamBuilder<A, S, B>> {
+    /**
+     * The current stream.
+     */
+    private final S current;
+
+    /**
+     * The constructor for the builder.
+     *
+     * @param current the current stream
+     */
+    PrimitiveStreamBuilder(final S current) {
+        this.current = current;
+    }
+
+    /**
+     * @return the current stream that should be used only in the current vat
+     */
+    public S localStream() {
+        return current;
+    }
+
+    /**
+     * @return the current stream exported if needed
+     */
+    public S stream() {
+        return exportIfNeeded(current);
+    }
+
+    /**
+     * Apply the function to the builder.
+     *
+     * @param action the action
+     * @param <R>    the result type
+     * @return the result of the action
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R process(final Function<B, R> action) {
+        return action.apply((B) this);
+    }
+
+    /**
+     * Read the next chunk from the current stream.
+     *
+     * @param max the maximum chunk size
+     * @return the next chunk
+     */
+    abstract Promise<A> readChunk(int max);
+
+    /**
+     * @return the empty chunk that indicates EOF
+     */
+    abstract A empty();
+
+    /**
+     * Get the chunk length.
+     *
+     * @param chunk the chunk
+     * @return the amount of values in the chunk
+     */
+    abstract int length(A chunk);
+
+    /**
+     * Copy the range of the chunk. The copy is padded with zeros if it is longer than the chunk.
+     *
+     * @param chunk the chunk
+     * @param from  the start of the range
+     * @param to    the end of the range (not included)
+     * @return the copy of the range
+     */
+    abstract A copyOfRange(A chunk, int from, int to);
+
+    /**
+     * Create the builder for the stream that produces chunks using the function.
+     *
+     * @param upstream the upstream that is closed when the stream is closed
+     * @param producer the chunk producer (the argument is the maximum chunk size)
+     * @return the builder for the next stage
+     */
+    abstract B chained(ACloseable upstream, IntFunction<Promise<A>> producer);
+
+    /**
+     * Create the builder for the stream that transforms chunks of the current stream.
+     *
+     * @param mapper the chunk mapper that is not called for EOF
+     * @return the builder for the next stage
+     */
+    final B mapChunksSync(final Function<A, A> mapper) {
+        return chained(current, max -> readChunk(max).map(chunk -> length(chunk) == 0 ? chunk : mapper.apply(chunk)));
+    }
+
+    /**
+     * Create the builder for the stream that compacts chunks of the current stream. The empty chunks
+     * after compacting are skipped.
+     *
+     * @param compactor the compactor that moves the selected values to the start of the chunk and returns their
+     *                  amount, it is not called for EOF
+     * @return the builder for the next stage
+     */
+    final B compactChunks(final ToIntFunction<A> compactor) {
+        return chained(current, max -> aSeqUntilValue(() -> readChunk(max).map(chunk -> {
+            final int length = length(chunk);
+            if (length == 0) {
+                return Maybe.of(chunk);
+            }
+            final int size = compactor.applyAsInt(chunk);
+            if (size == 0) {
+                return Maybe.empty();
+            }
+            return Maybe.of(size == length ? chunk : copyOfRange(chunk, 0, size));
+        })));
+    }
+
+    /**
+     * Map values to objects.
+     *
+     * @param mapper the mapper that receives the chunk and the index of the value
+     * @param <N>    the element type
+     * @return the builder for the stream of objects
+     */
+    final <N> PullStreamBuilder<N> mapValues(final ValueMapper<A, N> mapper) {
+        return new PullStreamBuilder<>(new StreamBase<N>() {
+            private A buffer = empty();
+            private int position;
+
+            @Override
+            protected Promise<Maybe<N>> produce() {
+                if (position < length(buffer)) {
+                    return aMaybeValue(mapper.apply(buffer, position++));
+                }
+                return readChunk(StreamUtil.DEFAULT_CHUNK_SIZE).map(chunk -> {
+                    buffer = chunk;
+                    position = 0;
+                    return length(chunk) == 0 ? Maybe.empty() : Maybe.of(mapper.apply(buffer, position++));
+                });
+            }
+
+            @Override
+            protected Promise<List<N>> produceChunk(final int max) {
+                if (position < length(buffer)) {
+                    return aValue(take(max));
+                }
+                return readChunk(max).map(chunk -> {
+                    buffer = chunk;
+                    position = 0;
+                    return take(max);
+                });
+            }
+
+            private List<N> take(final int max) {
+                final int end = position + Math.min(max, length(buffer) - position);
+                final Object[] values = new Object[end - position];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = mapper.apply(buffer, position++);
+                }
+                @SuppressWarnings("unchecked") final List<N> list = (List<N>) Arrays.asList(values);
+                return list;
+            }
+
+            @Override
+            protected Promise<Void> closeAction() {
+                return aNow(closeResourceAction(current));
+            }
+        });
+    }
+
+    /**
+     * Transform chunks asynchronously. The mapper could modify the passed chunk and return it.
+     *
+     * @param mapper the chunk mapper (it should return non-empty chunk for non-empty chunk)
+     * @return the builder for the next stage
+     */
+    public B mapChunks(final AFunction<A, A> mapper) {
+        return chained(current, max -> readChunk(max).flatMap(
+                chunk -> length(chunk) == 0 ? aValue(chunk) : mapper.apply(chunk)));
+    }
+
+    /**
+     * Prefetch chunks from the current stream, so the previous stages work in parallel with the next stages.
+     *
+     * @param size the maximum amount of prefetched chunks
+     * @return the builder for the next stage
+     */
+    public B window(final int size) {
+        final RequestQueue writes = new RequestQueue();
+        final RequestQueue reads = new RequestQueue();
+        final ArrayDeque<Outcome<A>> chunks = new ArrayDeque<>();
+        final boolean[] closed = new boolean[1];
+        // prefetch process, it never fails
+        writes.runSeqWhile(() -> {
+            if (closed[0]) {
+                chunks.clear();
+                return aFalse();
+            }
+            if (chunks.size() >= size) {
+                return writes.suspendThenTrue();
+            }
+            return aNow(() -> readChunk(StreamUtil.DEFAULT_CHUNK_SIZE)).flatMapOutcome(value -> {
+                chunks.addLast(value);
+                reads.resume();
+                return aBoolean(value.isSuccess() && length(value.value()) > 0);
+            });
+        });
+        return chained(() -> {
+            closed[0] = true;
+            writes.resume();
+            return aNow(closeResourceAction(current));
+        }, max -> reads.runSeqUntilValue(() -> {
+            if (closed[0]) {
+                return aFailure(new ResourceClosedException("The stream is closed"));
+            }
+            if (chunks.isEmpty()) {
+                return reads.suspendThenEmpty();
+            }
+            final Outcome<A> chunk = chunks.peekFirst();
+            if (chunk.isFailure()) {
+                // the failure is kept, so the reads that are already queued fail too
+                return aFailure(chunk.failure());
+            }
+            chunks.removeFirst();
+            final A values = chunk.value();
+            final int length = length(values);
+            if (length > max) {
+                chunks.addFirst(Outcome.success(copyOfRange(values, max, length)));
+                return aMaybeValue(copyOfRange(values, 0, max));
+            }
+            writes.resume();
+            return aMaybeValue(values);
+        }));
+    }
+
+    /**
+     * Consume the stream by chunks. The stream is closed after consumption.
+     *
+     * @param loopBody the body that receives non-empty chunks, and returns false if consumption should stop
+     * @return the promise that resolves when consumption finishes
+     */
+    public Promise<Void> consume(final AFunction<A, Boolean> loopBody) {
+        return aSeq(() -> aSeqWhile(() -> readChunk(StreamUtil.DEFAULT_CHUNK_SIZE).flatMap(chunk -> {
+            if (length(chunk) == 0) {
+                return aFalse();
+            }
+            return loopBody.apply(chunk);
+        }))).finallyDo(CoreFlowsResource.closeResourceAction(current));
+    }
+
+    /**
+     * @return the promise for array with all values of the stream
+     */
+    public Promise<A> toArray() {
+        final Cell<A> data = new Cell<>(empty());
+        final int[] size = new int[1];
+        return consume(chunk -> {
+            final int length = length(chunk);
+            final int capacity = length(data.getValue());
+            if (size[0] + length > capacity) {
+                data.setValue(copyOfRange(data.getValue(), 0, Math.max(size[0] + length, capacity * 2)));
+            }
+            System.arraycopy(chunk, 0, data.getValue(), size[0], length);
+            size[0] += length;
+            return aTrue();
+        }).thenGet(() -> {
+            final A array = data.getValue();
+            return length(array) == size[0] ? array : copyOfRange(array, 0, size[0]);
+        });
+    }
+
+    /**
+     * The mapper of the chunk value to the object.
+     *
+     * @param <A> the chunk type
+     * @param <N> the result type
+     */
+    @FunctionalInterface
+    interface ValueMapper<A, N> {
+        /**
+         * Map the value.
+         *
+         * @param chunk the chunk
+         * @param index the value index
+         * @return the mapped value
+         */
+        N apply(A chunk, int index);
+    }
+}
@@ -24,18 +24,23 @@
 package org.asyncflows.core.streams;
 
 
-import static org.asyncflows.core.CoreFlows.aBoolean;
 import static org.asyncflows.core.CoreFlows.aFailure;
 import static org.asyncflows.core.CoreFlows.aFalse;
 import static org.asyncflows.core.CoreFlows.aMaybeEmpty;
 import static org.asyncflows.core.CoreFlows.aMaybeValue;
 import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
 import static org.asyncflows.core.CoreFlows.aValue;
 import static org.asyncflows.core.util.CoreFlowsSeq.aSeq;
 import static org.asyncflows.core.util.CoreFlowsSeq.aSeqUntilValue;
 import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
 
 import org.asyncflows.core.CoreFlows;
 import org.asyncflows.core.Outcome;
@@ -63,7 +68,7 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
      * @param current the current stream.
      */
     public PullStreamBuilder(final AStream<T> current) {
-        this.current = current;
+        this.current = InstrumentedStages.autoInstrument(current);
     }
 
     @Override
@@ -86,6 +91,12 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
         return this;
     }
 
+    @Override
+    public PullStreamBuilder<T> instrument(final String name) {
+        return new PullStreamBuilder<>(new InstrumentedStages.InstrumentedStream<>(current,
+                StreamMetrics.stage(name), false));
+    }
+
     @Override
     public <N> PullStreamBuilder<N> map(final AFunction<T, N> mapper) {
         final AFunction<Maybe<T>, Maybe<N>> producerMapper = ProducerUtil.toProducerMapper(mapper);
@@ -94,9 +105,27 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
             protected Promise<Maybe<N>> produce() {
                 return wrapped.next().flatMap(producerMapper);
             }
+
+            @Override
+            protected Promise<List<N>> produceChunk(final int max) {
+                return wrapped.nextChunk(max).flatMap(
+                        chunk -> StreamChunks.map(chunk, mapper, failure -> pushBack(aFailure(failure))));
+            }
         });
     }
 
+    @Override
+    public <N> PullStreamBuilder<N> flatMapMaybeSync(final Function<T, Maybe<N>> mapper) {
+        final AStream<T> stage = InstrumentedStages.uninstrumented(current);
+        if (stage instanceof FusedStages.FusedStream) {
+            final AStream<N> fused = ((FusedStages.FusedStream<?, T>) stage).fuse(mapper);
+            if (fused != null) {
+                return new PullStreamBuilder<>(fused);
+            }
+        }
+        return new PullStreamBuilder<>(new FusedStages.FusedStream<>(current, mapper));
+    }
+
     @SuppressWarnings("squid:S3776")
     @Override
     public <N> StreamBuilder<N> flatMapStream(final AFunction<T, AStream<N>> mapper) {
@@ -149,10 +178,21 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
             if (elements.size() >= size) {
                 return writes.suspendThenTrue();
             }
-            return aNow(() -> stream().next()).flatMapOutcome(value -> {
-                elements.addLast(value);
+            final int max = Math.min(size - elements.size(), StreamUtil.DEFAULT_CHUNK_SIZE);
+            return aNow(() -> stream().nextChunk(max)).flatMapOutcome(value -> {
                 reads.resume();
-                return aBoolean(value.isSuccess() && value.value().hasValue());
+                if (value.isFailure()) {
+                    elements.addLast(Outcome.failure(value.failure()));
+                    return aFalse();
+                }
+                if (value.value().isEmpty()) {
+                    elements.addLast(Outcome.success(Maybe.empty()));
+                    return aFalse();
+                }
+                for (final T element : value.value()) {
+                    elements.addLast(Outcome.success(Maybe.of(element)));
+                }
+                return aTrue();
             });
         });
         return new PullStreamBuilder<>(new StreamBase<T>() {
@@ -175,6 +215,37 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
                 });
             }
 
+            @Override
+            protected Promise<List<T>> produceChunk(final int max) {
+                return reads.runSeqUntilValue(() -> {
+                    if (!isValidAndOpen()) {
+                        return invalidationPromise();
+                    }
+                    if (elements.isEmpty()) {
+                        return reads.suspendThenEmpty();
+                    }
+                    final List<T> chunk = new ArrayList<>(Math.min(max, elements.size()));
+                    while (chunk.size() < max && !elements.isEmpty()) {
+                        final Outcome<Maybe<T>> element = elements.peekFirst();
+                        if (element.isFailure() || element.value().isEmpty()) {
+                            break;
+                        }
+                        elements.removeFirst();
+                        chunk.add(element.value().of());
+                    }
+                    writes.resume();
+                    if (!chunk.isEmpty()) {
+                        return aMaybeValue(chunk);
+                    }
+                    final Outcome<Maybe<T>> element = elements.removeFirst();
+                    if (element.isSuccess()) {
+                        return aMaybeValue(Collections.emptyList());
+                    } else {
+                        return aFailure(element.failure());
+                    }
+                });
+            }
+
             @Override
             protected Promise<Void> closeAction() {
                 closed[0] = true;
@@ -187,11 +258,18 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
     @Override
     public Promise<Void> consume(final AFunction<T, Boolean> loopBody) {
         final AStream<T> stream = current;
-        return aSeq(() -> aSeqWhile(() -> stream.next().flatMap(value -> {
-            if (value.isEmpty()) {
+        return aSeq(() -> aSeqWhile(() -> stream.nextChunk(StreamUtil.DEFAULT_CHUNK_SIZE).flatMap(chunk -> {
+            if (chunk.isEmpty()) {
                 return aFalse();
             }
-            return loopBody.apply(value.of());
+            final Iterator<T> iterator = chunk.iterator();
+            return aSeqUntilValue(() -> {
+                if (!iterator.hasNext()) {
+                    return aMaybeValue(true);
+                }
+                return loopBody.apply(iterator.next()).flatMap(
+                        continueLoop -> continueLoop ? aMaybeEmpty() : aMaybeValue(false));
+            });
         }))).finallyDo(CoreFlowsResource.closeResourceAction(current));
     }
 
@@ -212,6 +290,17 @@ public class PullStreamBuilder<T> extends StreamBuilder<T> {
                     }
                 }));
             }
+
+            @Override
+            protected Promise<List<N>> produceChunk(final int max) {
+                return requests.runSeqUntilValue(() -> wrapped.nextChunk(max).flatMap(chunk -> {
+                    if (chunk.isEmpty()) {
+                        return aMaybeValue(Collections.emptyList());
+                    }
+                    final List<N> values = StreamChunks.flatten(chunk);
+                    return values.isEmpty() ? aMaybeEmpty() : aMaybeValue(values);
+                }));
+            }
         });
     }
 }
@@ -23,11 +23,13 @@
 
 package org.asyncflows.core.streams;
 
+import static org.asyncflows.core.CoreFlows.aBoolean;
 import static org.asyncflows.core.CoreFlows.aFalse;
 import static org.asyncflows.core.CoreFlows.aNow;
 import static org.asyncflows.core.CoreFlows.aVoid;
 import static org.asyncflows.core.function.AsyncFunctionUtil.booleanSupplier;
 import static org.asyncflows.core.function.AsyncFunctionUtil.evaluate;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqForUnit;
 
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.data.Maybe;
@@ -36,6 +38,9 @@ import org.asyncflows.core.function.AFunction;
 import org.asyncflows.core.function.AResolver;
 import org.asyncflows.core.util.RequestQueue;
 
+import java.util.List;
+import java.util.function.Function;
+
 /**
  * The {@link ASink}-based forward stream builder. It actually builds sinks in the reverse order. So until
  * stream is requested or iteration is started, the sink is not built.
@@ -55,7 +60,7 @@ public class PushStreamBuilder<T> extends StreamBuilder<T> {
      * @param connector the connector
      */
     public PushStreamBuilder(final SinkConnector<T> connector) {
-        this.connector = connector;
+        this.connector = InstrumentedStages.autoInstrument(connector);
     }
 
     @Override
@@ -81,6 +86,12 @@ public class PushStreamBuilder<T> extends StreamBuilder<T> {
         return new PullStreamBuilder<>(queue.getValue2());
     }
 
+    @Override
+    public PushStreamBuilder<T> instrument(final String name) {
+        return new PushStreamBuilder<>(new InstrumentedStages.InstrumentedConnector<>(connector,
+                StreamMetrics.stage(name), false));
+    }
+
     @Override
     public <N> PushStreamBuilder<N> map(final AFunction<T, N> mapper) {
         return new PushStreamBuilder<>(nextSink -> connector.connect(new TransformSinkBase<N, T>(nextSink) {
@@ -95,6 +106,19 @@ public class PushStreamBuilder<T> extends StreamBuilder<T> {
                     }
                 })).listen(outcomeChecker());
             }
+
+            @Override
+            public Promise<Void> putAll(final List<T> values) {
+                final Throwable[] deferred = new Throwable[1];
+                final Promise<List<N>> next = StreamChunks.map(values, mapper, failure -> deferred[0] = failure);
+                return requestQueue().run(() -> next.flatMapOutcome(outcome -> {
+                    if (outcome.isSuccess()) {
+                        return putAllThenFail(outcome.value(), deferred[0]);
+                    } else {
+                        return failNext(outcome.failure());
+                    }
+                })).listen(outcomeChecker());
+            }
         }));
     }
 
@@ -118,9 +142,35 @@ public class PushStreamBuilder<T> extends StreamBuilder<T> {
                     }
                 }).listen(outcomeChecker()));
             }
+
+            @Override
+            public Promise<Void> putAll(final List<T> values) {
+                final Throwable[] deferred = new Throwable[1];
+                final Promise<List<Maybe<N>>> next = StreamChunks.map(values, mapper,
+                        failure -> deferred[0] = failure);
+                return requestQueue().run(() -> next.flatMapOutcome(outcome -> {
+                    if (!isValidAndOpen()) {
+                        return invalidationPromise();
+                    }
+                    if (outcome.isSuccess()) {
+                        return putAllThenFail(StreamChunks.flatten(outcome.value()), deferred[0]);
+                    } else {
+                        return failNext(outcome.failure());
+                    }
+                }).listen(outcomeChecker()));
+            }
         }));
     }
 
+    @Override
+    public <N> PushStreamBuilder<N> flatMapMaybeSync(final Function<T, Maybe<N>> mapper) {
+        final SinkConnector<T> stage = InstrumentedStages.uninstrumented(connector);
+        if (stage instanceof FusedStages.FusedConnector) {
+            return new PushStreamBuilder<>(((FusedStages.FusedConnector<?, T>) stage).fuse(mapper));
+        }
+        return new PushStreamBuilder<>(new FusedStages.FusedConnector<>(connector, mapper));
+    }
+
     @Override
     public <N> PushStreamBuilder<N> flatMapStream(final AFunction<T, AStream<N>> mapper) {
         return new PushStreamBuilder<>(nextSink -> connector.connect(new TransformSinkBase<N, T>(nextSink) {
@@ -166,12 +216,29 @@ public class PushStreamBuilder<T> extends StreamBuilder<T> {
                         return invalidationPromise();
                     }
                     if (active < size) {
+                        active++;
                         aNow(() -> nextSink.put(value)).listen(outcomeChecker()).listen(countdownObserver);
                         return aFalse();
                     }
                     return requestQueue().suspendThenTrue();
                 });
             }
+
+            @Override
+            public Promise<Void> putAll(final List<T> values) {
+                return requestQueue().runSeqWhile(() -> {
+                    if (!isValidAndOpen()) {
+                        return invalidationPromise();
+                    }
+                    if (active < size) {
+                        // the chunk is counted as a single element, the window limits the amount of requests
+                        active++;
+                        aNow(() -> nextSink.putAll(values)).listen(outcomeChecker()).listen(countdownObserver);
+                        return aFalse();
+                    }
+                    return requestQueue().suspendThenTrue();
+                });
+            }
         }));
     }
 
@@ -194,6 +261,21 @@ public class PushStreamBuilder<T> extends StreamBuilder<T> {
                     }).listen(outcomeChecker());
                 });
             }
+
+            @Override
+            public Promise<Void> putAll(final List<T> values) {
+                return requests.run(() -> {
+                    if (!isValidAndOpen()) {
+                        return invalidationPromise();
+                    }
+                    return aSeqForUnit(values, value -> evaluate(loopBody, value).flatMap(value1 -> {
+                        if (!value1) {
+                            startClosing();
+                        }
+                        return aBoolean(value1);
+                    })).listen(outcomeChecker());
+                });
+            }
         };
         connector.connect(lastSink);
         return lastSink.finished();
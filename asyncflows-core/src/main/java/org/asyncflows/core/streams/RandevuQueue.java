@@ -26,6 +26,8 @@ package org.asyncflows.core.streams;
 import static org.asyncflows.core.CoreFlows.aFailure;
 import static org.asyncflows.core.CoreFlows.aFalse;
 import static org.asyncflows.core.CoreFlows.aMaybeEmpty;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aValue;
 import static org.asyncflows.core.CoreFlows.aVoid;
 import static org.asyncflows.core.Outcome.notifyFailure;
 import static org.asyncflows.core.Outcome.notifySuccess;
@@ -39,6 +41,10 @@ import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.util.RequestQueue;
 import org.asyncflows.core.vats.Vat;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * <p>Randevu Queue is a queue that provides a pair of facets of types {@link AStream} and {@link ASink}.</p>
  * <p>The put operation on randevu queue only resolves when the value is actually sent to the client.
@@ -60,6 +66,14 @@ public final class RandevuQueue<T> {
      * The current request.
      */
     private AResolver<Maybe<T>> currentRequest;
+    /**
+     * The current chunk request.
+     */
+    private AResolver<List<T>> currentChunkRequest;
+    /**
+     * The maximum size of the requested chunk.
+     */
+    private int currentChunkMax;
     /**
      * The failure written to the stream.
      */
@@ -133,6 +147,38 @@ public final class RandevuQueue<T> {
                     currentRequest = null;
                     return aFalse();
                 }
+                if (currentChunkRequest != null) {
+                    notifySuccess(currentChunkRequest, Collections.singletonList(value));
+                    currentChunkRequest = null;
+                    return aFalse();
+                }
+                return requests.suspendThenTrue();
+            });
+        }
+
+        @Override
+        public Promise<Void> putAll(final List<T> values) {
+            final int[] position = new int[1];
+            return requests.runSeqWhile(() -> {
+                if (!isValid()) {
+                    return invalidationPromise();
+                }
+                if (stream.isClosed() || position[0] >= values.size()) {
+                    return aFalse();
+                }
+                if (currentRequest != null) {
+                    notifySuccess(currentRequest, Maybe.of(values.get(position[0]++)));
+                    currentRequest = null;
+                    return aTrue();
+                }
+                if (currentChunkRequest != null) {
+                    final int end = Math.min(values.size(), position[0] + currentChunkMax);
+                    final List<T> chunk = new ArrayList<>(values.subList(position[0], end));
+                    position[0] = end;
+                    notifySuccess(currentChunkRequest, chunk);
+                    currentChunkRequest = null;
+                    return aTrue();
+                }
                 return requests.suspendThenTrue();
             });
         }
@@ -150,6 +196,10 @@ public final class RandevuQueue<T> {
                     notifyFailure(currentRequest, t);
                     currentRequest = null;
                 }
+                if (currentChunkRequest != null) {
+                    notifyFailure(currentChunkRequest, t);
+                    currentChunkRequest = null;
+                }
                 return aVoid();
             });
         }
@@ -167,6 +217,10 @@ public final class RandevuQueue<T> {
                     notifySuccess(currentRequest, Maybe.empty());
                     currentRequest = null;
                 }
+                if (currentChunkRequest != null) {
+                    notifySuccess(currentChunkRequest, Collections.emptyList());
+                    currentChunkRequest = null;
+                }
                 return aVoid();
             });
         }
@@ -209,6 +263,23 @@ public final class RandevuQueue<T> {
             });
         }
 
+        @Override
+        protected Promise<List<T>> produceChunk(final int max) {
+            return requests.run(() -> {
+                if (problem != null) {
+                    return aFailure(problem);
+                }
+                if (sink.eof) {
+                    return aValue(Collections.emptyList());
+                }
+                final Promise<List<T>> promise = new Promise<>();
+                currentChunkRequest = promise.resolver();
+                currentChunkMax = max;
+                sink.requests.resume();
+                return promise;
+            });
+        }
+
         @Override
         protected Promise<Void> closeAction() {
             sink.requests.resume();
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.time.ATimer;
+import org.asyncflows.core.util.Cancellation;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.util.CancellableFlows.aWithCancellation;
+
+/**
+ * The stream that groups elements into sliding windows by time. The windows of the specified size start each
+ * slide interval from the creation of the stream, and the element belongs to all windows that contain the time
+ * when it is read from the upstream. The window is emitted at its end if it is not empty, and the remaining
+ * windows are emitted when the upstream ends. Only one timer wait is pending at time, and it is cancelled when
+ * the stream is closed. The upstream is not read while there is an emitted window that is not read by the
+ * downstream.
+ *
+ * @param <T> the element type
+ */
+final class SlidingTimeWindowStream<T> extends ChainedStreamBase<List<T>, AStream<T>> {
+    /**
+     * The upstream reading process queue.
+     */
+    private final RequestQueue writes = new RequestQueue();
+    /**
+     * The read queue.
+     */
+    private final RequestQueue reads = new RequestQueue();
+    /**
+     * The emitted windows.
+     */
+    private final ArrayDeque<List<T>> ready = new ArrayDeque<>();
+    /**
+     * The elements that belong to the windows that are not emitted yet.
+     */
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    /**
+     * The timer.
+     */
+    private final ATimer timer;
+    /**
+     * The start of the first window.
+     */
+    private final Instant start;
+    /**
+     * The window size in nanoseconds.
+     */
+    private final long size;
+    /**
+     * The interval between window starts in nanoseconds.
+     */
+    private final long slide;
+    /**
+     * The index of the next window to emit.
+     */
+    private long nextWindow;
+    /**
+     * The cancellation of the timer wait, or null if there is no wait.
+     */
+    private Cancellation windowTimer;
+    /**
+     * The end of the upstream (EOF or failure).
+     */
+    private Outcome<Void> end;
+
+    /**
+     * The constructor.
+     *
+     * @param wrapped the upstream
+     * @param timer   the timer
+     * @param size    the window size
+     * @param slide   the interval between window starts
+     */
+    SlidingTimeWindowStream(final AStream<T> wrapped, final ATimer timer, final Duration size,
+                            final Duration slide) {
+        super(wrapped);
+        if (size.isNegative() || size.isZero() || slide.isNegative() || slide.isZero()) {
+            throw new IllegalArgumentException("The size and slide must be positive: " + size + ", " + slide);
+        }
+        this.timer = timer;
+        this.start = Instant.now();
+        this.size = size.toNanos();
+        this.slide = slide.toNanos();
+        // reading process, it never fails
+        writes.runSeqWhile(() -> {
+            if (end != null || !isOpen()) {
+                return aFalse();
+            }
+            if (!ready.isEmpty()) {
+                return writes.suspendThenTrue();
+            }
+            return aNow(() -> this.wrapped.nextChunk(StreamUtil.DEFAULT_CHUNK_SIZE)).flatMapOutcome(chunk -> {
+                if (chunk.isFailure() || chunk.value().isEmpty()) {
+                    flush();
+                    end = chunk.isFailure() ? Outcome.failure(chunk.failure()) : Outcome.success(null);
+                } else {
+                    final long offset = Duration.between(start, Instant.now()).toNanos();
+                    for (final T value : chunk.value()) {
+                        entries.addLast(new Entry<>(offset, value));
+                    }
+                    if (windowTimer == null) {
+                        arm(firstWindow(offset));
+                    }
+                }
+                reads.resume();
+                return aTrue();
+            });
+        });
+    }
+
+    /**
+     * Get the first window that contains the time.
+     *
+     * @param offset the time offset from the start
+     * @return the window index
+     */
+    private long firstWindow(final long offset) {
+        final long first = offset < size ? 0 : (offset - size) / slide + 1;
+        return Math.max(first, nextWindow);
+    }
+
+    /**
+     * Start waiting for the end of the window.
+     *
+     * @param window the window index
+     */
+    private void arm(final long window) {
+        final Cancellation wait = new Cancellation();
+        windowTimer = wait;
+        final Instant windowEnd = start.plusNanos(window * slide + size);
+        aWithCancellation(wait, () -> timer.waitFor(windowEnd)).listen(outcome -> {
+            if (windowTimer == wait) {
+                windowTimer = null;
+                emit(window);
+                if (!entries.isEmpty()) {
+                    arm(firstWindow(entries.peekFirst().offset));
+                }
+            }
+        });
+    }
+
+    /**
+     * Emit the window if it is not empty, and drop the elements that do not belong to the next windows.
+     *
+     * @param window the window index
+     */
+    private void emit(final long window) {
+        final long windowStart = window * slide;
+        final long windowEnd = windowStart + size;
+        final List<T> values = new ArrayList<>();
+        for (final Entry<T> entry : entries) {
+            if (entry.offset >= windowEnd) {
+                break;
+            }
+            if (entry.offset >= windowStart) {
+                values.add(entry.value);
+            }
+        }
+        final long nextStart = windowStart + slide;
+        while (!entries.isEmpty() && entries.peekFirst().offset < nextStart) {
+            entries.removeFirst();
+        }
+        nextWindow = window + 1;
+        if (!values.isEmpty()) {
+            ready.addLast(values);
+            reads.resume();
+        }
+    }
+
+    /**
+     * Emit all windows with the remaining elements.
+     */
+    private void flush() {
+        cancelTimer();
+        while (!entries.isEmpty()) {
+            emit(firstWindow(entries.peekFirst().offset));
+        }
+    }
+
+    /**
+     * Cancel the timer wait.
+     */
+    private void cancelTimer() {
+        final Cancellation wait = windowTimer;
+        if (wait != null) {
+            windowTimer = null;
+            wait.cancel();
+        }
+    }
+
+    @Override
+    protected Promise<Maybe<List<T>>> produce() {
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            if (!ready.isEmpty()) {
+                final List<T> value = ready.removeFirst();
+                writes.resume();
+                return aMaybeValue(Maybe.of(value));
+            }
+            if (end != null) {
+                return end.isSuccess() ? aMaybeValue(Maybe.empty()) : aFailure(end.failure());
+            }
+            return reads.suspendThenEmpty();
+        });
+    }
+
+    @Override
+    protected Promise<Void> beforeClose() {
+        cancelTimer();
+        ready.clear();
+        entries.clear();
+        writes.resume();
+        return super.beforeClose();
+    }
+
+    /**
+     * The element with the time when it was read.
+     *
+     * @param <T> the element type
+     */
+    private static final class Entry<T> {
+        /**
+         * The time offset from the start of the stream in nanoseconds.
+         */
+        private final long offset;
+        /**
+         * The value.
+         */
+        private final T value;
+
+        /**
+         * The constructor.
+         *
+         * @param offset the time offset
+         * @param value  the value
+         */
+        private Entry(final long offset, final T value) {
+            this.offset = offset;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the single stream stage. For pull stages the request is a read from the upstream, for push
+ * stages the request is a write to the downstream. The stage waits for the upstream when the downstream has
+ * already requested the next elements, but the upstream has not provided them yet, and it waits for
+ * the downstream when the elements are provided but the downstream has not accepted them yet. So the stage before
+ * the bottleneck mostly waits for the downstream, and the stage after it mostly waits for the upstream.
+ */
+public final class StageMetrics {
+    /**
+     * The stage name.
+     */
+    private final String name;
+    /**
+     * The amount of requests.
+     */
+    private final LongAdder requests = new LongAdder();
+    /**
+     * The amount of elements passed through the stage.
+     */
+    private final LongAdder elements = new LongAdder();
+    /**
+     * The failed requests.
+     */
+    private final LongAdder failures = new LongAdder();
+    /**
+     * The time waiting for the upstream in nanoseconds.
+     */
+    private final LongAdder upstreamWait = new LongAdder();
+    /**
+     * The time waiting for the downstream in nanoseconds.
+     */
+    private final LongAdder downstreamWait = new LongAdder();
+    /**
+     * The requests in progress.
+     */
+    private final AtomicLong inFlight = new AtomicLong();
+
+    /**
+     * The constructor.
+     *
+     * @param name the stage name
+     */
+    StageMetrics(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record start of the request.
+     *
+     * @return the start timestamp
+     */
+    long started() {
+        requests.increment();
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record end of the request.
+     *
+     * @param count   the amount of elements
+     * @param success true if the request was successful
+     */
+    void finished(final int count, final boolean success) {
+        inFlight.decrementAndGet();
+        elements.add(count);
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Record time waiting for the upstream.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    void waitedUpstream(final long nanos) {
+        upstreamWait.add(nanos);
+    }
+
+    /**
+     * Record time waiting for the downstream.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    void waitedDownstream(final long nanos) {
+        downstreamWait.add(nanos);
+    }
+
+    /**
+     * @return the stage name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the current snapshot of the metrics
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, requests.sum(), elements.sum(), failures.sum(), upstreamWait.sum(),
+                downstreamWait.sum(), inFlight.get());
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * The snapshot of the stage metrics.
+     */
+    public static final class Snapshot {
+        /**
+         * The stage name.
+         */
+        private final String name;
+        /**
+         * The amount of requests.
+         */
+        private final long requests;
+        /**
+         * The amount of elements.
+         */
+        private final long elements;
+        /**
+         * The amount of failed requests.
+         */
+        private final long failures;
+        /**
+         * The time waiting for the upstream.
+         */
+        private final long upstreamWaitNanos;
+        /**
+         * The time waiting for the downstream.
+         */
+        private final long downstreamWaitNanos;
+        /**
+         * The requests in progress.
+         */
+        private final long inFlight;
+
+        /**
+         * The constructor.
+         *
+         * @param name                the stage name
+         * @param requests            the amount of requests
+         * @param elements            the amount of elements
+         * @param failures            the amount of failed requests
+         * @param upstreamWaitNanos   the time waiting for the upstream
+         * @param downstreamWaitNanos the time waiting for the downstream
+         * @param inFlight            the requests in progress
+         */
+        private Snapshot(final String name, final long requests, final long elements, final long failures,
+                         final long upstreamWaitNanos, final long downstreamWaitNanos, final long inFlight) {
+            this.name = name;
+            this.requests = requests;
+            this.elements = elements;
+            this.failures = failures;
+            this.upstreamWaitNanos = upstreamWaitNanos;
+            this.downstreamWaitNanos = downstreamWaitNanos;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * @return the stage name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the amount of requests
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return the amount of elements passed through the stage
+         */
+        public long getElements() {
+            return elements;
+        }
+
+        /**
+         * @return the amount of failed requests
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the time waiting for the upstream in nanoseconds
+         */
+        public long getUpstreamWaitNanos() {
+            return upstreamWaitNanos;
+        }
+
+        /**
+         * @return the time waiting for the downstream in nanoseconds
+         */
+        public long getDownstreamWaitNanos() {
+            return downstreamWaitNanos;
+        }
+
+        /**
+         * @return the requests in progress
+         */
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{requests=" + requests + ", elements=" + elements + ", failures=" + failures
+                    + ", upstreamWait=" + upstreamWaitNanos / 1_000_000 + "ms, downstreamWait="
+                    + downstreamWaitNanos / 1_000_000 + "ms, inFlight=" + inFlight + "}";
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.asyncflows.core.util.CloseableInvalidatingBase;
 import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.vats.Vat;
 
+import java.util.List;
+
 import static org.asyncflows.core.CoreFlows.aFailure;
 
 /**
@@ -50,19 +52,94 @@ public abstract class StreamBase<A> extends CloseableInvalidatingBase implements
             startClosing();
         }
     };
+    /**
+     * The observer for the chunk outcome.
+     */
+    private final AResolver<List<A>> chunkOutcomeObserver = resolution -> {
+        if (!resolution.isSuccess()) {
+            invalidate(resolution.failure());
+            startClosing();
+        } else if (resolution.value() != null && resolution.value().isEmpty()) {
+            startClosing();
+        }
+    };
+    /**
+     * The element that was produced, but not returned as a part of the chunk.
+     */
+    private Promise<Maybe<A>> lookahead;
 
     @Override
     public final Promise<Maybe<A>> next() {
         Promise<Maybe<A>> result;
         try {
             ensureValidAndOpen();
-            result = produce();
+            result = produceNext();
         } catch (Throwable t) {
             result = aFailure(t);
         }
         return result.listen(streamOutcomeObserver);
     }
 
+    @Override
+    public final Promise<List<A>> nextChunk(final int max) {
+        Promise<List<A>> result;
+        try {
+            ensureValidAndOpen();
+            StreamChunks.checkMax(max);
+            result = lookahead != null ? produceChunkFromElements(max) : produceChunk(max);
+        } catch (Throwable t) {
+            result = aFailure(t);
+        }
+        return result.listen(chunkOutcomeObserver);
+    }
+
+    /**
+     * @return the next element taking into account the element left from the chunk
+     * @throws Throwable in case if the next element could not be produced.
+     */
+    @SuppressWarnings("squid:S00112")
+    private Promise<Maybe<A>> produceNext() throws Throwable {
+        final Promise<Maybe<A>> element = lookahead;
+        if (element != null) {
+            lookahead = null;
+            return element;
+        }
+        return produce();
+    }
+
+    /**
+     * Return the element to the stream, so it will be returned by the next read operation.
+     * This is used by chunk producers when some element could not be included in the chunk.
+     *
+     * @param element the element
+     */
+    final void pushBack(final Promise<Maybe<A>> element) {
+        lookahead = element;
+    }
+
+    /**
+     * Produce the next chunk. The default implementation collects elements returned by {@link #produce()}.
+     * Override it if the stream could produce chunks in more efficient way.
+     *
+     * @param max the maximum chunk size
+     * @return the next produced chunk
+     * @throws Throwable in case if the next chunk could not be produced.
+     */
+    @SuppressWarnings("squid:S00112")
+    protected Promise<List<A>> produceChunk(final int max) throws Throwable {
+        return produceChunkFromElements(max);
+    }
+
+    /**
+     * Produce chunk from elements.
+     *
+     * @param max the maximum chunk size
+     * @return the chunk
+     */
+    private Promise<List<A>> produceChunkFromElements(final int max) {
+        return StreamChunks.collect(max, this::produceNext, this::pushBack);
+    }
+
     /**
      * The producer the next element.
      *
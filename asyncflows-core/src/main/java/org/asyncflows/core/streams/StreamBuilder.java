@@ -28,17 +28,26 @@ import org.asyncflows.core.data.Cell;
 import org.asyncflows.core.data.Maybe;
 import org.asyncflows.core.function.AFunction;
 import org.asyncflows.core.function.AFunction2;
+import org.asyncflows.core.time.ATimer;
+import org.asyncflows.core.vats.ExecutorVat;
+import org.asyncflows.core.vats.Vat;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 
-import static org.asyncflows.core.CoreFlows.aBoolean;
 import static org.asyncflows.core.CoreFlows.aFalse;
 import static org.asyncflows.core.CoreFlows.aMaybeEmpty;
 import static org.asyncflows.core.CoreFlows.aMaybeValue;
@@ -124,14 +133,117 @@ public abstract class StreamBuilder<T> {
     public abstract <N> StreamBuilder<N> map(AFunction<T, N> mapper);
 
     /**
-     * Map using synchronous function.
+     * Map using synchronous function. The consecutive synchronous stages are fused into a single stage,
+     * see {@link #flatMapMaybeSync(Function)}.
      *
      * @param mapper the mapper
      * @param <N>    the function
      * @return the next phase builder
      */
     public <N> StreamBuilder<N> mapSync(final Function<T, N> mapper) {
-        return map(t -> aValue(mapper.apply(t)));
+        return flatMapMaybeSync(value -> Maybe.of(mapper.apply(value)));
+    }
+
+    /**
+     * The synchronous flat map for {@link Maybe} type. The builders fuse the consecutive synchronous stages
+     * ({@link #mapSync(Function)}, {@link #filterSync(Predicate)}, and this method) into a single stage that
+     * applies the composed function to elements inline, so no promise is created per element and per stage.
+     * The stage boundary is created only by asynchronous operations. If the function fails on some element,
+     * the elements before it are still passed downstream, and then the stream fails, like it happens with
+     * separate stages. The default implementation uses {@link #flatMapMaybe(AFunction)}.
+     *
+     * @param mapper the mapper
+     * @param <N>    the next type
+     * @return the next builder
+     */
+    public <N> StreamBuilder<N> flatMapMaybeSync(final Function<T, Maybe<N>> mapper) {
+        return flatMapMaybe(value -> aValue(mapper.apply(value)));
+    }
+
+    /**
+     * Map elements in parallel on the worker vats. The elements are dispatched to the vats in the round-robin
+     * order, and at most {@code parallelism} elements are in progress or waiting to be read by the downstream.
+     * The mapper is invoked on the worker vat, so it should not touch state of the current vat.
+     *
+     * @param parallelism the maximum amount of elements in progress
+     * @param workers     the worker vats
+     * @param mapper      the mapper
+     * @param ordered     if true, the elements are returned in the original order using the reorder buffer,
+     *                    otherwise they are returned in the order of completion
+     * @param <N>         the next element type
+     * @return the next phase builder
+     */
+    public <N> StreamBuilder<N> mapParallel(final int parallelism, final List<? extends Vat> workers,
+                                            final AFunction<T, N> mapper, final boolean ordered) {
+        return new PullStreamBuilder<>(new ParallelMapStream<>(localStream(), parallelism,
+                new ArrayList<>(workers), mapper, ordered));
+    }
+
+    /**
+     * Map elements in parallel using the executor. The {@code parallelism} worker vats are created over
+     * the executor, see {@link #mapParallel(int, List, AFunction, boolean)}.
+     *
+     * @param parallelism the maximum amount of elements in progress
+     * @param executor    the executor for the worker vats
+     * @param mapper      the mapper
+     * @param ordered     if true, the elements are returned in the original order
+     * @param <N>         the next element type
+     * @return the next phase builder
+     */
+    public <N> StreamBuilder<N> mapParallel(final int parallelism, final Executor executor,
+                                            final AFunction<T, N> mapper, final boolean ordered) {
+        return mapParallel(parallelism, executorVats(parallelism, executor), mapper, ordered);
+    }
+
+    /**
+     * Create vats over the executor.
+     *
+     * @param count    the amount of vats
+     * @param executor the executor
+     * @return the list of vats
+     */
+    private static List<Vat> executorVats(final int count, final Executor executor) {
+        final List<Vat> vats = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vats.add(new ExecutorVat(executor));
+        }
+        return vats;
+    }
+
+    /**
+     * Partition the stream by key onto the shard vats. The elements are hashed by key to the shards, and
+     * each shard processes its elements with the pipeline that is built and executed on the shard vat.
+     * The elements with the same key are processed by the same shard in the original order, and the results
+     * of the shards are merged in the order they become available. The shards accept and produce
+     * elements in chunks, and at most one chunk per shard is buffered in each direction.
+     *
+     * @param keyFunction   the key function
+     * @param shards        the shard vats
+     * @param shardPipeline the pipeline for each shard (it is invoked on the shard vat)
+     * @param <N>           the next element type
+     * @return the next phase builder
+     */
+    public <N> StreamBuilder<N> partitionBy(final Function<T, ?> keyFunction, final List<? extends Vat> shards,
+                                            final Function<StreamBuilder<T>, StreamBuilder<N>> shardPipeline) {
+        return new PullStreamBuilder<>(new PartitionStream<>(localStream(), keyFunction, new ArrayList<>(shards),
+                shardPipeline));
+    }
+
+    /**
+     * Partition the stream by key onto the shard vats created over the executor, see
+     * {@link #partitionBy(Function, List, Function)}.
+     *
+     * @param keyFunction   the key function
+     * @param shards        the amount of shards
+     * @param executor      the executor for the shard vats
+     * @param shardPipeline the pipeline for each shard (it is invoked on the shard vat)
+     * @param <N>           the next element type
+     * @return the next phase builder
+     */
+    public <N> StreamBuilder<N> partitionBy(final Function<T, ?> keyFunction, final int shards,
+                                            final Executor executor,
+                                            final Function<StreamBuilder<T>, StreamBuilder<N>> shardPipeline) {
+        return partitionBy(keyFunction, executorVats(shards, executor), shardPipeline);
     }
 
     /**
@@ -192,6 +304,121 @@ public abstract class StreamBuilder<T> {
      */
     public abstract StreamBuilder<T> window(int size);
 
+    /**
+     * Record metrics of this stage under the specified name, see {@link StageMetrics}. The stages with the same
+     * name share the metrics, and they could be examined using {@link StreamMetrics#snapshot()}.
+     *
+     * @param name the stage name
+     * @return the next phase builder
+     */
+    public StreamBuilder<T> instrument(final String name) {
+        return pull().instrument(name);
+    }
+
+    /**
+     * Buffer the stream. Unlike {@link #window(int)}, the elements are pulled from the upstream in bursts:
+     * the refill starts when the amount of buffered elements drops to the low watermark, and the elements are
+     * requested in chunks until the buffer is full. The upstream reads overlap with the downstream processing,
+     * and the upstream is not disturbed while the buffer is above the low watermark.
+     *
+     * @param capacity     the buffer capacity
+     * @param lowWatermark the amount of buffered elements when the refill starts (less than capacity)
+     * @return the next phase builder
+     */
+    public StreamBuilder<T> buffer(final int capacity, final int lowWatermark) {
+        return new PullStreamBuilder<>(new BufferStream<>(localStream(), capacity, lowWatermark));
+    }
+
+    /**
+     * Group elements into tumbling windows by time. The windows are consecutive intervals of the specified
+     * duration starting from the moment of this call, and only non-empty windows are emitted. The element
+     * belongs to the window when it is read from the upstream, and the upstream is not read while the emitted
+     * window is not consumed by the downstream.
+     *
+     * @param timer    the timer
+     * @param duration the window duration
+     * @return the next phase builder
+     */
+    public StreamBuilder<List<T>> tumblingWindow(final ATimer timer, final Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("The duration must be positive: " + duration);
+        }
+        final Instant start = Instant.now();
+        final long nanos = duration.toNanos();
+        return new PullStreamBuilder<>(new GroupingStream<>(localStream(), timer, Integer.MAX_VALUE,
+                time -> start.plusNanos((Duration.between(start, time).toNanos() / nanos + 1) * nanos)));
+    }
+
+    /**
+     * Group elements into sliding windows by time. The windows of the specified size start each {@code slide}
+     * interval from the moment of this call, and the element belongs to all windows that contain the time when
+     * it is read from the upstream. The window is emitted at its end if it is not empty, and the windows with
+     * the remaining elements are emitted when the upstream ends. The upstream is not read while the emitted
+     * window is not consumed by the downstream.
+     *
+     * @param timer the timer
+     * @param size  the window duration
+     * @param slide the interval between the starts of the windows
+     * @return the next phase builder
+     * @see #tumblingWindow(ATimer, Duration)
+     */
+    public StreamBuilder<List<T>> slidingWindow(final ATimer timer, final Duration size, final Duration slide) {
+        return new PullStreamBuilder<>(new SlidingTimeWindowStream<>(localStream(), timer, size, slide));
+    }
+
+    /**
+     * Group elements into sliding windows by count. The window of {@code size} elements is emitted each
+     * {@code slide} elements. Only full windows are emitted, so the trailing elements that do not form a full
+     * window are not emitted (if the stream is shorter than the window, nothing is emitted). For the windows
+     * by time, see {@link #slidingWindow(ATimer, Duration, Duration)}.
+     *
+     * @param size  the window size
+     * @param slide the amount of elements between the starts of the windows
+     * @return the next phase builder
+     */
+    public StreamBuilder<List<T>> slidingWindow(final int size, final int slide) {
+        if (size < 1 || slide < 1) {
+            throw new IllegalArgumentException("The size and slide must be positive: " + size + ", " + slide);
+        }
+        final ArrayDeque<T> window = new ArrayDeque<>(size);
+        final long[] skip = new long[1];
+        return flatMapMaybeSync(value -> {
+            if (skip[0] > 0) {
+                skip[0]--;
+                return Maybe.empty();
+            }
+            window.addLast(value);
+            if (window.size() < size) {
+                return Maybe.empty();
+            }
+            final List<T> result = new ArrayList<>(window);
+            if (slide >= size) {
+                window.clear();
+                skip[0] = slide - size;
+            } else {
+                for (int i = 0; i < slide; i++) {
+                    window.removeFirst();
+                }
+            }
+            return Maybe.of(result);
+        });
+    }
+
+    /**
+     * Group elements into batches. The batch is emitted when it reaches {@code maxCount} elements, or when
+     * {@code maxDelay} passes after its first element is read, so the latency added by batching is bounded.
+     * The upstream is not read while the emitted batch is not consumed by the downstream.
+     *
+     * @param timer    the timer
+     * @param maxCount the maximum amount of elements in the batch
+     * @param maxDelay the maximum delay after the first element of the batch
+     * @return the next phase builder
+     */
+    public StreamBuilder<List<T>> batch(final ATimer timer, final int maxCount, final Duration maxDelay) {
+        return new PullStreamBuilder<>(new GroupingStream<>(localStream(), timer, maxCount,
+                time -> time.plus(maxDelay)));
+    }
+
     /**
      * Filter the stream, the default implementation uses {@link #flatMapMaybe(AFunction)}.
      *
@@ -209,13 +436,53 @@ public abstract class StreamBuilder<T> {
     }
 
     /**
-     * Filter the stream, the default implementation uses {@link #filter(AFunction)}.
+     * Filter the stream, the default implementation uses {@link #flatMapMaybeSync(Function)}.
      *
      * @param filter the filter to use
      * @return the filter
      */
     public StreamBuilder<T> filterSync(final Predicate<T> filter) {
-        return filter(e -> aBoolean(filter.test(e)));
+        return flatMapMaybeSync(value -> filter.test(value) ? Maybe.of(value) : Maybe.empty());
+    }
+
+    /**
+     * Drop elements that are equal to one of the last {@code window} distinct elements. Unlike filtering over
+     * a set of all elements, the memory is bounded: the least recently seen element is forgotten when the window
+     * is full, and it passes again when it appears after that.
+     *
+     * @param window the amount of remembered distinct elements
+     * @return the next phase builder
+     */
+    public StreamBuilder<T> distinctWithin(final int window) {
+        return filterSync(DistinctFilters.lastSeen(window));
+    }
+
+    /**
+     * Drop elements that have already been seen during the time window. The repeated element restarts the window
+     * for it. The memory is bounded by the amount of distinct elements that arrive during the window.
+     *
+     * @param window the time window
+     * @return the next phase builder
+     */
+    public StreamBuilder<T> distinctWithin(final Duration window) {
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("The window must not be negative: " + window);
+        }
+        return filterSync(DistinctFilters.seenWithin(window.toNanos(), System::nanoTime));
+    }
+
+    /**
+     * Drop elements that have probably been seen using the bloom filter over {@link Object#hashCode()}. The memory
+     * is fixed and it is determined by the parameters. The element that has not been seen could be dropped
+     * with the specified probability, and the probability grows after the expected amount of distinct elements
+     * is exceeded.
+     *
+     * @param expectedItems the expected amount of distinct elements
+     * @param fpp           the false positive probability
+     * @return the next phase builder
+     */
+    public StreamBuilder<T> distinctApprox(final long expectedItems, final double fpp) {
+        return filterSync(DistinctFilters.bloom(expectedItems, fpp));
     }
 
     /**
@@ -248,6 +515,60 @@ public abstract class StreamBuilder<T> {
         });
     }
 
+    /**
+     * Map elements to {@code int} values. The elements are read by chunks, and the result stream transfers
+     * the values as arrays, so the values are not boxed on the following stages.
+     *
+     * @param mapper the mapper
+     * @return the builder for the {@code int} stream
+     */
+    public IntStreamBuilder mapToInt(final ToIntFunction<T> mapper) {
+        final AStream<T> stream = localStream();
+        return new IntStreamBuilder(IntStreamBase.chained(stream, max -> stream.nextChunk(max).map(chunk -> {
+            final int[] result = new int[chunk.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = mapper.applyAsInt(chunk.get(i));
+            }
+            return result;
+        })));
+    }
+
+    /**
+     * Map elements to {@code long} values. The elements are read by chunks, and the result stream transfers
+     * the values as arrays, so the values are not boxed on the following stages.
+     *
+     * @param mapper the mapper
+     * @return the builder for the {@code long} stream
+     */
+    public LongStreamBuilder mapToLong(final ToLongFunction<T> mapper) {
+        final AStream<T> stream = localStream();
+        return new LongStreamBuilder(LongStreamBase.chained(stream, max -> stream.nextChunk(max).map(chunk -> {
+            final long[] result = new long[chunk.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = mapper.applyAsLong(chunk.get(i));
+            }
+            return result;
+        })));
+    }
+
+    /**
+     * Map elements to {@code double} values. The elements are read by chunks, and the result stream transfers
+     * the values as arrays, so the values are not boxed on the following stages.
+     *
+     * @param mapper the mapper
+     * @return the builder for the {@code double} stream
+     */
+    public DoubleStreamBuilder mapToDouble(final ToDoubleFunction<T> mapper) {
+        final AStream<T> stream = localStream();
+        return new DoubleStreamBuilder(DoubleStreamBase.chained(stream, max -> stream.nextChunk(max).map(chunk -> {
+            final double[] result = new double[chunk.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = mapper.applyAsDouble(chunk.get(i));
+            }
+            return result;
+        })));
+    }
+
     /**
      * Consume elements from the stream in the order they arrive. The stream is closed after all values are consumed.
      * If failure is received from the stream iteration stops with received failure.
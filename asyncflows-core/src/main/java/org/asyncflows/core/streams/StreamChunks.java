@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.AFunction;
+import org.asyncflows.core.function.ASupplier;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.asyncflows.core.CoreFlows.aBoolean;
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.function.AsyncFunctionUtil.evaluate;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The utilities for the chunked transport of stream elements.
+ */
+final class StreamChunks {
+    /**
+     * The initial capacity of the chunk list.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The private constructor for utility class.
+     */
+    private StreamChunks() {
+    }
+
+    /**
+     * Check the maximum chunk size.
+     *
+     * @param max the maximum chunk size
+     */
+    static void checkMax(final int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive: " + max);
+        }
+    }
+
+    /**
+     * Collect chunk from the element producer. The method waits for the first element, and then collects elements
+     * while they are immediately available. The first element that is not immediately available, or
+     * that is EOF or failure, is passed to the push back consumer.
+     *
+     * @param max      the maximum chunk size
+     * @param producer the element producer
+     * @param pushBack the consumer of the element that is not included into the chunk
+     * @param <A>      the element type
+     * @return the promise for chunk
+     */
+    static <A> Promise<List<A>> collect(final int max, final ASupplier<Maybe<A>> producer,
+                                        final Consumer<Promise<Maybe<A>>> pushBack) {
+        final List<A> chunk = new ArrayList<>(Math.min(max, INITIAL_CAPACITY));
+        return aSeqWhile(() -> {
+            final Promise<Maybe<A>> next = aNow(producer);
+            if (chunk.isEmpty()) {
+                return next.flatMap(value -> {
+                    if (value.isEmpty()) {
+                        return aFalse();
+                    }
+                    chunk.add(value.of());
+                    return aBoolean(chunk.size() < max);
+                });
+            }
+            final Outcome<Maybe<A>> outcome = next.getOutcomeOrNull();
+            if (outcome == null || outcome.isFailure() || outcome.value().isEmpty()) {
+                pushBack.accept(next);
+                return aFalse();
+            }
+            chunk.add(outcome.value().of());
+            return aBoolean(chunk.size() < max);
+        }).thenGet(() -> chunk);
+    }
+
+    /**
+     * Map the chunk using the mapper. The elements are mapped sequentially. If mapping fails after some
+     * elements are mapped, the mapped elements are returned, and the failure is passed to the consumer.
+     *
+     * @param chunk    the chunk
+     * @param mapper   the mapper
+     * @param deferred the consumer of the failure that happened after some elements were mapped
+     * @param <T>      the source element type
+     * @param <N>      the target element type
+     * @return the promise for the mapped chunk
+     */
+    static <T, N> Promise<List<N>> map(final List<T> chunk, final AFunction<T, N> mapper,
+                                       final Consumer<Throwable> deferred) {
+        final List<N> result = new ArrayList<>(chunk.size());
+        final Iterator<T> iterator = chunk.iterator();
+        return aSeqWhile(() -> {
+            if (!iterator.hasNext()) {
+                return aFalse();
+            }
+            return evaluate(mapper, iterator.next()).flatMapOutcome(outcome -> {
+                if (outcome.isSuccess()) {
+                    result.add(outcome.value());
+                    return aTrue();
+                }
+                if (result.isEmpty()) {
+                    return aFailure(outcome.failure());
+                }
+                deferred.accept(outcome.failure());
+                return aFalse();
+            });
+        }).thenGet(() -> result);
+    }
+
+    /**
+     * Remove empty values from the chunk.
+     *
+     * @param chunk the chunk
+     * @param <N>   the element type
+     * @return the list of values
+     */
+    static <N> List<N> flatten(final List<Maybe<N>> chunk) {
+        final List<N> result = new ArrayList<>(chunk.size());
+        for (final Maybe<N> value : chunk) {
+            if (value.hasValue()) {
+                result.add(value.of());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of stream stage metrics. The stages are instrumented explicitly using
+ * {@link StreamBuilder#instrument(String)}, or all stages created by {@link PullStreamBuilder} and
+ * {@link PushStreamBuilder} are instrumented after {@link #setInstrumentAll(boolean)} is enabled. The latter is
+ * intended for diagnostics, the automatically instrumented stages are named after the builder operation, and
+ * the stages of the same operation in different pipelines share the metrics, so the registry does not grow with
+ * the amount of built pipelines.
+ */
+public final class StreamMetrics {
+    /**
+     * The metrics by stage name.
+     */
+    private static final ConcurrentHashMap<String, StageMetrics> STAGES = new ConcurrentHashMap<>();
+    /**
+     * True if all stages are instrumented.
+     */
+    private static volatile boolean instrumentAll;
+
+    /**
+     * The private constructor for utility class.
+     */
+    private StreamMetrics() {
+    }
+
+    /**
+     * @return true if all stages created by builders are instrumented
+     */
+    public static boolean isInstrumentAll() {
+        return instrumentAll;
+    }
+
+    /**
+     * Enable or disable instrumentation of all stages. The flag affects only stages created after the call.
+     *
+     * @param value the new value
+     */
+    public static void setInstrumentAll(final boolean value) {
+        instrumentAll = value;
+    }
+
+    /**
+     * Get or create metrics for the stage. The stages with the same name share the metrics.
+     *
+     * @param name the stage name
+     * @return the stage metrics
+     */
+    public static StageMetrics stage(final String name) {
+        return STAGES.computeIfAbsent(name, StageMetrics::new);
+    }
+
+    /**
+     * @return the snapshots of all stages sorted by the name
+     */
+    public static List<StageMetrics.Snapshot> snapshot() {
+        final List<StageMetrics.Snapshot> snapshots = new ArrayList<>(STAGES.size());
+        for (final StageMetrics stage : STAGES.values()) {
+            snapshots.add(stage.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(StageMetrics.Snapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * Remove all registered stages. The stages that are still running continue to update the removed metrics.
+     */
+    public static void reset() {
+        STAGES.clear();
+    }
+}
@@ -40,10 +40,18 @@ import org.asyncflows.core.data.Cell;
 import org.asyncflows.core.data.Maybe;
 import org.asyncflows.core.function.ASupplier;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * The stream utilities.
  */
 public final class StreamUtil {
+    /**
+     * The default chunk size used when elements are copied or consumed in chunks.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
     /**
      * The private constructor for utility class.
      */
@@ -82,19 +90,32 @@ public final class StreamUtil {
                     return stream.next();
                 }
             }
+
+            @Override
+            protected Promise<List<T>> produceChunk(final int max) {
+                if (count >= n) {
+                    return aValue(Collections.emptyList());
+                }
+                return stream.nextChunk(Math.min(max, n - count)).map(chunk -> {
+                    count += chunk.size();
+                    return chunk;
+                });
+            }
         };
     }
 
     /**
-     * Copy the stream to sink and then close the stream in any case.
+     * Copy the stream to sink and then close the stream in any case. The elements are copied in chunks.
      *
      * @param stream the stream to copy
      * @param sink   the target sink
      * @param <O>    the element type
      * @return the amount of elements copied
      */
-    @SuppressWarnings("squid:S3776")
+    @SuppressWarnings({"squid:S3776", "unchecked"})
     public static <O> Promise<Long> connect(final AStream<O> stream, final ASink<? super O> sink) {
+        // the sink does not modify the list, so it is safe to pass it to the sink of the super type
+        final ASink<O> target = (ASink<O>) sink;
         final long[] count = new long[1];
         final Cell<Outcome<Void>> stopped = new Cell<>();
         sink.finished().listen(resolution -> {
@@ -106,7 +127,7 @@ public final class StreamUtil {
                     if (!stopped.isEmpty()) {
                         return aFalse();
                     }
-                    final Promise<Maybe<O>> next = aNow(StreamUtil.producerFromStream(stream));
+                    final Promise<List<O>> next = aNow(() -> stream.nextChunk(DEFAULT_CHUNK_SIZE));
                     return next.flatMapOutcome(value -> {
                         try {
                             if (value.isSuccess()) {
@@ -116,8 +137,8 @@ public final class StreamUtil {
                                     if (!stopped.isEmpty()) {
                                         return aFalse();
                                     }
-                                    count[0]++;
-                                    return sink.put(value.value().of()).thenValue(true);
+                                    count[0] += value.value().size();
+                                    return target.putAll(value.value()).thenValue(true);
                                 }
                             } else {
                                 return sink.fail(value.failure()).thenFailure(value.failure());
@@ -27,6 +27,8 @@ import org.asyncflows.core.CoreFlows;
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.util.RequestQueue;
 
+import java.util.List;
+
 /**
  * Transform sink base where the next resource is a sink as well.
  *
@@ -71,6 +73,19 @@ public abstract class TransformSinkBase<N, T> extends ChainedSinkBase<T, ASink<N
         return wrapped.fail(error);
     }
 
+    /**
+     * Put values to the next sink, and then fail it if there is a failure. This is used to pass the values
+     * transformed before the failure happened.
+     *
+     * @param values  the values to put
+     * @param failure the failure or null
+     * @return the promise that resolves when the values are put and the failure is reported
+     */
+    protected final Promise<Void> putAllThenFail(final List<N> values, final Throwable failure) {
+        final Promise<Void> put = values.isEmpty() ? CoreFlows.aVoid() : wrapped.putAll(values);
+        return failure == null ? put : put.thenFlatGet(() -> failNext(failure));
+    }
+
     /**
      * @return before close action
      */
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.core.util.RequestQueue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+
+/**
+ * The stream that combines elements of two streams into pairs. The stream ends when any of the streams ends.
+ *
+ * @param <A> the first element type
+ * @param <B> the second element type
+ */
+final class ZipStream<A, B> extends StreamBase<Tuple2<A, B>> {
+    /**
+     * The read queue.
+     */
+    private final RequestQueue requests = new RequestQueue();
+    /**
+     * The first stream.
+     */
+    private final AStream<A> first;
+    /**
+     * The second stream.
+     */
+    private final AStream<B> second;
+    /**
+     * The buffered elements of the first stream.
+     */
+    private final ArrayDeque<A> firstBuffer = new ArrayDeque<>();
+    /**
+     * The buffered elements of the second stream.
+     */
+    private final ArrayDeque<B> secondBuffer = new ArrayDeque<>();
+    /**
+     * True if any of the streams reached EOF.
+     */
+    private boolean eof;
+
+    /**
+     * The constructor.
+     *
+     * @param first  the first stream
+     * @param second the second stream
+     */
+    ZipStream(final AStream<A> first, final AStream<B> second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    protected Promise<Maybe<Tuple2<A, B>>> produce() {
+        return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+    }
+
+    @Override
+    protected Promise<List<Tuple2<A, B>>> produceChunk(final int max) {
+        return requests.run(() -> fill(max).thenGet(() -> {
+            final int size = Math.min(max, Math.min(firstBuffer.size(), secondBuffer.size()));
+            if (size == 0) {
+                return Collections.<Tuple2<A, B>>emptyList();
+            }
+            final List<Tuple2<A, B>> chunk = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                chunk.add(Tuple2.of(firstBuffer.removeFirst(), secondBuffer.removeFirst()));
+            }
+            return chunk;
+        }));
+    }
+
+    /**
+     * Read the streams, which buffers are empty.
+     *
+     * @param max the maximum chunk size
+     * @return when buffers are filled or EOF is reached
+     */
+    private Promise<Void> fill(final int max) {
+        if (eof) {
+            return aVoid();
+        }
+        return aAll(() -> firstBuffer.isEmpty() ? first.nextChunk(max) : aValue(Collections.<A>emptyList()))
+                .andLast(() -> secondBuffer.isEmpty() ? second.nextChunk(max) : aValue(Collections.<B>emptyList()))
+                .map(chunks -> {
+                    if (firstBuffer.isEmpty() && chunks.getValue1().isEmpty()
+                            || secondBuffer.isEmpty() && chunks.getValue2().isEmpty()) {
+                        eof = true;
+                        firstBuffer.clear();
+                        secondBuffer.clear();
+                    } else {
+                        firstBuffer.addAll(chunks.getValue1());
+                        secondBuffer.addAll(chunks.getValue2());
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        return aAll(closeResourceAction(first)).andLast(closeResourceAction(second)).toVoid();
+    }
+}
@@ -66,10 +66,18 @@ public class Timer implements ATimer, AsynchronousService {
      * The counter for anonymous timers.
      */
     private static final AtomicInteger ANONYMOUS_TIMER_COUNT = new AtomicInteger(0);
+    /**
+     * The amount of cancelled tasks after which the cancelled tasks are removed from the timer queue.
+     */
+    private static final int PURGE_INTERVAL = 1024;
     /**
      * The timer to use.
      */
     private final java.util.Timer timer;
+    /**
+     * The count of cancelled tasks, {@link java.util.Timer} keeps the cancelled tasks until their time.
+     */
+    private final AtomicInteger cancelledTasks = new AtomicInteger();
 
     /**
      * The constructor. Note that the timer is owned by the thread.
@@ -133,7 +141,11 @@ public class Timer implements ATimer, AsynchronousService {
                     }
                     notifyFailure(resolver, new CancellationException("The task has been cancelled."));
                 }
-                return super.cancel();
+                final boolean cancelled = super.cancel();
+                if (cancelled && cancelledTasks.incrementAndGet() % PURGE_INTERVAL == 0) {
+                    timer.purge();
+                }
+                return cancelled;
             }
         }
         return new CancellableTimerTask();
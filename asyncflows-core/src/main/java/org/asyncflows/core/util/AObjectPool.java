@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.annotations.Asynchronous;
+import org.asyncflows.core.function.ACloseable;
+
+/**
+ * The pool of objects that are expensive to create. The borrowed object must be returned using
+ * {@link #release(Object)}, or discarded using {@link #invalidate(Object)} if it is broken. The method
+ * {@link #lease()} returns the object wrapped into {@link PoolLease} that could be used with
+ * {@link CoreFlowsResource#aTry(Promise)}, so the object is returned automatically.
+ *
+ * @param <T> the object type
+ */
+@Asynchronous
+public interface AObjectPool<T> extends ACloseable {
+    /**
+     * Borrow the object. If the pool is exhausted, the operation waits until some object is returned.
+     *
+     * @return the promise for the object
+     */
+    Promise<T> borrow();
+
+    /**
+     * Return the object to the pool.
+     *
+     * @param object the object borrowed from this pool
+     */
+    void release(T object);
+
+    /**
+     * Discard the borrowed object, so it is destroyed instead of returning to the pool.
+     *
+     * @param object the object borrowed from this pool
+     */
+    void invalidate(T object);
+
+    /**
+     * @return the current statistics of the pool
+     */
+    Promise<ObjectPoolStats> stats();
+
+    /**
+     * Borrow the object and wrap it into the lease that returns the object on close.
+     *
+     * @return the promise for the lease
+     */
+    default Promise<PoolLease<T>> lease() {
+        return borrow().map(object -> new PoolLease<>(this, object));
+    }
+}
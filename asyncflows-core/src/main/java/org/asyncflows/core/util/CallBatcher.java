@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.CoreFlows;
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.annotations.Experimental;
+import org.asyncflows.core.context.Context;
+import org.asyncflows.core.data.Subcription;
+import org.asyncflows.core.function.AOneWayAction;
+import org.asyncflows.core.function.AResolver;
+import org.asyncflows.core.function.ASupplier;
+import org.asyncflows.core.vats.Vat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aVoid;
+
+/**
+ * The call batcher used by generated batching proxies (see {@link org.asyncflows.core.annotations.Asynchronous}).
+ * The calls made from the same caller vat are collected until the flush event, that is sent to the caller vat
+ * when the first call of the batch is made. So all calls made by events that were already in the caller vat queue
+ * at that moment are delivered to the service vat as a single event. The calls are executed in the order
+ * they were made. The promises that are resolved by the time the whole batch is executed are resolved in
+ * the caller vat with a single event, other promises are resolved individually as usual.
+ * <p>
+ * If there is no current vat or the current vat is the service vat, the batcher falls back to
+ * {@link CoreFlows#aLaterOrNow(Vat, ASupplier)} and {@link CoreFlows#aOneWayOrNow(Vat, AOneWayAction)}.
+ * Note, the calls sent through batching proxy could be overtaken by calls to the same service sent through other
+ * proxies during the caller batch.
+ */
+@Experimental
+public final class CallBatcher {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CallBatcher.class);
+    /**
+     * The service vat.
+     */
+    private final Vat vat;
+    /**
+     * The batch that is currently being collected. The field is just a cache. If some other vat replaces
+     * the batch, the replaced batch is still delivered by its flush event, and the caller just starts a new one.
+     */
+    private volatile Batch current;
+
+    /**
+     * The constructor.
+     *
+     * @param vat the service vat
+     */
+    public CallBatcher(final Vat vat) {
+        this.vat = Objects.requireNonNull(vat);
+    }
+
+    /**
+     * Schedule the call of the action on the service vat.
+     *
+     * @param action the action
+     * @param <T>    the result type
+     * @return the promise for result
+     */
+    public <T> Promise<T> aCall(final ASupplier<T> action) {
+        final Vat caller = Vat.currentOrNull();
+        if (caller == null || caller == vat) {
+            return CoreFlows.aLaterOrNow(vat, action);
+        }
+        final Promise<T> promise = new Promise<>();
+        batch(caller).add(new Call<>(Context.current(), action, promise.resolver()));
+        return promise;
+    }
+
+    /**
+     * Schedule the one-way action on the service vat.
+     *
+     * @param action the action
+     */
+    public void aOneWay(final AOneWayAction action) {
+        final Vat caller = Vat.currentOrNull();
+        if (caller == null || caller == vat) {
+            CoreFlows.aOneWayOrNow(vat, action);
+            return;
+        }
+        batch(caller).add(new Call<>(Context.current(), () -> {
+            action.run();
+            return aVoid();
+        }, null));
+    }
+
+    /**
+     * Get the batch for the caller vat or start a new one.
+     *
+     * @param caller the caller vat
+     * @return the batch
+     */
+    private Batch batch(final Vat caller) {
+        Batch batch = current;
+        // the sent flag is read only if the batch belongs to the current vat, so it is always written by this thread
+        if (batch == null || batch.caller != caller || batch.sent) {
+            batch = new Batch(caller);
+            current = batch;
+            caller.execute(batch);
+        }
+        return batch;
+    }
+
+    /**
+     * The recorded call.
+     *
+     * @param <T> the result type
+     */
+    private static final class Call<T> {
+        /**
+         * The context of the call.
+         */
+        private final Context context;
+        /**
+         * The action.
+         */
+        private final ASupplier<T> action;
+        /**
+         * The resolver or null for one-way calls.
+         */
+        private final AResolver<T> resolver;
+        /**
+         * The outcome if the call is completed during execution of the batch.
+         */
+        private Outcome<T> outcome;
+
+        private Call(final Context context, final ASupplier<T> action, final AResolver<T> resolver) {
+            this.context = context;
+            this.action = action;
+            this.resolver = resolver;
+        }
+
+        /**
+         * Execute the call in the service vat.
+         *
+         * @return true if the result should be reported with the batch
+         */
+        private boolean execute() {
+            final Promise<T> promise;
+            try (Subcription ignored = context.setContext()) {
+                promise = aNow(action);
+            }
+            if (resolver == null) {
+                promise.listenSync(o -> {
+                    if (o.isFailure()) {
+                        LOG.error("One-way action failed", o.failure());
+                    }
+                });
+                return false;
+            }
+            outcome = promise.getOutcomeOrNull();
+            if (outcome == null) {
+                promise.listenSync(resolver);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Notify the resolver with the outcome in the caller vat.
+         */
+        private void report() {
+            Outcome.notifyResolver(resolver, outcome);
+        }
+    }
+
+    /**
+     * The batch of calls from the single caller vat.
+     */
+    private final class Batch implements Runnable {
+        /**
+         * The caller vat.
+         */
+        private final Vat caller;
+        /**
+         * The calls.
+         */
+        private final List<Call<?>> calls = new ArrayList<>();
+        /**
+         * True if batch is already sent to service vat. Accessed only from the caller vat.
+         */
+        private boolean sent;
+
+        private Batch(final Vat caller) {
+            this.caller = caller;
+        }
+
+        private void add(final Call<?> call) {
+            calls.add(call);
+        }
+
+        /**
+         * Flush the batch. Invoked in the caller vat.
+         */
+        @Override
+        public void run() {
+            sent = true;
+            if (current == this) {
+                current = null;
+            }
+            vat.execute(this::deliver);
+        }
+
+        /**
+         * Deliver the batch. Invoked in the service vat.
+         */
+        private void deliver() {
+            final List<Call<?>> completed = new ArrayList<>(calls.size());
+            for (final Call<?> call : calls) {
+                if (call.execute()) {
+                    completed.add(call);
+                }
+            }
+            if (!completed.isEmpty()) {
+                caller.execute(() -> {
+                    for (final Call<?> call : completed) {
+                        call.report();
+                    }
+                });
+            }
+        }
+    }
+}
@@ -31,9 +31,11 @@ import org.asyncflows.core.function.ASupplier;
 import org.asyncflows.core.function.AsyncFunctionUtil;
 import org.asyncflows.core.function.FunctionExporter;
 
+import java.time.Duration;
 import java.util.function.Consumer;
 
 import static org.asyncflows.core.ContextFlows.inContext;
+import static org.asyncflows.core.CoreFlows.aFailure;
 import static org.asyncflows.core.CoreFlows.aNow;
 
 /**
@@ -163,6 +165,42 @@ public final class CancellableFlows {
         return inContext(c -> c.without(Cancellation.CONTEXT_KEY), action);
     }
 
+    /**
+     * Execute action with the timeout. The action is executed with the local cancellation and {@link Deadline}
+     * in the context, and if the timeout is exceeded, the cancellation fails with
+     * {@link DeadlineExceededException}. If there is already a deadline in the context, the earliest
+     * deadline is used.
+     *
+     * @param timeout the timeout
+     * @param action  the action
+     * @param <R>     the result type
+     * @return the action result
+     */
+    public static <R> Promise<R> aWithTimeout(Duration timeout, ASupplier<R> action) {
+        return aWithDeadline(Deadline.after(timeout), action);
+    }
+
+    /**
+     * Execute action with the deadline.
+     *
+     * @param deadline the deadline
+     * @param action   the action
+     * @param <R>      the result type
+     * @return the action result
+     * @see #aWithTimeout(Duration, ASupplier)
+     */
+    public static <R> Promise<R> aWithDeadline(Deadline deadline, ASupplier<R> action) {
+        final Deadline effective = deadline.earliest(Deadline.currentOrNull());
+        if (effective.isExpired()) {
+            return aFailure(effective.exceeded());
+        }
+        return aWithLocalCancellation(cancellation -> {
+            final Subcription expiry = effective.onExpiry(() -> cancellation.fail(effective.exceeded()));
+            return cancellation.run(() -> inContext(c -> c.with(Deadline.CONTEXT_KEY, effective), action))
+                    .listenSync(o -> expiry.close());
+        });
+    }
+
     /**
      * Cancellable action. The action itself might execute with cancellation or not. So {@code onCancel()} variants
      * are invoked only if there is an actual cancellation.
@@ -29,12 +29,20 @@ import org.asyncflows.core.annotations.ThreadSafe;
 import org.asyncflows.core.context.Context;
 import org.asyncflows.core.context.ContextKey;
 import org.asyncflows.core.data.Subcription;
-import org.asyncflows.core.function.AResolver;
 import org.asyncflows.core.function.ARunner;
 import org.asyncflows.core.function.ASupplier;
+import org.asyncflows.core.vats.Priority;
+import org.asyncflows.core.vats.Vat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 
 import static org.asyncflows.core.CoreFlows.aNow;
@@ -43,6 +51,11 @@ import static org.asyncflows.core.function.AsyncFunctionUtil.promiseSupplier;
 /**
  * Cancellation runner that fails if any running block has failed or this instance is failed.
  * The class is thread-safe and it could be passed around.
+ * <p>
+ * The listeners are kept in a lock-free stack of registration nodes, and the node itself is returned
+ * as {@link Subcription}. The unregistration just clears the node action, so it is O(1), and the cleared
+ * nodes are unlinked by compaction when there are more cleared nodes than live ones, so the compaction cost
+ * is amortized over unregistrations.
  */
 @ThreadSafe
 public class Cancellation implements ARunner {
@@ -51,13 +64,34 @@ public class Cancellation implements ARunner {
      */
     public static final ContextKey<Cancellation> CONTEXT_KEY = ContextKey.get(Cancellation.class);
     /**
-     * Failure promise.
+     * The logger.
      */
-    private final Promise<Void> failPromise = new Promise<>();
+    private static final Logger LOG = LoggerFactory.getLogger(Cancellation.class);
     /**
-     * True, if failure promise is resolved already.
+     * The minimum amount of cleared nodes for the compaction.
      */
-    private final AtomicBoolean resolved = new AtomicBoolean(false);
+    private static final int COMPACTION_THRESHOLD = 32;
+    /**
+     * The updater for the registration action.
+     */
+    private static final AtomicReferenceFieldUpdater<Registration, Object> ACTION =
+            AtomicReferenceFieldUpdater.newUpdater(Registration.class, Object.class, "action");
+    /**
+     * The state, it is either null, the top {@link Registration} node, or the failure {@link Throwable}.
+     */
+    private final AtomicReference<Object> state = new AtomicReference<>();
+    /**
+     * The amount of live registrations.
+     */
+    private final AtomicInteger live = new AtomicInteger();
+    /**
+     * The amount of cleared registrations that are still linked.
+     */
+    private final AtomicInteger cleared = new AtomicInteger();
+    /**
+     * True, if compaction is in progress.
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
 
     /**
      * @return a new cancellation runner that
@@ -81,8 +115,20 @@ public class Cancellation implements ARunner {
      * @param problem the problem
      */
     public void fail(final Throwable problem) {
-        if (resolved.compareAndSet(false, true)) {
-            failPromise.resolver().resolve(Outcome.failure(problem));
+        Object current;
+        do {
+            current = state.get();
+            if (current instanceof Throwable) {
+                return;
+            }
+        } while (!state.compareAndSet(current, problem));
+        // notify in the registration order
+        final List<Registration> registrations = new ArrayList<>();
+        for (Registration r = (Registration) current; r != null; r = r.next) {
+            registrations.add(r);
+        }
+        for (int i = registrations.size() - 1; i >= 0; i--) {
+            registrations.get(i).fire(problem);
         }
     }
 
@@ -107,7 +153,7 @@ public class Cancellation implements ARunner {
      * @return a runnable that could be used to remove listener
      */
     public Subcription onCancelSync(Runnable action) {
-        return onCancelSync(t -> action.run());
+        return register(action);
     }
 
     /**
@@ -117,17 +163,75 @@ public class Cancellation implements ARunner {
      * @return a runnable that could be used to remove listener
      */
     public Subcription onCancelSync(Consumer<Throwable> action) {
-        final AResolver<Void> listener = o -> {
-            if (o.isFailure()) {
-                action.accept(o.failure());
+        return register(action);
+    }
+
+    /**
+     * Register the action.
+     *
+     * @param action the action ({@link Runnable} or {@link Consumer})
+     * @return the registration
+     */
+    private Registration register(final Object action) {
+        final Registration registration = new Registration(action);
+        while (true) {
+            final Object current = state.get();
+            if (current instanceof Throwable) {
+                live.incrementAndGet();
+                registration.fire((Throwable) current);
+                return registration;
+            }
+            final Registration top = (Registration) current;
+            registration.next = top;
+            if (state.compareAndSet(top, registration)) {
+                live.incrementAndGet();
+                return registration;
+            }
+        }
+    }
+
+    /**
+     * Unlink the cleared nodes if there are more of them than the live ones. Only one thread compacts the stack,
+     * and the other threads only push to the top, so the links are changed only by the compacting thread.
+     * The removed nodes keep their links, so the concurrent traversal still reaches the rest of the stack.
+     */
+    private void compactIfNeeded() {
+        final int clearedCount = cleared.get();
+        if (clearedCount < COMPACTION_THRESHOLD || clearedCount <= live.get()
+                || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final Object current = state.get();
+            if (!(current instanceof Registration)) {
+                return;
+            }
+            int removed = 0;
+            Registration previous = (Registration) current;
+            // the cleared nodes on the top are popped, the push could happen concurrently
+            while (previous != null && previous.action == null && state.compareAndSet(previous, previous.next)) {
+                removed++;
+                previous = previous.next;
+            }
+            if (previous != null) {
+                for (Registration r = previous.next; r != null; r = r.next) {
+                    if (r.action == null) {
+                        previous.next = r.next;
+                        removed++;
+                    } else {
+                        previous = r;
+                    }
+                }
             }
-        };
-        failPromise.listenSync(listener);
-        return () -> failPromise.forget(listener);
+            cleared.addAndGet(-removed);
+        } finally {
+            compacting.set(false);
+        }
     }
 
     /**
-     * Run with cleanup.
+     * Run with cleanup. The failure of the cancellation is delivered to the action using the
+     * {@link Priority#URGENT} lane of the current vat, so it is not delayed by queued bulk operations.
      *
      * @param action  the action
      * @param cleanup the cleanup
@@ -136,22 +240,22 @@ public class Cancellation implements ARunner {
      */
     public <T> Promise<T> run(final ASupplier<T> action, final Consumer<T> cleanup) {
         final Promise<T> localFailure = new Promise<>();
-        final AResolver<Void> failureObserver = o -> {
-            if (o.isFailure()) {
-                localFailure.resolver().resolve(Outcome.failure(o.failure()));
+        final Vat vat = Vat.currentOrNull();
+        final Subcription failureObserver = onCancelSync(problem -> {
+            final Outcome<T> failure = Outcome.failure(problem);
+            if (vat == null) {
+                localFailure.resolver().resolve(failure);
             } else {
-                localFailure.resolver().resolve(Outcome.failure(
-                        new RuntimeException("BUG: Unexpected result: " + o)));
+                vat.execute(() -> localFailure.resolver().resolve(failure), Priority.URGENT);
             }
-        };
-        failPromise.listenSync(failureObserver);
-        if (!failPromise.isUnresolved()) {
+        });
+        if (state.get() instanceof Throwable) {
             // if there is already failure, just return a promise that will eventually fail
             return localFailure;
         }
         final CoreFlowsAny.AnyBuilder<T> builder = CoreFlowsAny.aAny(
                 () -> aNow(action).listen(o -> {
-                    failPromise.forget(failureObserver);
+                    failureObserver.close();
                     if (o.isFailure()) {
                         fail(o.failure());
                     }
@@ -161,4 +265,69 @@ public class Cancellation implements ARunner {
         }
         return builder.finish();
     }
+
+    /**
+     * The registration node. It is also a subscription that removes the registration.
+     */
+    private final class Registration implements Subcription {
+        /**
+         * The action, it is null when the registration is fired or closed.
+         */
+        private volatile Object action;
+        /**
+         * The next node.
+         */
+        private volatile Registration next;
+
+        /**
+         * The constructor.
+         *
+         * @param action the action
+         */
+        private Registration(final Object action) {
+            this.action = action;
+        }
+
+        /**
+         * Claim the action.
+         *
+         * @return the action or null if it was already claimed
+         */
+        private Object claim() {
+            final Object a = action;
+            return a != null && ACTION.compareAndSet(this, a, null) ? a : null;
+        }
+
+        /**
+         * Fire the action.
+         *
+         * @param problem the failure
+         */
+        @SuppressWarnings("unchecked")
+        private void fire(final Throwable problem) {
+            final Object a = claim();
+            if (a == null) {
+                return;
+            }
+            live.decrementAndGet();
+            try {
+                if (a instanceof Runnable) {
+                    ((Runnable) a).run();
+                } else {
+                    ((Consumer<Throwable>) a).accept(problem);
+                }
+            } catch (Throwable t) {
+                LOG.error("Cancellation listener failed", t);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (claim() != null) {
+                live.decrementAndGet();
+                cleared.incrementAndGet();
+                compactIfNeeded();
+            }
+        }
+    }
 }
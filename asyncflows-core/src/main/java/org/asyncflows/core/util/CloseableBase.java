@@ -27,6 +27,8 @@ package org.asyncflows.core.util;
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.function.ACloseable;
 import org.asyncflows.core.function.AResolver;
+import org.asyncflows.core.vats.Priority;
+import org.asyncflows.core.vats.Vat;
 
 import static org.asyncflows.core.CoreFlows.aVoid;
 import static org.asyncflows.core.Outcome.notifyFailure;
@@ -83,14 +85,25 @@ public abstract class CloseableBase implements ACloseable {
     }
 
     /**
-     * Start closing a stream if needed.
+     * The priority of the lane that is used to deliver the completion of the close action. The normal lane keeps
+     * the order with the actions that are already queued on the vat, the urgent lane allows skipping them.
+     *
+     * @return the priority
+     */
+    protected Priority closePriority() {
+        return Priority.NORMAL;
+    }
+
+    /**
+     * Start closing a stream if needed. The completion of the close action is delivered using
+     * the lane returned by {@link #closePriority()}.
      */
     protected void startClosing() {
         if (isOpen()) {
             isClosing = true;
             final AResolver<Void> resolver = closePromise.resolver();
             try {
-                closeAction().listen(resolver);
+                closeAction().listen(Vat.current(), closePriority(), resolver);
             } catch (Throwable problem) {
                 notifyFailure(resolver, problem);
             }
@@ -26,6 +26,7 @@ package org.asyncflows.core.util;
 
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.function.AResolver;
+import org.asyncflows.core.vats.Priority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,6 +84,17 @@ public class CloseableInvalidatingBase extends CloseableBase {
         return checkOutcomeObserver;
     }
 
+    /**
+     * The invalid object is closed using the urgent lane, since there is no more useful work to wait for,
+     * and the close of a failed or cancelled object should not be delayed by queued bulk operations.
+     *
+     * @return the priority
+     */
+    @Override
+    protected Priority closePriority() {
+        return isValid() ? Priority.NORMAL : Priority.URGENT;
+    }
+
     /**
      * @return a checker for outcome
      */
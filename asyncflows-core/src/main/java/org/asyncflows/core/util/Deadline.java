@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.annotations.ThreadSafe;
+import org.asyncflows.core.context.Context;
+import org.asyncflows.core.context.ContextKey;
+import org.asyncflows.core.data.Subcription;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline for the operation. The deadline is installed into {@link Context} with
+ * {@link CancellableFlows#aWithTimeout(Duration, org.asyncflows.core.function.ASupplier)}, so it propagates
+ * with the context across vats. The operations that could wait for a long time check the current deadline
+ * and fail fast with {@link DeadlineExceededException} when there is no time left. The deadline is based on
+ * {@link System#nanoTime()}, so it is meaningful only inside the same JVM.
+ */
+@ThreadSafe
+public final class Deadline {
+    /**
+     * Context key for the deadline.
+     */
+    public static final ContextKey<Deadline> CONTEXT_KEY = ContextKey.get(Deadline.class);
+    /**
+     * The deadline time as {@link System#nanoTime()}.
+     */
+    private final long time;
+
+    /**
+     * The constructor.
+     *
+     * @param time the deadline time as {@link System#nanoTime()}
+     */
+    private Deadline(final long time) {
+        this.time = time;
+    }
+
+    /**
+     * Create deadline after the timeout from now.
+     *
+     * @param timeout the timeout
+     * @return the deadline
+     */
+    public static Deadline after(final Duration timeout) {
+        final long now = System.nanoTime();
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException ex) {
+            nanos = timeout.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        final long time = now + nanos;
+        // handle overflow, the deadlines that far are the same
+        if (nanos > 0 && time - now < 0) {
+            return new Deadline(now + Long.MAX_VALUE);
+        }
+        return new Deadline(time);
+    }
+
+    /**
+     * @return the deadline from the current context or null
+     */
+    public static Deadline currentOrNull() {
+        return Context.current().getOrNull(CONTEXT_KEY);
+    }
+
+    /**
+     * Check the deadline in the current context.
+     *
+     * @throws DeadlineExceededException if the current deadline is exceeded
+     */
+    public static void checkCurrent() {
+        final Deadline deadline = currentOrNull();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    /**
+     * @return the remaining time in nanoseconds, zero if the deadline is exceeded
+     */
+    public long remainingNanos() {
+        return Math.max(0L, time - System.nanoTime());
+    }
+
+    /**
+     * @return the remaining time, zero if the deadline is exceeded
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    /**
+     * @return true if there is no time left
+     */
+    public boolean isExpired() {
+        return time - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Check the deadline.
+     *
+     * @throws DeadlineExceededException if the deadline is exceeded
+     */
+    public void check() {
+        if (isExpired()) {
+            throw exceeded();
+        }
+    }
+
+    /**
+     * @return a new exception for this deadline
+     */
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException("The deadline is exceeded");
+    }
+
+    /**
+     * Get the earliest of two deadlines. The nested operations could not extend the outer deadline.
+     *
+     * @param other the other deadline (might be null)
+     * @return the earliest deadline
+     */
+    public Deadline earliest(final Deadline other) {
+        if (other == null || time - other.time <= 0) {
+            return this;
+        }
+        return other;
+    }
+
+    /**
+     * Run the action when the deadline is exceeded. The action is executed on the shared timer thread, so it
+     * should be short, like {@link Cancellation#fail(Throwable)}. If the deadline is already exceeded, the action
+     * is executed immediately.
+     *
+     * @param action the action
+     * @return the subscription that cancels the action
+     */
+    public Subcription onExpiry(final Runnable action) {
+        final long delay = time - System.nanoTime();
+        if (delay <= 0) {
+            action.run();
+            return Subcription.noCleanup();
+        }
+        final ScheduledFuture<?> future = Scheduler.EXECUTOR.schedule(action, delay, TimeUnit.NANOSECONDS);
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remaining=" + remaining() + '}';
+    }
+
+    /**
+     * The holder for the shared timer. The cancelled tasks are removed immediately, so the deadlines of
+     * the operations that complete in time do not accumulate in the queue.
+     */
+    private static final class Scheduler {
+        /**
+         * The executor.
+         */
+        private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+        /**
+         * Private constructor for holder class.
+         */
+        private Scheduler() {
+        }
+
+        /**
+         * @return the executor
+         */
+        private static ScheduledThreadPoolExecutor createExecutor() {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                final Thread t = new Thread(r, "AsyncFlows-Deadlines");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.function.AFunction;
+import org.asyncflows.core.time.ATimer;
+import org.asyncflows.core.vats.Vat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.function.AsyncFunctionUtil.evaluate;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The vat-local cache in front of the shared pool. The objects released in this vat are kept in the cache
+ * up to the capacity, and they are borrowed again without accessing the shared pool. The cached objects are
+ * validated with the validator of the cache before they are returned, and the objects that were cached longer
+ * than the idle timeout are returned to the shared pool, so they are evicted by it. The cache should be created
+ * for each vat that uses the shared pool, and it is not thread-safe. Closing the cache returns the cached objects
+ * to the shared pool, the shared pool is not closed.
+ *
+ * @param <T> the object type
+ */
+public final class LocalObjectPool<T> extends CloseableBase
+        implements AObjectPool<T>, ExportableComponent<AObjectPool<T>> {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(LocalObjectPool.class);
+    /**
+     * The shared pool.
+     */
+    private final AObjectPool<T> shared;
+    /**
+     * The cached objects, the most recently released objects are at the end.
+     */
+    private final ArrayDeque<ObjectPool.Idle<T>> cache = new ArrayDeque<>();
+    /**
+     * The maximum amount of cached objects.
+     */
+    private final int capacity;
+    /**
+     * The validator for cached objects.
+     */
+    private AFunction<T, Boolean> validator;
+    /**
+     * The timer for idle eviction.
+     */
+    private ATimer timer;
+    /**
+     * The idle timeout.
+     */
+    private Duration idleTimeout;
+    /**
+     * True if the eviction is started.
+     */
+    private boolean evicting;
+    /**
+     * The amount of borrow operations served from the cache.
+     */
+    private long borrowed;
+    /**
+     * The amount of cached objects that failed validation.
+     */
+    private long validationFailures;
+
+    /**
+     * The constructor.
+     *
+     * @param shared   the shared pool (usually exported)
+     * @param capacity the maximum amount of cached objects
+     */
+    public LocalObjectPool(final AObjectPool<T> shared, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.shared = shared;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Set the validator that checks cached objects before they are borrowed. The objects that fail validation
+     * are invalidated in the shared pool. Usually, it is the same validator as the validator of the shared pool.
+     *
+     * @param validator the validator
+     */
+    public void setValidator(final AFunction<T, Boolean> validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Set the idle timeout. The cached objects are checked periodically with the timeout period, and the objects
+     * that were cached longer than the timeout are returned to the shared pool.
+     *
+     * @param idleTimer the timer
+     * @param timeout   the idle timeout
+     */
+    public void setIdleTimeout(final ATimer idleTimer, final Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("The timeout must be positive: " + timeout);
+        }
+        this.timer = Objects.requireNonNull(idleTimer);
+        this.idleTimeout = timeout;
+    }
+
+    @Override
+    public Promise<T> borrow() {
+        final ObjectPool.Idle<T> entry = cache.pollLast();
+        if (entry == null) {
+            return shared.borrow();
+        }
+        final T object = entry.object;
+        if (validator == null) {
+            borrowed++;
+            return aValue(object);
+        }
+        return evaluate(validator, object).flatMapOutcome(outcome -> {
+            if (outcome.isSuccess() && Boolean.TRUE.equals(outcome.value())) {
+                borrowed++;
+                return aValue(object);
+            }
+            if (outcome.isFailure()) {
+                LOG.warn("The object validation failed", outcome.failure());
+            }
+            validationFailures++;
+            shared.invalidate(object);
+            return borrow();
+        });
+    }
+
+    @Override
+    public void release(final T object) {
+        if (isCached(object)) {
+            LOG.warn("The object is released while it is cached: {}", object);
+            return;
+        }
+        if (isOpen() && cache.size() < capacity) {
+            cache.addLast(new ObjectPool.Idle<>(object, System.nanoTime()));
+            startEviction();
+        } else {
+            shared.release(object);
+        }
+    }
+
+    @Override
+    public void invalidate(final T object) {
+        if (isCached(object)) {
+            LOG.warn("The object is invalidated while it is cached: {}", object);
+            return;
+        }
+        shared.invalidate(object);
+    }
+
+    /**
+     * Check if the object is cached. The amount of cached objects is limited by the capacity, so the scan is cheap.
+     *
+     * @param object the object
+     * @return true if the object is cached
+     */
+    private boolean isCached(final T object) {
+        for (final ObjectPool.Idle<T> entry : cache) {
+            if (entry.object == object) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get statistics of the shared pool combined with the statistics of this cache. The objects cached by this
+     * cache are counted as idle rather than active, and the borrow operations and the validation failures of
+     * this cache are added. The objects cached by other caches are still counted as active.
+     *
+     * @return the combined statistics
+     */
+    @Override
+    public Promise<ObjectPoolStats> stats() {
+        return shared.stats().map(stats -> {
+            final int cached = cache.size();
+            return new ObjectPoolStats(stats.getCreated(), stats.getDestroyed(), stats.getBorrowed() + borrowed,
+                    stats.getValidationFailures() + validationFailures, stats.getEvicted(),
+                    Math.max(0, stats.getActive() - cached), stats.getIdle() + cached, stats.getWaiting());
+        });
+    }
+
+    /**
+     * @return the amount of objects cached locally
+     */
+    public int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Start returning expired objects to the shared pool if the idle timeout is specified.
+     */
+    private void startEviction() {
+        if (evicting || timer == null) {
+            return;
+        }
+        evicting = true;
+        aSeqWhile(() -> timer.sleep(idleTimeout).map(time -> {
+            final long releasedBefore = System.nanoTime() - idleTimeout.toNanos();
+            while (!cache.isEmpty() && cache.peekFirst().releasedAt - releasedBefore <= 0) {
+                shared.release(cache.removeFirst().object);
+            }
+            return isOpen();
+        })).listen(outcome -> {
+            if (outcome.isFailure()) {
+                LOG.warn("The idle eviction stopped", outcome.failure());
+            }
+        });
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        ObjectPool.Idle<T> entry;
+        while ((entry = cache.pollLast()) != null) {
+            shared.release(entry.object);
+        }
+        return aVoid();
+    }
+
+    @Override
+    public AObjectPool<T> export(final Vat vat) {
+        return AObjectPoolProxyFactory.createProxy(vat, this);
+    }
+}
@@ -28,6 +28,10 @@ import org.asyncflows.core.vats.Vat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
@@ -35,16 +39,23 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.WeakHashMap;
 
 import static org.asyncflows.core.CoreFlows.aFailure;
-import static org.asyncflows.core.CoreFlows.aLater;
-import static org.asyncflows.core.CoreFlows.aSend;
+import static org.asyncflows.core.CoreFlows.aLaterOrNow;
+import static org.asyncflows.core.CoreFlows.aOneWayOrNow;
 
 /**
  * Create a reflection based proxy for the class. Class is deprecated in favor of manual proxies
  * or asynchronous proxy generator. (for removal)
+ * <p>
+ * The methods are invoked using method handles that are prepared once per exported class, so the per-call
+ * overhead over generated proxies is limited to the lookup of the invoker and boxing of arguments.
  *
  * @see org.asyncflows.core.annotations.Asynchronous
  * @deprecated
@@ -59,6 +70,22 @@ public final class ObjectExporter {
      * The factories.
      */
     private static final WeakHashMap<Class, WeakReference<Factory>> FACTORIES = new WeakHashMap<>();
+    /**
+     * The empty arguments (the proxy passes null for methods without arguments).
+     */
+    private static final Object[] NO_ARGS = new Object[0];
+    /**
+     * The generic type of method handle used by invokers.
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    /**
+     * The call interfaces by argument count.
+     */
+    private static final Class<?>[] CALL_TYPES = {Call0.class, Call1.class, Call2.class, Call3.class};
+    /**
+     * The call interfaces for void methods by argument count.
+     */
+    private static final Class<?>[] RUN_TYPES = {Run0.class, Run1.class, Run2.class, Run3.class};
 
     /**
      * The constructor for utility class.
@@ -115,6 +142,16 @@ public final class ObjectExporter {
          * The types (used for toString).
          */
         private final String types;
+        /**
+         * The invokers for the methods.
+         */
+        private final Map<Method, Invoker> invokers = new HashMap<>();
+        /**
+         * The invokers by identity of method objects passed by the proxy class. The proxy class passes
+         * the same method object for each call, so the lookup does not need to compare methods.
+         * The map is never modified after publication.
+         */
+        private volatile Map<Method, Invoker> resolvedInvokers = new IdentityHashMap<>();
 
         /**
          * The constructor.
@@ -147,7 +184,180 @@ public final class ObjectExporter {
             } catch (NoSuchMethodException e) {
                 throw new IllegalStateException("No constructor in proxy class for: " + implementation.getName(), e);
             }
+            prepareInvokers(filtered);
+        }
+
+        /**
+         * Prepare invokers for all methods that could be passed to the handler.
+         *
+         * @param interfaces the proxy interfaces
+         */
+        private void prepareInvokers(final List<Class<?>> interfaces) {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            for (final Class<?> type : interfaces) {
+                for (final Method method : type.getMethods()) {
+                    invokers.putIfAbsent(method, createInvoker(lookup, method));
+                }
+            }
+            try {
+                invokers.put(Object.class.getMethod("toString"), (handler, proxy, args) ->
+                        types + "@" + System.identityHashCode(handler.object));
+                invokers.put(Object.class.getMethod("hashCode"), (handler, proxy, args) ->
+                        System.identityHashCode(handler.object));
+                invokers.put(Object.class.getMethod("equals", Object.class), (handler, proxy, args) -> {
+                    final Object arg = args[0];
+                    if (arg == null || !Proxy.isProxyClass(arg.getClass())) {
+                        return false;
+                    }
+                    final InvocationHandler other = Proxy.getInvocationHandler(arg);
+                    return other instanceof Handler && ((Handler) other).object == handler.object;
+                });
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Object methods are not found", e);
+            }
+        }
+
+        /**
+         * Find invoker for the method.
+         *
+         * @param method the method object passed by the proxy
+         * @return the invoker or null
+         */
+        private Invoker findInvoker(final Method method) {
+            final Invoker resolved = resolvedInvokers.get(method);
+            if (resolved != null) {
+                return resolved;
+            }
+            final Invoker invoker = invokers.get(method);
+            if (invoker != null) {
+                synchronized (this) {
+                    final Map<Method, Invoker> copy = new IdentityHashMap<>(resolvedInvokers);
+                    copy.put(method, invoker);
+                    resolvedInvokers = copy;
+                }
+            }
+            return invoker;
+        }
 
+        /**
+         * Create invoker for the interface method.
+         *
+         * @param lookup the lookup
+         * @param method the method
+         * @return the invoker
+         */
+        @SuppressWarnings("unchecked")
+        private Invoker createInvoker(final MethodHandles.Lookup lookup, final Method method) {
+            final Class<?> returnType = method.getReturnType();
+            if (void.class != returnType && Promise.class != returnType) {
+                return (handler, proxy, args) -> {
+                    throw new UnsupportedOperationException("The method " + method
+                            + " is not supported for asynchronous proxy: " + proxy.toString());
+                };
+            }
+            final Target target;
+            try {
+                target = createTarget(lookup, method);
+            } catch (IllegalAccessException e) {
+                if (void.class == returnType) {
+                    return (handler, proxy, args) -> {
+                        if (LOG.isErrorEnabled()) {
+                            LOG.error("Failed one-way method: " + method, e);
+                        }
+                        return null;
+                    };
+                }
+                return (handler, proxy, args) -> aFailure(e);
+            }
+            if (void.class == returnType) {
+                return (handler, proxy, args) -> {
+                    aOneWayOrNow(handler.vat, () -> {
+                        try {
+                            target.call(handler.object, args);
+                        } catch (Throwable e) {
+                            if (LOG.isErrorEnabled()) {
+                                LOG.error("Failed one-way method: " + method, e);
+                            }
+                        }
+                    });
+                    return null;
+                };
+            }
+            return (handler, proxy, args) -> aLaterOrNow(handler.vat,
+                    () -> (Promise<Object>) target.call(handler.object, args));
+        }
+
+        /**
+         * Create the target for the method. For methods with few arguments, the class that invokes
+         * the method directly is spun with {@link LambdaMetafactory}, so the call is a plain interface call
+         * that could be inlined by JIT. Other methods use spreading method handle.
+         *
+         * @param lookup the lookup
+         * @param method the method
+         * @return the target
+         * @throws IllegalAccessException if method is not accessible
+         */
+        private static Target createTarget(final MethodHandles.Lookup lookup, final Method method)
+                throws IllegalAccessException {
+            // the interface might be in other named module, so the module should read it before the lookup
+            ObjectExporter.class.getModule().addReads(method.getDeclaringClass().getModule());
+            final MethodHandle handle = lookup.unreflect(method);
+            final int count = method.getParameterCount();
+            if (count < CALL_TYPES.length) {
+                try {
+                    return createLambdaTarget(lookup, method, handle);
+                } catch (Throwable e) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Falling back to method handle for " + method, e);
+                    }
+                }
+            }
+            final MethodHandle spreader = handle.asSpreader(Object[].class, count).asType(INVOKER_TYPE);
+            return (object, args) -> (Object) spreader.invokeExact(object, args);
+        }
+
+        /**
+         * Create the target using {@link LambdaMetafactory}.
+         *
+         * @param lookup the lookup
+         * @param method the method
+         * @param handle the method handle
+         * @return the target
+         * @throws Throwable if the target could not be created
+         */
+        @SuppressWarnings("squid:S3776")
+        private static Target createLambdaTarget(final MethodHandles.Lookup lookup, final Method method,
+                                                 final MethodHandle handle) throws Throwable {
+            final int count = method.getParameterCount();
+            final boolean isVoid = method.getReturnType() == void.class;
+            final MethodType erased = MethodType.genericMethodType(count + 1);
+            final Object f = LambdaMetafactory.metafactory(lookup, isVoid ? "run" : "call",
+                    MethodType.methodType(isVoid ? RUN_TYPES[count] : CALL_TYPES[count]),
+                    isVoid ? erased.changeReturnType(void.class) : erased,
+                    handle, handle.type().wrap().changeReturnType(method.getReturnType())
+            ).getTarget().invoke();
+            switch (count) {
+                case 0:
+                    return isVoid ? (object, args) -> {
+                        ((Run0) f).run(object);
+                        return null;
+                    } : (object, args) -> ((Call0) f).call(object);
+                case 1:
+                    return isVoid ? (object, args) -> {
+                        ((Run1) f).run(object, args[0]);
+                        return null;
+                    } : (object, args) -> ((Call1) f).call(object, args[0]);
+                case 2:
+                    return isVoid ? (object, args) -> {
+                        ((Run2) f).run(object, args[0], args[1]);
+                        return null;
+                    } : (object, args) -> ((Call2) f).call(object, args[0], args[1]);
+                default:
+                    return isVoid ? (object, args) -> {
+                        ((Run3) f).run(object, args[0], args[1], args[2]);
+                        return null;
+                    } : (object, args) -> ((Call3) f).call(object, args[0], args[1], args[2]);
+            }
         }
 
         /**
@@ -173,12 +383,108 @@ public final class ObjectExporter {
         }
     }
 
+    /**
+     * The invocation target for the interface method.
+     */
+    @FunctionalInterface
+    private interface Target {
+        /**
+         * Call the method.
+         *
+         * @param object the object
+         * @param args   the arguments
+         * @return the result
+         * @throws Throwable if method fails
+         */
+        Object call(Object object, Object[] args) throws Throwable;
+    }
+
+    /**
+     * The call of the method without arguments (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Call0 {
+        Object call(Object object);
+    }
+
+    /**
+     * The call of the method with one argument (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Call1 {
+        Object call(Object object, Object arg0);
+    }
+
+    /**
+     * The call of the method with two arguments (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Call2 {
+        Object call(Object object, Object arg0, Object arg1);
+    }
+
+    /**
+     * The call of the method with three arguments (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Call3 {
+        Object call(Object object, Object arg0, Object arg1, Object arg2);
+    }
+
+    /**
+     * The call of the void method without arguments (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Run0 {
+        void run(Object object);
+    }
+
+    /**
+     * The call of the void method with one argument (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Run1 {
+        void run(Object object, Object arg0);
+    }
+
+    /**
+     * The call of the void method with two arguments (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Run2 {
+        void run(Object object, Object arg0, Object arg1);
+    }
+
+    /**
+     * The call of the void method with three arguments (implemented by {@link LambdaMetafactory}).
+     */
+    @FunctionalInterface
+    private interface Run3 {
+        void run(Object object, Object arg0, Object arg1, Object arg2);
+    }
+
+    /**
+     * The method invoker.
+     */
+    @FunctionalInterface
+    private interface Invoker {
+        /**
+         * Invoke the method.
+         *
+         * @param handler the handler
+         * @param proxy   the proxy
+         * @param args    the arguments (never null)
+         * @return the result
+         */
+        Object invoke(Handler handler, Object proxy, Object[] args);
+    }
+
     /**
      * The handler class.
      */
     private static final class Handler implements InvocationHandler {
         /**
-         * There is no particular sense to keep an object except to prevent garbage collection of it.
+         * The creator of the proxy, it also keeps invokers.
          */
         private final Factory creator;
         /**
@@ -204,55 +510,13 @@ public final class ObjectExporter {
         }
 
         @Override
-        @SuppressWarnings({"unchecked", "squid:S3776"})
         public Object invoke(final Object proxy, final Method method, final Object[] args) {
-            final Class<?> returnType = method.getReturnType();
-            if (void.class == returnType) {
-                aSend(vat, () -> {
-                    try {
-                        method.invoke(object, args);
-                    } catch (IllegalAccessException e) {
-                        if (LOG.isErrorEnabled()) {
-                            LOG.error("Failed one-way method: " + method, e);
-                        }
-                    } catch (InvocationTargetException e) {
-                        if (LOG.isErrorEnabled()) {
-                            LOG.error("Failed one-way method: " + method, e.getTargetException());
-                        }
-                    }
-                });
-                return null;
-            } else if (Promise.class == returnType) {
-                return aLater(vat, () -> {
-                    try {
-                        return (Promise<Object>) method.invoke(object, args);
-                    } catch (InvocationTargetException e) {
-                        return aFailure(e.getTargetException());
-                    } catch (IllegalAccessException e) {
-                        return aFailure(e);
-                    }
-                });
-            }
-            final String name = method.getName();
-            final Class<?>[] parameterTypes = method.getParameterTypes();
-            if (parameterTypes.length == 0) {
-                if ("toString".equals(name)) {
-                    return creator.toString() + "@" + System.identityHashCode(object);
-                }
-                if ("hashCode".equals(name)) {
-                    return System.identityHashCode(object);
-                }
-            }
-            if (parameterTypes.length == 1 && parameterTypes[0] == Object.class && "equals".equals(name)) {
-                final Object arg = args[0];
-                if (arg == null || !Proxy.isProxyClass(arg.getClass())) {
-                    return false;
-                }
-                final InvocationHandler handler = Proxy.getInvocationHandler(arg);
-                return handler instanceof Handler && ((Handler) handler).object == object;
+            final Invoker invoker = creator.findInvoker(method);
+            if (invoker == null) {
+                throw new UnsupportedOperationException("The method " + method
+                        + " is not supported for asynchronous proxy: " + proxy.toString());
             }
-            throw new UnsupportedOperationException("The method " + method
-                    + " is not supported for asynchronous proxy: " + proxy.toString());
+            return invoker.invoke(this, proxy, args == null ? NO_ARGS : args);
         }
     }
 }
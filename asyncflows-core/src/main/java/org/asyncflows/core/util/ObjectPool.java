@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.function.AFunction;
+import org.asyncflows.core.function.ASupplier;
+import org.asyncflows.core.time.ATimer;
+import org.asyncflows.core.vats.Vat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.function.AsyncFunctionUtil.evaluate;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The object pool. The pool is used from a single vat, export it to use the pool from other vats, or create
+ * a {@link LocalObjectPool} for each vat that should avoid the vat hops for the most of operations.
+ * The idle objects are reused in the LIFO order, so the surplus objects stay idle and they are evicted after
+ * the idle timeout if it is specified. The idle objects are validated before they are returned by
+ * {@link #borrow()}. The pool does not track the borrowed objects, so only the objects borrowed from this pool
+ * could be released or invalidated. The release of the object that is already idle, and the release or
+ * invalidation when no objects are borrowed, are ignored with a warning, so the counters stay consistent.
+ * The objects kept by {@link LocalObjectPool} caches are borrowed from this pool, so they are counted as active
+ * by {@link #stats()}.
+ *
+ * @param <T> the object type
+ */
+public final class ObjectPool<T> extends CloseableBase implements AObjectPool<T>, ExportableComponent<AObjectPool<T>> {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ObjectPool.class);
+    /**
+     * The borrow requests.
+     */
+    private final RequestQueue requests = new RequestQueue();
+    /**
+     * The idle objects, the most recently released objects are at the end.
+     */
+    private final ArrayDeque<Idle<T>> idle = new ArrayDeque<>();
+    /**
+     * The object factory.
+     */
+    private final ASupplier<T> factory;
+    /**
+     * The maximum amount of objects.
+     */
+    private final int maxSize;
+    /**
+     * The validator for idle objects.
+     */
+    private AFunction<T, Boolean> validator;
+    /**
+     * The destroyer for objects.
+     */
+    private AFunction<T, Void> destroyer;
+    /**
+     * The timer for idle eviction.
+     */
+    private ATimer timer;
+    /**
+     * The idle timeout.
+     */
+    private Duration idleTimeout;
+    /**
+     * True if the eviction is started.
+     */
+    private boolean evicting;
+    /**
+     * The amount of objects that are created or being created, and not destroyed.
+     */
+    private int total;
+    /**
+     * The amount of borrowed objects.
+     */
+    private int active;
+    /**
+     * The amount of waiting borrow requests.
+     */
+    private int waiting;
+    /**
+     * The amount of created objects.
+     */
+    private long created;
+    /**
+     * The amount of destroyed objects.
+     */
+    private long destroyed;
+    /**
+     * The amount of borrow operations.
+     */
+    private long borrowed;
+    /**
+     * The amount of objects that failed validation.
+     */
+    private long validationFailures;
+    /**
+     * The amount of evicted objects.
+     */
+    private long evicted;
+
+    /**
+     * The constructor.
+     *
+     * @param factory the object factory
+     * @param maxSize the maximum amount of objects
+     */
+    public ObjectPool(final ASupplier<T> factory, final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maxSize must be positive: " + maxSize);
+        }
+        this.factory = Objects.requireNonNull(factory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Set the validator that checks idle objects before they are borrowed. The objects that fail
+     * validation are destroyed.
+     *
+     * @param validator the validator
+     */
+    public void setValidator(final AFunction<T, Boolean> validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Set the action that destroys objects that are invalidated, evicted, or left after the pool is closed.
+     *
+     * @param destroyer the destroyer
+     */
+    public void setDestroyer(final AFunction<T, Void> destroyer) {
+        this.destroyer = destroyer;
+    }
+
+    /**
+     * Set the idle timeout. The idle objects are checked periodically with the timeout period, and the objects
+     * that were idle longer than the timeout are destroyed.
+     *
+     * @param idleTimer   the timer
+     * @param timeout     the idle timeout
+     */
+    public void setIdleTimeout(final ATimer idleTimer, final Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("The timeout must be positive: " + timeout);
+        }
+        this.timer = Objects.requireNonNull(idleTimer);
+        this.idleTimeout = timeout;
+    }
+
+    @Override
+    public Promise<T> borrow() {
+        return requests.runSeqUntilValue(() -> {
+            if (!isOpen()) {
+                return aFailure(new ResourceClosedException("The pool is closed"));
+            }
+            if (!idle.isEmpty()) {
+                final T object = idle.removeLast().object;
+                return validate(object).map(valid -> {
+                    if (valid) {
+                        active++;
+                        borrowed++;
+                        return Maybe.of(Maybe.of(object));
+                    }
+                    validationFailures++;
+                    destroy(object);
+                    return Maybe.<Maybe<T>>empty();
+                });
+            }
+            if (total < maxSize) {
+                // the object is created outside of the request queue, so objects could be created in parallel
+                total++;
+                return aMaybeValue(Maybe.<T>empty());
+            }
+            waiting++;
+            return requests.suspend().thenGet(() -> {
+                waiting--;
+                return Maybe.<Maybe<T>>empty();
+            });
+        }).flatMap(object -> object.hasValue() ? aValue(object.of()) : create());
+    }
+
+    /**
+     * Create the new object.
+     *
+     * @return the created object
+     */
+    private Promise<T> create() {
+        return aNow(factory).flatMapOutcome(outcome -> {
+            if (outcome.isFailure()) {
+                total--;
+                requests.resume();
+                return aFailure(outcome.failure());
+            }
+            created++;
+            if (!isOpen()) {
+                destroy(outcome.value());
+                return aFailure(new ResourceClosedException("The pool is closed"));
+            }
+            active++;
+            borrowed++;
+            return aValue(outcome.value());
+        });
+    }
+
+    /**
+     * Validate the idle object.
+     *
+     * @param object the object
+     * @return true if the object is valid
+     */
+    private Promise<Boolean> validate(final T object) {
+        if (validator == null) {
+            return aValue(true);
+        }
+        return evaluate(validator, object).flatMapOutcome(outcome -> {
+            if (outcome.isFailure()) {
+                LOG.warn("The object validation failed", outcome.failure());
+                return aValue(false);
+            }
+            return aValue(Boolean.TRUE.equals(outcome.value()));
+        });
+    }
+
+    /**
+     * Destroy the object. The destruction happens in the background.
+     *
+     * @param object the object
+     */
+    private void destroy(final T object) {
+        total--;
+        destroyed++;
+        requests.resume();
+        if (destroyer != null) {
+            evaluate(destroyer, object).listen(outcome -> {
+                if (outcome.isFailure()) {
+                    LOG.warn("Failed to destroy the pooled object", outcome.failure());
+                }
+            });
+        }
+    }
+
+    @Override
+    public void release(final T object) {
+        if (active <= 0 || isIdle(object)) {
+            LOG.warn("The object is released while it is not borrowed: {}", object);
+            return;
+        }
+        active--;
+        if (!isOpen()) {
+            destroy(object);
+            return;
+        }
+        idle.addLast(new Idle<>(object, System.nanoTime()));
+        requests.resume();
+        startEviction();
+    }
+
+    @Override
+    public void invalidate(final T object) {
+        if (active <= 0 || isIdle(object)) {
+            LOG.warn("The object is invalidated while it is not borrowed: {}", object);
+            return;
+        }
+        active--;
+        destroy(object);
+    }
+
+    /**
+     * Check if the object is idle. The amount of idle objects is limited by the pool size, so the scan is cheap.
+     *
+     * @param object the object
+     * @return true if the object is idle
+     */
+    private boolean isIdle(final T object) {
+        for (final Idle<T> entry : idle) {
+            if (entry.object == object) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Promise<ObjectPoolStats> stats() {
+        return aValue(new ObjectPoolStats(created, destroyed, borrowed, validationFailures, evicted, active,
+                idle.size(), waiting));
+    }
+
+    /**
+     * Start the eviction of idle objects if the idle timeout is specified.
+     */
+    private void startEviction() {
+        if (evicting || timer == null) {
+            return;
+        }
+        evicting = true;
+        aSeqWhile(() -> timer.sleep(idleTimeout).map(time -> {
+            evictIdle(System.nanoTime() - idleTimeout.toNanos());
+            return isOpen();
+        })).listen(outcome -> {
+            if (outcome.isFailure()) {
+                LOG.warn("The idle eviction stopped", outcome.failure());
+            }
+        });
+    }
+
+    /**
+     * Evict idle objects.
+     *
+     * @param releasedBefore the time before which objects should be released to be evicted
+     */
+    private void evictIdle(final long releasedBefore) {
+        final Iterator<Idle<T>> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            final Idle<T> entry = iterator.next();
+            if (entry.releasedAt - releasedBefore > 0) {
+                break;
+            }
+            iterator.remove();
+            evicted++;
+            destroy(entry.object);
+        }
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        final List<Idle<T>> objects = new ArrayList<>(idle);
+        idle.clear();
+        for (final Idle<T> entry : objects) {
+            destroy(entry.object);
+        }
+        // the waiting borrow requests fail
+        requests.resume();
+        return aVoid();
+    }
+
+    @Override
+    public AObjectPool<T> export(final Vat vat) {
+        return AObjectPoolProxyFactory.createProxy(vat, this);
+    }
+
+    /**
+     * The idle object, it is also used by {@link LocalObjectPool}.
+     *
+     * @param <T> the object type
+     */
+    static final class Idle<T> {
+        /**
+         * The object.
+         */
+        final T object;
+        /**
+         * The time when the object was released.
+         */
+        final long releasedAt;
+
+        /**
+         * The constructor.
+         *
+         * @param object     the object
+         * @param releasedAt the time when the object was released
+         */
+        Idle(final T object, final long releasedAt) {
+            this.object = object;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
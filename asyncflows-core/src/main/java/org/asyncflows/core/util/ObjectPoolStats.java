@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+/**
+ * The statistics of the object pool.
+ */
+public final class ObjectPoolStats {
+    /**
+     * The amount of created objects.
+     */
+    private final long created;
+    /**
+     * The amount of destroyed objects.
+     */
+    private final long destroyed;
+    /**
+     * The amount of borrow operations.
+     */
+    private final long borrowed;
+    /**
+     * The amount of objects that failed validation.
+     */
+    private final long validationFailures;
+    /**
+     * The amount of objects evicted after idle timeout.
+     */
+    private final long evicted;
+    /**
+     * The amount of currently borrowed objects.
+     */
+    private final int active;
+    /**
+     * The amount of idle objects.
+     */
+    private final int idle;
+    /**
+     * The amount of waiting borrow operations.
+     */
+    private final int waiting;
+
+    /**
+     * The constructor.
+     *
+     * @param created            the amount of created objects
+     * @param destroyed          the amount of destroyed objects
+     * @param borrowed           the amount of borrow operations
+     * @param validationFailures the amount of objects that failed validation
+     * @param evicted            the amount of evicted objects
+     * @param active             the amount of currently borrowed objects
+     * @param idle               the amount of idle objects
+     * @param waiting            the amount of waiting borrow operations
+     */
+    public ObjectPoolStats(final long created, final long destroyed, final long borrowed,
+                           final long validationFailures, final long evicted, final int active, final int idle,
+                           final int waiting) {
+        this.created = created;
+        this.destroyed = destroyed;
+        this.borrowed = borrowed;
+        this.validationFailures = validationFailures;
+        this.evicted = evicted;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+    }
+
+    /**
+     * @return the amount of created objects
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return the amount of destroyed objects
+     */
+    public long getDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * @return the amount of borrow operations
+     */
+    public long getBorrowed() {
+        return borrowed;
+    }
+
+    /**
+     * @return the amount of objects that failed validation
+     */
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    /**
+     * @return the amount of objects evicted after idle timeout
+     */
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * @return the amount of currently borrowed objects
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @return the amount of idle objects
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return the amount of waiting borrow operations
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectPoolStats{created=" + created + ", destroyed=" + destroyed + ", borrowed=" + borrowed
+                + ", validationFailures=" + validationFailures + ", evicted=" + evicted + ", active=" + active
+                + ", idle=" + idle + ", waiting=" + waiting + "}";
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.function.ACloseable;
+
+import static org.asyncflows.core.CoreFlows.aVoid;
+
+/**
+ * The object borrowed from the {@link AObjectPool}. The object is returned to the pool when the lease is
+ * closed, or it is discarded if the lease has been invalidated. The lease is used from the vat that has borrowed
+ * the object.
+ *
+ * @param <T> the object type
+ */
+public final class PoolLease<T> implements ACloseable {
+    /**
+     * The pool.
+     */
+    private final AObjectPool<T> pool;
+    /**
+     * The object.
+     */
+    private final T object;
+    /**
+     * True if the object should be discarded.
+     */
+    private boolean invalid;
+    /**
+     * True if the lease is closed.
+     */
+    private boolean closed;
+
+    /**
+     * The constructor.
+     *
+     * @param pool   the pool
+     * @param object the borrowed object
+     */
+    public PoolLease(final AObjectPool<T> pool, final T object) {
+        this.pool = pool;
+        this.object = object;
+    }
+
+    /**
+     * @return the borrowed object
+     */
+    public T get() {
+        if (closed) {
+            throw new ResourceClosedException("The lease is closed");
+        }
+        return object;
+    }
+
+    /**
+     * Mark the object as broken, so it is discarded when the lease is closed.
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    @Override
+    public Promise<Void> close() {
+        if (!closed) {
+            closed = true;
+            if (invalid) {
+                pool.invalidate(object);
+            } else {
+                pool.release(object);
+            }
+        }
+        return aVoid();
+    }
+}
@@ -75,7 +75,15 @@ public final class Semaphore implements ASemaphore, ExportableComponent<ASemapho
         if (requestedPermits <= 0) {
             return aFailure(new IllegalArgumentException("The requestedPermits must be positive: " + requestedPermits));
         }
+        final Deadline deadline = Deadline.currentOrNull();
+        if (deadline != null && deadline.isExpired()) {
+            return aFailure(deadline.exceeded());
+        }
         return requests.runSeqWhile(() -> {
+            if (deadline != null) {
+                // the waiter that has missed the deadline does not take the permits
+                deadline.check();
+            }
             if (requestedPermits <= permits) {
                 permits -= requestedPermits;
                 return aFalse();
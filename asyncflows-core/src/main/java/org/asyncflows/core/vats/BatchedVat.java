@@ -31,7 +31,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The batched vat. It it implements internally a queue of action that is optimized for
- * multiple-writers-single-reader usage pattern.
+ * multiple-writers-single-reader usage pattern. There is a separate queue for {@link Priority#URGENT} actions
+ * that is checked before each normal action.
  */
 public abstract class BatchedVat extends Vat {
     /**
@@ -50,10 +51,32 @@ public abstract class BatchedVat extends Vat {
      * The queue.
      */
     private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * The queue of urgent actions, it is always drained before the normal queue.
+     */
+    private final ConcurrentLinkedQueue<Runnable> urgentQueue = new ConcurrentLinkedQueue<>();
     /**
      * If true, the vat is scheduled.
      */
     private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * True if the action submitted with {@link Priority#URGENT} is running, so the actions it submits without
+     * priority are urgent too. The field is accessed only from the thread where the vat is active.
+     */
+    private boolean urgentRunning;
+    /**
+     * The thread that runs the current batch. It is published by the write of {@link #actionId}.
+     */
+    private Thread batchThread;
+    /**
+     * The count of started actions. The field is accessed only from the thread where the vat is active.
+     */
+    private long actionCount;
+    /**
+     * The identifier of the current action, or zero if no action is running. The field is sampled by
+     * {@link VatWatchdog}, so the hot path cost is a single volatile write per action.
+     */
+    private volatile long actionId;
 
     /**
      * The constructor with default batch size.
@@ -72,13 +95,33 @@ public abstract class BatchedVat extends Vat {
     }
 
     /**
-     * Execute the action.
+     * Execute the action. If the action is scheduled by an action that was submitted with
+     * {@link Priority#URGENT} to this vat, it is also urgent, so the direct continuations of the cancellation
+     * or close are not delayed by the normal actions. The promotion is not transitive, the actions submitted by
+     * the promoted action are normal, so a long chain of continuations could not starve the normal actions.
      *
      * @param action the action action
      */
     @Override
     public final void execute(final Runnable action) {
-        queue.add(action);
+        // the flag is checked first as it is cheap, it could be true only for the vat thread
+        if (urgentRunning && Vat.currentOrNull() == this) {
+            urgentQueue.add(new PromotedAction(action));
+            if (scheduled.compareAndSet(false, true)) {
+                schedule();
+            }
+        } else {
+            execute(action, Priority.NORMAL);
+        }
+    }
+
+    @Override
+    public final void execute(final Runnable action, final Priority priority) {
+        if (priority == Priority.URGENT) {
+            urgentQueue.add(action);
+        } else {
+            queue.add(action);
+        }
         if (scheduled.compareAndSet(false, true)) {
             schedule();
         }
@@ -90,6 +133,21 @@ public abstract class BatchedVat extends Vat {
      */
     protected abstract void schedule();
 
+    /**
+     * Discard the scheduled actions. The method should be called only when the vat is not running, for example,
+     * from {@link #schedule()} when the vat does not accept actions anymore.
+     *
+     * @return true if some actions were discarded
+     */
+    protected final boolean discardActions() {
+        boolean discarded = false;
+        while (urgentQueue.poll() != null || queue.poll() != null) {
+            discarded = true;
+        }
+        scheduled.set(false);
+        return discarded;
+    }
+
     /**
      * Run a batch and leave.
      *
@@ -99,12 +157,20 @@ public abstract class BatchedVat extends Vat {
     protected final boolean runBatch() {
         enter();
         boolean scheduledRun = false;
+        batchThread = Thread.currentThread();
         try {
             for (int step = batchSize; step > 0; step--) {
-                final Runnable action = queue.poll();
+                Runnable action = urgentQueue.poll();
                 if (action == null) {
-                    break;
+                    urgentRunning = false;
+                    action = queue.poll();
+                    if (action == null) {
+                        break;
+                    }
+                } else {
+                    urgentRunning = !(action instanceof PromotedAction);
                 }
+                actionId = ++actionCount;
                 try {
                     action.run();
                 } catch (Throwable t) {
@@ -114,9 +180,11 @@ public abstract class BatchedVat extends Vat {
                 }
             }
         } finally {
+            actionId = 0L;
+            urgentRunning = false;
             leave();
             scheduled.set(false);
-            if (!queue.isEmpty()) {
+            if (!urgentQueue.isEmpty() || !queue.isEmpty()) {
                 if (scheduled.compareAndSet(false, true)) {
                     schedule();
                 }
@@ -125,4 +193,49 @@ public abstract class BatchedVat extends Vat {
         }
         return scheduledRun;
     }
+
+    /**
+     * @return the identifier of the currently running action, or zero if the vat is not running any action
+     */
+    public final long getActionId() {
+        return actionId;
+    }
+
+    /**
+     * @return the thread that runs the current action, it is meaningful only if {@link #getActionId()}
+     * returned non-zero value before the call
+     */
+    public final Thread getActionThread() {
+        return batchThread;
+    }
+
+    /**
+     * The action that became urgent because it was submitted by an urgent action. The actions submitted by it
+     * are not promoted.
+     */
+    private static final class PromotedAction implements Runnable {
+        /**
+         * The wrapped action.
+         */
+        private final Runnable action;
+
+        /**
+         * The constructor.
+         *
+         * @param action the wrapped action
+         */
+        private PromotedAction(final Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            action.run();
+        }
+
+        @Override
+        public String toString() {
+            return action.toString();
+        }
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core.vats;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The bounded elastic executor for blocking operations. Unlike {@link ThreadPoolExecutor} with a bounded queue,
+ * this executor starts new threads up to the maximum before queueing tasks, so it grows elastically under the load
+ * like a cached thread pool, but the amount of threads and queued tasks is limited. Threads above the core count
+ * are stopped after they have been idle for the time to live. When both threads and queue are exhausted,
+ * the task is rejected with {@link RejectedExecutionException}, and the asynchronous operations like
+ * {@link org.asyncflows.core.AsyncContext#aExecutorGet(java.util.concurrent.Executor, java.util.function.Supplier)}
+ * fail the returned promise with it.
+ */
+public final class BoundedElasticExecutor extends ThreadPoolExecutor {
+    /**
+     * The amount of submitted tasks that are not finished yet.
+     */
+    private final AtomicInteger submitted = new AtomicInteger();
+    /**
+     * The amount of rejected tasks.
+     */
+    private final AtomicLong rejected = new AtomicLong();
+    /**
+     * The queue capacity.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The constructor.
+     *
+     * @param name          the name prefix for threads
+     * @param coreThreads   the amount of threads that are kept when idle
+     * @param maxThreads    the maximum amount of threads
+     * @param queueCapacity the maximum amount of tasks waiting for a thread
+     * @param timeToLive    the time after which the idle thread above the core count is stopped
+     */
+    public BoundedElasticExecutor(final String name, final int coreThreads, final int maxThreads,
+                                  final int queueCapacity, final Duration timeToLive) {
+        this(name, coreThreads, maxThreads, timeToLive, new ElasticQueue(queueCapacity));
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param name        the name prefix for threads
+     * @param coreThreads the amount of threads that are kept when idle
+     * @param maxThreads  the maximum amount of threads
+     * @param timeToLive  the time after which the idle thread above the core count is stopped
+     * @param queue       the queue
+     */
+    private BoundedElasticExecutor(final String name, final int coreThreads, final int maxThreads,
+                                   final Duration timeToLive, final ElasticQueue queue) {
+        super(coreThreads, maxThreads, timeToLive.toNanos(), TimeUnit.NANOSECONDS, queue,
+                new DaemonThreadFactory(name), (r, executor) -> ((BoundedElasticExecutor) executor).reject(r));
+        this.queueCapacity = queue.capacity;
+        queue.executor = this;
+    }
+
+    /**
+     * Create the executor with defaults that are suitable for blocking IO: ten threads per processor,
+     * 100000 queued tasks, and one minute time to live.
+     *
+     * @param name the name prefix for threads
+     * @return the executor
+     */
+    public static BoundedElasticExecutor forBlockingIo(final String name) {
+        return new BoundedElasticExecutor(name, 0, 10 * Runtime.getRuntime().availableProcessors(),
+                100_000, Duration.ofMinutes(1));
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        submitted.incrementAndGet();
+        try {
+            super.execute(command);
+        } catch (RejectedExecutionException ex) {
+            submitted.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    @Override
+    protected void afterExecute(final Runnable r, final Throwable t) {
+        submitted.decrementAndGet();
+        super.afterExecute(r, t);
+    }
+
+    /**
+     * Handle the task that was not accepted by the queue. The thread might have been added by other task
+     * concurrently, so the queue is tried again before the rejection.
+     *
+     * @param r the task
+     */
+    private void reject(final Runnable r) {
+        if (!isShutdown() && ((ElasticQueue) getQueue()).force(r)) {
+            return;
+        }
+        rejected.incrementAndGet();
+        throw new RejectedExecutionException("The executor is saturated: threads=" + getPoolSize()
+                + ", queued=" + getQueuedCount() + (isShutdown() ? " (shutdown)" : ""));
+    }
+
+    /**
+     * @return the amount of tasks waiting for a thread
+     */
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+    /**
+     * @return the maximum amount of tasks waiting for a thread
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the amount of rejected tasks since the executor creation
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return true if all threads are busy and the queue is full, so the next task will be rejected
+     */
+    public boolean isSaturated() {
+        return getPoolSize() >= getMaximumPoolSize() && getQueue().remainingCapacity() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[queueCapacity = " + queueCapacity + ", rejected = " + rejected.get() + "]";
+    }
+
+    /**
+     * The queue that refuses tasks while a new thread could be started.
+     */
+    private static final class ElasticQueue extends LinkedBlockingQueue<Runnable> {
+        /**
+         * The capacity.
+         */
+        private final int capacity;
+        /**
+         * The executor.
+         */
+        private BoundedElasticExecutor executor;
+
+        /**
+         * The constructor.
+         *
+         * @param capacity the capacity
+         */
+        private ElasticQueue(final int capacity) {
+            super(capacity);
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean offer(final Runnable runnable) {
+            final int threads = executor.getPoolSize();
+            if (executor.submitted.get() > threads && threads < executor.getMaximumPoolSize()) {
+                // there is no idle thread, so the executor is asked to start a new one
+                return false;
+            }
+            return super.offer(runnable);
+        }
+
+        /**
+         * Put task into the queue regardless of threads.
+         *
+         * @param runnable the task
+         * @return true if the task has been added
+         */
+        private boolean force(final Runnable runnable) {
+            return super.offer(runnable);
+        }
+    }
+
+    /**
+     * The factory for daemon threads.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        /**
+         * The thread count.
+         */
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+        /**
+         * The name prefix.
+         */
+        private final String name;
+
+        /**
+         * The constructor.
+         *
+         * @param name the name prefix
+         */
+        private DaemonThreadFactory(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, name + "-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -24,6 +24,7 @@
 package org.asyncflows.core.vats;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 /**
  * The single thread vat with an idle action.
@@ -37,6 +38,18 @@ public abstract class SingleThreadVatWithIdle extends BatchedVat {
      * If true, the vat is stopped.
      */
     private final AtomicBoolean stopped = new AtomicBoolean();
+    /**
+     * The lock for parking state, it is used only when the vat is parked or unparked.
+     */
+    private final Object parkLock = new Object();
+    /**
+     * If true, the vat is parked after {@link #runUntil(BooleanSupplier)}, and the actions are discarded.
+     */
+    private volatile boolean parked;
+    /**
+     * If true, some actions were discarded while the vat was parked.
+     */
+    private boolean discarded;
 
     /**
      * The constructor.
@@ -68,6 +81,66 @@ public abstract class SingleThreadVatWithIdle extends BatchedVat {
         }
     }
 
+    /**
+     * Run the vat in the current thread until the condition becomes true and there are no more scheduled actions.
+     * Unlike {@link #runInCurrentThread()}, the vat is not stopped, so this method could be called again later
+     * on the same thread after {@link #unpark()}. The condition is checked only when the vat has no more actions
+     * to execute, so the action that makes the condition true should be executed on this vat, or it should schedule
+     * some action on it in order to wake it up. After the method returns, the vat is parked, and the actions
+     * submitted to it are discarded like the actions submitted to the stopped vat, so they do not keep their
+     * objects alive and they do not run during the later runs.
+     *
+     * @param condition the condition
+     */
+    public void runUntil(final BooleanSupplier condition) {
+        try {
+            runUntilCondition(condition);
+        } finally {
+            synchronized (parkLock) {
+                parked = true;
+                discarded |= discardActions();
+            }
+        }
+    }
+
+    /**
+     * Unpark the vat before the next {@link #runUntil(BooleanSupplier)} call. The vat is not unparked if some actions
+     * were discarded while it was parked, since it could be still referenced by the operations started by the
+     * previous runs, and their later actions would run during the next run. Such vat should not be reused.
+     *
+     * @return true if the vat is unparked, false if it should not be reused
+     */
+    public boolean unpark() {
+        synchronized (parkLock) {
+            if (discarded) {
+                return false;
+            }
+            parked = false;
+            return true;
+        }
+    }
+
+    /**
+     * Run the vat until the condition becomes true.
+     *
+     * @param condition the condition
+     */
+    private void runUntilCondition(final BooleanSupplier condition) {
+        boolean hasMore = true;
+        while (true) {
+            if (hasMore) {
+                pollIdle();
+            } else {
+                if (condition.getAsBoolean() || stopped.get()) {
+                    break;
+                } else {
+                    idle();
+                }
+            }
+            hasMore = runBatch();
+        }
+    }
+
     /**
      * The idle action.
      */
@@ -104,6 +177,16 @@ public abstract class SingleThreadVatWithIdle extends BatchedVat {
 
     @Override
     protected void schedule() {
+        // the action is queued before the flag is checked, and the flag is set before the queue is cleared
+        // in runUntil(), so the late action is discarded either here or there
+        if (parked) {
+            synchronized (parkLock) {
+                if (parked) {
+                    discarded |= discardActions();
+                    return;
+                }
+            }
+        }
         wakeUp();
     }
 }
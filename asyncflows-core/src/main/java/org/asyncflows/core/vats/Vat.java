@@ -29,6 +29,16 @@ import java.util.concurrent.Executor;
  * The execution context for asynchronous objects.
  */
 public abstract class Vat implements Executor {
+    /**
+     * The system property that specifies {@link #MAX_DIRECT_CALL_DEPTH}.
+     */
+    public static final String MAX_DIRECT_CALL_DEPTH_PROPERTY = "org.asyncflows.core.vats.maxDirectCallDepth";
+    /**
+     * The maximum amount of nested direct calls on the vat (see {@link #enterDirectCall()}). The value could be
+     * specified using the system property {@value #MAX_DIRECT_CALL_DEPTH_PROPERTY}, the zero value disables
+     * direct calls.
+     */
+    public static final int MAX_DIRECT_CALL_DEPTH = Integer.getInteger(MAX_DIRECT_CALL_DEPTH_PROPERTY, 16);
     /**
      * The current vat.
      */
@@ -37,6 +47,10 @@ public abstract class Vat implements Executor {
      * If true, the vat is active.
      */
     private boolean active;
+    /**
+     * The current depth of direct calls. The field is accessed only from the thread where the vat is active.
+     */
+    private int directCallDepth;
 
     /**
      * @return true if the vat is available on the current thread
@@ -91,4 +105,36 @@ public abstract class Vat implements Executor {
         active = false;
     }
 
+    /**
+     * Execute the action with the specified priority. The vats that do not support priorities execute the action
+     * as normal one.
+     *
+     * @param action   the action
+     * @param priority the priority
+     */
+    public void execute(final Runnable action, final Priority priority) {
+        execute(action);
+    }
+
+    /**
+     * Try to start a direct call on this vat. The direct call is possible only if this vat is the current vat,
+     * and the depth of nested direct calls is less than {@link #MAX_DIRECT_CALL_DEPTH}. If the method returns
+     * true, the caller must invoke {@link #leaveDirectCall()} after the call finishes.
+     *
+     * @return true if the direct call is started
+     */
+    public final boolean enterDirectCall() {
+        if (CURRENT.get() != this || directCallDepth >= MAX_DIRECT_CALL_DEPTH) {
+            return false;
+        }
+        directCallDepth++;
+        return true;
+    }
+
+    /**
+     * Finish the direct call started with {@link #enterDirectCall()}.
+     */
+    public final void leaveDirectCall() {
+        directCallDepth--;
+    }
 }
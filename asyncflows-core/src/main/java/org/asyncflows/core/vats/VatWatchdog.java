@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core.vats;
+
+import org.asyncflows.core.data.Subcription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The watchdog that detects vat actions that run longer than the threshold. A blocking call on the vat like
+ * {@code SelectorVat} freezes all other activities on it, and the watchdog allows finding such calls. The watchdog
+ * thread periodically samples the identifier of the current action of each registered vat, the action start
+ * time is the time when the identifier has been seen first, so it is precise up to the sampling period.
+ * Each stalled action is reported once with the stack of the thread that runs it. By default, the stalls are logged
+ * with warning level, a custom listener could be specified with {@link #setListener(Consumer)}.
+ */
+public final class VatWatchdog implements AutoCloseable {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(VatWatchdog.class);
+    /**
+     * The registered vats with their sampling state.
+     */
+    private final Map<BatchedVat, Sample> vats = new ConcurrentHashMap<>();
+    /**
+     * The threshold in nanoseconds.
+     */
+    private final long threshold;
+    /**
+     * The sampling period in milliseconds.
+     */
+    private final long period;
+    /**
+     * The watchdog thread.
+     */
+    private final Thread thread;
+    /**
+     * The listener for stalls.
+     */
+    private volatile Consumer<Stall> listener = VatWatchdog::log;
+    /**
+     * True if the watchdog is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The constructor. The watchdog thread is started immediately.
+     *
+     * @param threshold the threshold for the action duration
+     * @param period    the sampling period
+     */
+    public VatWatchdog(final Duration threshold, final Duration period) {
+        this.threshold = threshold.toNanos();
+        this.period = Math.max(1L, period.toMillis());
+        this.thread = new Thread(this::run, "AsyncFlows-VatWatchdog");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Log the stall.
+     *
+     * @param stall the stall
+     */
+    private static void log(final Stall stall) {
+        if (LOG.isWarnEnabled()) {
+            final Throwable stack = new Throwable("The action is running on " + stall.getThread().getName());
+            stack.setStackTrace(stall.getStackTrace());
+            LOG.warn("The action on the vat " + stall.getVat() + " is running for "
+                    + stall.getDuration().toMillis() + " ms", stack);
+        }
+    }
+
+    /**
+     * Set the listener for stalls. The listener is invoked on the watchdog thread.
+     *
+     * @param listener the listener
+     */
+    public void setListener(final Consumer<Stall> listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Register the vat.
+     *
+     * @param vat the vat
+     * @return the subscription that unregisters the vat
+     */
+    public Subcription register(final BatchedVat vat) {
+        vats.put(vat, new Sample());
+        return () -> vats.remove(vat);
+    }
+
+    /**
+     * The watchdog loop.
+     */
+    private void run() {
+        while (!closed) {
+            try {
+                Thread.sleep(period);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            check();
+        }
+    }
+
+    /**
+     * Check all vats once.
+     */
+    private void check() {
+        final long now = System.nanoTime();
+        for (final Map.Entry<BatchedVat, Sample> entry : vats.entrySet()) {
+            final BatchedVat vat = entry.getKey();
+            final Sample sample = entry.getValue();
+            final long id = vat.getActionId();
+            if (id != sample.actionId) {
+                sample.actionId = id;
+                sample.start = now;
+                sample.reported = false;
+                continue;
+            }
+            if (id == 0L || sample.reported || now - sample.start < threshold) {
+                continue;
+            }
+            final Thread actionThread = vat.getActionThread();
+            final StackTraceElement[] stackTrace = actionThread.getStackTrace();
+            if (vat.getActionId() != id) {
+                // the action has finished while the stack was collected
+                continue;
+            }
+            sample.reported = true;
+            try {
+                listener.accept(new Stall(vat, actionThread, Duration.ofNanos(now - sample.start), stackTrace));
+            } catch (Throwable t) {
+                LOG.error("The stall listener failed", t);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    /**
+     * The sampling state of the vat, it is accessed only from the watchdog thread.
+     */
+    private static final class Sample {
+        /**
+         * The last seen action identifier.
+         */
+        private long actionId;
+        /**
+         * The time when the action identifier has been seen first.
+         */
+        private long start;
+        /**
+         * True if the action has been already reported.
+         */
+        private boolean reported;
+    }
+
+    /**
+     * The information about the stalled action.
+     */
+    public static final class Stall {
+        /**
+         * The vat.
+         */
+        private final Vat vat;
+        /**
+         * The thread running the action.
+         */
+        private final Thread thread;
+        /**
+         * The duration of the action when it was detected.
+         */
+        private final Duration duration;
+        /**
+         * The stack trace of the thread.
+         */
+        private final StackTraceElement[] stackTrace;
+
+        /**
+         * The constructor.
+         *
+         * @param vat        the vat
+         * @param thread     the thread
+         * @param duration   the duration
+         * @param stackTrace the stack trace
+         */
+        public Stall(final Vat vat, final Thread thread, final Duration duration,
+                     final StackTraceElement[] stackTrace) {
+            this.vat = vat;
+            this.thread = thread;
+            this.duration = duration;
+            this.stackTrace = stackTrace;
+        }
+
+        /**
+         * @return the vat
+         */
+        public Vat getVat() {
+            return vat;
+        }
+
+        /**
+         * @return the thread running the action
+         */
+        public Thread getThread() {
+            return thread;
+        }
+
+        /**
+         * @return the duration of the action when it was detected
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return the stack trace of the thread
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "Stall{vat=" + vat + ", thread=" + thread.getName() + ", duration=" + duration + '}';
+        }
+    }
+}
@@ -48,6 +48,12 @@ public final class Vats {
                     return t;
                 }
             });
+    /**
+     * The bounded elastic executor for blocking operations and delegated tasks. Unlike {@link #DAEMON_EXECUTOR},
+     * it does not grow beyond the limit of threads when blocking operations stall.
+     */
+    public static final BoundedElasticExecutor BLOCKING_EXECUTOR =
+            BoundedElasticExecutor.forBlockingIo("AsyncFlows-Blocking");
 
     /**
      * The private constructor for utility class.
@@ -23,12 +23,19 @@
 
 package org.asyncflows.core;
 
+import org.asyncflows.core.vats.Vat;
+import org.asyncflows.core.vats.Vats;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.asyncflows.core.AsyncContext.doAsync;
 import static org.asyncflows.core.CoreFlows.aLater;
 import static org.asyncflows.core.CoreFlows.aValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class CoreFlowsTest {
@@ -57,4 +64,29 @@ public class CoreFlowsTest {
         }
     }
 
+    @Test
+    public void testThreadVatReused() {
+        final Vat first = doAsync(() -> aValue(Vat.current()));
+        final int rc = doAsync(() -> aLater(Vats.daemonVat(), () -> aValue(42)));
+        assertEquals(42, rc);
+        final Vat second = doAsync(() -> aLater(() -> aValue(Vat.current())));
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testLateActionsDiscarded() throws InterruptedException {
+        final AtomicBoolean late = new AtomicBoolean();
+        final Vat first = doAsync(() -> aValue(Vat.current()));
+        // the action arrives after doAsync has returned, like a late timer callback
+        final Thread thread = new Thread(() -> first.execute(() -> late.set(true)));
+        thread.start();
+        thread.join();
+        final Vat second = doAsync(() -> aLater(() -> aValue(Vat.current())));
+        assertFalse(late.get());
+        // the vat might be still referenced by the previous operations, so it is not reused
+        assertNotSame(first, second);
+        first.execute(() -> late.set(true));
+        assertSame(second, doAsync(() -> aValue(Vat.current())));
+        assertFalse(late.get());
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core;
+
+import org.asyncflows.core.util.Benchmark;
+
+import java.util.function.Function;
+
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aValue;
+
+/**
+ * The benchmark for repeated bridging from synchronous code to asynchronous operations. The "reused" variant
+ * uses {@link AsyncContext#doAsyncOutcome(org.asyncflows.core.function.ASupplier)} that reuses the thread vat,
+ * and the "new" variant uses {@link AsyncContext#doAsyncOutcomeInNewVat(org.asyncflows.core.function.ASupplier)}
+ * that creates a vat for each call. Run it manually using the main method, the arguments select
+ * the measured variants (see {@link Benchmark}).
+ */
+public final class DoAsyncBenchmark {
+    private static final int CALLS = 200_000;
+
+    private DoAsyncBenchmark() {
+        // do nothing
+    }
+
+    public static void main(String[] args) {
+        new Benchmark("call")
+                .variant("reused", () -> run(i -> AsyncContext.doAsyncOutcome(() -> aLater(() -> aValue(i)))))
+                .variant("new", () -> run(i -> AsyncContext.doAsyncOutcomeInNewVat(() -> aLater(() -> aValue(i)))))
+                .run(args);
+    }
+
+    private static double run(Function<Integer, Outcome<Integer>> call) {
+        final long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < CALLS; i++) {
+            sum += call.apply(i).value();
+        }
+        if (sum != (long) CALLS * (CALLS - 1) / 2) {
+            throw new IllegalStateException("Wrong checksum: " + sum);
+        }
+        return Benchmark.nanosPerOperation(start, CALLS);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.metrics;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.util.sample.ATestQueue;
+import org.asyncflows.core.util.sample.ATestQueueProxyFactory;
+import org.asyncflows.core.util.sample.TestQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for generated metrics proxies.
+ */
+class MetricsProxyTest {
+    private static final String SERVICE = ATestQueue.class.getName();
+
+    @Test
+    void testCounts() {
+        final SimpleMetricsSink sink = new SimpleMetricsSink();
+        final List<Long> inFlight = doAsync(() -> {
+            final ATestQueue<Integer> queue = ATestQueueProxyFactory.createMetricsProxy(sink, new TestQueue<>());
+            final Promise<Integer> first = queue.take();
+            final long pending = sink.getOrNull(SERVICE, "take").getInFlight();
+            queue.put(1);
+            queue.put(2);
+            return first.flatMap(v -> queue.take()).map(v -> List.of(pending,
+                    sink.getOrNull(SERVICE, "take").getInFlight()));
+        });
+        assertEquals(List.of(1L, 0L), inFlight);
+        final SimpleMethodMetrics take = sink.getOrNull(SERVICE, "take");
+        assertEquals(2, take.getCalls());
+        assertEquals(0, take.getFailures());
+        assertEquals(2, take.getLatency().getCount());
+        final SimpleMethodMetrics put = sink.getOrNull(SERVICE, "put");
+        assertNotNull(put);
+        assertEquals(2, put.getCalls());
+        assertEquals(0, put.getInFlight());
+    }
+
+    @Test
+    void testFailures() {
+        final SimpleMetricsSink sink = new SimpleMetricsSink();
+        final ATestQueue<Integer> failing = new ATestQueue<>() {
+            @Override
+            public Promise<Integer> take() {
+                return aFailure(new IllegalStateException("test"));
+            }
+
+            @Override
+            public void put(final Integer element) {
+                throw new IllegalStateException("test");
+            }
+        };
+        final boolean failed = doAsync(() -> {
+            final ATestQueue<Integer> queue = ATestQueueProxyFactory.createMetricsProxy(sink, failing);
+            assertThrows(IllegalStateException.class, () -> queue.put(1));
+            return queue.take().mapOutcome(Outcome::isFailure);
+        });
+        assertTrue(failed);
+        assertEquals(1.0, sink.getOrNull(SERVICE, "take").getFailureRate());
+        assertEquals(1, sink.getOrNull(SERVICE, "put").getFailures());
+    }
+
+    @Test
+    void testHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+        histogram.record(0);
+        histogram.record(3);
+        histogram.record(1000);
+        histogram.record(1000);
+        assertEquals(4, histogram.getCount());
+        assertEquals(1, histogram.percentile(0.25));
+        assertEquals(4, histogram.percentile(0.5));
+        assertEquals(1024, histogram.percentile(1.0));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.AsyncExecutionException;
+import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.core.vats.ExecutorVat;
+import org.asyncflows.core.vats.Vat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.asyncflows.core.streams.AsyncStreams.aForStream;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for {@link AsyncChannels}.
+ */
+public class AsyncChannelsTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void singleSink() {
+        final Vat producer = new ExecutorVat(executor);
+        final List<Integer> result = doAsync(() -> {
+            final Tuple2<ASink<Integer>, AStream<Integer>> channel = AsyncChannels.bounded(4);
+            return aAll(() -> aLater(producer, () -> {
+                aForRange(0, 10000).connect(channel.getValue1());
+                return channel.getValue1().finished();
+            })).andLast(() -> aForStream(channel.getValue2()).toList()).map(Tuple2::getValue2);
+        });
+        assertEquals(10000, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(i, (int) result.get(i));
+        }
+    }
+
+    @Test
+    public void severalSinks() {
+        final int sinks = 3;
+        final int count = 1000;
+        final List<Integer> result = doAsync(() -> {
+            final Tuple2<List<ASink<Integer>>, AStream<Integer>> channel = AsyncChannels.bounded(2, sinks);
+            return aAll(() -> aAllForUnit(channel.getValue1().iterator(), sink -> aLater(
+                    new ExecutorVat(executor), () -> {
+                        final int base = channel.getValue1().indexOf(sink) * count;
+                        // elements are put one by one to check waking up of the producers
+                        return aForRange(base, base + count).consume(v -> sink.put(v).thenValue(true))
+                                .thenFlatGet(sink::close);
+                    }))
+            ).andLast(() -> aForStream(channel.getValue2()).toList()).map(Tuple2::getValue2);
+        });
+        assertEquals(sinks * count, result.size());
+        final int[] last = new int[sinks];
+        Arrays.fill(last, -1);
+        for (final int value : result) {
+            assertTrue(last[value / count] < value);
+            last[value / count] = value;
+        }
+    }
+
+    @Test
+    public void failure() {
+        final Vat producer = new ExecutorVat(executor);
+        assertThrows(AsyncExecutionException.class, () -> doAsync(() -> {
+            final Tuple2<ASink<Integer>, AStream<Integer>> channel = AsyncChannels.bounded(4);
+            aLater(producer, () -> channel.getValue1().put(1)
+                    .thenFlatGet(() -> channel.getValue1().fail(new IllegalStateException("Test"))));
+            return aForStream(channel.getValue2()).toList();
+        }));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.core.util.Benchmark;
+import org.asyncflows.core.vats.ExecutorVat;
+import org.asyncflows.core.vats.Vat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.asyncflows.core.streams.AsyncStreams.aForStream;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+
+/**
+ * The benchmark for passing elements one by one from the producer vat to the consumer vat. The "randevu"
+ * variant uses {@link RandevuQueue#exported()}, and the "bounded" variant uses {@link AsyncChannels#bounded(int)}.
+ * Run it manually using the main method, the arguments select the measured variants (see {@link Benchmark}).
+ */
+public final class ChannelBenchmark {
+    private static final int ELEMENTS = 200_000;
+
+    private ChannelBenchmark() {
+        // do nothing
+    }
+
+    public static void main(String[] args) {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new Benchmark("element")
+                    .variant("randevu", () -> run(new ExecutorVat(executor), RandevuQueue::exported))
+                    .variant("bounded", () -> run(new ExecutorVat(executor), () -> AsyncChannels.bounded(256)))
+                    .run(args);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double run(Vat producer, Supplier<Tuple2<ASink<Integer>, AStream<Integer>>> factory) {
+        final long start = System.nanoTime();
+        final long sum = doAsync(() -> {
+            final Tuple2<ASink<Integer>, AStream<Integer>> channel = factory.get();
+            final ASink<Integer> sink = channel.getValue1();
+            return aAll(() -> aLater(producer, () -> aForRange(0, ELEMENTS)
+                    .consume(v -> sink.put(v).thenValue(true)).thenFlatGet(sink::close))
+            ).andLast(() -> aForStream(channel.getValue2()).leftFold(0L, (total, value) -> aValue(total + value))
+            ).map(Tuple2::getValue2);
+        });
+        if (sum == 0) {
+            throw new IllegalStateException("Wrong checksum: " + sum);
+        }
+        return Benchmark.nanosPerOperation(start, ELEMENTS);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.data.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aStageResult;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.asyncflows.core.streams.AsyncStreams.aForStream;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for {@link FlowStreams}.
+ */
+public class FlowStreamsTest {
+
+    private static List<Integer> range(final int count) {
+        final List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    public void fromPublisher() {
+        final RangePublisher publisher = new RangePublisher(100);
+        final List<Integer> result = doAsync(
+                () -> aForStream(FlowStreams.fromPublisher(publisher, 16, 4)).toList());
+        assertEquals(range(100), result);
+        assertEquals(16L, (long) publisher.requests.get(0));
+        for (final long request : publisher.requests) {
+            assertTrue(request >= 12, () -> "Requests: " + publisher.requests);
+        }
+    }
+
+    @Test
+    public void toPublisher() {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(7);
+        final List<Integer> result = doAsync(() -> {
+            FlowStreams.toPublisher(aForRange(0, 100).localStream()).subscribe(subscriber);
+            return aStageResult(subscriber.done);
+        });
+        assertEquals(range(100), result);
+    }
+
+    @Test
+    public void subscriberSink() {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(5);
+        final List<Integer> result = doAsync(() -> {
+            aForRange(0, 50).connect(FlowStreams.fromSubscriber(subscriber));
+            return aStageResult(subscriber.done);
+        });
+        assertEquals(range(50), result);
+    }
+
+    @Test
+    public void sinkSubscriber() {
+        final List<Integer> result = doAsync(() -> {
+            final Tuple2<ASink<Integer>, AStream<Integer>> queue = RandevuQueue.local();
+            final SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(FlowStreams.toSubscriber(queue.getValue1(), 8, 2));
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    publisher.submit(i);
+                }
+                publisher.close();
+            });
+            thread.start();
+            return aAll(() -> aForStream(queue.getValue2()).toList()).andLast(() -> aStageResult(
+                    CompletableFuture.runAsync(() -> {
+                        try {
+                            thread.join();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }))).map(Tuple2::getValue1);
+        });
+        assertEquals(range(200), result);
+    }
+
+    /**
+     * The publisher that emits a range of integers in the thread that requests them and records requests.
+     */
+    private static final class RangePublisher implements Flow.Publisher<Integer> {
+        private final List<Long> requests = new CopyOnWriteArrayList<>();
+        private final int count;
+
+        private RangePublisher(final int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int next;
+
+                @Override
+                public void request(final long n) {
+                    requests.add(n);
+                    for (long i = 0; i < n && next < count; i++) {
+                        subscriber.onNext(next++);
+                    }
+                    if (next == count) {
+                        next++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    next = count + 1;
+                }
+            });
+        }
+    }
+
+    /**
+     * The subscriber that requests elements in batches and collects them.
+     */
+    private static final class CollectingSubscriber implements Flow.Subscriber<Integer> {
+        private final CompletableFuture<List<Integer>> done = new CompletableFuture<>();
+        private final List<Integer> values = new ArrayList<>();
+        private final int batch;
+        private Flow.Subscription subscription;
+        private int received;
+
+        private CollectingSubscriber(final int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription newSubscription) {
+            subscription = newSubscription;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(final Integer item) {
+            values.add(item);
+            if (++received == batch) {
+                received = 0;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(values);
+        }
+    }
+}
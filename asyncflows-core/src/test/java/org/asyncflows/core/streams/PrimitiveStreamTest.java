@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.streams.AsyncStreams.aForDoubles;
+import static org.asyncflows.core.streams.AsyncStreams.aForIntRange;
+import static org.asyncflows.core.streams.AsyncStreams.aForInts;
+import static org.asyncflows.core.streams.AsyncStreams.aForLongRange;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for the primitive streams.
+ */
+public class PrimitiveStreamTest {
+
+    @Test
+    public void mapFilterFold() {
+        final long rc = doAsync(() -> aForIntRange(0, 1000)
+                .filter(i -> i % 2 == 0)
+                .map(i -> i / 2)
+                .mapToLong(i -> i * 3L)
+                .window(2)
+                .leftFold(0L, Long::sum));
+        assertEquals(3L * 499 * 500 / 2, rc);
+    }
+
+    @Test
+    public void toArray() {
+        final int[] rc = doAsync(() -> aForIntRange(0, 1000).filter(i -> i % 100 == 0).toArray());
+        assertArrayEquals(new int[]{0, 100, 200, 300, 400, 500, 600, 700, 800, 900}, rc);
+        final double[] doubles = doAsync(() -> aForDoubles(1.0, 2.0, 3.0).map(d -> d / 2)
+                .mapChunks(chunk -> aValue(chunk)).toArray());
+        assertArrayEquals(new double[]{0.5, 1.0, 1.5}, doubles);
+    }
+
+    @Test
+    public void collect() {
+        final LongSummaryStatistics rc = doAsync(() -> aForLongRange(Long.MAX_VALUE - 10, Long.MAX_VALUE)
+                .collect(LongSummaryStatistics::new, LongSummaryStatistics::accept));
+        assertEquals(10, rc.getCount());
+        assertEquals(Long.MAX_VALUE - 1, rc.getMax());
+    }
+
+    @Test
+    public void chunks() {
+        final List<int[]> chunks = doAsync(() -> {
+            final AIntStream stream = aForIntRange(0, 10).window(3).stream();
+            final List<int[]> rc = new ArrayList<>();
+            return aSeqWhile(() -> stream.nextChunk(4).map(chunk -> {
+                rc.add(chunk);
+                return chunk.length > 0;
+            })).thenFlatGet(stream::close).thenValue(rc);
+        });
+        final int[] all = chunks.stream().flatMapToInt(Arrays::stream).toArray();
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, all);
+        for (final int[] chunk : chunks.subList(0, chunks.size() - 1)) {
+            assertTrue(chunk.length > 0 && chunk.length <= 4, () -> Arrays.toString(chunk));
+        }
+        assertEquals(0, chunks.get(chunks.size() - 1).length);
+    }
+
+    @Test
+    public void boxing() {
+        final List<Integer> rc = doAsync(() -> aForRange(0, 5).mapToInt(i -> i * i).boxed().toList());
+        assertEquals(Arrays.asList(0, 1, 4, 9, 16), rc);
+        final List<String> strings = doAsync(() -> aForInts(1, 2, 3).mapToObj(i -> "v" + i).toList());
+        assertEquals(Arrays.asList("v1", "v2", "v3"), strings);
+    }
+
+    @Test
+    public void failure() {
+        final Outcome<int[]> rc = doAsync(() -> aForIntRange(0, 10).map(i -> {
+            if (i == 5) {
+                throw new IllegalStateException("Test");
+            }
+            return i;
+        }).toArray().toOutcomePromise());
+        assertTrue(rc.isFailure());
+        assertEquals(IllegalStateException.class, rc.failure().getClass());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.asyncflows.core.util.Benchmark;
+
+import java.util.function.Function;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aBoolean;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+
+/**
+ * The benchmark for five stage synchronous pipelines. The "separate" variant builds a stage per operation
+ * like {@link StreamBuilder#mapSync(Function)} did before the stage fusion, the "fused" variant uses
+ * the synchronous operations that are fused into a single stage. Run it manually using the main method,
+ * the arguments select the measured variants (see {@link Benchmark}).
+ */
+public final class StreamFusionBenchmark {
+    private static final int ELEMENTS = 1_000_000;
+
+    private StreamFusionBenchmark() {
+        // do nothing
+    }
+
+    public static void main(String[] args) {
+        new Benchmark("element")
+                .variant("pull-separate", () -> run(StreamFusionBenchmark::separate))
+                .variant("pull-fused", () -> run(StreamFusionBenchmark::fused))
+                .variant("push-separate", () -> run(s -> separate(s.push())))
+                .variant("push-fused", () -> run(s -> fused(s.push())))
+                .run(args);
+    }
+
+    private static StreamBuilder<Integer> separate(StreamBuilder<Integer> builder) {
+        return builder
+                .map(i -> aValue(i + 1))
+                .filter(i -> aBoolean(i % 3 != 0))
+                .map(i -> aValue(i * 2))
+                .filter(i -> aBoolean(i % 5 != 0))
+                .map(i -> aValue(i - 1));
+    }
+
+    private static StreamBuilder<Integer> fused(StreamBuilder<Integer> builder) {
+        return builder
+                .mapSync(i -> i + 1)
+                .filterSync(i -> i % 3 != 0)
+                .mapSync(i -> i * 2)
+                .filterSync(i -> i % 5 != 0)
+                .mapSync(i -> i - 1);
+    }
+
+    private static double run(Function<StreamBuilder<Integer>, StreamBuilder<Integer>> pipeline) {
+        final long start = System.nanoTime();
+        final long sum = doAsync(() -> aForRange(0, ELEMENTS).process(pipeline)
+                .leftFold(0L, (total, value) -> aValue(total + value)));
+        if (sum == 0) {
+            throw new IllegalStateException("Wrong checksum: " + sum);
+        }
+        return Benchmark.nanosPerOperation(start, ELEMENTS);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for {@link StreamMetrics}.
+ */
+public class StreamMetricsTest {
+
+    @AfterEach
+    public void tearDown() {
+        StreamMetrics.setInstrumentAll(false);
+        StreamMetrics.reset();
+    }
+
+    private static StageMetrics.Snapshot find(final String name) {
+        return StreamMetrics.snapshot().stream().filter(s -> s.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void pullStages() {
+        final List<Integer> result = doAsync(() -> aForRange(0, 100).instrument("test.source")
+                .map(v -> aLater(() -> aValue(v + 1))).instrument("test.mapped").toList());
+        assertEquals(100, result.size());
+        final StageMetrics.Snapshot source = find("test.source");
+        final StageMetrics.Snapshot mapped = find("test.mapped");
+        assertEquals(100, source.getElements());
+        assertEquals(100, mapped.getElements());
+        assertEquals(0, source.getInFlight());
+        assertEquals(0, mapped.getFailures());
+        assertTrue(mapped.getRequests() >= 1);
+    }
+
+    @Test
+    public void pushStages() {
+        final List<Integer> result = doAsync(() -> aForRange(0, 10).push().instrument("test.push")
+                .map(v -> aLater(() -> aValue(v))).toList());
+        assertEquals(10, result.size());
+        final StageMetrics.Snapshot push = find("test.push");
+        assertEquals(10, push.getElements());
+        assertEquals(0, push.getInFlight());
+    }
+
+    @Test
+    public void instrumentAll() {
+        StreamMetrics.setInstrumentAll(true);
+        for (int i = 0; i < 2; i++) {
+            final List<Integer> result = doAsync(() -> aForRange(0, 10).map(v -> aValue(v * 2)).toList());
+            assertEquals(10, result.size());
+        }
+        // the stages of both pipelines share the metrics
+        final List<StageMetrics.Snapshot> maps = StreamMetrics.snapshot().stream()
+                .filter(s -> s.getName().equals("pull.map")).collect(Collectors.toList());
+        assertEquals(1, maps.size(), () -> "Stages: " + StreamMetrics.snapshot());
+        assertEquals(20, maps.get(0).getElements());
+        // the source and the map stages
+        assertEquals(2, StreamMetrics.snapshot().size(), () -> "Stages: " + StreamMetrics.snapshot());
+    }
+
+    @Test
+    public void instrumentAllKeepsFusion() {
+        StreamMetrics.setInstrumentAll(true);
+        assertEquals(Arrays.asList(2, 6, 10), doAsync(() -> aForRange(0, 6)
+                .mapSync(v -> v + 1).filterSync(v -> v % 2 == 1).mapSync(v -> v * 2).toList()));
+        assertEquals(Arrays.asList(2, 6, 10), doAsync(() -> aForRange(0, 6).push()
+                .mapSync(v -> v + 1).filterSync(v -> v % 2 == 1).mapSync(v -> v * 2).toList()));
+        // the fused stages are instrumented as a single stage
+        assertEquals(3, find("pull.flatMapMaybeSync").getElements());
+        assertEquals(3, find("push.flatMapMaybeSync").getElements());
+    }
+}
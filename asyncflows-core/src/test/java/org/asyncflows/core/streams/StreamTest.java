@@ -23,12 +23,26 @@
 
 package org.asyncflows.core.streams;
 
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
 import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.core.function.AFunction;
+import org.asyncflows.core.vats.Vat;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -37,9 +51,16 @@ import static org.asyncflows.core.CoreFlows.aBoolean;
 import static org.asyncflows.core.CoreFlows.aLater;
 import static org.asyncflows.core.CoreFlows.aValue;
 import static org.asyncflows.core.function.AsyncFunctionUtil.constantSupplier;
+import static org.asyncflows.core.streams.AsyncStreams.aForArray;
 import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.asyncflows.core.streams.AsyncStreams.aForStream;
+import static org.asyncflows.core.streams.AsyncStreams.aMerge;
+import static org.asyncflows.core.streams.AsyncStreams.aMergeSorted;
+import static org.asyncflows.core.streams.AsyncStreams.aZip;
 import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * The test for the asynchronous stream classes.
@@ -135,4 +156,362 @@ public class StreamTest {
         assertEquals(result.getValue1(), result.getValue2());
     }
 
+    @Test
+    public void chunks() {
+        final List<List<Integer>> chunks = doAsync(() -> {
+            final AStream<Integer> stream = aForRange(0, 10).mapSync(i -> i * 2).filterSync(i -> i % 3 != 0)
+                    .window(4).stream();
+            final List<List<Integer>> rc = new ArrayList<>();
+            return aSeqWhile(() -> stream.nextChunk(3).map(chunk -> {
+                rc.add(chunk);
+                return !chunk.isEmpty();
+            })).thenFlatGet(stream::close).thenValue(rc);
+        });
+        final List<Integer> elements = new ArrayList<>();
+        for (final List<Integer> chunk : chunks.subList(0, chunks.size() - 1)) {
+            assertTrue(!chunk.isEmpty() && chunk.size() <= 3, chunk::toString);
+            elements.addAll(chunk);
+        }
+        assertTrue(chunks.get(chunks.size() - 1).isEmpty());
+        assertEquals(Arrays.asList(2, 4, 8, 10, 14, 16), elements);
+    }
+
+    @Test
+    public void chunkFailure() {
+        final Tuple2<List<Integer>, Outcome<List<Integer>>> result = doAsync(() -> {
+            final AStream<Integer> stream = aForRange(0, 10).mapSync(i -> {
+                if (i == 5) {
+                    throw new IllegalStateException("Test");
+                }
+                return i;
+            }).stream();
+            return stream.nextChunk(100).flatMap(
+                    first -> stream.nextChunk(100).toOutcomePromise().map(second -> Tuple2.of(first, second)));
+        });
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), result.getValue1());
+        assertTrue(result.getValue2().isFailure());
+        assertEquals("Test", result.getValue2().failure().getMessage());
+    }
+
+    @Test
+    public void putAll() {
+        final List<Integer> result = doAsync(() -> {
+            final Tuple2<ASink<Integer>, AStream<Integer>> queue = RandevuQueue.local();
+            final ASink<Integer> sink = queue.getValue1();
+            return aAll(
+                    () -> sink.putAll(Arrays.asList(1, 2, 3, 4)).thenFlatGet(
+                            () -> sink.putAll(Arrays.asList(5, 6))).thenFlatGet(sink::close)
+            ).and(
+                    () -> aForStream(queue.getValue2()).push().mapSync(i -> i * 10).filterSync(i -> i != 30)
+                            .window(2).toList()
+            ).selectValue2();
+        });
+        assertEquals(Arrays.asList(10, 20, 40, 50, 60), result);
+    }
+
+    @Test
+    public void fusedSyncStages() {
+        final Function<StreamBuilder<Integer>, StreamBuilder<Integer>> stages = s -> s
+                .mapSync(i -> i + 1)
+                .filterSync(i -> i % 2 == 0)
+                .mapSync(i -> i * 3)
+                .filterSync(i -> i % 4 != 0)
+                .mapSync(i -> i - 1);
+        final List<Integer> expected = Arrays.asList(5, 17, 29);
+        assertEquals(expected, doAsync(() -> aForRange(0, 10).process(stages).toList()));
+        assertEquals(expected, doAsync(() -> aForRange(0, 10).push().process(stages).toList()));
+        assertEquals(expected, doAsync(() -> aForRange(0, 10).all().process(stages).toList()));
+        assertEquals(expected, doAsync(() -> aForRange(0, 10).mapSync(i -> i).window(3).process(stages)
+                .map(i -> aLater(() -> aValue(i))).process(stages).mapSync(i -> (i + 1) / 3 / 3 * 3 - 1)
+                .filterSync(i -> true).toList()));
+    }
+
+    @Test
+    public void fusedStageIsConsumed() {
+        final Tuple2<Outcome<Maybe<Integer>>, List<Integer>> result = doAsync(() -> {
+            final StreamBuilder<Integer> first = aForRange(0, 5).mapSync(i -> i + 1);
+            final StreamBuilder<Integer> second = first.mapSync(i -> i * 2);
+            final AStream<Integer> earlier = first.localStream();
+            return earlier.next().toOutcomePromise().flatMap(
+                    outcome -> earlier.close().thenFlatGet(() -> second.toList()).map(
+                            list -> Tuple2.of(outcome, list)));
+        });
+        assertTrue(result.getValue1().isFailure());
+        assertEquals(Arrays.asList(2, 4, 6, 8, 10), result.getValue2());
+    }
+
+    @Test
+    public void fusedSyncStagesFailure() {
+        final Function<StreamBuilder<Integer>, StreamBuilder<Integer>> stages = s -> s
+                .filterSync(i -> i % 2 == 0)
+                .mapSync(i -> {
+                    if (i == 6) {
+                        throw new IllegalStateException("Test");
+                    }
+                    return i;
+                })
+                .mapSync(i -> i * 10);
+        for (final boolean push : new boolean[]{false, true}) {
+            final List<Integer> received = new ArrayList<>();
+            final Outcome<Void> outcome = doAsync(() -> aForRange(0, 10)
+                    .process(s -> push ? s.push() : s)
+                    .process(stages)
+                    .consume(i -> {
+                        received.add(i);
+                        return aBoolean(true);
+                    }).toOutcomePromise());
+            assertEquals(Arrays.asList(0, 20, 40), received);
+            assertTrue(outcome.isFailure());
+            assertEquals("Test", outcome.failure().getMessage());
+        }
+    }
+
+    @Test
+    public void mapParallel() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final AtomicInteger active = new AtomicInteger();
+            final AtomicInteger maxActive = new AtomicInteger();
+            final AFunction<Integer, Integer> mapper = i -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep((10 - i % 10) / 3);
+                } finally {
+                    active.decrementAndGet();
+                }
+                return aValue(i * 2);
+            };
+            final List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                expected.add(i * 2);
+            }
+            assertEquals(expected, doAsync(() -> aForRange(0, 100).mapParallel(3, executor, mapper, true)
+                    .toList()));
+            assertTrue(maxActive.get() <= 3, () -> "Max active: " + maxActive.get());
+            final List<Integer> unordered = doAsync(() -> aForRange(0, 100).push()
+                    .mapParallel(4, executor, mapper, false).toList());
+            unordered.sort(Integer::compare);
+            assertEquals(expected, unordered);
+            final Tuple2<List<Integer>, Outcome<Void>> failure = doAsync(() -> {
+                final List<Integer> received = new ArrayList<>();
+                return aForRange(0, 100).mapParallel(4, executor, i -> {
+                    if (i == 50) {
+                        throw new IllegalStateException("Test");
+                    }
+                    return mapper.apply(i);
+                }, true).consume(i -> {
+                    received.add(i);
+                    return aBoolean(true);
+                }).toOutcomePromise().map(o -> Tuple2.of(received, o));
+            });
+            assertEquals(expected.subList(0, 50), failure.getValue1());
+            assertEquals("Test", failure.getValue2().failure().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void partitionBy() {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Map<Integer, Set<Vat>> vatsByKey = new ConcurrentHashMap<>();
+            final List<Tuple2<Integer, Integer>> result = doAsync(() -> aForRange(0, 1000)
+                    .partitionBy(i -> i % 7, 3, executor, shard -> shard
+                            .mapSync(i -> {
+                                vatsByKey.computeIfAbsent(i % 7, k -> ConcurrentHashMap.newKeySet())
+                                        .add(Vat.current());
+                                return i;
+                            })
+                            .map(i -> aLater(() -> aValue(Tuple2.of(i % 7, i)))))
+                    .toList());
+            assertEquals(1000, result.size());
+            final Map<Integer, List<Integer>> byKey = new HashMap<>();
+            for (final Tuple2<Integer, Integer> element : result) {
+                byKey.computeIfAbsent(element.getValue1(), k -> new ArrayList<>()).add(element.getValue2());
+            }
+            for (final Map.Entry<Integer, List<Integer>> entry : byKey.entrySet()) {
+                final List<Integer> values = entry.getValue();
+                for (int i = 0; i < values.size(); i++) {
+                    assertEquals(entry.getKey() + i * 7, (int) values.get(i));
+                }
+                assertEquals(1, vatsByKey.get(entry.getKey()).size());
+            }
+            final Outcome<List<Integer>> failure = doAsync(() -> aForRange(0, 1000)
+                    .partitionBy(i -> {
+                        if (i == 500) {
+                            throw new IllegalStateException("Test");
+                        }
+                        return i;
+                    }, 3, executor, Function.identity())
+                    .toList().toOutcomePromise());
+            assertTrue(failure.isFailure());
+            assertEquals("Test", failure.failure().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void buffer() {
+        final List<Integer> requests = new ArrayList<>();
+        final List<Integer> result = doAsync(() -> {
+            final AStream<Integer> source = aForRange(0, 100).localStream();
+            final AStream<Integer> recorded = new ChainedStreamBase<Integer, AStream<Integer>>(source) {
+                @Override
+                protected Promise<Maybe<Integer>> produce() {
+                    requests.add(1);
+                    return wrapped.next();
+                }
+
+                @Override
+                protected Promise<List<Integer>> produceChunk(final int max) {
+                    requests.add(max);
+                    return wrapped.nextChunk(max);
+                }
+            };
+            return aForStream(recorded).buffer(10, 3).map(i -> aLater(() -> aValue(i))).toList();
+        });
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, result);
+        assertEquals(10, (int) requests.get(0));
+        for (final int request : requests) {
+            assertTrue(request >= 7, requests::toString);
+        }
+        final Outcome<List<Integer>> failure = doAsync(() -> aForRange(0, 10).mapSync(i -> {
+            if (i == 7) {
+                throw new IllegalStateException("Test");
+            }
+            return i;
+        }).buffer(4, 1).toList().toOutcomePromise());
+        assertEquals("Test", failure.failure().getMessage());
+    }
+
+    @Test
+    public void slidingWindow() {
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(2, 3, 4), Arrays.asList(4, 5, 6)),
+                doAsync(() -> aForRange(0, 8).slidingWindow(3, 2).toList()));
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(3, 4), Arrays.asList(6, 7)),
+                doAsync(() -> aForRange(0, 9).push().slidingWindow(2, 3).toList()));
+    }
+
+    @Test
+    public void merge() {
+        final int sources = 1000;
+        final List<Integer> result = doAsync(() -> {
+            final List<AStream<Integer>> streams = new ArrayList<>();
+            for (int i = 0; i < sources; i++) {
+                streams.add(aForRange(i * 10, i * 10 + 10).localStream());
+            }
+            return aMerge(4, streams).toList();
+        });
+        assertEquals(sources * 10, result.size());
+        final int[] last = new int[sources];
+        Arrays.fill(last, -1);
+        for (final int value : result) {
+            assertTrue(last[value / 10] < value);
+            last[value / 10] = value;
+        }
+    }
+
+    @Test
+    public void mergeSorted() {
+        final List<Integer> result = doAsync(() -> {
+            final List<AStream<Integer>> streams = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final int step = i + 1;
+                streams.add(aForRange(0, 50).map(v -> aValue(v * step)).localStream());
+            }
+            streams.add(aForRange(0, 0).localStream());
+            return aMergeSorted(Integer::compare, 3, streams).toList();
+        });
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            for (int v = 0; v < 50; v++) {
+                expected.add(v * (i + 1));
+            }
+        }
+        expected.sort(Integer::compare);
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void zip() {
+        assertEquals(Arrays.asList(Tuple2.of(0, "a"), Tuple2.of(1, "b"), Tuple2.of(2, "c")),
+                doAsync(() -> aZip(aForRange(0, 10).localStream(),
+                        aForArray("a", "b", "c").localStream()).toList()));
+        assertEquals(Arrays.asList(Tuple2.of(0, 1), Tuple2.of(1, 2)),
+                doAsync(() -> aZip(aForRange(0, 2).localStream(), aForRange(1, 5).localStream()).toList()));
+    }
+
+    @Test
+    public void distinctWithin() {
+        assertEquals(Arrays.asList(1, 2, 3, 1, 4),
+                doAsync(() -> aForArray(1, 2, 1, 2, 3, 3, 1, 4).distinctWithin(2).toList()));
+        assertEquals(Arrays.asList(1, 2, 3),
+                doAsync(() -> aForArray(1, 2, 1, 2, 3, 1).push().distinctWithin(Duration.ofHours(1)).toList()));
+        assertEquals(Arrays.asList(1, 1, 2, 2),
+                doAsync(() -> aForArray(1, 1, 2, 2).distinctWithin(Duration.ZERO).toList()));
+    }
+
+    @Test
+    public void distinctApprox() {
+        final int count = 10000;
+        final List<Integer> result = doAsync(() -> aForRange(0, count * 3).mapSync(v -> v % count)
+                .distinctApprox(count, 0.01).toList());
+        assertTrue(result.size() <= count && result.size() > count * 0.97, () -> "Size: " + result.size());
+        assertEquals(result.size(), new HashSet<>(result).size());
+    }
+
+    @Test
+    public void streamWithoutChunks() {
+        // the stream implements only the element operations, so it relies on the default chunk operations
+        final AStream<Integer> stream = new AStream<Integer>() {
+            private int next;
+
+            @Override
+            public Promise<Maybe<Integer>> next() {
+                return aValue(next < 5 ? Maybe.of(next++) : Maybe.empty());
+            }
+
+            @Override
+            public Promise<Void> close() {
+                return aValue(null);
+            }
+        };
+        final List<Integer> sunk = new ArrayList<>();
+        final ASink<Integer> sink = new ASink<Integer>() {
+            @Override
+            public Promise<Void> put(final Integer value) {
+                sunk.add(value);
+                return aValue(null);
+            }
+
+            @Override
+            public Promise<Void> fail(final Throwable error) {
+                return aValue(null);
+            }
+
+            @Override
+            public Promise<Void> finished() {
+                return new Promise<>();
+            }
+
+            @Override
+            public Promise<Void> close() {
+                return aValue(null);
+            }
+        };
+        assertEquals(Arrays.asList(0, 1, 2), doAsync(() -> stream.nextChunk(3)
+                .flatMap(chunk -> aSeqWhile(() -> stream.nextChunk(3).map(more -> {
+                    chunk.addAll(more);
+                    return chunk.size() < 3;
+                })).thenValue(chunk))));
+        assertEquals(Arrays.asList(3, 4), doAsync(() -> aForStream(stream).toList()));
+        doAsync(() -> sink.putAll(Arrays.asList(1, 2, 3)));
+        assertEquals(Arrays.asList(1, 2, 3), sunk);
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.streams.time;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.streams.AStream;
+import org.asyncflows.core.time.ATimer;
+import org.asyncflows.core.time.Timer;
+import org.asyncflows.core.util.CoreFlowsResource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.data.Maybe.empty;
+import static org.asyncflows.core.data.Maybe.of;
+import static org.asyncflows.core.streams.AsyncStreams.aForProducer;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for the time-based grouping of stream elements.
+ */
+class TimeWindowTest {
+
+    @Test
+    void batchByCount() {
+        final List<List<Integer>> r = doAsync(() -> CoreFlowsResource.aTryResource(new Timer()).run(
+                timer -> aForRange(0, 10).batch(timer, 4, Duration.ofHours(1)).toList()));
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), r);
+    }
+
+    @Test
+    void batchByDelay() {
+        final List<List<Integer>> r = doAsync(() -> CoreFlowsResource.aTryResource(new Timer()).run(timer -> {
+            final int[] next = new int[1];
+            // the element is produced every 5ms, so the batches are limited by the delay
+            return aForProducer(() -> next[0] >= 20 ? aValue(empty())
+                    : timer.sleep(Duration.ofMillis(5)).thenGet(() -> of(next[0]++)))
+                    .batch(timer, 100, Duration.ofMillis(30)).toList();
+        }));
+        final List<Integer> all = new ArrayList<>();
+        for (final List<Integer> batch : r) {
+            assertTrue(!batch.isEmpty() && batch.size() < 20, r::toString);
+            all.addAll(batch);
+        }
+        assertTrue(r.size() > 1, r::toString);
+        assertEquals(20, all.size());
+        assertEquals(19, (int) all.get(19));
+    }
+
+    @Test
+    void tumblingWindow() {
+        final List<List<Integer>> r = doAsync(() -> CoreFlowsResource.aTryResource(new Timer()).run(timer -> {
+            final int[] next = new int[1];
+            return aForProducer(() -> next[0] >= 20 ? aValue(empty())
+                    : timer.sleep(Duration.ofMillis(5)).thenGet(() -> of(next[0]++)))
+                    .tumblingWindow(timer, Duration.ofMillis(25)).toList();
+        }));
+        final List<Integer> all = new ArrayList<>();
+        r.forEach(all::addAll);
+        assertTrue(r.size() > 1, r::toString);
+        assertEquals(20, all.size());
+    }
+
+    @Test
+    void slidingWindow() {
+        final List<List<Integer>> r = doAsync(() -> CoreFlowsResource.aTryResource(new Timer()).run(timer -> {
+            final int[] next = new int[1];
+            return aForProducer(() -> next[0] >= 20 ? aValue(empty())
+                    : timer.sleep(Duration.ofMillis(5)).thenGet(() -> of(next[0]++)))
+                    .slidingWindow(timer, Duration.ofMillis(40), Duration.ofMillis(20)).toList();
+        }));
+        assertTrue(r.size() > 1, r::toString);
+        final Set<Integer> all = new HashSet<>();
+        int total = 0;
+        for (final List<Integer> window : r) {
+            assertTrue(!window.isEmpty(), r::toString);
+            for (int i = 1; i < window.size(); i++) {
+                assertTrue(window.get(i - 1) < window.get(i), r::toString);
+            }
+            all.addAll(window);
+            total += window.size();
+        }
+        // the windows overlap, so most elements are emitted twice
+        assertEquals(20, all.size());
+        assertTrue(total > 20, r::toString);
+    }
+
+    @Test
+    void batchTimersAreCancelled() {
+        final AtomicInteger pending = new AtomicInteger();
+        final List<List<Integer>> r = doAsync(() -> CoreFlowsResource.aTryResource(new Timer()).run(timer -> {
+            final ATimer counting = new ATimer() {
+                @Override
+                public Promise<Instant> waitFor(final Instant time) {
+                    pending.incrementAndGet();
+                    return timer.waitFor(time).listenSync(o -> pending.decrementAndGet());
+                }
+
+                @Override
+                public Promise<AStream<Instant>> fixedRate(final Instant firstTime, final Duration period) {
+                    return timer.fixedRate(firstTime, period);
+                }
+
+                @Override
+                public Promise<AStream<Instant>> fixedDelay(final Instant firstTime, final Duration delay) {
+                    return timer.fixedDelay(firstTime, delay);
+                }
+
+                @Override
+                public Promise<Void> close() {
+                    return timer.close();
+                }
+            };
+            return aForRange(0, 10_000).batch(counting, 10, Duration.ofHours(1)).toList();
+        }));
+        // the batches are emitted by count, and the timer waits for them are cancelled
+        assertEquals(1_000, r.size());
+        assertEquals(0, pending.get());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The simple harness for the manually run benchmarks. The variants are run one after another for
+ * {@link #WARMUP} rounds that are not measured, and then for {@link #ROUNDS} measured rounds. The best time
+ * of each variant is printed. The benchmark arguments select the variants to run, it is better to measure
+ * the variants in separate JVMs when they affect each other's JIT profile.
+ */
+public final class Benchmark {
+    /**
+     * The amount of warmup rounds.
+     */
+    public static final int WARMUP = 5;
+    /**
+     * The amount of measured rounds.
+     */
+    public static final int ROUNDS = 10;
+    /**
+     * The variants, each variant returns the time of the single operation in nanoseconds.
+     */
+    private final Map<String, DoubleSupplier> variants = new LinkedHashMap<>();
+    /**
+     * The operation name used in the report.
+     */
+    private final String operation;
+
+    /**
+     * The constructor.
+     *
+     * @param operation the operation name used in the report (for example "call" or "element")
+     */
+    public Benchmark(final String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Get the time of the single operation.
+     *
+     * @param start      the start time as returned by {@link System#nanoTime()}
+     * @param operations the amount of operations since the start
+     * @return the time of the single operation in nanoseconds
+     */
+    public static double nanosPerOperation(final long start, final long operations) {
+        return (double) (System.nanoTime() - start) / operations;
+    }
+
+    /**
+     * Add the variant.
+     *
+     * @param name    the variant name
+     * @param variant the variant that runs a round and returns the time of the single operation in nanoseconds
+     * @return this benchmark
+     */
+    public Benchmark variant(final String name, final DoubleSupplier variant) {
+        variants.put(name, variant);
+        return this;
+    }
+
+    /**
+     * Run the benchmark and print the best times.
+     *
+     * @param args the names of variants to run, all variants are run if empty
+     */
+    public void run(final String[] args) {
+        if (args.length > 0) {
+            variants.keySet().retainAll(Arrays.asList(args));
+        }
+        final Map<String, Double> best = new LinkedHashMap<>();
+        for (int i = 0; i < WARMUP + ROUNDS; i++) {
+            for (final Map.Entry<String, DoubleSupplier> e : variants.entrySet()) {
+                final double time = e.getValue().getAsDouble();
+                if (i >= WARMUP) {
+                    best.merge(e.getKey(), time, Math::min);
+                }
+            }
+        }
+        final int width = variants.keySet().stream().mapToInt(String::length).max().orElse(0);
+        best.forEach((name, time) -> System.out.printf("%-" + width + "s %10.2f ns/%s%n", name, time, operation));
+    }
+}
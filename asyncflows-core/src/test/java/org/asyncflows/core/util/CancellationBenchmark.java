@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Subcription;
+import org.asyncflows.core.function.AResolver;
+
+import java.util.function.IntSupplier;
+
+/**
+ * The benchmark for registration and unregistration of cancellation listeners while many other listeners are
+ * registered. The registrations are closed in the registration order with some registrations pending, like
+ * nested cancellable scopes that complete at different times. The "cancellation" variant uses
+ * {@link Cancellation#onCancelSync(Runnable)}, and the "promise" variant uses the previous storage based on
+ * {@link Promise#listenSync(AResolver)} and {@link Promise#forget(AResolver)}. Run it manually using the main
+ * method, the arguments select the measured variants (see {@link Benchmark}).
+ */
+public final class CancellationBenchmark {
+    private static final int LIVE = 1_000;
+    private static final int PENDING = 64;
+    private static final int CALLS = 200_000;
+
+    private CancellationBenchmark() {
+        // do nothing
+    }
+
+    public static void main(String[] args) {
+        new Benchmark("call")
+                .variant("cancellation", () -> run(CancellationBenchmark::cancellation))
+                .variant("promise", () -> run(CancellationBenchmark::promise))
+                .run(args);
+    }
+
+    private static double run(IntSupplier variant) {
+        final long start = System.nanoTime();
+        final int fired = variant.getAsInt();
+        final double time = Benchmark.nanosPerOperation(start, CALLS);
+        if (fired != LIVE) {
+            throw new IllegalStateException("Wrong amount of fired listeners: " + fired);
+        }
+        return time;
+    }
+
+    private static int cancellation() {
+        final Cancellation cancellation = new Cancellation();
+        final int[] fired = new int[1];
+        for (int i = 0; i < LIVE; i++) {
+            cancellation.onCancelSync(() -> fired[0]++);
+        }
+        final Subcription[] pending = new Subcription[PENDING];
+        for (int i = 0; i < CALLS; i++) {
+            final int slot = i % PENDING;
+            if (pending[slot] != null) {
+                pending[slot].close();
+            }
+            pending[slot] = cancellation.onCancelSync(() -> fired[0] += CALLS);
+        }
+        for (Subcription subcription : pending) {
+            subcription.close();
+        }
+        cancellation.cancel();
+        return fired[0];
+    }
+
+    private static int promise() {
+        final Promise<Void> promise = new Promise<>();
+        final int[] fired = new int[1];
+        for (int i = 0; i < LIVE; i++) {
+            promise.listenSync(o -> fired[0]++);
+        }
+        @SuppressWarnings("unchecked") final AResolver<Void>[] pending = new AResolver[PENDING];
+        for (int i = 0; i < CALLS; i++) {
+            final int slot = i % PENDING;
+            if (pending[slot] != null) {
+                promise.forget(pending[slot]);
+            }
+            pending[slot] = o -> fired[0] += CALLS;
+            promise.listenSync(pending[slot]);
+        }
+        for (AResolver<Void> listener : pending) {
+            promise.forget(listener);
+        }
+        promise.resolver().resolve(null);
+        return fired[0];
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.AsyncContext.doAsyncOutcome;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.util.CancellableFlows.aWithTimeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for deadlines.
+ */
+class DeadlineTest {
+    @Test
+    void testInTime() {
+        final int rc = doAsync(() -> aWithTimeout(Duration.ofSeconds(10), () -> aLater(() -> {
+            final Deadline deadline = Deadline.currentOrNull();
+            assertTrue(deadline.remaining().compareTo(Duration.ZERO) > 0);
+            return aValue(42);
+        })));
+        assertEquals(42, rc);
+        assertNull(doAsync(() -> aValue(Deadline.currentOrNull())));
+    }
+
+    @Test
+    void testExceeded() {
+        final Outcome<Object> outcome = doAsyncOutcome(
+                () -> aWithTimeout(Duration.ofMillis(50), Promise::new));
+        assertTrue(outcome.isFailure());
+        assertTrue(outcome.failure() instanceof DeadlineExceededException, outcome.failure().toString());
+    }
+
+    @Test
+    void testZeroBudget() {
+        final AtomicBoolean started = new AtomicBoolean();
+        final Outcome<Integer> outcome = doAsyncOutcome(() -> aWithTimeout(Duration.ZERO, () -> {
+            started.set(true);
+            return aValue(1);
+        }));
+        assertTrue(outcome.failure() instanceof DeadlineExceededException);
+        assertFalse(started.get());
+    }
+
+    @Test
+    void testNestedDoesNotExtend() {
+        final boolean same = doAsync(() -> aWithTimeout(Duration.ofSeconds(1), () -> {
+            final Deadline outer = Deadline.currentOrNull();
+            return aWithTimeout(Duration.ofSeconds(100), () -> aValue(Deadline.currentOrNull() == outer));
+        }));
+        assertTrue(same);
+    }
+
+    @Test
+    void testSemaphore() {
+        final Semaphore semaphore = new Semaphore(0);
+        final Outcome<Void> outcome = doAsyncOutcome(
+                () -> aWithTimeout(Duration.ofMillis(50), semaphore::acquire));
+        assertTrue(outcome.failure() instanceof DeadlineExceededException);
+        // the waiter that has missed the deadline does not take the permit
+        final Semaphore result = doAsync(() -> {
+            semaphore.release();
+            return semaphore.acquire().thenValue(semaphore);
+        });
+        assertSame(semaphore, result);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.util.sample.ATestQueue;
+import org.asyncflows.core.util.sample.ATestQueueProxyFactory;
+import org.asyncflows.core.util.sample.TestQueue;
+import org.asyncflows.core.vats.Vat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aLaterOrNow;
+import static org.asyncflows.core.CoreFlows.aOneWayOrNow;
+import static org.asyncflows.core.CoreFlows.aValue;
+
+/**
+ * The benchmark that compares per-call cost of the generated proxy, {@link ObjectExporter} proxy,
+ * and the plain {@link Method#invoke(Object, Object...)} based proxy. The calls are made from the service vat,
+ * so the proxy overhead is measured rather than the vat queue overhead. Run it manually using the main method,
+ * the arguments select the measured proxies (see {@link Benchmark}).
+ */
+@SuppressWarnings("deprecation")
+public final class ObjectExporterBenchmark {
+    private static final int CALLS = 1_000_000;
+
+    private ObjectExporterBenchmark() {
+        // do nothing
+    }
+
+    public static void main(String[] args) {
+        new Benchmark("call")
+                .variant("generated", () -> run(q -> ATestQueueProxyFactory.createProxy(Vat.current(), q)))
+                .variant("exporter", () -> run(q -> ObjectExporter.export(Vat.current(), q)))
+                .variant("reflection", () -> run(ObjectExporterBenchmark::reflectionProxy))
+                .run(args);
+    }
+
+    private static double run(Function<TestQueue<Integer>, ATestQueue<Integer>> exporter) {
+        final long start = System.nanoTime();
+        final long sum = doAsync(() -> {
+            final ATestQueue<Integer> queue = exporter.apply(new TestQueue<>());
+            long total = 0;
+            for (int i = 0; i < CALLS; i++) {
+                queue.put(i);
+                total += queue.take().getOutcomeOrNull().value();
+            }
+            return aValue(total);
+        });
+        if (sum != (long) CALLS * (CALLS - 1) / 2) {
+            throw new IllegalStateException("Wrong checksum: " + sum);
+        }
+        return Benchmark.nanosPerOperation(start, 2L * CALLS);
+    }
+
+    /**
+     * The proxy that uses the same approach as {@link ObjectExporter} did before switching to method handles.
+     *
+     * @param queue the queue
+     * @return the proxy
+     */
+    @SuppressWarnings("unchecked")
+    private static ATestQueue<Integer> reflectionProxy(TestQueue<Integer> queue) {
+        final Vat vat = Vat.current();
+        return (ATestQueue<Integer>) Proxy.newProxyInstance(ObjectExporterBenchmark.class.getClassLoader(),
+                new Class<?>[]{ATestQueue.class}, (proxy, method, args) -> {
+                    final Class<?> returnType = method.getReturnType();
+                    if (void.class == returnType) {
+                        aOneWayOrNow(vat, () -> method.invoke(queue, args));
+                        return null;
+                    } else if (Promise.class == returnType) {
+                        return aLaterOrNow(vat, () -> {
+                            try {
+                                return (Promise<Object>) method.invoke(queue, args);
+                            } catch (InvocationTargetException e) {
+                                return aFailure(e.getTargetException());
+                            }
+                        });
+                    }
+                    throw new UnsupportedOperationException(method.toString());
+                });
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.core.util;
+
+import org.asyncflows.core.AsyncExecutionException;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.core.time.Timer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForCollect;
+import static org.asyncflows.core.util.CoreFlowsResource.aTry;
+import static org.asyncflows.core.util.CoreFlowsResource.aTryResource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for {@link ObjectPool}.
+ */
+class ObjectPoolTest {
+
+    private static List<Integer> range(final int count) {
+        final List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    void testBorrowWaitsWhenExhausted() {
+        final AtomicInteger counter = new AtomicInteger();
+        final ObjectPoolStats stats = doAsync(() -> {
+            final AObjectPool<Integer> pool = new ObjectPool<>(() -> aValue(counter.incrementAndGet()), 2).export();
+            return aAllForCollect(range(10).iterator(),
+                    i -> aTry(pool.lease()).run(lease -> aLater(() -> aValue(lease.get()))),
+                    Collectors.toList()
+            ).thenFlatGet(pool::stats);
+        });
+        assertEquals(2, stats.getCreated());
+        assertEquals(10, stats.getBorrowed());
+        assertEquals(0, stats.getActive());
+        assertEquals(2, stats.getIdle());
+        assertEquals(0, stats.getWaiting());
+    }
+
+    @Test
+    void testValidationAndInvalidation() {
+        final AtomicInteger counter = new AtomicInteger();
+        final List<Integer> destroyed = new ArrayList<>();
+        final ObjectPoolStats stats = doAsync(() -> {
+            final ObjectPool<Integer> pool = new ObjectPool<>(() -> aValue(counter.incrementAndGet()), 2);
+            pool.setValidator(value -> aValue(value != 1));
+            pool.setDestroyer(value -> {
+                destroyed.add(value);
+                return aVoid();
+            });
+            return pool.borrow().thenFlatGet(() -> {
+                // the object 1 is idle after release, and it fails validation on the next borrow
+                pool.release(1);
+                return pool.borrow();
+            }).flatMap(value -> {
+                assertEquals(2, value);
+                pool.invalidate(value);
+                return pool.stats();
+            });
+        });
+        assertEquals(1, stats.getValidationFailures());
+        assertEquals(2, stats.getDestroyed());
+        assertEquals(0, stats.getActive());
+        assertEquals(List.of(1, 2), destroyed);
+    }
+
+    @Test
+    void testIdleEviction() {
+        final AtomicInteger counter = new AtomicInteger();
+        final ObjectPoolStats stats = doAsync(() -> aTryResource(new Timer()).run(timer -> {
+            final ObjectPool<Integer> pool = new ObjectPool<>(() -> aValue(counter.incrementAndGet()), 2);
+            pool.setIdleTimeout(timer, Duration.ofMillis(10));
+            return aTry(pool.lease()).run(lease -> aVoid())
+                    .thenFlatGet(() -> timer.sleep(Duration.ofMillis(100)))
+                    .thenFlatGet(pool::stats);
+        }));
+        assertEquals(1, stats.getEvicted());
+        assertEquals(0, stats.getIdle());
+    }
+
+    @Test
+    void testLocalCache() {
+        final AtomicInteger counter = new AtomicInteger();
+        final ObjectPoolStats stats = doAsync(() -> {
+            final AObjectPool<Integer> shared = new ObjectPool<>(() -> aValue(counter.incrementAndGet()), 4)
+                    .export();
+            final LocalObjectPool<Integer> local = new LocalObjectPool<>(shared, 1);
+            return CoreFlowsSeq.aSeqForUnit(range(5), i -> aTry(local.lease()).run(lease -> aValue(true)))
+                    .thenFlatGet(() -> {
+                        assertEquals(1, local.getCachedCount());
+                        return local.close();
+                    }).thenFlatGet(shared::stats);
+        });
+        assertEquals(1, stats.getBorrowed());
+        assertEquals(1, stats.getIdle());
+    }
+
+    @Test
+    void testLocalCacheValidationAndEviction() {
+        final AtomicInteger counter = new AtomicInteger();
+        final List<ObjectPoolStats> stats = doAsync(() -> aTryResource(new Timer()).run(timer -> {
+            final AObjectPool<Integer> shared = new ObjectPool<>(() -> aValue(counter.incrementAndGet()), 4)
+                    .export();
+            final LocalObjectPool<Integer> local = new LocalObjectPool<>(shared, 2);
+            local.setValidator(value -> aValue(value != 1));
+            local.setIdleTimeout(timer, Duration.ofMillis(10));
+            final List<ObjectPoolStats> result = new ArrayList<>();
+            return local.borrow().flatMap(value -> {
+                local.release(value);
+                return local.stats();
+            }).flatMap(cached -> {
+                result.add(cached);
+                // the object 1 fails validation in the cache, so the new object is borrowed from the shared pool
+                return local.borrow();
+            }).flatMap(value -> {
+                assertEquals(2, value);
+                local.release(value);
+                return timer.sleep(Duration.ofMillis(100));
+            }).thenFlatGet(() -> {
+                assertEquals(0, local.getCachedCount());
+                return local.stats();
+            }).map(evicted -> {
+                result.add(evicted);
+                return result;
+            });
+        }));
+        assertEquals(0, stats.get(0).getActive());
+        assertEquals(1, stats.get(0).getIdle());
+        assertEquals(1, stats.get(1).getValidationFailures());
+        assertEquals(0, stats.get(1).getActive());
+        // the object 1 is destroyed, and the expired object 2 is returned to the shared pool
+        assertEquals(1, stats.get(1).getDestroyed());
+        assertEquals(1, stats.get(1).getEvicted() + stats.get(1).getIdle());
+    }
+
+    @Test
+    void testDoubleRelease() {
+        final ObjectPoolStats stats = doAsync(() -> {
+            final ObjectPool<Integer> pool = new ObjectPool<>(() -> aValue(1), 2);
+            return pool.borrow().flatMap(value -> {
+                pool.release(value);
+                pool.release(value);
+                pool.invalidate(value);
+                return pool.stats();
+            });
+        });
+        assertEquals(0, stats.getActive());
+        assertEquals(1, stats.getIdle());
+        assertEquals(0, stats.getDestroyed());
+    }
+
+    @Test
+    void testLocalCacheDoubleRelease() {
+        final AtomicInteger counter = new AtomicInteger();
+        final Tuple2<Integer, Integer> borrowed = doAsync(() -> {
+            final AObjectPool<Integer> shared = new ObjectPool<>(() -> aValue(counter.incrementAndGet()), 4)
+                    .export();
+            final LocalObjectPool<Integer> local = new LocalObjectPool<>(shared, 2);
+            return local.borrow().flatMap(value -> {
+                local.release(value);
+                local.release(value);
+                local.invalidate(value);
+                assertEquals(1, local.getCachedCount());
+                return aAll(local::borrow).andLast(local::borrow);
+            });
+        });
+        assertNotEquals(borrowed.getValue1(), borrowed.getValue2());
+    }
+
+    @Test
+    void testClosed() {
+        final AsyncExecutionException ex = assertThrows(AsyncExecutionException.class, () -> doAsync(() -> {
+            final ObjectPool<Integer> pool = new ObjectPool<>(() -> aValue(1), 1);
+            return pool.borrow().thenFlatGet(() -> {
+                final Promise<Integer> waiting = pool.borrow();
+                pool.close();
+                return waiting;
+            });
+        }));
+        assertTrue(ex.getCause() instanceof ResourceClosedException);
+    }
+}
@@ -24,12 +24,15 @@
 package org.asyncflows.core.util.control;
 
 import org.asyncflows.core.CoreFlows;
+import org.asyncflows.core.data.Subcription;
 import org.asyncflows.core.util.Cancellation;
 import org.asyncflows.core.util.SimpleQueue;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import static org.asyncflows.core.AsyncContext.doAsync;
 import static org.asyncflows.core.CoreFlows.aFailure;
@@ -79,4 +82,33 @@ class CancellationTest {
         });
         assertEquals(Arrays.asList(1, 2), list);
     }
+
+    @Test
+    void testRegistrationChurn() {
+        final Cancellation cancellation = new Cancellation();
+        final List<Integer> fired = new ArrayList<>();
+        final List<Integer> expected = new ArrayList<>();
+        final List<Subcription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            subscriptions.add(cancellation.onCancelSync(() -> fired.add(value)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            // closing most of the registrations triggers compaction
+            if (i % 10 == 3) {
+                expected.add(i);
+            } else {
+                subscriptions.get(i).close();
+            }
+        }
+        cancellation.cancel();
+        assertEquals(expected, fired);
+        // late close is ignored, and late registration is fired immediately
+        subscriptions.get(3).close();
+        final List<Throwable> late = new ArrayList<>();
+        cancellation.onCancelSync(late::add);
+        assertEquals(1, late.size());
+        assertTrue(late.get(0) instanceof CancellationException);
+        assertEquals(expected, fired);
+    }
 }
@@ -26,7 +26,7 @@ package org.asyncflows.core.util.sample;
 import org.asyncflows.core.Promise;
 import org.asyncflows.core.annotations.Asynchronous;
 
-@Asynchronous
+@Asynchronous(batching = true, metrics = true)
 public interface ATestQueue<T> {
     Promise<T> take();
 
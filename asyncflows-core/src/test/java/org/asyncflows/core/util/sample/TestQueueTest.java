@@ -25,14 +25,18 @@ package org.asyncflows.core.util.sample;
 
 import static org.asyncflows.core.AsyncContext.doAsync;
 import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aValue;
 import static org.asyncflows.core.util.ControlUtils.rangeIterator;
 import static org.asyncflows.core.util.CoreFlowsAll.aAll;
 import static org.asyncflows.core.util.CoreFlowsSeq.aSeqForCollect;
 import static org.asyncflows.core.util.CoreFlowsSeq.aSeqForUnit;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
+import org.asyncflows.core.vats.Vats;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -54,4 +58,30 @@ class TestQueueTest {
         assertEquals((11 * 10) / 2, rc);
     }
 
+    @Test
+    void testSameVatCall() {
+        var rc = doAsync(() -> {
+            var queue = new TestQueue<Integer>().export();
+            queue.put(1);
+            var taken = queue.take();
+            return aValue(taken.isUnresolved());
+        });
+        assertFalse(rc);
+    }
+
+    @Test
+    void testBatchingProxy() {
+        var rc = doAsync(() -> {
+            var queue = ATestQueueProxyFactory.createBatchingProxy(Vats.daemonVat(), new TestQueue<Integer>());
+            var first = queue.take();
+            for (int i = 1; i <= 10; i++) {
+                queue.put(i);
+            }
+            return aSeqForCollect(rangeIterator(0, 9),
+                    i -> queue.take(),
+                    Collectors.toList()
+            ).flatMap(l -> first.map(f -> List.of(f, l)));
+        });
+        assertEquals(List.of(1, List.of(2, 3, 4, 5, 6, 7, 8, 9, 10)), rc);
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core.vats;
+
+import org.asyncflows.core.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.asyncflows.core.AsyncContext.aExecutorGet;
+import static org.asyncflows.core.AsyncContext.aExecutorRun;
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.AsyncContext.doAsyncOutcome;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedElasticExecutorTest {
+
+    @Test
+    public void testGrowQueueAndReject() throws InterruptedException {
+        final BoundedElasticExecutor executor = new BoundedElasticExecutor("test", 0, 3, 2, Duration.ofSeconds(10));
+        final CountDownLatch started = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 5; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            // threads are started before tasks are queued
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(3, executor.getPoolSize());
+            assertEquals(3, executor.getActiveCount());
+            assertEquals(2, executor.getQueuedCount());
+            assertTrue(executor.isSaturated());
+            final Outcome<Integer> rejected = doAsyncOutcome(() -> aExecutorGet(executor, () -> 42));
+            assertTrue(rejected.isFailure());
+            assertTrue(rejected.failure() instanceof RejectedExecutionException);
+            assertEquals(1, executor.getRejectedCount());
+            release.countDown();
+            while (executor.getCompletedTaskCount() < 5) {
+                Thread.sleep(1);
+            }
+            assertEquals(42, doAsync(() -> aExecutorGet(executor, () -> 42)).intValue());
+            assertFalse(executor.isSaturated());
+            assertEquals(0, executor.getQueuedCount());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIdleThreadReused() throws InterruptedException {
+        final BoundedElasticExecutor executor = new BoundedElasticExecutor("test", 0, 4, 10, Duration.ofSeconds(10));
+        try {
+            for (int i = 0; i < 10; i++) {
+                doAsync(() -> aExecutorRun(executor, () -> {
+                    // do nothing
+                }));
+                // let the worker return to the queue
+                Thread.sleep(10);
+            }
+            assertEquals(1, executor.getLargestPoolSize());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -26,6 +26,11 @@ package org.asyncflows.core.vats;
 import org.asyncflows.core.data.Cell;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
@@ -46,4 +51,46 @@ public class SingleThreadVatTest {
         // vat is stopped
         assertSame(vat, result.getValue()); // get vat value
     }
+
+    @Test
+    public void testUrgentFirst() {
+        final List<String> order = new ArrayList<>();
+        final Object stopKey = new Object();
+        final SingleThreadVat vat = new SingleThreadVat(stopKey);
+        vat.execute(() -> order.add("normal1"));
+        vat.execute(() -> order.add("normal2"));
+        vat.execute(() -> {
+            order.add("urgent");
+            // the continuation of the urgent action is urgent too
+            vat.execute(() -> order.add("urgent continuation"));
+            vat.execute(() -> order.add("normal3"), Priority.NORMAL);
+        }, Priority.URGENT);
+        vat.execute(() -> vat.stop(stopKey));
+        vat.runInCurrentThread();
+        assertEquals(Arrays.asList("urgent", "urgent continuation", "normal1", "normal2", "normal3"), order);
+    }
+
+    @Test
+    public void testUrgentPromotionIsNotTransitive() {
+        final List<String> order = new ArrayList<>();
+        final Object stopKey = new Object();
+        final SingleThreadVat vat = new SingleThreadVat(stopKey);
+        vat.execute(() -> order.add("normal"));
+        vat.execute(new Runnable() {
+            private int count;
+
+            @Override
+            public void run() {
+                // the chain of continuations like a retry loop after the cancellation
+                order.add("chain" + count);
+                if (++count < 3) {
+                    vat.execute(this);
+                } else {
+                    vat.execute(() -> vat.stop(stopKey));
+                }
+            }
+        }, Priority.URGENT);
+        vat.runInCurrentThread();
+        assertEquals(Arrays.asList("chain0", "chain1", "normal", "chain2"), order);
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.asyncflows.core.vats;
+
+import org.asyncflows.core.data.Subcription;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VatWatchdogTest {
+
+    @Test
+    public void testStallReported() throws InterruptedException {
+        final List<VatWatchdog.Stall> stalls = new CopyOnWriteArrayList<>();
+        final Semaphore done = new Semaphore(0);
+        final ExecutorVat vat = Vats.daemonVat();
+        try (VatWatchdog watchdog = new VatWatchdog(Duration.ofMillis(50), Duration.ofMillis(5));
+             Subcription ignored = watchdog.register(vat)) {
+            watchdog.setListener(stalls::add);
+            vat.execute(done::release);
+            done.acquire();
+            assertTrue(stalls.isEmpty());
+            vat.execute(() -> {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.release();
+            });
+            done.acquire();
+            Thread.sleep(50);
+        }
+        assertEquals(1, stalls.size(), stalls.toString());
+        final VatWatchdog.Stall stall = stalls.get(0);
+        assertSame(vat, stall.getVat());
+        assertTrue(stall.getDuration().toMillis() >= 50, stall.toString());
+        assertTrue(Arrays.stream(stall.getStackTrace()).anyMatch(e -> e.getMethodName().equals("sleep")),
+                Arrays.toString(stall.getStackTrace()));
+        assertEquals(0L, vat.getActionId());
+    }
+}
@@ -12,6 +12,7 @@ module org.asyncflows.io {
     exports org.asyncflows.io.net.blocking;
     exports org.asyncflows.io.net.selector;
     exports org.asyncflows.io.net.tls;
+    exports org.asyncflows.io.rpc;
     exports org.asyncflows.io.text;
     exports org.asyncflows.io.util;
 }
\ No newline at end of file
@@ -34,7 +34,7 @@ import java.nio.Buffer;
  *
  * @param <B> the buffer type
  */
-@Asynchronous
+@Asynchronous(batching = true)
 public interface AOutput<B extends Buffer> extends ACloseable {
 
     /**
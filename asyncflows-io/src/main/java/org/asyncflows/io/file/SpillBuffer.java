@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.file;
+
+import org.asyncflows.core.streams.PullStreamBuilder;
+import org.asyncflows.core.streams.StreamBuilder;
+import org.asyncflows.core.streams.StreamUtil;
+import org.asyncflows.io.file.nio.FileFactory;
+import org.asyncflows.io.rpc.RpcCodec;
+
+import java.nio.file.Path;
+import java.util.function.Function;
+
+/**
+ * The stream stage that buffers elements in memory up to the limit and spills the rest to the disk.
+ * The stage reads the upstream without waiting for the consumer, so the producer is not slowed down while
+ * the consumer is behind. The stage is used with {@link StreamBuilder#transform(Function)}:
+ * <pre>{@code
+ * aForStream(events).transform(spillBuffer(10000, DataRpcCodec.INSTANCE, files, directory)).consume(...)
+ * }</pre>
+ */
+public final class SpillBuffer {
+    /**
+     * The default size of the segment file.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * The private constructor for utility class.
+     */
+    private SpillBuffer() {
+    }
+
+    /**
+     * The spill buffer stage.
+     *
+     * @param memoryLimit the maximum amount of elements kept in memory
+     * @param codec       the codec used to write elements to the disk
+     * @param files       the file factory
+     * @param directory   the directory for temporary segment files
+     * @param segmentSize the segment size after which the next segment file is started
+     * @param <T>         the element type
+     * @return the function that creates the stage
+     */
+    public static <T> Function<StreamBuilder<T>, PullStreamBuilder<T>> spillBuffer(
+            final int memoryLimit, final RpcCodec codec, final AFileFactory files, final Path directory,
+            final long segmentSize) {
+        return builder -> new PullStreamBuilder<>(new SpillStream<>(builder.localStream(), memoryLimit, codec, files,
+                directory, segmentSize, StreamUtil.DEFAULT_CHUNK_SIZE));
+    }
+
+    /**
+     * The spill buffer stage with the default segment size.
+     *
+     * @param memoryLimit the maximum amount of elements kept in memory
+     * @param codec       the codec used to write elements to the disk
+     * @param files       the file factory
+     * @param directory   the directory for temporary segment files
+     * @param <T>         the element type
+     * @return the function that creates the stage
+     */
+    public static <T> Function<StreamBuilder<T>, PullStreamBuilder<T>> spillBuffer(
+            final int memoryLimit, final RpcCodec codec, final AFileFactory files, final Path directory) {
+        return spillBuffer(memoryLimit, codec, files, directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * The spill buffer stage that uses the new {@link FileFactory}.
+     *
+     * @param memoryLimit the maximum amount of elements kept in memory
+     * @param codec       the codec used to write elements to the disk
+     * @param directory   the directory for temporary segment files
+     * @param <T>         the element type
+     * @return the function that creates the stage
+     */
+    public static <T> Function<StreamBuilder<T>, PullStreamBuilder<T>> spillBuffer(
+            final int memoryLimit, final RpcCodec codec, final Path directory) {
+        return builder -> SpillBuffer.<T>spillBuffer(memoryLimit, codec, new FileFactory().export(), directory)
+                .apply(builder);
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.file;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Maybe;
+import org.asyncflows.core.streams.AStream;
+import org.asyncflows.core.streams.StreamBase;
+import org.asyncflows.core.util.RequestQueue;
+import org.asyncflows.core.util.ResourceClosedException;
+import org.asyncflows.io.rpc.RpcCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aMaybeEmpty;
+import static org.asyncflows.core.CoreFlows.aMaybeValue;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForUnit;
+import static org.asyncflows.core.util.CoreFlowsResource.closeResourceAction;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The stream that reads the upstream independently of the consumer. The elements are kept in memory up to
+ * the limit, and the following elements are appended to the segment files. When the consumer catches up,
+ * the records are read back in order and the segments are closed. The segments are opened with
+ * {@link StandardOpenOption#DELETE_ON_CLOSE}.
+ *
+ * @param <T> the element type
+ */
+final class SpillStream<T> extends StreamBase<T> {
+    /**
+     * The options for the segment files.
+     */
+    private static final Set<OpenOption> SEGMENT_OPTIONS = Set.of(StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    /**
+     * The read queue.
+     */
+    private final RequestQueue reads = new RequestQueue();
+    /**
+     * The elements in memory.
+     */
+    private final ArrayDeque<T> memory = new ArrayDeque<>();
+    /**
+     * The segments with records that are not read yet, the last segment is used for writing.
+     */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    /**
+     * The upstream.
+     */
+    private final AStream<T> upstream;
+    /**
+     * The maximum amount of elements kept in memory.
+     */
+    private final int memoryLimit;
+    /**
+     * The element codec.
+     */
+    private final RpcCodec codec;
+    /**
+     * The file factory.
+     */
+    private final AFileFactory files;
+    /**
+     * The directory for the segments.
+     */
+    private final Path directory;
+    /**
+     * The segment size, after which the next segment is started.
+     */
+    private final long segmentSize;
+    /**
+     * The chunk size used to read the upstream.
+     */
+    private final int chunkSize;
+    /**
+     * The amount of records written, but not read yet.
+     */
+    private int pendingRecords;
+    /**
+     * True if the record is being read.
+     */
+    private boolean readInProgress;
+    /**
+     * True if the upstream is being read.
+     */
+    private boolean started;
+    /**
+     * True if the upstream is finished.
+     */
+    private boolean eof;
+    /**
+     * The upstream or spill failure.
+     */
+    private Throwable failure;
+
+    /**
+     * The constructor.
+     *
+     * @param upstream    the upstream
+     * @param memoryLimit the maximum amount of elements kept in memory
+     * @param codec       the element codec
+     * @param files       the file factory
+     * @param directory   the directory for segments
+     * @param segmentSize the segment size
+     * @param chunkSize   the chunk size used to read the upstream
+     */
+    SpillStream(final AStream<T> upstream, final int memoryLimit, final RpcCodec codec, final AFileFactory files,
+                final Path directory, final long segmentSize, final int chunkSize) {
+        if (memoryLimit < 0 || segmentSize <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid spill buffer parameters: memoryLimit = " + memoryLimit
+                    + ", segmentSize = " + segmentSize + ", chunkSize = " + chunkSize);
+        }
+        this.upstream = upstream;
+        this.memoryLimit = memoryLimit;
+        this.codec = codec;
+        this.files = files;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return true if there are elements on the disk, so new elements should be written there as well
+     */
+    private boolean spilling() {
+        return pendingRecords > 0 || readInProgress;
+    }
+
+    /**
+     * Start reading the upstream.
+     */
+    private void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        aSeqWhile(() -> {
+            if (!isValidAndOpen()) {
+                return aFalse();
+            }
+            return aNow(() -> upstream.nextChunk(chunkSize)).flatMap(chunk -> {
+                if (chunk.isEmpty()) {
+                    return aFalse();
+                }
+                return store(chunk).thenFlatGet(() -> {
+                    reads.resume();
+                    return aTrue();
+                });
+            });
+        }).listen(outcome -> {
+            if (outcome.isFailure()) {
+                failure = outcome.failure();
+            }
+            eof = true;
+            reads.resume();
+        });
+    }
+
+    /**
+     * Store the chunk in memory or on the disk.
+     *
+     * @param chunk the chunk
+     * @return when the chunk is stored
+     */
+    private Promise<Void> store(final List<T> chunk) {
+        final List<T> rest;
+        if (spilling()) {
+            rest = chunk;
+        } else {
+            final int fit = Math.min(chunk.size(), Math.max(0, memoryLimit - memory.size()));
+            memory.addAll(chunk.subList(0, fit));
+            if (fit == chunk.size()) {
+                return aVoid();
+            }
+            rest = chunk.subList(fit, chunk.size());
+        }
+        return aNow(() -> aValue(encode(rest))).flatMap(data -> writeSegment().flatMap(segment -> {
+            final long position = segment.writePosition;
+            segment.writePosition += data.length;
+            return segment.file.write(ByteBuffer.wrap(data), position).thenGet(() -> {
+                segment.records.addLast(data.length);
+                pendingRecords++;
+                return null;
+            });
+        }));
+    }
+
+    /**
+     * @return the segment for writing
+     */
+    private Promise<Segment> writeSegment() {
+        final Segment last = segments.peekLast();
+        if (last != null && last.writePosition < segmentSize) {
+            return aValue(last);
+        }
+        final Path path = directory.resolve("spill-" + UUID.randomUUID() + ".tmp");
+        return files.openRandomAccess(path, SEGMENT_OPTIONS).flatMap(file -> {
+            if (!isValidAndOpen()) {
+                return aNow(closeResourceAction(file)).thenFailure(new ResourceClosedException("Stream is closed"));
+            }
+            final Segment segment = new Segment(file);
+            segments.addLast(segment);
+            return aValue(segment);
+        });
+    }
+
+    /**
+     * Read the next record from the disk to memory.
+     *
+     * @return when the record is read
+     */
+    private Promise<Void> readRecord() {
+        Segment segment = segments.getFirst();
+        while (segment.records.isEmpty()) {
+            // the segment is completely read, and the writer has already moved to the next one
+            segments.removeFirst();
+            aNow(closeResourceAction(segment.file));
+            segment = segments.getFirst();
+        }
+        final int length = segment.records.removeFirst();
+        final long position = segment.readPosition;
+        segment.readPosition += length;
+        pendingRecords--;
+        readInProgress = true;
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        final ARandomAccessFile file = segment.file;
+        return aSeqWhile(() -> file.read(buffer, position + buffer.position()).flatMap(count -> {
+            if (count < 0) {
+                return aFailure(new EOFException("Spill segment is truncated"));
+            }
+            return aValue(buffer.hasRemaining());
+        })).flatMapOutcome(outcome -> {
+            readInProgress = false;
+            if (outcome.isFailure()) {
+                return aFailure(outcome.failure());
+            }
+            decode(buffer.array());
+            return aVoid();
+        });
+    }
+
+    /**
+     * Encode the chunk.
+     *
+     * @param chunk the chunk
+     * @return the record data
+     * @throws IOException if the element could not be encoded
+     */
+    private byte[] encode(final List<T> chunk) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(chunk.size());
+        for (final T value : chunk) {
+            codec.write(output, value);
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode the record to memory.
+     *
+     * @param data the record data
+     * @throws IOException if the record could not be decoded
+     */
+    @SuppressWarnings("unchecked")
+    private void decode(final byte[] data) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        final int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            memory.addLast((T) codec.read(input));
+        }
+    }
+
+    @Override
+    protected Promise<Maybe<T>> produce() {
+        return produceChunk(1).map(chunk -> chunk.isEmpty() ? Maybe.empty() : Maybe.of(chunk.get(0)));
+    }
+
+    @Override
+    protected Promise<List<T>> produceChunk(final int max) {
+        start();
+        return reads.runSeqUntilValue(() -> {
+            if (!isValidAndOpen()) {
+                return invalidationPromise();
+            }
+            if (!memory.isEmpty()) {
+                final List<T> chunk = new ArrayList<>(Math.min(max, memory.size()));
+                while (chunk.size() < max && !memory.isEmpty()) {
+                    chunk.add(memory.removeFirst());
+                }
+                return aMaybeValue(chunk);
+            }
+            if (pendingRecords > 0) {
+                return readRecord().thenFlatGet(() -> aMaybeEmpty());
+            }
+            if (eof) {
+                return failure != null ? aFailure(failure) : aMaybeValue(Collections.emptyList());
+            }
+            return reads.suspendThenEmpty();
+        });
+    }
+
+    @Override
+    protected Promise<Void> closeAction() {
+        reads.resume();
+        final List<Segment> toClose = new ArrayList<>(segments);
+        segments.clear();
+        return aAll(
+                closeResourceAction(upstream)
+        ).andLast(
+                () -> aAllForUnit(toClose.iterator(), segment -> aNow(closeResourceAction(segment.file)))
+        ).toVoid();
+    }
+
+    /**
+     * The segment file.
+     */
+    private static final class Segment {
+        /**
+         * The file.
+         */
+        private final ARandomAccessFile file;
+        /**
+         * The lengths of records that are not read yet.
+         */
+        private final ArrayDeque<Integer> records = new ArrayDeque<>();
+        /**
+         * The write position.
+         */
+        private long writePosition;
+        /**
+         * The read position.
+         */
+        private long readPosition;
+
+        /**
+         * The constructor.
+         *
+         * @param file the file
+         */
+        private Segment(final ARandomAccessFile file) {
+            this.file = file;
+        }
+    }
+}
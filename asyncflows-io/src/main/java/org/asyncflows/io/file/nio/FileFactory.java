@@ -68,9 +68,9 @@ public class FileFactory implements AFileFactory, ExportableComponent<AFileFacto
             StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND
     ).collect(Collectors.toSet());
     /**
-     * The executor service
+     * The executor service for blocking file operations
      */
-    private ExecutorService executorService = Vats.DAEMON_EXECUTOR;
+    private ExecutorService executorService = Vats.BLOCKING_EXECUTOR;
 
     /**
      * Set executor service.
@@ -28,6 +28,7 @@ import org.asyncflows.core.Promise;
 import org.asyncflows.core.data.Maybe;
 import org.asyncflows.core.function.ASupplier;
 import org.asyncflows.core.util.CloseableBase;
+import org.asyncflows.core.util.Deadline;
 import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.util.RequestQueue;
 import org.asyncflows.core.vats.Vat;
@@ -211,6 +212,7 @@ class SelectorSocket extends CloseableBase implements ASocket, ExportableCompone
         @SuppressWarnings("squid:S3776")
         @Override
         public Promise<Integer> read(final ByteBuffer buffer) {
+            final Deadline deadline = Deadline.currentOrNull();
             return requests.runSeqUntilValue(new ASupplier<Maybe<Integer>>() {
                 private boolean firstTime = true;
                 private int zeroCount;
@@ -220,6 +222,10 @@ class SelectorSocket extends CloseableBase implements ASocket, ExportableCompone
                     if (eofSeen) {
                         return IOUtil.EOF_MAYBE_PROMISE;
                     }
+                    if (deadline != null && deadline.isExpired()) {
+                        // do not start or continue waiting for data when there is no time left
+                        return aFailure(deadline.exceeded());
+                    }
                     if (buffer.remaining() == 0) {
                         return aMaybeValue(0);
                     }
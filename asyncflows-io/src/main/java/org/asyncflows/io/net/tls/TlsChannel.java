@@ -28,6 +28,7 @@ import org.asyncflows.core.function.AResolver;
 import org.asyncflows.core.util.ChainedClosable;
 import org.asyncflows.core.util.RequestQueue;
 import org.asyncflows.core.vats.Vat;
+import org.asyncflows.core.vats.Vats;
 import org.asyncflows.io.AChannel;
 import org.asyncflows.io.AInput;
 import org.asyncflows.io.AInputProxyFactory;
@@ -41,8 +42,10 @@ import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLSession;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
-import static org.asyncflows.core.AsyncContext.aDaemonRun;
+import static org.asyncflows.core.AsyncContext.aExecutorRun;
 import static org.asyncflows.core.CoreFlows.aFailure;
 import static org.asyncflows.core.CoreFlows.aFalse;
 import static org.asyncflows.core.CoreFlows.aMaybeValue;
@@ -69,6 +72,10 @@ public class TlsChannel<T extends AChannel<ByteBuffer>> extends ChainedClosable<
      * The tasks.
      */
     private final RequestQueue tasks = new RequestQueue();
+    /**
+     * The executor for delegated tasks of the SSL engine.
+     */
+    private Executor taskExecutor = Vats.BLOCKING_EXECUTOR;
     /**
      * The configured SSL engine.
      */
@@ -114,6 +121,16 @@ public class TlsChannel<T extends AChannel<ByteBuffer>> extends ChainedClosable<
         super(wrapped);
     }
 
+    /**
+     * Set executor for the delegated tasks of the SSL engine. The tasks are blocking and CPU-intensive, so
+     * the executor should be bounded. The default is {@link Vats#BLOCKING_EXECUTOR}.
+     *
+     * @param taskExecutor the executor
+     */
+    public void setTaskExecutor(final Executor taskExecutor) {
+        this.taskExecutor = Objects.requireNonNull(taskExecutor);
+    }
+
     /**
      * Invalidate channel with the problem, so most of the operations on it will fail.
      *
@@ -206,7 +223,7 @@ public class TlsChannel<T extends AChannel<ByteBuffer>> extends ChainedClosable<
                     if (delegatedTask == null) {
                         throw new IllegalStateException("No task to run");
                     }
-                    return aDaemonRun(delegatedTask).thenValue(true);
+                    return aExecutorRun(taskExecutor, delegatedTask).thenValue(true);
                 case NEED_WRAP:
                     ensureHandshakeStarted();
                     output.wraps.resume();
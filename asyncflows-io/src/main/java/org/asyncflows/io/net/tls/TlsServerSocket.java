@@ -28,6 +28,7 @@ import org.asyncflows.core.function.AFunction;
 import org.asyncflows.core.util.ChainedClosable;
 import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.vats.Vat;
+import org.asyncflows.core.vats.Vats;
 import org.asyncflows.io.net.AServerSocket;
 import org.asyncflows.io.net.ASocket;
 import org.asyncflows.io.net.SocketOptions;
@@ -35,6 +36,7 @@ import org.asyncflows.io.net.SocketOptions;
 import javax.net.ssl.SSLEngine;
 import java.net.SocketAddress;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 import static org.asyncflows.core.CoreFlows.aValue;
 import static org.asyncflows.core.CoreFlows.aVoid;
@@ -52,6 +54,10 @@ public class TlsServerSocket extends ChainedClosable<AServerSocket>
      * The local address.
      */
     private SocketAddress localAddress;
+    /**
+     * The executor for delegated tasks of accepted sockets.
+     */
+    private Executor taskExecutor = Vats.BLOCKING_EXECUTOR;
 
     /**
      * The constructor from the underlying object.
@@ -64,6 +70,15 @@ public class TlsServerSocket extends ChainedClosable<AServerSocket>
         this.engineFactory = engineFactory;
     }
 
+    /**
+     * Set executor for the delegated tasks of the accepted sockets.
+     *
+     * @param taskExecutor the executor
+     * @see TlsChannel#setTaskExecutor(Executor)
+     */
+    public void setTaskExecutor(final Executor taskExecutor) {
+        this.taskExecutor = Objects.requireNonNull(taskExecutor);
+    }
 
     @Override
     public Promise<Void> setEngineFactory(AFunction<SocketAddress, SSLEngine> engineFactory) {
@@ -108,6 +123,7 @@ public class TlsServerSocket extends ChainedClosable<AServerSocket>
     public Promise<ASocket> accept() {
         return wrapped.accept().flatMap(socket -> engineFactory.apply(localAddress).flatMap(engine -> {
             final TlsSocket sslSocket = new TlsSocket(socket, engineFactory);
+            sslSocket.setTaskExecutor(taskExecutor);
             return sslSocket.init(engine).thenValue(sslSocket.export());
         }));
     }
@@ -27,6 +27,7 @@ import org.asyncflows.core.Promise;
 import org.asyncflows.core.function.AFunction;
 import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.vats.Vat;
+import org.asyncflows.core.vats.Vats;
 import org.asyncflows.io.net.ADatagramSocket;
 import org.asyncflows.io.net.AServerSocket;
 import org.asyncflows.io.net.ASocket;
@@ -35,6 +36,8 @@ import org.asyncflows.io.net.ASocketFactoryProxyFactory;
 
 import javax.net.ssl.SSLEngine;
 import java.net.SocketAddress;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * The TLS socket factory.
@@ -52,17 +55,27 @@ public class TlsSocketFactory implements ASocketFactory, ExportableComponent<ASo
      * The underlying socket factory.
      */
     private ASocketFactory socketFactory;
+    /**
+     * The executor for delegated tasks of the SSL engines.
+     */
+    private Executor taskExecutor = Vats.BLOCKING_EXECUTOR;
 
     @Override
     public Promise<ASocket> makeSocket() {
-        return getSocketFactory().makeSocket().map(
-                value -> new TlsSocket(value, getClientEngineFactory()).export());
+        return getSocketFactory().makeSocket().map(value -> {
+            final TlsSocket socket = new TlsSocket(value, getClientEngineFactory());
+            socket.setTaskExecutor(taskExecutor);
+            return socket.export();
+        });
     }
 
     @Override
     public Promise<AServerSocket> makeServerSocket() {
-        return getSocketFactory().makeServerSocket().map(
-                value -> new TlsServerSocket(value, getServerEngineFactory()).export());
+        return getSocketFactory().makeServerSocket().map(value -> {
+            final TlsServerSocket socket = new TlsServerSocket(value, getServerEngineFactory());
+            socket.setTaskExecutor(taskExecutor);
+            return socket.export();
+        });
     }
 
     @Override
@@ -118,6 +131,22 @@ public class TlsSocketFactory implements ASocketFactory, ExportableComponent<ASo
         this.socketFactory = socketFactory;
     }
 
+    /**
+     * @return the executor for delegated tasks of the SSL engines
+     */
+    public Executor getTaskExecutor() {
+        return taskExecutor;
+    }
+
+    /**
+     * Set executor for delegated tasks of the SSL engines. The default is {@link Vats#BLOCKING_EXECUTOR}.
+     *
+     * @param taskExecutor the executor
+     */
+    public void setTaskExecutor(final Executor taskExecutor) {
+        this.taskExecutor = Objects.requireNonNull(taskExecutor, "taskExecutor");
+    }
+
     @Override
     public ASocketFactory export(final Vat vat) {
         return ASocketFactoryProxyFactory.createProxy(vat, this);
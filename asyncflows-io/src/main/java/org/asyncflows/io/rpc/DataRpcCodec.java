@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.rpc;
+
+import org.asyncflows.core.data.Maybe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compact tagged binary codec. It supports null, primitive wrappers, strings, byte arrays, lists,
+ * and {@link Maybe}. Java serialization of other values is supported only if enabled explicitly,
+ * as it is unsafe to use with untrusted peers.
+ */
+public final class DataRpcCodec implements RpcCodec {
+    /**
+     * The codec without support for java serialization.
+     */
+    public static final DataRpcCodec INSTANCE = new DataRpcCodec(false);
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int BYTE = 3;
+    private static final int SHORT = 4;
+    private static final int CHAR = 5;
+    private static final int INT = 6;
+    private static final int LONG = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int STRING = 10;
+    private static final int BYTES = 11;
+    private static final int LIST = 12;
+    private static final int MAYBE_EMPTY = 13;
+    private static final int MAYBE_VALUE = 14;
+    private static final int SERIALIZED = 15;
+    /**
+     * True if java serialization is allowed.
+     */
+    private final boolean serializable;
+
+    /**
+     * The constructor.
+     *
+     * @param serializable if true, java serialization is used for unsupported {@link Serializable} values.
+     */
+    public DataRpcCodec(final boolean serializable) {
+        this.serializable = serializable;
+    }
+
+    @Override
+    @SuppressWarnings("squid:S3776")
+    public void write(final DataOutput output, final Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            output.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            output.writeByte(INT);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof String) {
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            output.writeByte(STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            output.writeByte(BYTES);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else if (value instanceof Byte) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            output.writeByte(SHORT);
+            output.writeShort((Short) value);
+        } else if (value instanceof Character) {
+            output.writeByte(CHAR);
+            output.writeChar((Character) value);
+        } else if (value instanceof Float) {
+            output.writeByte(FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            output.writeByte(LIST);
+            output.writeInt(list.size());
+            for (final Object element : list) {
+                write(output, element);
+            }
+        } else if (value instanceof Maybe) {
+            final Maybe<?> maybe = (Maybe<?>) value;
+            if (maybe.isEmpty()) {
+                output.writeByte(MAYBE_EMPTY);
+            } else {
+                output.writeByte(MAYBE_VALUE);
+                write(output, maybe.of());
+            }
+        } else if (serializable && value instanceof Serializable) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            output.writeByte(SERIALIZED);
+            output.writeInt(bytes.size());
+            output.write(bytes.toByteArray());
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("squid:S3776")
+    public Object read(final DataInput input) throws IOException {
+        final int tag = input.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return input.readByte();
+            case SHORT:
+                return input.readShort();
+            case CHAR:
+                return input.readChar();
+            case INT:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case FLOAT:
+                return input.readFloat();
+            case DOUBLE:
+                return input.readDouble();
+            case STRING:
+                return new String(readBytes(input), StandardCharsets.UTF_8);
+            case BYTES:
+                return readBytes(input);
+            case LIST:
+                final int size = input.readInt();
+                if (size < 0) {
+                    throw new StreamCorruptedException("Negative list size: " + size);
+                }
+                final List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(read(input));
+                }
+                return list;
+            case MAYBE_EMPTY:
+                return Maybe.empty();
+            case MAYBE_VALUE:
+                return Maybe.of(read(input));
+            case SERIALIZED:
+                if (!serializable) {
+                    throw new StreamCorruptedException("Java serialization is not enabled");
+                }
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+                    return objects.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unable to read serialized value", e);
+                }
+            default:
+                throw new StreamCorruptedException("Unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * Read length-prefixed bytes.
+     *
+     * @param input the input
+     * @return the bytes
+     * @throws IOException if bytes could not be read
+     */
+    private static byte[] readBytes(final DataInput input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Negative length: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+}
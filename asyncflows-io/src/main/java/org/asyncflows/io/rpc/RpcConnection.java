@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.rpc;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.function.ACloseable;
+import org.asyncflows.core.function.AResolver;
+import org.asyncflows.core.remote.RemoteCalls;
+import org.asyncflows.core.remote.RemoteSkeleton;
+import org.asyncflows.core.util.ChainedClosable;
+import org.asyncflows.core.util.ResourceClosedException;
+import org.asyncflows.core.vats.Vat;
+import org.asyncflows.io.AChannel;
+import org.asyncflows.io.AInput;
+import org.asyncflows.io.AOutput;
+import org.asyncflows.io.util.ByteParserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.asyncflows.core.CoreFlows.aFailure;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aLaterOrNow;
+import static org.asyncflows.core.CoreFlows.aNow;
+import static org.asyncflows.core.CoreFlows.aOneWayOrNow;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+
+/**
+ * The RPC connection over a byte channel. Both sides of the connection could export objects
+ * and call objects exported by the other side. The objects are identified by integer identifiers
+ * chosen by the application. The calls are pipelined: they are sent without waiting for results of the
+ * previous calls, and the results are matched to calls by call identifiers, so many calls could be in progress
+ * over the same connection. The frames produced while a write is in progress are sent together with the next
+ * write.
+ * <p>
+ * The frame format (big-endian) is the following: the 32-bit length of the rest of the frame, the frame type
+ * byte, and the 32-bit call identifier. The request and one-way frames continue with the 32-bit object
+ * identifier, the 16-bit method index, the 8-bit argument count, and arguments. The success frame
+ * contains the result, and the failure frame contains the exception class name and the message.
+ * The values are encoded with {@link RpcCodec}.
+ * <p>
+ * The connection should be used from its vat, except for {@link RemoteCalls} returned by {@link #calls(int)},
+ * that could be used from any vat. The skeletons are invoked in the connection vat, so they normally
+ * should wrap exported services.
+ */
+public class RpcConnection extends ChainedClosable<ACloseable> {
+    /**
+     * The default maximum frame size.
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024;
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(RpcConnection.class);
+    /**
+     * The size of the frame length field.
+     */
+    private static final int LENGTH_SIZE = 4;
+    /**
+     * The maximum argument count.
+     */
+    private static final int MAX_ARGUMENTS = 255;
+    /**
+     * The maximum method index.
+     */
+    private static final int MAX_METHOD = 0xFFFF;
+    private static final int REQUEST = 1;
+    private static final int ONE_WAY = 2;
+    private static final int SUCCESS = 3;
+    private static final int FAILURE = 4;
+    /**
+     * The connection vat.
+     */
+    private final Vat vat;
+    /**
+     * The input.
+     */
+    private final AInput<ByteBuffer> input;
+    /**
+     * The output.
+     */
+    private final AOutput<ByteBuffer> output;
+    /**
+     * The codec.
+     */
+    private final RpcCodec codec;
+    /**
+     * The maximum frame size (excluding the length field).
+     */
+    private final int maxFrameSize;
+    /**
+     * The parser context.
+     */
+    private final ByteParserContext parser;
+    /**
+     * The exported objects.
+     */
+    private final Map<Integer, RemoteSkeleton> skeletons = new HashMap<>();
+    /**
+     * The calls waiting for results.
+     */
+    private final Map<Integer, AResolver<Object>> pending = new HashMap<>();
+    /**
+     * The frames that are collected for the next write.
+     */
+    private FrameBuffer collecting = new FrameBuffer();
+    /**
+     * The frames that are being written.
+     */
+    private FrameBuffer sending = new FrameBuffer();
+    /**
+     * The last started write loop.
+     */
+    private Promise<Void> writes;
+    /**
+     * True if the write loop is in progress.
+     */
+    private boolean writing;
+    /**
+     * The last call identifier.
+     */
+    private int lastCallId;
+    /**
+     * True if the reading is started.
+     */
+    private boolean started;
+
+    /**
+     * The constructor.
+     *
+     * @param channel      the underlying resource that is closed when connection is closed
+     * @param input        the input
+     * @param output       the output
+     * @param codec        the codec
+     * @param maxFrameSize the maximum frame size
+     */
+    public RpcConnection(final ACloseable channel, final AInput<ByteBuffer> input, final AOutput<ByteBuffer> output,
+                         final RpcCodec codec, final int maxFrameSize) {
+        super(channel);
+        this.vat = Vat.current();
+        this.input = input;
+        this.output = output;
+        this.codec = codec;
+        this.maxFrameSize = maxFrameSize;
+        this.parser = new ByteParserContext(input, Math.max(ByteParserContext.DEFAULT_BUFFER_SIZE,
+                maxFrameSize + LENGTH_SIZE));
+    }
+
+    /**
+     * Create the connection over the channel with default codec and start it.
+     *
+     * @param channel the channel
+     * @return the started connection
+     */
+    public static Promise<RpcConnection> aRpcConnection(final AChannel<ByteBuffer> channel) {
+        return aRpcConnection(channel, DataRpcCodec.INSTANCE, DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * Create the connection over the channel and start it.
+     *
+     * @param channel      the channel
+     * @param codec        the codec
+     * @param maxFrameSize the maximum frame size
+     * @return the started connection
+     */
+    public static Promise<RpcConnection> aRpcConnection(final AChannel<ByteBuffer> channel, final RpcCodec codec,
+                                                        final int maxFrameSize) {
+        return aAll(channel::getInput).and(channel::getOutput).map((input, output) -> {
+            final RpcConnection connection = new RpcConnection(channel, input, output, codec, maxFrameSize);
+            connection.start();
+            return aValue(connection);
+        });
+    }
+
+    /**
+     * Start reading from the input. The connection is closed when EOF is read.
+     */
+    public void start() {
+        if (started) {
+            throw new IllegalStateException("The connection is already started");
+        }
+        started = true;
+        aSeqWhile(this::readFrames).listen(o -> {
+            if (o.isFailure()) {
+                invalidate(o.failure());
+            }
+            startClosing();
+        });
+    }
+
+    /**
+     * Export the object.
+     *
+     * @param objectId the object identifier
+     * @param skeleton the skeleton (see generated {@code createRemoteSkeleton} methods)
+     */
+    public void export(final int objectId, final RemoteSkeleton skeleton) {
+        skeletons.put(objectId, skeleton);
+    }
+
+    /**
+     * Remove the exported object.
+     *
+     * @param objectId the object identifier
+     */
+    public void unexport(final int objectId) {
+        skeletons.remove(objectId);
+    }
+
+    /**
+     * Get calls for the object exported by the other side.
+     *
+     * @param objectId the object identifier
+     * @return the calls that could be used from any vat
+     */
+    public RemoteCalls calls(final int objectId) {
+        return new RemoteObject(objectId);
+    }
+
+    /**
+     * Get the stub for the object exported by the other side.
+     *
+     * @param objectId    the object identifier
+     * @param stubFactory the stub factory (see generated {@code createRemoteStub} methods)
+     * @param <T>         the stub type
+     * @return the stub
+     */
+    public <T> T remote(final int objectId, final Function<RemoteCalls, T> stubFactory) {
+        return stubFactory.apply(calls(objectId));
+    }
+
+    @Override
+    protected void onInvalidation(final Throwable throwable) {
+        failPending(throwable);
+    }
+
+    @Override
+    protected Promise<Void> beforeClose() {
+        failPending(closedException());
+        return writing ? writes.toOutcomePromise().toVoid() : aVoid();
+    }
+
+    /**
+     * @return the exception for calls over the closed connection
+     */
+    private static ResourceClosedException closedException() {
+        return new ResourceClosedException("The connection is closed");
+    }
+
+    /**
+     * Fail all pending calls.
+     *
+     * @param throwable the failure
+     */
+    private void failPending(final Throwable throwable) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final List<AResolver<Object>> resolvers = new ArrayList<>(pending.values());
+        pending.clear();
+        for (final AResolver<Object> resolver : resolvers) {
+            Outcome.notifyFailure(resolver, throwable);
+        }
+    }
+
+    /**
+     * Send the request.
+     *
+     * @param objectId the object identifier
+     * @param method   the method index
+     * @param args     the arguments
+     * @param <T>      the result type
+     * @return the promise for result
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Promise<T> call(final int objectId, final int method, final Object[] args) {
+        if (!isValidAndOpen()) {
+            return isValid() ? aFailure(closedException()) : invalidationPromise();
+        }
+        int callId = ++lastCallId;
+        if (callId == 0) {
+            callId = ++lastCallId;
+        }
+        try {
+            writeRequest(REQUEST, callId, objectId, method, args);
+        } catch (Throwable e) {
+            return aFailure(e);
+        }
+        final Promise<T> promise = new Promise<>();
+        pending.put(callId, (AResolver<Object>) promise.resolver());
+        flush();
+        return promise;
+    }
+
+    /**
+     * Send one-way request.
+     *
+     * @param objectId the object identifier
+     * @param method   the method index
+     * @param args     the arguments
+     * @throws Exception if the request could not be sent
+     */
+    private void send(final int objectId, final int method, final Object[] args) throws Exception {
+        ensureValid();
+        if (!isOpen()) {
+            throw closedException();
+        }
+        writeRequest(ONE_WAY, 0, objectId, method, args);
+        flush();
+    }
+
+    /**
+     * Write request frame.
+     *
+     * @param type     the frame type
+     * @param callId   the call identifier
+     * @param objectId the object identifier
+     * @param method   the method index
+     * @param args     the arguments
+     * @throws IOException if the frame could not be written
+     */
+    private void writeRequest(final int type, final int callId, final int objectId, final int method,
+                              final Object[] args) throws IOException {
+        final Object[] actualArgs = args == null ? new Object[0] : args;
+        if (method < 0 || method > MAX_METHOD) {
+            throw new IllegalArgumentException("Invalid method index: " + method);
+        }
+        if (actualArgs.length > MAX_ARGUMENTS) {
+            throw new IllegalArgumentException("Too many arguments: " + actualArgs.length);
+        }
+        final int start = collecting.startFrame(type, callId);
+        try {
+            final DataOutputStream data = collecting.data;
+            data.writeInt(objectId);
+            data.writeShort(method);
+            data.writeByte(actualArgs.length);
+            for (final Object arg : actualArgs) {
+                codec.write(data, arg);
+            }
+            collecting.endFrame(start, maxFrameSize);
+        } catch (IOException | RuntimeException e) {
+            collecting.truncate(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Write response frame.
+     *
+     * @param callId  the call identifier
+     * @param outcome the outcome
+     */
+    private void respond(final int callId, final Outcome<?> outcome) {
+        if (!isValidAndOpen()) {
+            return;
+        }
+        if (outcome.isSuccess()) {
+            final int start = collecting.startFrame(SUCCESS, callId);
+            try {
+                codec.write(collecting.data, outcome.value());
+                collecting.endFrame(start, maxFrameSize);
+                flush();
+                return;
+            } catch (IOException | RuntimeException e) {
+                collecting.truncate(start);
+                respondFailure(callId, e);
+            }
+        } else {
+            respondFailure(callId, outcome.failure());
+        }
+        flush();
+    }
+
+    /**
+     * Write failure frame.
+     *
+     * @param callId    the call identifier
+     * @param throwable the failure
+     */
+    private void respondFailure(final int callId, final Throwable throwable) {
+        final String className = throwable instanceof RemoteFailureException
+                ? ((RemoteFailureException) throwable).getRemoteClassName() : throwable.getClass().getName();
+        final String message = throwable instanceof RemoteFailureException
+                ? throwable.getMessage() : String.valueOf(throwable.getMessage());
+        final int start = collecting.startFrame(FAILURE, callId);
+        try {
+            codec.write(collecting.data, className);
+            codec.write(collecting.data, message);
+            collecting.endFrame(start, maxFrameSize);
+        } catch (IOException | RuntimeException e) {
+            collecting.truncate(start);
+            invalidate(e);
+        }
+    }
+
+    /**
+     * Start writing collected frames if needed.
+     */
+    private void flush() {
+        if (writing || collecting.size() == 0) {
+            return;
+        }
+        writing = true;
+        writes = aSeqWhile(() -> {
+            if (collecting.size() == 0 || !isValid()) {
+                writing = false;
+                return aFalse();
+            }
+            final FrameBuffer frames = collecting;
+            collecting = sending;
+            sending = frames;
+            return output.write(frames.toByteBuffer()).thenFlatGet(output::flush).thenGet(() -> {
+                frames.reset();
+                return true;
+            });
+        });
+        writes.listen(o -> {
+            if (o.isFailure()) {
+                writing = false;
+                invalidate(o.failure());
+            }
+        });
+    }
+
+    /**
+     * Read and handle the frames available in the buffer, and read more if needed.
+     *
+     * @return the promise that resolves to false when EOF is reached
+     * @throws IOException if the frame is invalid
+     */
+    private Promise<Boolean> readFrames() throws IOException {
+        if (!isValidAndOpen()) {
+            return aFalse();
+        }
+        final ByteBuffer buffer = parser.buffer();
+        while (buffer.remaining() >= LENGTH_SIZE) {
+            final int length = buffer.getInt(buffer.position());
+            if (length < 0 || length > maxFrameSize) {
+                throw new StreamCorruptedException("Invalid frame size: " + length);
+            }
+            if (buffer.remaining() < length + LENGTH_SIZE) {
+                break;
+            }
+            buffer.position(buffer.position() + LENGTH_SIZE);
+            final int frameStart = buffer.position();
+            buffer.position(frameStart + length);
+            handleFrame(new DataInputStream(new ByteArrayInputStream(buffer.array(),
+                    buffer.arrayOffset() + frameStart, length)));
+        }
+        if (parser.isEofSeen()) {
+            if (buffer.hasRemaining()) {
+                throw new StreamCorruptedException("EOF inside the frame");
+            }
+            return aFalse();
+        }
+        return parser.readMore();
+    }
+
+    /**
+     * Handle the frame.
+     *
+     * @param data the frame data
+     * @throws IOException if frame header is invalid
+     */
+    @SuppressWarnings("squid:S3776")
+    private void handleFrame(final DataInputStream data) throws IOException {
+        final int type = data.readUnsignedByte();
+        final int callId = data.readInt();
+        switch (type) {
+            case REQUEST:
+            case ONE_WAY:
+                final int objectId = data.readInt();
+                final int method = data.readUnsignedShort();
+                final Object[] args = new Object[data.readUnsignedByte()];
+                try {
+                    for (int i = 0; i < args.length; i++) {
+                        args[i] = codec.read(data);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (type == REQUEST) {
+                        respond(callId, Outcome.failure(e));
+                    } else {
+                        LOG.error("Unable to decode one-way call arguments", e);
+                    }
+                    return;
+                }
+                dispatch(type, callId, objectId, method, args);
+                break;
+            case SUCCESS:
+            case FAILURE:
+                final AResolver<Object> resolver = pending.remove(callId);
+                if (resolver == null) {
+                    throw new StreamCorruptedException("Unknown call identifier: " + callId);
+                }
+                try {
+                    if (type == SUCCESS) {
+                        Outcome.notifySuccess(resolver, codec.read(data));
+                    } else {
+                        final Object className = codec.read(data);
+                        final Object message = codec.read(data);
+                        Outcome.notifyFailure(resolver, new RemoteFailureException(String.valueOf(className),
+                                message == null ? null : String.valueOf(message)));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    Outcome.notifyFailure(resolver, e);
+                }
+                break;
+            default:
+                throw new StreamCorruptedException("Unknown frame type: " + type);
+        }
+    }
+
+    /**
+     * Dispatch the call to the skeleton.
+     *
+     * @param type     the frame type
+     * @param callId   the call identifier
+     * @param objectId the object identifier
+     * @param method   the method index
+     * @param args     the arguments
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatch(final int type, final int callId, final int objectId, final int method,
+                          final Object[] args) {
+        final RemoteSkeleton skeleton = skeletons.get(objectId);
+        if (type == ONE_WAY) {
+            try {
+                if (skeleton == null) {
+                    throw new IllegalArgumentException("Unknown remote object: " + objectId);
+                }
+                skeleton.invoke(method, args);
+            } catch (Throwable e) {
+                LOG.error("One-way remote call failed", e);
+            }
+            return;
+        }
+        final Promise<Object> result = skeleton == null
+                ? aFailure(new IllegalArgumentException("Unknown remote object: " + objectId))
+                : aNow(() -> (Promise<Object>) skeleton.invoke(method, args));
+        result.listen(o -> respond(callId, o));
+    }
+
+    /**
+     * The buffer for frames.
+     */
+    private static final class FrameBuffer extends ByteArrayOutputStream {
+        /**
+         * The data output over this buffer.
+         */
+        private final DataOutputStream data = new DataOutputStream(this);
+
+        /**
+         * Start the frame.
+         *
+         * @param type   the frame type
+         * @param callId the call identifier
+         * @return the frame start position
+         */
+        private int startFrame(final int type, final int callId) {
+            final int start = count;
+            try {
+                data.writeInt(0);
+                data.writeByte(type);
+                data.writeInt(callId);
+            } catch (IOException e) {
+                throw new IllegalStateException("In-memory write failed", e);
+            }
+            return start;
+        }
+
+        /**
+         * Finish the frame and update its length.
+         *
+         * @param start        the frame start position
+         * @param maxFrameSize the maximum frame size
+         * @throws IOException if the frame is too large
+         */
+        private void endFrame(final int start, final int maxFrameSize) throws IOException {
+            final int length = count - start - LENGTH_SIZE;
+            if (length > maxFrameSize) {
+                throw new IOException("The frame is too large: " + length);
+            }
+            buf[start] = (byte) (length >>> 24);
+            buf[start + 1] = (byte) (length >>> 16);
+            buf[start + 2] = (byte) (length >>> 8);
+            buf[start + 3] = (byte) length;
+        }
+
+        /**
+         * Truncate the buffer.
+         *
+         * @param size the new size
+         */
+        private void truncate(final int size) {
+            count = size;
+        }
+
+        /**
+         * @return the byte buffer over the buffer content (valid until the next modification)
+         */
+        private ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    /**
+     * The calls for the remote object.
+     */
+    private final class RemoteObject implements RemoteCalls {
+        /**
+         * The object identifier.
+         */
+        private final int objectId;
+
+        /**
+         * The constructor.
+         *
+         * @param objectId the object identifier
+         */
+        private RemoteObject(final int objectId) {
+            this.objectId = objectId;
+        }
+
+        @Override
+        public <T> Promise<T> call(final int method, final Object... args) {
+            return aLaterOrNow(vat, () -> RpcConnection.this.call(objectId, method, args));
+        }
+
+        @Override
+        public void send(final int method, final Object... args) {
+            aOneWayOrNow(vat, () -> RpcConnection.this.send(objectId, method, args));
+        }
+    }
+}
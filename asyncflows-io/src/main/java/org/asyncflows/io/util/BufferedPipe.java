@@ -210,10 +210,10 @@ public class BufferedPipe<B extends Buffer> implements AChannel<B>, ExportableCo
                     return inputClosed("write");
                 }
                 operations.append(pipeBuffer, buffer);
+                input.requests.resume();
                 if (!buffer.hasRemaining()) {
                     return aFalse();
                 }
-                input.requests.resume();
                 return requests.suspendThenTrue();
             });
         }
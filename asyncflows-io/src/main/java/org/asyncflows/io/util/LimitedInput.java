@@ -97,7 +97,8 @@ public class LimitedInput<B extends Buffer>
             if (limit - readAmount < buffer.remaining()) {
                 buffer.limit(savedLimit - buffer.remaining() + (int) (limit - readAmount));
             }
-            return input.read(buffer).listen(resolution -> {
+            // the limit is restored when the read resolves, as the caller could reuse the buffer right after that
+            return input.read(buffer).listenSync(resolution -> {
                 if (resolution.isSuccess() && !isEof(resolution.value())) {
                     readAmount += resolution.value();
                 }
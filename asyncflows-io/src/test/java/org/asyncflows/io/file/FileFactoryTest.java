@@ -46,7 +46,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class FileFactoryTest {
     private static final byte[] SMALL_DATA = "Small Data\n".getBytes(StandardCharsets.UTF_8);
 
-    private static String getMavenTargetDirectory() {
+    static String getMavenTargetDirectory() {
         Class<FileFactoryTest> context = FileFactoryTest.class;
         String resourceName = context.getName().replaceAll("\\.", "/") + ".class";
         URL resource = context.getClassLoader().getResource(resourceName);
@@ -96,7 +96,7 @@ class FileFactoryTest {
                     () -> aTry(files.openOutput(file)).run(this::writeSmallData)
             ).thenFlatGet(
                     () -> aTry(files.openOutput(file)).run(
-                            f -> writeSmallData(f).thenGet(() -> writeSmallData(f)))
+                            f -> writeSmallData(f).thenFlatGet(() -> writeSmallData(f)))
             );
         });
         assertEquals(SMALL_DATA.length * 2L, new File(file).length());
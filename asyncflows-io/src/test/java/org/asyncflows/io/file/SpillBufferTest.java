@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.file;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.function.AResolver;
+import org.asyncflows.io.file.nio.FileFactory;
+import org.asyncflows.io.rpc.DataRpcCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.streams.AsyncStreams.aForRange;
+import static org.asyncflows.io.file.SpillBuffer.spillBuffer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link SpillBuffer}.
+ */
+class SpillBufferTest {
+
+    @Test
+    void testSpill() {
+        final File directory = new File(FileFactoryTest.getMavenTargetDirectory() + "/test-standbox/spill-tests");
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+        final Path path = directory.toPath();
+        final int count = 10000;
+        final List<Integer> result = doAsync(() -> {
+            final AFileFactory files = new FileFactory().export();
+            final Promise<Void> produced = new Promise<>();
+            final AResolver<Void> producedResolver = produced.resolver();
+            return aForRange(0, count).mapSync(v -> {
+                if (v == count - 1) {
+                    producedResolver.resolve(Outcome.success(null));
+                }
+                return v;
+            }).transform(spillBuffer(100, DataRpcCodec.INSTANCE, files, path, 1024)).map(
+                    // the consumer waits until the producer finishes, so most elements are spilled to the disk
+                    v -> v == 0 ? produced.thenValue(v) : aValue(v)
+            ).toList();
+        });
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, result);
+        final String[] remaining = directory.list();
+        assertEquals(0, remaining == null ? 0 : remaining.length);
+    }
+}
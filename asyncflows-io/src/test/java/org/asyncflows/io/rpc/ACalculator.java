@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.rpc;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.annotations.Asynchronous;
+
+import java.util.List;
+
+/**
+ * The test interface for remote calls.
+ */
+@Asynchronous(remote = true)
+public interface ACalculator {
+    /**
+     * Add two numbers.
+     *
+     * @param a the first number
+     * @param b the second number
+     * @return the sum
+     */
+    Promise<Long> add(long a, long b);
+
+    /**
+     * Concatenate strings.
+     *
+     * @param values the values
+     * @return the concatenated string
+     */
+    Promise<String> concat(List<String> values);
+
+    /**
+     * Join strings passed as an array.
+     *
+     * @param values the values
+     * @return the joined string
+     */
+    Promise<String> join(String[] values);
+
+    /**
+     * Divide numbers.
+     *
+     * @param a the dividend
+     * @param b the divisor
+     * @return the quotient
+     */
+    Promise<Integer> divide(int a, int b);
+
+    /**
+     * Add to the accumulator.
+     *
+     * @param value the value
+     */
+    void accumulate(int value);
+
+    /**
+     * @return the accumulated value
+     */
+    Promise<Integer> accumulated();
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.rpc;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.io.net.ASocket;
+import org.asyncflows.io.net.ASocketFactory;
+import org.asyncflows.io.net.SocketOptions;
+import org.asyncflows.io.net.selector.SelectorVatUtil;
+
+import java.net.InetSocketAddress;
+import java.util.stream.IntStream;
+
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForUnit;
+import static org.asyncflows.core.util.CoreFlowsResource.aTry;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+import static org.asyncflows.io.rpc.RpcConnection.aRpcConnection;
+
+/**
+ * The loopback throughput benchmark for RPC over selector sockets. The calls are made by the specified
+ * number of concurrent callers over the single connection, so the pipeline depth is equal to the number of
+ * callers. Run it manually using the main method, the arguments could be used to select pipeline depths.
+ */
+public final class RpcBenchmark {
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+    private static final int CALLS = 200_000;
+
+    private RpcBenchmark() {
+        // do nothing
+    }
+
+    public static void main(String[] args) throws Throwable {
+        final int[] depths = args.length == 0 ? new int[]{1, 16, 256}
+                : IntStream.range(0, args.length).map(i -> Integer.parseInt(args[i])).toArray();
+        for (final int depth : depths) {
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < WARMUP + ROUNDS; i++) {
+                final double time = SelectorVatUtil.doAsyncIoThrowable(f -> run(f, depth));
+                if (i >= WARMUP) {
+                    best = Math.min(best, time);
+                }
+            }
+            System.out.printf("depth %4d: %10.0f calls/s (%.2f us/call)%n", depth, 1e9 / best, best / 1000.0);
+        }
+    }
+
+    private static Promise<Double> run(final ASocketFactory factory, final int depth) {
+        final SocketOptions options = new SocketOptions();
+        options.setTpcNoDelay(true);
+        return aTry(factory.makeServerSocket()).run(serverSocket -> serverSocket.bind(
+                new InetSocketAddress("localhost", 0)).flatMap(address -> aAll(
+                () -> serverSocket.accept()
+        ).and(
+                () -> factory.makeSocket().flatMap(socket -> socket.connect(address).thenValue(socket))
+        ).map((serverSide, clientSide) -> aTry(connect(serverSide, options)).andOther(
+                connect(clientSide, options)).run((server, client) -> {
+            server.export(1, ACalculatorProxyFactory.createRemoteSkeleton(new RpcTestUtil.Calculator()));
+            final ACalculator calculator = client.remote(1, ACalculatorProxyFactory::createRemoteStub);
+            final long start = System.nanoTime();
+            return aAllForUnit(IntStream.range(0, depth).boxed(), caller -> {
+                final int[] remaining = {CALLS / depth};
+                return aSeqWhile(() -> remaining[0]-- <= 0 ? aFalse()
+                        : calculator.add(caller, remaining[0]).thenFlatGet(() -> aTrue()));
+            }).thenFlatGet(() -> aValue((double) (System.nanoTime() - start) / (CALLS / depth * depth)));
+        }))));
+    }
+
+    private static Promise<RpcConnection> connect(final ASocket socket, final SocketOptions options) {
+        return socket.setOptions(options).thenFlatGet(() -> aRpcConnection(socket));
+    }
+}
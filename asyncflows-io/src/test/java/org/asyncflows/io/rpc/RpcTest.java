@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.rpc;
+
+import org.asyncflows.core.Outcome;
+import org.asyncflows.core.util.ResourceClosedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+import static org.asyncflows.core.util.CoreFlowsAll.aAllForCollect;
+import static org.asyncflows.core.util.CoreFlowsResource.aTry;
+import static org.asyncflows.io.rpc.RpcConnection.aRpcConnection;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for RPC connection.
+ */
+public class RpcTest {
+
+    @Test
+    public void testCalls() {
+        final List<Object> result = doAsync(() -> RpcTestUtil.aChannelPair(64).flatMap(
+                channels -> aTry(aRpcConnection(channels.getValue1())).andOther(aRpcConnection(channels.getValue2()))
+                        .run((client, server) -> {
+                            server.export(1, ACalculatorProxyFactory.createRemoteSkeleton(
+                                    new RpcTestUtil.Calculator()));
+                            final ACalculator calculator = client.remote(1,
+                                    ACalculatorProxyFactory::createRemoteStub);
+                            calculator.accumulate(2);
+                            calculator.accumulate(3);
+                            return aAll(
+                                    () -> calculator.add(1, 2)
+                            ).and(
+                                    () -> calculator.concat(Arrays.asList("a", null, "c"))
+                            ).and(
+                                    () -> calculator.divide(1, 0).toOutcomePromise()
+                            ).and(
+                                    calculator::accumulated
+                            ).map((sum, text, division, accumulated) ->
+                                    aValue(Arrays.asList(sum, text, division, accumulated)));
+                        })));
+        assertEquals(3L, result.get(0));
+        assertEquals("anullc", result.get(1));
+        final Outcome<?> division = (Outcome<?>) result.get(2);
+        assertTrue(division.isFailure());
+        assertEquals(ArithmeticException.class.getName(),
+                ((RemoteFailureException) division.failure()).getRemoteClassName());
+        assertEquals(5, result.get(3));
+    }
+
+    @Test
+    public void testArrayArgument() {
+        final DataRpcCodec codec = new DataRpcCodec(true);
+        final String result = doAsync(() -> RpcTestUtil.aChannelPair(64).flatMap(
+                channels -> aTry(aRpcConnection(channels.getValue1(), codec, RpcConnection.DEFAULT_MAX_FRAME_SIZE))
+                        .andOther(aRpcConnection(channels.getValue2(), codec, RpcConnection.DEFAULT_MAX_FRAME_SIZE))
+                        .run((client, server) -> {
+                            server.export(1, ACalculatorProxyFactory.createRemoteSkeleton(
+                                    new RpcTestUtil.Calculator()));
+                            final ACalculator calculator = client.remote(1,
+                                    ACalculatorProxyFactory::createRemoteStub);
+                            // the single array parameter is passed as one argument rather than as varargs
+                            return calculator.join(new String[]{"a", "b", "c"});
+                        })));
+        assertEquals("a,b,c", result);
+    }
+
+    @Test
+    public void testPipelining() {
+        final int count = 1000;
+        final List<Long> result = doAsync(() -> RpcTestUtil.aChannelPair(256).flatMap(
+                channels -> aTry(aRpcConnection(channels.getValue1())).andOther(aRpcConnection(channels.getValue2()))
+                        .run((client, server) -> {
+                            server.export(1, ACalculatorProxyFactory.createRemoteSkeleton(
+                                    new RpcTestUtil.Calculator()));
+                            final ACalculator calculator = client.remote(1,
+                                    ACalculatorProxyFactory::createRemoteStub);
+                            return aAllForCollect(IntStream.range(0, count).boxed(),
+                                    i -> calculator.add(i, 1), Collectors.toList());
+                        })));
+        assertEquals(count, result.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1L, result.get(i));
+        }
+    }
+
+    @Test
+    public void testClose() {
+        final Outcome<Integer> result = doAsync(() -> RpcTestUtil.aChannelPair(64).flatMap(
+                channels -> aTry(aRpcConnection(channels.getValue1())).andOther(aRpcConnection(channels.getValue2()))
+                        .run((client, server) -> {
+                            final ACalculator calculator = client.remote(1,
+                                    ACalculatorProxyFactory::createRemoteStub);
+                            // nothing is exported on the server, so the call fails
+                            return calculator.accumulated().toOutcomePromise().flatMap(unknown -> {
+                                assertTrue(unknown.isFailure());
+                                assertEquals(IllegalArgumentException.class.getName(),
+                                        ((RemoteFailureException) unknown.failure()).getRemoteClassName());
+                                return server.close().thenFlatGet(
+                                        () -> calculator.accumulated().toOutcomePromise());
+                            });
+                        })));
+        assertTrue(result.isFailure());
+        assertTrue(result.failure() instanceof ResourceClosedException, result.failure().toString());
+    }
+}
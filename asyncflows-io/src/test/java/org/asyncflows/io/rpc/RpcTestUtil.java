@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.io.rpc;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.data.Tuple2;
+import org.asyncflows.io.AChannel;
+import org.asyncflows.io.util.BufferedPipe;
+import org.asyncflows.io.util.SimpleChannel;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.asyncflows.core.CoreFlows.aValue;
+import static org.asyncflows.core.util.CoreFlowsAll.aAll;
+
+/**
+ * The test utilities for RPC.
+ */
+public final class RpcTestUtil {
+    /**
+     * The private constructor for utility class.
+     */
+    private RpcTestUtil() {
+    }
+
+    /**
+     * Create pair of connected channels over pipes.
+     *
+     * @param size the pipe buffer size
+     * @return the connected channels
+     */
+    public static Promise<Tuple2<AChannel<ByteBuffer>, AChannel<ByteBuffer>>> aChannelPair(final int size) {
+        final AChannel<ByteBuffer> first = BufferedPipe.bytePipe(size);
+        final AChannel<ByteBuffer> second = BufferedPipe.bytePipe(size);
+        return aAll(first::getInput).and(first::getOutput).and(second::getInput).and(second::getOutput).map(
+                (firstInput, firstOutput, secondInput, secondOutput) -> aValue(Tuple2.of(
+                        new SimpleChannel<>(firstInput, secondOutput),
+                        new SimpleChannel<>(secondInput, firstOutput))));
+    }
+
+    /**
+     * The calculator implementation.
+     */
+    public static final class Calculator implements ACalculator {
+        /**
+         * The accumulated value.
+         */
+        private int accumulated;
+
+        @Override
+        public Promise<Long> add(final long a, final long b) {
+            return aValue(a + b);
+        }
+
+        @Override
+        public Promise<String> concat(final List<String> values) {
+            return aValue(String.join("", values));
+        }
+
+        @Override
+        public Promise<String> join(final String[] values) {
+            return aValue(String.join(",", values));
+        }
+
+        @Override
+        public Promise<Integer> divide(final int a, final int b) {
+            return aValue(a / b);
+        }
+
+        @Override
+        public void accumulate(final int value) {
+            accumulated += value;
+        }
+
+        @Override
+        public Promise<Integer> accumulated() {
+            return aValue(accumulated);
+        }
+    }
+}
@@ -53,6 +53,7 @@ import org.asyncflows.core.data.Cell;
 import org.asyncflows.core.function.ACloseable;
 import org.asyncflows.core.util.CloseableBase;
 import org.asyncflows.core.util.CloseableInvalidatingBase;
+import org.asyncflows.core.util.Deadline;
 import org.asyncflows.core.util.ExportableComponent;
 import org.asyncflows.core.util.RequestQueue;
 import org.asyncflows.core.util.ResourceClosedException;
@@ -332,6 +333,12 @@ public class SimpleHttpClient extends CloseableBase implements AHttpClient, Expo
         @Override
         public Promise<AOutput<ByteBuffer>> request(final Scope scope, final String method, final URI uri,
                                                     final HttpHeaders headersClient, final Long length) {
+            final Deadline deadline = Deadline.currentOrNull();
+            if (deadline != null && deadline.isExpired()) {
+                final Throwable exceeded = deadline.exceeded();
+                invalidate(exceeded);
+                return aFailure(exceeded);
+            }
             try {
                 if (!uri.getScheme().equalsIgnoreCase("http")) {
                     // TODO add https later
@@ -349,6 +356,10 @@ public class SimpleHttpClient extends CloseableBase implements AHttpClient, Expo
                     key = toKey(uri);
                 }
                 return aSeqUntilValue(() -> {
+                    if (deadline != null) {
+                        // do not retry on other connection when there is no time left
+                        deadline.check();
+                    }
                     final AHttpRequest r = peekReady(key);
                     if (r != null) {
                         return r.request(scope, method, uri, headers, length).flatMapOutcome(
@@ -71,7 +71,8 @@ public class CountingOutput<B extends Buffer> extends CountingStreamBase impleme
     @Override
     public Promise<Void> write(final B buffer) {
         final int amount = buffer.remaining();
-        return output.write(buffer).listen(resolution -> {
+        // the buffer is checked when the write resolves, as the caller could reuse it right after that
+        return output.write(buffer).listenSync(resolution -> {
             if (resolution.isSuccess()) {
                 transferred(amount - buffer.remaining());
             } else {
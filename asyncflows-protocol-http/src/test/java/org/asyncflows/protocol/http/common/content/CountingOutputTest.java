@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018-2020 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.asyncflows.protocol.http.common.content;
+
+import org.asyncflows.core.Promise;
+import org.asyncflows.core.vats.Vat;
+import org.asyncflows.io.AOutput;
+import org.asyncflows.io.AOutputProxyFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.asyncflows.core.AsyncContext.doAsync;
+import static org.asyncflows.core.CoreFlows.aFalse;
+import static org.asyncflows.core.CoreFlows.aLater;
+import static org.asyncflows.core.CoreFlows.aTrue;
+import static org.asyncflows.core.CoreFlows.aVoid;
+import static org.asyncflows.core.util.CoreFlowsSeq.aSeqWhile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The test for {@link CountingOutput}.
+ */
+public class CountingOutputTest {
+    @Test
+    public void testReusedBuffer() {
+        final List<StreamFinishedEvent> events = new ArrayList<>();
+        doAsync(() -> {
+            // the proxy for the current vat writes immediately, so the writes complete before they return
+            final AOutput<ByteBuffer> output = new CountingOutput<>(
+                    AOutputProxyFactory.createProxy(Vat.current(), new ConsumingOutput()), events::add);
+            final ByteBuffer buffer = ByteBuffer.allocate(32);
+            final int[] size = {0};
+            return aSeqWhile(() -> {
+                buffer.clear();
+                buffer.put(new byte[++size[0]]);
+                buffer.flip();
+                if (size[0] > 20) {
+                    // the data for the next write is ready before the write listeners run
+                    return aFalse();
+                }
+                return output.write(buffer).thenFlatGet(() -> aTrue());
+            }).thenFlatGet(() -> aLater(output::close));
+        });
+        assertEquals(1, events.size());
+        assertNull(events.get(0).getFailure());
+        assertEquals(20 * 21 / 2, events.get(0).getTransferred());
+    }
+
+    /**
+     * The output that consumes all data.
+     */
+    private static final class ConsumingOutput implements AOutput<ByteBuffer> {
+        @Override
+        public Promise<Void> write(final ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+            return aVoid();
+        }
+
+        @Override
+        public Promise<Void> flush() {
+            return aVoid();
+        }
+
+        @Override
+        public Promise<Void> close() {
+            return aVoid();
+        }
+    }
+}